@@ -0,0 +1,128 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.lucene.index.sorter;
+
+import org.apache.lucene.index.*;
+import org.apache.lucene.index.MergePolicy.OneMerge;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.packed.MonotonicAppendingLongBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link OneMerge} that sorts the merged segment the same way as the merges of {@link SortingMergePolicy},
+ * but which lets sub classes wrap the readers of the merged segments before they get sorted.
+ * <p/>
+ * {@link SortingMergePolicy} creates its own merges, so its merges can't be combined with merges that
+ * change the readers (like the ones that upgrade old segments): wrapping one of them loses the other.
+ * Segments merged by this class are seen as sorted by {@link SortingMergePolicy#isSorted}.
+ */
+public class XSortingOneMerge extends OneMerge {
+
+    private final Sorter sorter;
+    private List<AtomicReader> unsortedReaders;
+    private Sorter.DocMap docMap;
+    private AtomicReader sortedView;
+
+    public XSortingOneMerge(List<SegmentCommitInfo> segments, Sort sort) {
+        super(segments);
+        this.sorter = new Sorter(sort);
+    }
+
+    /**
+     * Wraps a reader of the merged segments before the documents are sorted, returns the reader by default.
+     */
+    protected AtomicReader wrapForMerge(AtomicReader reader) throws IOException {
+        return reader;
+    }
+
+    @Override
+    public List<AtomicReader> getMergeReaders() throws IOException {
+        if (unsortedReaders == null) {
+            final List<AtomicReader> readers = new ArrayList<>();
+            for (AtomicReader reader : super.getMergeReaders()) {
+                readers.add(wrapForMerge(reader));
+            }
+            unsortedReaders = Collections.unmodifiableList(readers);
+            final AtomicReader atomicView;
+            if (unsortedReaders.size() == 1) {
+                atomicView = unsortedReaders.get(0);
+            } else {
+                final IndexReader multiReader = new MultiReader(unsortedReaders.toArray(new AtomicReader[unsortedReaders.size()]));
+                atomicView = SlowCompositeReaderWrapper.wrap(multiReader);
+            }
+            docMap = sorter.sort(atomicView);
+            sortedView = SortingAtomicReader.wrap(atomicView, docMap);
+        }
+        // a null doc map means that the readers are already sorted
+        return docMap == null ? unsortedReaders : Collections.singletonList(sortedView);
+    }
+
+    @Override
+    public void setInfo(SegmentCommitInfo info) {
+        Map<String, String> diagnostics = info.info.getDiagnostics();
+        diagnostics.put(SortingMergePolicy.SORTER_ID_PROP, sorter.getID());
+        super.setInfo(info);
+    }
+
+    private MonotonicAppendingLongBuffer getDeletes(List<AtomicReader> readers) {
+        MonotonicAppendingLongBuffer deletes = new MonotonicAppendingLongBuffer();
+        int deleteCount = 0;
+        for (AtomicReader reader : readers) {
+            final int maxDoc = reader.maxDoc();
+            final Bits liveDocs = reader.getLiveDocs();
+            for (int i = 0; i < maxDoc; ++i) {
+                if (liveDocs != null && !liveDocs.get(i)) {
+                    ++deleteCount;
+                } else {
+                    deletes.add(deleteCount);
+                }
+            }
+        }
+        deletes.freeze();
+        return deletes;
+    }
+
+    @Override
+    public MergePolicy.DocMap getDocMap(final MergeState mergeState) {
+        if (unsortedReaders == null) {
+            throw new IllegalStateException();
+        }
+        if (docMap == null) {
+            return super.getDocMap(mergeState);
+        }
+        assert mergeState.docMaps.length == 1; // we returned a singleton reader
+        final MonotonicAppendingLongBuffer deletes = getDeletes(unsortedReaders);
+        return new MergePolicy.DocMap() {
+            @Override
+            public int map(int old) {
+                final int oldWithDeletes = old + (int) deletes.get(old);
+                final int newWithDeletes = docMap.oldToNew(oldWithDeletes);
+                return mergeState.docMaps[0].get(newWithDeletes);
+            }
+        };
+    }
+}
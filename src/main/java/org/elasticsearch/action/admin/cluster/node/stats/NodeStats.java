@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.support.nodes.NodeOperationResponse;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Nullable;
@@ -26,6 +27,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.http.HttpStats;
 import org.elasticsearch.indices.NodeIndicesStats;
 import org.elasticsearch.indices.fielddata.breaker.FieldDataBreakerStats;
@@ -77,13 +79,16 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
     @Nullable
     private FieldDataBreakerStats breaker;
 
+    @Nullable
+    private DiscoveryStats discovery;
+
     NodeStats() {
     }
 
     public NodeStats(DiscoveryNode node, long timestamp, @Nullable NodeIndicesStats indices,
                      @Nullable OsStats os, @Nullable ProcessStats process, @Nullable JvmStats jvm, @Nullable ThreadPoolStats threadPool,
                      @Nullable NetworkStats network, @Nullable FsStats fs, @Nullable TransportStats transport, @Nullable HttpStats http,
-                     @Nullable FieldDataBreakerStats breaker) {
+                     @Nullable FieldDataBreakerStats breaker, @Nullable DiscoveryStats discovery) {
         super(node);
         this.timestamp = timestamp;
         this.indices = indices;
@@ -96,6 +101,7 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         this.transport = transport;
         this.http = http;
         this.breaker = breaker;
+        this.discovery = discovery;
     }
 
     public long getTimestamp() {
@@ -178,6 +184,11 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         return this.breaker;
     }
 
+    @Nullable
+    public DiscoveryStats getDiscovery() {
+        return this.discovery;
+    }
+
     public static NodeStats readNodeStats(StreamInput in) throws IOException {
         NodeStats nodeInfo = new NodeStats();
         nodeInfo.readFrom(in);
@@ -216,6 +227,9 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
             http = HttpStats.readHttpStats(in);
         }
         breaker = FieldDataBreakerStats.readOptionalCircuitBreakerStats(in);
+        if (in.getVersion().onOrAfter(Version.V_2_0_0) && in.readBoolean()) {
+            discovery = DiscoveryStats.readDiscoveryStats(in);
+        }
     }
 
     @Override
@@ -277,6 +291,9 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
             http.writeTo(out);
         }
         out.writeOptionalStreamable(breaker);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeOptionalStreamable(discovery);
+        }
     }
 
     @Override
@@ -327,6 +344,9 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         if (getBreaker() != null) {
             getBreaker().toXContent(builder, params);
         }
+        if (getDiscovery() != null) {
+            getDiscovery().toXContent(builder, params);
+        }
 
         return builder;
     }
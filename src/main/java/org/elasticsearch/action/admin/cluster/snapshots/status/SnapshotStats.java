@@ -50,6 +50,10 @@ public class SnapshotStats implements Streamable, ToXContent {
     SnapshotStats(IndexShardSnapshotStatus indexShardStatus) {
         startTime = indexShardStatus.startTime();
         time = indexShardStatus.time();
+        if (time == 0 && startTime > 0) {
+            // still running, report the time spent so far
+            time = System.currentTimeMillis() - startTime;
+        }
         numberOfFiles = indexShardStatus.numberOfFiles();
         processedFiles = indexShardStatus.processedFiles();
         totalSize = indexShardStatus.totalSize();
@@ -98,6 +102,31 @@ public class SnapshotStats implements Streamable, ToXContent {
         return processedSize;
     }
 
+    /**
+     * Returns the average number of bytes processed per second
+     */
+    public long getThroughput() {
+        if (time <= 0) {
+            return 0;
+        }
+        return processedSize * 1000 / time;
+    }
+
+    /**
+     * Returns an estimate of the time in milliseconds needed to process the remaining files, or -1 if no estimate is available
+     */
+    public long getEstimatedTimeRemaining() {
+        long remaining = totalSize - processedSize;
+        if (remaining <= 0) {
+            return 0;
+        }
+        long throughput = getThroughput();
+        if (throughput == 0) {
+            return -1;
+        }
+        return remaining * 1000 / throughput;
+    }
+
 
     public static SnapshotStats readSnapshotStats(StreamInput in) throws IOException {
         SnapshotStats stats = new SnapshotStats();
@@ -140,6 +169,10 @@ public class SnapshotStats implements Streamable, ToXContent {
         static final XContentBuilderString START_TIME_IN_MILLIS = new XContentBuilderString("start_time_in_millis");
         static final XContentBuilderString TIME_IN_MILLIS = new XContentBuilderString("time_in_millis");
         static final XContentBuilderString TIME = new XContentBuilderString("time");
+        static final XContentBuilderString THROUGHPUT_IN_BYTES_PER_SEC = new XContentBuilderString("throughput_in_bytes_per_sec");
+        static final XContentBuilderString THROUGHPUT = new XContentBuilderString("throughput");
+        static final XContentBuilderString ESTIMATED_TIME_REMAINING_IN_MILLIS = new XContentBuilderString("estimated_time_remaining_in_millis");
+        static final XContentBuilderString ESTIMATED_TIME_REMAINING = new XContentBuilderString("estimated_time_remaining");
     }
 
     @Override
@@ -151,6 +184,11 @@ public class SnapshotStats implements Streamable, ToXContent {
         builder.byteSizeField(Fields.PROCESSED_SIZE_IN_BYTES, Fields.PROCESSED_SIZE, getProcessedSize());
         builder.field(Fields.START_TIME_IN_MILLIS, getStartTime());
         builder.timeValueField(Fields.TIME_IN_MILLIS, Fields.TIME, getTime());
+        builder.byteSizeField(Fields.THROUGHPUT_IN_BYTES_PER_SEC, Fields.THROUGHPUT, getThroughput());
+        long estimatedTimeRemaining = getEstimatedTimeRemaining();
+        if (estimatedTimeRemaining >= 0) {
+            builder.timeValueField(Fields.ESTIMATED_TIME_REMAINING_IN_MILLIS, Fields.ESTIMATED_TIME_REMAINING, estimatedTimeRemaining);
+        }
         builder.endObject();
         return builder;
     }
@@ -28,6 +28,7 @@ import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.cache.filter.FilterCacheStats;
 import org.elasticsearch.index.cache.id.IdCacheStats;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.engine.SegmentsStats;
 import org.elasticsearch.index.fielddata.FieldDataStats;
 import org.elasticsearch.index.flush.FlushStats;
@@ -111,6 +112,9 @@ public class CommonStats implements Streamable, ToXContent {
                 case Suggest:
                     suggest = new SuggestStats();
                     break;
+                case QueryCache:
+                    queryCache = new QueryCacheStats();
+                    break;
                 default:
                     throw new IllegalStateException("Unknown Flag: " + flag);
             }
@@ -174,6 +178,9 @@ public class CommonStats implements Streamable, ToXContent {
                 case Suggest:
                     suggest = indexShard.suggestStats();
                     break;
+                case QueryCache:
+                    queryCache = indexShard.queryCacheStats();
+                    break;
                 default:
                     throw new IllegalStateException("Unknown Flag: " + flag);
             }
@@ -231,6 +238,9 @@ public class CommonStats implements Streamable, ToXContent {
     @Nullable
     public SuggestStats suggest;
 
+    @Nullable
+    public QueryCacheStats queryCache;
+
     public void add(CommonStats stats) {
         if (docs == null) {
             if (stats.getDocs() != null) {
@@ -370,6 +380,14 @@ public class CommonStats implements Streamable, ToXContent {
         } else {
             suggest.add(stats.getSuggest());
         }
+        if (queryCache == null) {
+            if (stats.getQueryCache() != null) {
+                queryCache = new QueryCacheStats();
+                queryCache.add(stats.getQueryCache());
+            }
+        } else {
+            queryCache.add(stats.getQueryCache());
+        }
     }
 
     @Nullable
@@ -457,6 +475,11 @@ public class CommonStats implements Streamable, ToXContent {
         return suggest;
     }
 
+    @Nullable
+    public QueryCacheStats getQueryCache() {
+        return queryCache;
+    }
+
     public static CommonStats readCommonStats(StreamInput in) throws IOException {
         CommonStats stats = new CommonStats();
         stats.readFrom(in);
@@ -514,6 +537,9 @@ public class CommonStats implements Streamable, ToXContent {
         if (in.getVersion().onOrAfter(Version.V_1_2_0)) {
             suggest = in.readOptionalStreamable(new SuggestStats());
         }
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            queryCache = in.readOptionalStreamable(new QueryCacheStats());
+        }
     }
 
     @Override
@@ -612,6 +638,9 @@ public class CommonStats implements Streamable, ToXContent {
         if (out.getVersion().onOrAfter(Version.V_1_2_0)) {
             out.writeOptionalStreamable(suggest);
         }
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeOptionalStreamable(queryCache);
+        }
     }
 
     // note, requires a wrapping object
@@ -668,6 +697,9 @@ public class CommonStats implements Streamable, ToXContent {
         if (suggest != null) {
             suggest.toXContent(builder, params);
         }
+        if (queryCache != null) {
+            queryCache.toXContent(builder, params);
+        }
         return builder;
     }
 }
@@ -241,14 +241,28 @@ public class BulkRequest extends ActionRequest<BulkRequest> {
     }
 
     public BulkRequest add(BytesReference data, boolean contentUnsafe, @Nullable String defaultIndex, @Nullable String defaultType, @Nullable String defaultRouting, @Nullable Object payload, boolean allowExplicitIndex) throws Exception {
+        addCompleteActions(data, contentUnsafe, defaultIndex, defaultType, defaultRouting, payload, allowExplicitIndex);
+        return this;
+    }
+
+    /**
+     * Adds the actions of framed data in binary format that are complete, and returns the number of bytes that were
+     * consumed. A trailing action that is not terminated by a separator, or whose source is not terminated by a separator,
+     * is not consumed, which allows to parse data that is still being received.
+     */
+    public int addCompleteActions(BytesReference data, boolean contentUnsafe, @Nullable String defaultIndex, @Nullable String defaultType, @Nullable String defaultRouting, @Nullable Object payload, boolean allowExplicitIndex) throws Exception {
+        if (data.length() == 0) {
+            return 0;
+        }
         XContent xContent = XContentFactory.xContent(data);
         int from = 0;
         int length = data.length();
         byte marker = xContent.streamSeparator();
         while (true) {
+            final int actionFrom = from;
             int nextMarker = findNextMarker(marker, from, data, length);
             if (nextMarker == -1) {
-                break;
+                return from;
             }
             // now parse the action
 
@@ -325,7 +339,7 @@ public class BulkRequest extends ActionRequest<BulkRequest> {
                 } else {
                     nextMarker = findNextMarker(marker, from, data, length);
                     if (nextMarker == -1) {
-                        break;
+                        return actionFrom;
                     }
                     // order is important, we set parent after routing, so routing will be set to parent if not set explicitly
                     // we use internalAdd so we don't fork here, this allows us not to copy over the big byte array to small chunks
@@ -374,7 +388,6 @@ public class BulkRequest extends ActionRequest<BulkRequest> {
                 }
             }
         }
-        return this;
     }
 
     /**
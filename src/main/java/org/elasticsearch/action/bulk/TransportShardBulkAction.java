@@ -343,6 +343,8 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
             mappingUpdatedAction.updateMappingOnMaster(mappingToUpdate.v1(), mappingToUpdate.v2(), true);
         }
 
+        indexShard.syncTranslogOnRequest();
+
         if (request.refresh()) {
             try {
                 indexShard.refresh(new Engine.Refresh("refresh_flag_bulk").force(false));
@@ -585,6 +587,8 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
             }
         }
 
+        indexShard.syncTranslogOnRequest();
+
         if (request.refresh()) {
             try {
                 indexShard.refresh(new Engine.Refresh("refresh_flag_bulk").force(false));
@@ -193,6 +193,8 @@ public class TransportDeleteAction extends TransportShardReplicationOperationAct
 
         assert request.versionType().validateVersionForWrites(request.version());
 
+        indexShard.syncTranslogOnRequest();
+
         if (request.refresh()) {
             try {
                 indexShard.refresh(new Engine.Refresh("refresh_flag_delete").force(false));
@@ -213,6 +215,8 @@ public class TransportDeleteAction extends TransportShardReplicationOperationAct
 
         indexShard.delete(delete);
 
+        indexShard.syncTranslogOnRequest();
+
         if (request.refresh()) {
             try {
                 indexShard.refresh(new Engine.Refresh("refresh_flag_delete").force(false));
@@ -210,6 +210,8 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
             op = create;
             created = true;
         }
+        indexShard.syncTranslogOnRequest();
+
         if (request.refresh()) {
             try {
                 indexShard.refresh(new Engine.Refresh("refresh_flag_index").force(false));
@@ -242,6 +244,8 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
                     request.version(), request.versionType(), Engine.Operation.Origin.REPLICA, request.canHaveDuplicates(), request.autoGeneratedId());
             indexShard.create(create);
         }
+        indexShard.syncTranslogOnRequest();
+
         if (request.refresh()) {
             try {
                 indexShard.refresh(new Engine.Refresh("refresh_flag_index").force(false));
@@ -42,6 +42,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
 
+import static org.elasticsearch.action.ValidateActions.addValidationError;
 import static org.elasticsearch.search.Scroll.readScroll;
 
 /**
@@ -85,6 +86,10 @@ public class SearchRequest extends ActionRequest<SearchRequest> {
 
     private IndicesOptions indicesOptions = IndicesOptions.strictExpandOpen();
 
+    private Boolean queryCache;
+
+    private int batchedReduceSize = -1;
+
     public SearchRequest() {
     }
 
@@ -111,6 +116,9 @@ public class SearchRequest extends ActionRequest<SearchRequest> {
 //        if (source == null && extraSource == null) {
 //            validationException = addValidationError("search source is missing", validationException);
 //        }
+        if (batchedReduceSize != -1 && batchedReduceSize < 2) {
+            validationException = addValidationError("batched_reduce_size must be >= 2", validationException);
+        }
         return validationException;
     }
 
@@ -211,6 +219,34 @@ public class SearchRequest extends ActionRequest<SearchRequest> {
         return this.preference;
     }
 
+    /**
+     * Sets if this request should use the query cache or not, assuming that it can (for
+     * example, if "now" is used, it will never be cached). By default (not set, or null,
+     * will default to the index level setting if query cache is enabled or not).
+     */
+    public SearchRequest queryCache(Boolean queryCache) {
+        this.queryCache = queryCache;
+        return this;
+    }
+
+    public Boolean queryCache() {
+        return this.queryCache;
+    }
+
+    /**
+     * Sets the number of shard results that should be reduced at once on the coordinating node, as they arrive. This
+     * bounds the number of unreduced shard results held in memory when the request targets many shards. Defaults
+     * (<tt>-1</tt>) to the node level <tt>search.controller.batched_reduce_size</tt> setting.
+     */
+    public SearchRequest batchedReduceSize(int batchedReduceSize) {
+        this.batchedReduceSize = batchedReduceSize;
+        return this;
+    }
+
+    public int batchedReduceSize() {
+        return this.batchedReduceSize;
+    }
+
     /**
      * The search type to execute, defaults to {@link SearchType#DEFAULT}.
      */
@@ -512,6 +548,10 @@ public class SearchRequest extends ActionRequest<SearchRequest> {
                 templateParams = (Map<String, String>) in.readGenericValue();
             }
         }
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            queryCache = in.readOptionalBoolean();
+            batchedReduceSize = in.readInt();
+        }
     }
 
     @Override
@@ -551,5 +591,9 @@ public class SearchRequest extends ActionRequest<SearchRequest> {
                 out.writeGenericValue(templateParams);
             }
         }
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeOptionalBoolean(queryCache);
+            out.writeInt(batchedReduceSize);
+        }
     }
 }
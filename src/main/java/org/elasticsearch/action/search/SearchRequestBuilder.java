@@ -36,6 +36,7 @@ import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.facet.FacetBuilder;
 import org.elasticsearch.search.highlight.HighlightBuilder;
 import org.elasticsearch.search.rescore.RescoreBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.search.suggest.SuggestBuilder;
@@ -154,6 +155,25 @@ public class SearchRequestBuilder extends ActionRequestBuilder<SearchRequest, Se
         return this;
     }
 
+    /**
+     * Sets if this request should use the query cache or not, assuming that it can (for
+     * example, if "now" is used, it will never be cached). By default (not set, or null,
+     * will default to the index level setting if query cache is enabled or not).
+     */
+    public SearchRequestBuilder setQueryCache(Boolean queryCache) {
+        request.queryCache(queryCache);
+        return this;
+    }
+
+    /**
+     * Sets the number of shard results that should be reduced at once on the coordinating node, as they arrive.
+     * Defaults to the node level <tt>search.controller.batched_reduce_size</tt> setting.
+     */
+    public SearchRequestBuilder setBatchedReduceSize(int batchedReduceSize) {
+        request.batchedReduceSize(batchedReduceSize);
+        return this;
+    }
+
     /**
      * Specifies what type of requested indices to ignore and wildcard indices expressions.
      *
@@ -513,6 +533,24 @@ public class SearchRequestBuilder extends ActionRequestBuilder<SearchRequest, Se
         return this;
     }
 
+    /**
+     * Continues the search after the hit with the provided sort values, one value per sort, or only the score
+     * when sorting by relevance. Allows to page through the hits without a scroll, <tt>from</tt> must be 0.
+     */
+    public SearchRequestBuilder setSearchAfter(Object... values) {
+        sourceBuilder().searchAfter(values);
+        return this;
+    }
+
+    /**
+     * Restricts the scroll to the slice <tt>id</tt> out of <tt>max</tt> disjoint slices of the documents,
+     * allowing to consume the slices with independent scrolls in parallel.
+     */
+    public SearchRequestBuilder setSlice(int id, int max) {
+        sourceBuilder().slice(new SliceBuilder(id, max));
+        return this;
+    }
+
     /**
      * Adds the fields to load and return as part of the search request. If none are specified,
      * the source of the document will be returned.
@@ -69,11 +69,14 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
         final AtomicArray<FetchSearchResult> fetchResults;
         final AtomicArray<IntArrayList> docIdsToLoad;
 
+        final SearchPhaseController.QueryResultConsumer queryResultConsumer;
+
         private AsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
             super(request, listener);
             queryResults = new AtomicArray<>(firstResults.length());
             fetchResults = new AtomicArray<>(firstResults.length());
             docIdsToLoad = new AtomicArray<>(firstResults.length());
+            queryResultConsumer = searchPhaseController.newQueryResultConsumer(request, queryResults);
         }
 
         @Override
@@ -104,6 +107,7 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
                 public void onResult(QuerySearchResult result) {
                     result.shardTarget(dfsResult.shardTarget());
                     queryResults.set(shardIndex, result);
+                    queryResultConsumer.consume(shardIndex);
                     if (counter.decrementAndGet() == 0) {
                         executeFetchPhase();
                     }
@@ -63,11 +63,18 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
 
         final AtomicArray<FetchSearchResult> fetchResults;
         final AtomicArray<IntArrayList> docIdsToLoad;
+        final SearchPhaseController.QueryResultConsumer queryResultConsumer;
 
         private AsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
             super(request, listener);
             fetchResults = new AtomicArray<>(firstResults.length());
             docIdsToLoad = new AtomicArray<>(firstResults.length());
+            queryResultConsumer = searchPhaseController.newQueryResultConsumer(request, firstResults);
+        }
+
+        @Override
+        protected void onFirstPhaseResultAdded(int shardIndex) {
+            queryResultConsumer.consume(shardIndex);
         }
 
         @Override
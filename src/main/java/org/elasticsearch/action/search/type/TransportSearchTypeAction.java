@@ -380,6 +380,14 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
             if (shardFailures != null) {
                 shardFailures.set(shardIndex, null);
             }
+            onFirstPhaseResultAdded(shardIndex);
+        }
+
+        /**
+         * Called once the first phase result of the given shard has been added to {@link #firstResults}, before it is
+         * accounted for in the number of completed operations.
+         */
+        protected void onFirstPhaseResultAdded(int shardIndex) {
         }
 
         final void innerMoveToSecondPhase() throws Exception {
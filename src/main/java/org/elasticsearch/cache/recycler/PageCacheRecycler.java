@@ -30,6 +30,8 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Locale;
 
@@ -40,6 +42,7 @@ public class PageCacheRecycler extends AbstractComponent {
 
     public static final String TYPE = "page.type";
     public static final String LIMIT_HEAP = "page.limit.heap";
+    public static final String LIMIT_DIRECT = "page.limit.direct";
     public static final String LIMIT_PER_THREAD = "page.limit.per_thread";
     public static final String WEIGHT = "page.weight";
 
@@ -49,6 +52,7 @@ public class PageCacheRecycler extends AbstractComponent {
     private final Recycler<float[]> floatPage;
     private final Recycler<double[]> doublePage;
     private final Recycler<Object[]> objectPage;
+    private final Recycler<ByteBuffer> directPage;
 
     public void close() {
         bytePage.close();
@@ -57,6 +61,7 @@ public class PageCacheRecycler extends AbstractComponent {
         floatPage.close();
         doublePage.close();
         objectPage.close();
+        directPage.close();
     }
 
     private static int maximumSearchThreadPoolSize(ThreadPool threadPool, Settings settings) {
@@ -171,6 +176,18 @@ public class PageCacheRecycler extends AbstractComponent {
                 Arrays.fill(value, null); // we need to remove the strong refs on the objects stored in the array
             }
         });
+        // direct pages live outside of the heap so they have their own limit instead of sharing the heap one
+        final long directLimit = componentSettings.getAsMemory(LIMIT_DIRECT, "10%").bytes();
+        directPage = build(type, (int) (directLimit / BigArrays.PAGE_SIZE_IN_BYTES), searchThreadPoolSize, availableProcessors, new AbstractRecyclerC<ByteBuffer>() {
+            @Override
+            public ByteBuffer newInstance(int sizing) {
+                return ByteBuffer.allocateDirect(BigArrays.PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder());
+            }
+            @Override
+            public void recycle(ByteBuffer value) {
+                // nothing to do, pages are only accessed using absolute offsets
+            }
+        });
     }
 
     public Recycler.V<byte[]> bytePage(boolean clear) {
@@ -218,6 +235,21 @@ public class PageCacheRecycler extends AbstractComponent {
         return objectPage.obtain();
     }
 
+    /** Return a page of {@link BigArrays#PAGE_SIZE_IN_BYTES} bytes that is allocated outside of the heap, in native byte order. */
+    public Recycler.V<ByteBuffer> directPage(boolean clear) {
+        final Recycler.V<ByteBuffer> v = directPage.obtain();
+        if (v.isRecycled() && clear) {
+            clear(v.v());
+        }
+        return v;
+    }
+
+    private static void clear(ByteBuffer page) {
+        for (int i = 0; i < page.capacity(); i += 8) {
+            page.putLong(i, 0L);
+        }
+    }
+
     private static <T> Recycler<T> build(Type type, int limit, int estimatedThreadPoolSize, int availableProcessors, Recycler.C<T> c) {
         final Recycler<T> recycler;
         if (limit == 0) {
@@ -25,18 +25,28 @@ import java.util.Map;
 
 /**
  * ClusterInfo is an object representing a map of nodes to {@link DiskUsage}
- * and a map of shard ids to shard sizes, see
+ * and maps of shard ids to shard sizes and shard loads, see
  * <code>InternalClusterInfoService.shardIdentifierFromRouting(String)</code>
- * for the key used in the shardSizes map
+ * for the key used in the shard maps. Shard loads are expressed as the
+ * average number of threads busy with the shard since the previous update.
  */
 public class ClusterInfo {
 
     private final ImmutableMap<String, DiskUsage> usages;
     private final ImmutableMap<String, Long> shardSizes;
+    private final ImmutableMap<String, Double> shardWriteLoads;
+    private final ImmutableMap<String, Double> shardSearchLoads;
 
     public ClusterInfo(ImmutableMap<String, DiskUsage> usages, ImmutableMap<String, Long> shardSizes) {
+        this(usages, shardSizes, ImmutableMap.<String, Double>of(), ImmutableMap.<String, Double>of());
+    }
+
+    public ClusterInfo(ImmutableMap<String, DiskUsage> usages, ImmutableMap<String, Long> shardSizes,
+                       ImmutableMap<String, Double> shardWriteLoads, ImmutableMap<String, Double> shardSearchLoads) {
         this.usages = usages;
         this.shardSizes = shardSizes;
+        this.shardWriteLoads = shardWriteLoads;
+        this.shardSearchLoads = shardSearchLoads;
     }
 
     public Map<String, DiskUsage> getNodeDiskUsages() {
@@ -46,4 +56,12 @@ public class ClusterInfo {
     public Map<String, Long> getShardSizes() {
         return this.shardSizes;
     }
+
+    public Map<String, Double> getShardWriteLoads() {
+        return this.shardWriteLoads;
+    }
+
+    public Map<String, Double> getShardSearchLoads() {
+        return this.shardSearchLoads;
+    }
 }
@@ -615,5 +615,58 @@ public class ClusterState implements ToXContent {
             }
             return builder.build();
         }
+
+        /**
+         * Writes the changes between the previous and the current cluster state. Meta data and routing table
+         * are written per index, nodes and blocks only if they changed, and customs in full. The receiving
+         * side must hold the exact previous state to apply it, see {@link #readDiffFrom(ClusterState, StreamInput, DiscoveryNode)}.
+         */
+        public static void writeDiffTo(ClusterState previous, ClusterState state, StreamOutput out) throws IOException {
+            out.writeLong(state.version());
+            MetaData.Builder.writeDiffTo(previous.metaData(), state.metaData(), out);
+            RoutingTable.Builder.writeDiffTo(previous.routingTable(), state.routingTable(), out);
+            if (previous.nodes() == state.nodes()) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                DiscoveryNodes.Builder.writeTo(state.nodes(), out);
+            }
+            if (previous.blocks() == state.blocks()) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                ClusterBlocks.Builder.writeClusterBlocks(state.blocks(), out);
+            }
+            out.writeVInt(state.customs().size());
+            for (ObjectObjectCursor<String, Custom> cursor : state.customs()) {
+                out.writeString(cursor.key);
+                lookupFactorySafe(cursor.key).writeTo(cursor.value, out);
+            }
+        }
+
+        /**
+         * Reads a cluster state written by {@link #writeDiffTo(ClusterState, ClusterState, StreamOutput)}, applying
+         * the changes on top of the provided previous cluster state.
+         */
+        public static ClusterState readDiffFrom(ClusterState previous, StreamInput in, @Nullable DiscoveryNode localNode) throws IOException {
+            Builder builder = new Builder(previous);
+            builder.version = in.readLong();
+            builder.metaData = MetaData.Builder.readDiffFrom(previous.metaData(), in);
+            builder.routingTable = RoutingTable.Builder.readDiffFrom(previous.routingTable(), in);
+            if (in.readBoolean()) {
+                builder.nodes = DiscoveryNodes.Builder.readFrom(in, localNode);
+            }
+            if (in.readBoolean()) {
+                builder.blocks = ClusterBlocks.Builder.readClusterBlocks(in);
+            }
+            builder.customs.clear();
+            int customSize = in.readVInt();
+            for (int i = 0; i < customSize; i++) {
+                String type = in.readString();
+                Custom customIndexMetaData = lookupFactorySafe(type).readFrom(in);
+                builder.putCustom(type, customIndexMetaData);
+            }
+            return builder.build();
+        }
     }
 }
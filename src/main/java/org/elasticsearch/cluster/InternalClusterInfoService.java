@@ -38,6 +38,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.search.stats.SearchStats;
 import org.elasticsearch.monitor.fs.FsStats;
 import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -53,8 +54,8 @@ import java.util.Map;
  * Listens for changes in the number of data nodes and immediately submits a
  * ClusterInfoUpdateJob if a node has been added.
  *
- * Every time the timer runs, gathers information about the disk usage and
- * shard sizes across the cluster.
+ * Every time the timer runs, gathers information about the disk usage,
+ * shard sizes and shard indexing and search loads across the cluster.
  */
 public final class InternalClusterInfoService extends AbstractComponent implements ClusterInfoService, LocalNodeMasterListener, ClusterStateListener {
 
@@ -64,6 +65,12 @@ public final class InternalClusterInfoService extends AbstractComponent implemen
 
     private volatile ImmutableMap<String, DiskUsage> usages;
     private volatile ImmutableMap<String, Long> shardSizes;
+    private volatile ImmutableMap<String, Double> shardWriteLoads;
+    private volatile ImmutableMap<String, Double> shardSearchLoads;
+    // cumulative per shard times of the previous run, used to derive the loads
+    private volatile ImmutableMap<String, Long> lastIndexingTimes;
+    private volatile ImmutableMap<String, Long> lastSearchTimes;
+    private volatile long lastShardStatsTime;
     private volatile boolean isMaster = false;
     private volatile boolean enabled;
     private final TransportNodesStatsAction transportNodesStatsAction;
@@ -79,6 +86,10 @@ public final class InternalClusterInfoService extends AbstractComponent implemen
         super(settings);
         this.usages = ImmutableMap.of();
         this.shardSizes = ImmutableMap.of();
+        this.shardWriteLoads = ImmutableMap.of();
+        this.shardSearchLoads = ImmutableMap.of();
+        this.lastIndexingTimes = ImmutableMap.of();
+        this.lastSearchTimes = ImmutableMap.of();
         this.transportNodesStatsAction = transportNodesStatsAction;
         this.transportIndicesStatsAction = transportIndicesStatsAction;
         this.clusterService = clusterService;
@@ -185,7 +196,7 @@ public final class InternalClusterInfoService extends AbstractComponent implemen
 
     @Override
     public ClusterInfo getClusterInfo() {
-        return new ClusterInfo(usages, shardSizes);
+        return new ClusterInfo(usages, shardSizes, shardWriteLoads, shardSearchLoads);
     }
 
     /**
@@ -214,8 +225,8 @@ public final class InternalClusterInfoService extends AbstractComponent implemen
     /**
      * Runnable class that performs a {@Link NodesStatsRequest} to retrieve
      * disk usages for nodes in the cluster and an {@link IndicesStatsRequest}
-     * to retrieve the sizes of all shards to ensure they can fit on nodes
-     * during shard balancing.
+     * to retrieve the sizes and loads of all shards to ensure they can fit on
+     * nodes during shard balancing.
      */
     public class ClusterInfoUpdateJob implements Runnable {
 
@@ -297,11 +308,15 @@ public final class InternalClusterInfoService extends AbstractComponent implemen
             IndicesStatsRequest indicesStatsRequest = new IndicesStatsRequest();
             indicesStatsRequest.clear();
             indicesStatsRequest.store(true);
+            indicesStatsRequest.indexing(true);
+            indicesStatsRequest.search(true);
             transportIndicesStatsAction.execute(indicesStatsRequest, new ActionListener<IndicesStatsResponse>() {
                 @Override
                 public void onResponse(IndicesStatsResponse indicesStatsResponse) {
                     ShardStats[] stats = indicesStatsResponse.getShards();
                     HashMap<String, Long> newShardSizes = new HashMap<>();
+                    HashMap<String, Long> newIndexingTimes = new HashMap<>();
+                    HashMap<String, Long> newSearchTimes = new HashMap<>();
                     for (ShardStats s : stats) {
                         long size = s.getStats().getStore().sizeInBytes();
                         String sid = shardIdentifierFromRouting(s.getShardRouting());
@@ -309,7 +324,23 @@ public final class InternalClusterInfoService extends AbstractComponent implemen
                             logger.trace("shard: {} size: {}", sid, size);
                         }
                         newShardSizes.put(sid, size);
+                        if (s.getStats().getIndexing() != null) {
+                            newIndexingTimes.put(sid, s.getStats().getIndexing().getTotal().getIndexTimeInMillis());
+                        }
+                        if (s.getStats().getSearch() != null) {
+                            SearchStats.Stats search = s.getStats().getSearch().getTotal();
+                            newSearchTimes.put(sid, search.getQueryTimeInMillis() + search.getFetchTimeInMillis());
+                        }
+                    }
+                    final long now = System.currentTimeMillis();
+                    final long elapsed = now - lastShardStatsTime;
+                    if (lastShardStatsTime > 0 && elapsed > 0) {
+                        shardWriteLoads = ImmutableMap.copyOf(loadsFromTimes(lastIndexingTimes, newIndexingTimes, elapsed));
+                        shardSearchLoads = ImmutableMap.copyOf(loadsFromTimes(lastSearchTimes, newSearchTimes, elapsed));
                     }
+                    lastIndexingTimes = ImmutableMap.copyOf(newIndexingTimes);
+                    lastSearchTimes = ImmutableMap.copyOf(newSearchTimes);
+                    lastShardStatsTime = now;
                     shardSizes = ImmutableMap.copyOf(newShardSizes);
                 }
 
@@ -331,6 +362,22 @@ public final class InternalClusterInfoService extends AbstractComponent implemen
         }
     }
 
+    /**
+     * Derives per shard loads from the growth of the cumulative times spent on
+     * each shard. Shards without a previous sample, or whose counters went
+     * backwards because the shard was relocated or recovered, are left out.
+     */
+    static Map<String, Double> loadsFromTimes(Map<String, Long> previous, Map<String, Long> current, long elapsedMillis) {
+        Map<String, Double> loads = new HashMap<>();
+        for (Map.Entry<String, Long> entry : current.entrySet()) {
+            Long before = previous.get(entry.getKey());
+            if (before != null && entry.getValue() >= before) {
+                loads.put(entry.getKey(), ((double) (entry.getValue() - before)) / elapsedMillis);
+            }
+        }
+        return loads;
+    }
+
     /**
      * Method that incorporates the ShardId for the shard into a string that
      * includes a 'p' or 'r' depending on whether the shard is a primary.
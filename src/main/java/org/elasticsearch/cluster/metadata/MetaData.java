@@ -1363,5 +1363,79 @@ public class MetaData implements Iterable<IndexMetaData> {
                 lookupFactorySafe(cursor.key).writeTo(cursor.value, out);
             }
         }
+
+        /**
+         * Reads meta data written by {@link #writeDiffTo(MetaData, MetaData, StreamOutput)}, applying
+         * the changes on top of the provided previous meta data.
+         */
+        public static MetaData readDiffFrom(MetaData previous, StreamInput in) throws IOException {
+            Builder builder = new Builder(previous);
+            builder.version = in.readLong();
+            builder.uuid = in.readString();
+            builder.transientSettings(readSettingsFromStream(in));
+            builder.persistentSettings(readSettingsFromStream(in));
+            int size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.remove(in.readString());
+            }
+            size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.put(IndexMetaData.Builder.readFrom(in), false);
+            }
+            builder.templates.clear();
+            size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.put(IndexTemplateMetaData.Builder.readFrom(in));
+            }
+            builder.customs.clear();
+            int customSize = in.readVInt();
+            for (int i = 0; i < customSize; i++) {
+                String type = in.readString();
+                Custom customIndexMetaData = lookupFactorySafe(type).readFrom(in);
+                builder.putCustom(type, customIndexMetaData);
+            }
+            return builder.build();
+        }
+
+        /**
+         * Writes the changes between the previous and the current meta data. Cluster wide settings, templates
+         * and customs are always written, while indices are only written when they were added or changed
+         * (index meta data instances are reused by the builder as long as they don't change).
+         */
+        public static void writeDiffTo(MetaData previous, MetaData metaData, StreamOutput out) throws IOException {
+            out.writeLong(metaData.version);
+            out.writeString(metaData.uuid);
+            writeSettingsToStream(metaData.transientSettings(), out);
+            writeSettingsToStream(metaData.persistentSettings(), out);
+            List<String> removedIndices = newArrayList();
+            for (ObjectCursor<String> cursor : previous.indices.keys()) {
+                if (!metaData.indices.containsKey(cursor.value)) {
+                    removedIndices.add(cursor.value);
+                }
+            }
+            out.writeVInt(removedIndices.size());
+            for (String index : removedIndices) {
+                out.writeString(index);
+            }
+            List<IndexMetaData> changedIndices = newArrayList();
+            for (IndexMetaData indexMetaData : metaData) {
+                if (previous.indices.get(indexMetaData.index()) != indexMetaData) {
+                    changedIndices.add(indexMetaData);
+                }
+            }
+            out.writeVInt(changedIndices.size());
+            for (IndexMetaData indexMetaData : changedIndices) {
+                IndexMetaData.Builder.writeTo(indexMetaData, out);
+            }
+            out.writeVInt(metaData.templates.size());
+            for (ObjectCursor<IndexTemplateMetaData> cursor : metaData.templates.values()) {
+                IndexTemplateMetaData.Builder.writeTo(cursor.value, out);
+            }
+            out.writeVInt(metaData.customs().size());
+            for (ObjectObjectCursor<String, Custom> cursor : metaData.customs()) {
+                out.writeString(cursor.key);
+                lookupFactorySafe(cursor.key).writeTo(cursor.value, out);
+            }
+        }
     }
 }
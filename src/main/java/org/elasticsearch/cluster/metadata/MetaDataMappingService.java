@@ -22,6 +22,7 @@ package org.elasticsearch.cluster.metadata;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.admin.indices.mapping.delete.DeleteMappingClusterStateUpdateRequest;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingClusterStateUpdateRequest;
@@ -39,6 +40,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MergeMappingException;
+import org.elasticsearch.index.mapper.internal.ParentFieldMapper;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.indices.IndexMissingException;
 import org.elasticsearch.indices.IndicesService;
@@ -479,6 +481,12 @@ public class MetaDataMappingService extends AbstractComponent {
                                 newMapper = indexService.mapperService().parse(request.type(), new CompressedString(request.source()), false);
                             } else {
                                 newMapper = indexService.mapperService().parse(request.type(), new CompressedString(request.source()));
+                                ParentFieldMapper parentFieldMapper = newMapper.parentFieldMapper();
+                                if (existingMapper == null && parentFieldMapper.active() && parentFieldMapper.docValuesJoin()
+                                        && indexService.mapperService().types().contains(parentFieldMapper.type())) {
+                                    // documents of the parent type that are already indexed don't have their id in the join field
+                                    throw new ElasticsearchIllegalArgumentException("can't add a _parent field with doc_values that points to the already existing type [" + parentFieldMapper.type() + "]");
+                                }
                                 if (existingMapper != null) {
                                     // first, simulate
                                     DocumentMapper.MergeResult mergeResult = existingMapper.merge(newMapper, mergeFlags().simulate(true));
@@ -472,6 +472,77 @@ public class RoutingTable implements Iterable<IndexRoutingTable> {
                 IndexRoutingTable.Builder.writeTo(index, out);
             }
         }
+
+        /**
+         * Reads a routing table written by {@link #writeDiffTo(RoutingTable, RoutingTable, StreamOutput)},
+         * applying the changes on top of the provided previous routing table.
+         */
+        public static RoutingTable readDiffFrom(RoutingTable previous, StreamInput in) throws IOException {
+            Builder builder = new Builder(previous);
+            builder.version = in.readLong();
+            int size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.remove(in.readString());
+            }
+            size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.add(IndexRoutingTable.Builder.readFrom(in));
+            }
+            return builder.build();
+        }
+
+        /**
+         * Writes the indices that were removed from, or added or changed in, the routing table compared to
+         * the previous one. Index routing tables are rebuilt on each reroute, so they are compared shard by shard.
+         */
+        public static void writeDiffTo(RoutingTable previous, RoutingTable table, StreamOutput out) throws IOException {
+            out.writeLong(table.version);
+            List<String> removedIndices = newArrayList();
+            for (String index : previous.indicesRouting.keySet()) {
+                if (!table.indicesRouting.containsKey(index)) {
+                    removedIndices.add(index);
+                }
+            }
+            out.writeVInt(removedIndices.size());
+            for (String index : removedIndices) {
+                out.writeString(index);
+            }
+            List<IndexRoutingTable> changedIndices = newArrayList();
+            for (IndexRoutingTable index : table.indicesRouting.values()) {
+                if (!sameRouting(previous.indicesRouting.get(index.index()), index)) {
+                    changedIndices.add(index);
+                }
+            }
+            out.writeVInt(changedIndices.size());
+            for (IndexRoutingTable index : changedIndices) {
+                IndexRoutingTable.Builder.writeTo(index, out);
+            }
+        }
+
+        private static boolean sameRouting(IndexRoutingTable previous, IndexRoutingTable current) {
+            if (previous == current) {
+                return true;
+            }
+            if (previous == null || previous.shards().size() != current.shards().size()) {
+                return false;
+            }
+            for (IndexShardRoutingTable currentShard : current) {
+                IndexShardRoutingTable previousShard = previous.shards().get(currentShard.shardId().id());
+                if (previousShard == null || previousShard.size() != currentShard.size()
+                        || previousShard.primaryAllocatedPostApi() != currentShard.primaryAllocatedPostApi()) {
+                    return false;
+                }
+                for (int i = 0; i < currentShard.size(); i++) {
+                    ShardRouting previousRouting = previousShard.shards().get(i);
+                    ShardRouting currentRouting = currentShard.shards().get(i);
+                    // equality doesn't take the version into account
+                    if (!previousRouting.equals(currentRouting) || previousRouting.version() != currentRouting.version()) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
     }
 
     public String prettyPrint() {
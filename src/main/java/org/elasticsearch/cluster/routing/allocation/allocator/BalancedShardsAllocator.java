@@ -23,10 +23,14 @@ import com.google.common.base.Predicate;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IntroSorter;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.InternalClusterInfoService;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.routing.MutableShardRouting;
 import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.FailedRerouteAllocation;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
@@ -34,6 +38,7 @@ import org.elasticsearch.cluster.routing.allocation.StartedRerouteAllocation;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision.Type;
+import org.elasticsearch.cluster.routing.allocation.decider.DiskThresholdDecider;
 import org.elasticsearch.common.collect.IdentityHashSet;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -48,7 +53,7 @@ import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
 
 /**
  * The {@link BalancedShardsAllocator} re-balances the nodes allocations
- * within an cluster based on a {@link WeightFunction}. The clusters balance is defined by four parameters which can be set
+ * within an cluster based on a {@link WeightFunction}. The clusters balance is defined by the following parameters which can be set
  * in the cluster update API that allows changes in real-time:
  * <p/>
  * <ul><li><code>cluster.routing.allocation.balance.shard</code> - The <b>shard balance</b> defines the weight factor
@@ -59,8 +64,18 @@ import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
  * the number of primaries of a specific index allocated on a node</li>
  * <li><code>cluster.routing.allocation.balance.threshold</code> - A <b>threshold</b> to set the minimal optimization
  * value of operations that should be performed</li>
+ * <li><code>cluster.routing.allocation.balance.disk</code> - the <b>disk balance</b> defines a weight factor for
+ * the size of the shards allocated on a node, defaults to <tt>0.0</tt></li>
+ * <li><code>cluster.routing.allocation.balance.write_load</code> - the <b>write load balance</b> defines a weight factor for
+ * the indexing load of the shards allocated on a node, defaults to <tt>0.0</tt></li>
+ * <li><code>cluster.routing.allocation.balance.search_load</code> - the <b>search load balance</b> defines a weight factor for
+ * the search load of the shards allocated on a node, defaults to <tt>0.0</tt></li>
  * </ul>
  * <p/>
+ * Shard sizes and loads come from the {@link ClusterInfo}, which is only gathered while
+ * <code>cluster.routing.allocation.disk.threshold_enabled</code> is set. A warning is logged if the disk or load
+ * balance is set without it.
+ * <p/>
  * These parameters are combined in a {@link WeightFunction} that allows calculation of node weights which
  * are used to re-balance shards based on global as well as per-index factors.
  */
@@ -70,10 +85,16 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
     public static final String SETTING_INDEX_BALANCE_FACTOR = "cluster.routing.allocation.balance.index";
     public static final String SETTING_SHARD_BALANCE_FACTOR = "cluster.routing.allocation.balance.shard";
     public static final String SETTING_PRIMARY_BALANCE_FACTOR = "cluster.routing.allocation.balance.primary";
+    public static final String SETTING_DISK_BALANCE_FACTOR = "cluster.routing.allocation.balance.disk";
+    public static final String SETTING_WRITE_LOAD_BALANCE_FACTOR = "cluster.routing.allocation.balance.write_load";
+    public static final String SETTING_SEARCH_LOAD_BALANCE_FACTOR = "cluster.routing.allocation.balance.search_load";
 
     private static final float DEFAULT_INDEX_BALANCE_FACTOR = 0.5f;
     private static final float DEFAULT_SHARD_BALANCE_FACTOR = 0.45f;
     private static final float DEFAULT_PRIMARY_BALANCE_FACTOR = 0.05f;
+    private static final float DEFAULT_DISK_BALANCE_FACTOR = 0.0f;
+    private static final float DEFAULT_WRITE_LOAD_BALANCE_FACTOR = 0.0f;
+    private static final float DEFAULT_SEARCH_LOAD_BALANCE_FACTOR = 0.0f;
 
     class ApplySettings implements NodeSettingsService.Listener {
         @Override
@@ -81,19 +102,38 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             final float indexBalance = settings.getAsFloat(SETTING_INDEX_BALANCE_FACTOR, weightFunction.indexBalance);
             final float shardBalance = settings.getAsFloat(SETTING_SHARD_BALANCE_FACTOR, weightFunction.shardBalance);
             final float primaryBalance = settings.getAsFloat(SETTING_PRIMARY_BALANCE_FACTOR, weightFunction.primaryBalance);
+            final float diskBalance = settings.getAsFloat(SETTING_DISK_BALANCE_FACTOR, weightFunction.diskBalance);
+            final float writeLoadBalance = settings.getAsFloat(SETTING_WRITE_LOAD_BALANCE_FACTOR, weightFunction.writeLoadBalance);
+            final float searchLoadBalance = settings.getAsFloat(SETTING_SEARCH_LOAD_BALANCE_FACTOR, weightFunction.searchLoadBalance);
             float threshold = settings.getAsFloat(SETTING_THRESHOLD, BalancedShardsAllocator.this.threshold);
             if (threshold <= 0.0f) {
                 throw new ElasticsearchIllegalArgumentException("threshold must be greater than 0.0f but was: " + threshold);
             }
+            final boolean clusterInfoEnabled = settings.getAsBoolean(DiskThresholdDecider.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED,
+                    BalancedShardsAllocator.this.clusterInfoEnabled);
+            final WeightFunction weightFunction = new WeightFunction(indexBalance, shardBalance, primaryBalance,
+                    diskBalance, writeLoadBalance, searchLoadBalance);
+            final boolean wasIgnoringShardUsage = BalancedShardsAllocator.this.weightFunction.usesShardUsage()
+                    && !BalancedShardsAllocator.this.clusterInfoEnabled;
+            if (weightFunction.usesShardUsage() && !clusterInfoEnabled && !wasIgnoringShardUsage) {
+                // shard sizes and loads are only gathered while the disk threshold decider is enabled
+                logger.warn("[{}], [{}] or [{}] is set but [{}] is disabled, shard sizes and loads are unknown and the balance ignores them",
+                        SETTING_DISK_BALANCE_FACTOR, SETTING_WRITE_LOAD_BALANCE_FACTOR, SETTING_SEARCH_LOAD_BALANCE_FACTOR,
+                        DiskThresholdDecider.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED);
+            }
             BalancedShardsAllocator.this.threshold = threshold;
-            BalancedShardsAllocator.this.weightFunction = new WeightFunction(indexBalance, shardBalance, primaryBalance);
+            BalancedShardsAllocator.this.clusterInfoEnabled = clusterInfoEnabled;
+            BalancedShardsAllocator.this.weightFunction = weightFunction;
         }
     }
 
-    private volatile WeightFunction weightFunction = new WeightFunction(DEFAULT_INDEX_BALANCE_FACTOR, DEFAULT_SHARD_BALANCE_FACTOR, DEFAULT_PRIMARY_BALANCE_FACTOR);
+    private volatile WeightFunction weightFunction = new WeightFunction(DEFAULT_INDEX_BALANCE_FACTOR, DEFAULT_SHARD_BALANCE_FACTOR, DEFAULT_PRIMARY_BALANCE_FACTOR,
+            DEFAULT_DISK_BALANCE_FACTOR, DEFAULT_WRITE_LOAD_BALANCE_FACTOR, DEFAULT_SEARCH_LOAD_BALANCE_FACTOR);
 
     private volatile float threshold = 1.0f;
 
+    private volatile boolean clusterInfoEnabled = false;
+
 
     public BalancedShardsAllocator(Settings settings) {
         this(settings, new NodeSettingsService(settings));
@@ -158,14 +198,38 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         return weightFunction.shardBalance;
     }
 
+    /**
+     * Returns the disk usage related weight factor.
+     */
+    public float getDiskBalance() {
+        return weightFunction.diskBalance;
+    }
+
+    /**
+     * Returns the indexing load related weight factor.
+     */
+    public float getWriteLoadBalance() {
+        return weightFunction.writeLoadBalance;
+    }
+
+    /**
+     * Returns the search load related weight factor.
+     */
+    public float getSearchLoadBalance() {
+        return weightFunction.searchLoadBalance;
+    }
+
 
     /**
      * This class is the primary weight function used to create balanced over nodes and shards in the cluster.
-     * Currently this function has 3 properties:
+     * Currently this function has 6 properties:
      * <ul>
      * <li><code>index balance</code> - balance property over shards per index</li>
      * <li><code>shard balance</code> - balance property over shards per cluster</li>
      * <li><code>primary balance</code> - balance property over primaries per cluster</li>
+     * <li><code>disk balance</code> - balance property over shard sizes per cluster</li>
+     * <li><code>write load balance</code> - balance property over shard indexing load per cluster</li>
+     * <li><code>search load balance</code> - balance property over shard search load per cluster</li>
      * </ul>
      * <p>
      * Each of these properties are expressed as factor such that the properties factor defines the relative importance of the property for the
@@ -183,30 +247,53 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
      * <li>
      * <code>weight<sub>primary</sub>(node, index) = primaryBalance * (node.numPrimaries() - avgPrimariesPerNode)</code>
      * </li>
+     * <li>
+     * <code>weight<sub>disk</sub>(node, index) = diskBalance * (node.size() - avgSizePerNode) / avgShardSize</code>
+     * </li>
      * </ul>
-     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index) + weight<sub>primary</sub>(node, index)</code>
+     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index) + weight<sub>primary</sub>(node, index)
+     * + weight<sub>disk</sub>(node, index) + weight<sub>writeLoad</sub>(node, index) + weight<sub>searchLoad</sub>(node, index)</code>
+     * <p>
+     * The load weights are calculated like the disk weight. Sizes and loads are taken from the {@link ClusterInfo}
+     * and dividing by the average per shard value keeps these terms on the same scale as the shard count based terms.
+     * Shards without reported values count with the cluster average.
+     * </p>
      */
     public static class WeightFunction {
 
         private final float indexBalance;
         private final float shardBalance;
         private final float primaryBalance;
+        private final float diskBalance;
+        private final float writeLoadBalance;
+        private final float searchLoadBalance;
         private final EnumMap<Operation, float[]> thetaMap = new EnumMap<>(Operation.class);
 
         public WeightFunction(float indexBalance, float shardBalance, float primaryBalance) {
-            float sum = indexBalance + shardBalance + primaryBalance;
+            this(indexBalance, shardBalance, primaryBalance, 0.0f, 0.0f, 0.0f);
+        }
+
+        public WeightFunction(float indexBalance, float shardBalance, float primaryBalance, float diskBalance, float writeLoadBalance,
+                              float searchLoadBalance) {
+            if (diskBalance < 0.0f || writeLoadBalance < 0.0f || searchLoadBalance < 0.0f) {
+                throw new ElasticsearchIllegalArgumentException("Disk and load balance factors must be >= 0 but were: [" + diskBalance
+                        + ", " + writeLoadBalance + ", " + searchLoadBalance + "]");
+            }
+            float sum = indexBalance + shardBalance + primaryBalance + diskBalance + writeLoadBalance + searchLoadBalance;
             if (sum <= 0.0f) {
                 throw new ElasticsearchIllegalArgumentException("Balance factors must sum to a value > 0 but was: " + sum);
             }
-            final float[] defaultTheta = new float[]{shardBalance / sum, indexBalance / sum, primaryBalance / sum};
+            final float[] defaultTheta = new float[]{shardBalance / sum, indexBalance / sum, primaryBalance / sum,
+                    diskBalance / sum, writeLoadBalance / sum, searchLoadBalance / sum};
             for (Operation operation : Operation.values()) {
                 switch (operation) {
                     case THRESHOLD_CHECK:
-                        sum = indexBalance + shardBalance;
+                        sum = indexBalance + shardBalance + diskBalance + writeLoadBalance + searchLoadBalance;
                         if (sum <= 0.0f) {
                             thetaMap.put(operation, defaultTheta);
                         } else {
-                            thetaMap.put(operation, new float[]{shardBalance / sum, indexBalance / sum, 0});
+                            thetaMap.put(operation, new float[]{shardBalance / sum, indexBalance / sum, 0,
+                                    diskBalance / sum, writeLoadBalance / sum, searchLoadBalance / sum});
                         }
                         break;
                     case BALANCE:
@@ -221,6 +308,9 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             this.indexBalance = indexBalance;
             this.shardBalance = shardBalance;
             this.primaryBalance = primaryBalance;
+            this.diskBalance = diskBalance;
+            this.writeLoadBalance = writeLoadBalance;
+            this.searchLoadBalance = searchLoadBalance;
         }
 
         public float weight(Operation operation, Balancer balancer, ModelNode node, String index) {
@@ -229,7 +319,32 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             final float weightPrimary = (node.numPrimaries() - balancer.avgPrimariesPerNode());
             final float[] theta = thetaMap.get(operation);
             assert theta != null;
-            return theta[0] * weightShard + theta[1] * weightIndex + theta[2] * weightPrimary;
+            float weight = theta[0] * weightShard + theta[1] * weightIndex + theta[2] * weightPrimary;
+            if (theta[3] != 0.0f) {
+                weight += theta[3] * relativeWeight(node.size(), balancer.avgSizePerNode(), balancer.avgShardSize());
+            }
+            if (theta[4] != 0.0f) {
+                weight += theta[4] * relativeWeight(node.writeLoad(), balancer.avgWriteLoadPerNode(), balancer.avgShardWriteLoad());
+            }
+            if (theta[5] != 0.0f) {
+                weight += theta[5] * relativeWeight(node.searchLoad(), balancer.avgSearchLoadPerNode(), balancer.avgShardSearchLoad());
+            }
+            return weight;
+        }
+
+        private static float relativeWeight(double value, double avgPerNode, double avgPerShard) {
+            if (avgPerShard <= 0.0d) {
+                return 0.0f;
+            }
+            return (float) ((value - avgPerNode) / avgPerShard);
+        }
+
+        /**
+         * Returns <code>true</code> iff this function uses shard sizes or loads
+         * and the balancer needs to track them on its model nodes.
+         */
+        boolean usesShardUsage() {
+            return diskBalance > 0.0f || writeLoadBalance > 0.0f || searchLoadBalance > 0.0f;
         }
 
     }
@@ -273,6 +388,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
 
         private final float threshold;
         private final MetaData metaData;
+        private final ShardUsage shardUsage;
 
         private final Predicate<MutableShardRouting> assignedFilter = new Predicate<MutableShardRouting>() {
             @Override
@@ -288,8 +404,9 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             this.weight = weight;
             this.threshold = threshold;
             this.routingNodes = allocation.routingNodes();
+            this.shardUsage = weight.usesShardUsage() ? new ShardUsage(allocation.clusterInfo(), allocation.routingTable()) : null;
             for (RoutingNode node : routingNodes) {
-                nodes.put(node.nodeId(), new ModelNode(node.nodeId()));
+                nodes.put(node.nodeId(), new ModelNode(node.nodeId(), shardUsage));
             }
             metaData = routingNodes.metaData();
         }
@@ -329,6 +446,48 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             return ((float) metaData.index(index).numberOfShards()) / nodes.size();
         }
 
+        /**
+         * Returns the global average of shard bytes per node
+         */
+        public double avgSizePerNode() {
+            return shardUsage == null ? 0.0d : ((double) shardUsage.totalSize) / nodes.size();
+        }
+
+        /**
+         * Returns the average size of a shard
+         */
+        public double avgShardSize() {
+            return shardUsage == null ? 0.0d : shardUsage.avgShardSize;
+        }
+
+        /**
+         * Returns the global average of indexing load per node
+         */
+        public double avgWriteLoadPerNode() {
+            return shardUsage == null ? 0.0d : shardUsage.totalWriteLoad / nodes.size();
+        }
+
+        /**
+         * Returns the average indexing load of a shard
+         */
+        public double avgShardWriteLoad() {
+            return shardUsage == null ? 0.0d : shardUsage.avgShardWriteLoad;
+        }
+
+        /**
+         * Returns the global average of search load per node
+         */
+        public double avgSearchLoadPerNode() {
+            return shardUsage == null ? 0.0d : shardUsage.totalSearchLoad / nodes.size();
+        }
+
+        /**
+         * Returns the average search load of a shard
+         */
+        public double avgShardSearchLoad() {
+            return shardUsage == null ? 0.0d : shardUsage.avgShardSearchLoad;
+        }
+
         /**
          * Returns a new {@link NodeSorter} that sorts the nodes based on their
          * current weight with respect to the index passed to the sorter. The
@@ -854,15 +1013,98 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
 
     }
 
+    /**
+     * Snapshot of the shard sizes and loads reported in the {@link ClusterInfo}.
+     * Shards that are not reported count with the average of the reported shards
+     * so that new or unknown shards neither attract nor repel other shards.
+     */
+    static final class ShardUsage {
+        private final Map<String, Long> sizes;
+        private final Map<String, Double> writeLoads;
+        private final Map<String, Double> searchLoads;
+        private final long avgShardSize;
+        private final double avgShardWriteLoad;
+        private final double avgShardSearchLoad;
+        private final long totalSize;
+        private final double totalWriteLoad;
+        private final double totalSearchLoad;
+
+        ShardUsage(ClusterInfo clusterInfo, RoutingTable routingTable) {
+            if (clusterInfo == null) {
+                sizes = Collections.emptyMap();
+                writeLoads = searchLoads = Collections.emptyMap();
+            } else {
+                sizes = clusterInfo.getShardSizes();
+                writeLoads = clusterInfo.getShardWriteLoads();
+                searchLoads = clusterInfo.getShardSearchLoads();
+            }
+            long sumSize = 0;
+            for (Long size : sizes.values()) {
+                sumSize += size;
+            }
+            avgShardSize = sizes.isEmpty() ? 0 : sumSize / sizes.size();
+            avgShardWriteLoad = average(writeLoads);
+            avgShardSearchLoad = average(searchLoads);
+            long totalSize = 0;
+            double totalWriteLoad = 0;
+            double totalSearchLoad = 0;
+            for (ShardRouting shard : routingTable.allShards()) {
+                String key = InternalClusterInfoService.shardIdentifierFromRouting(shard);
+                totalSize += size(key);
+                totalWriteLoad += writeLoad(key);
+                totalSearchLoad += searchLoad(key);
+            }
+            this.totalSize = totalSize;
+            this.totalWriteLoad = totalWriteLoad;
+            this.totalSearchLoad = totalSearchLoad;
+        }
+
+        private static double average(Map<String, Double> values) {
+            if (values.isEmpty()) {
+                return 0.0d;
+            }
+            double sum = 0;
+            for (Double value : values.values()) {
+                sum += value;
+            }
+            return sum / values.size();
+        }
+
+        long size(String shardKey) {
+            Long size = sizes.get(shardKey);
+            return size == null ? avgShardSize : size;
+        }
+
+        double writeLoad(String shardKey) {
+            Double load = writeLoads.get(shardKey);
+            return load == null ? avgShardWriteLoad : load;
+        }
+
+        double searchLoad(String shardKey) {
+            Double load = searchLoads.get(shardKey);
+            return load == null ? avgShardSearchLoad : load;
+        }
+    }
+
     static class ModelNode implements Iterable<ModelIndex> {
         private final String id;
         private final Map<String, ModelIndex> indices = new HashMap<>();
         /* cached stats - invalidated on add/remove and lazily calculated */
         private int numShards = -1;
         private int numPrimaries = -1;
+        /* running sums - only maintained if shard usage is tracked */
+        private final ShardUsage shardUsage;
+        private long size;
+        private double writeLoad;
+        private double searchLoad;
 
         public ModelNode(String id) {
+            this(id, null);
+        }
+
+        public ModelNode(String id, ShardUsage shardUsage) {
             this.id = id;
+            this.shardUsage = shardUsage;
         }
 
         public ModelIndex getIndex(String indexId) {
@@ -905,6 +1147,27 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             return numPrimaries;
         }
 
+        /**
+         * Returns the sum of the sizes of all shards on this node
+         */
+        public long size() {
+            return size;
+        }
+
+        /**
+         * Returns the sum of the indexing loads of all shards on this node
+         */
+        public double writeLoad() {
+            return writeLoad;
+        }
+
+        /**
+         * Returns the sum of the search loads of all shards on this node
+         */
+        public double searchLoad() {
+            return searchLoad;
+        }
+
         public Collection<MutableShardRouting> shards() {
             Collection<MutableShardRouting> result = new ArrayList<>();
             for (ModelIndex index : indices.values()) {
@@ -929,6 +1192,12 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                 indices.put(index.getIndexId(), index);
             }
             index.addShard(shard, decision);
+            if (shardUsage != null) {
+                String key = InternalClusterInfoService.shardIdentifierFromRouting(shard);
+                size += shardUsage.size(key);
+                writeLoad += shardUsage.writeLoad(key);
+                searchLoad += shardUsage.searchLoad(key);
+            }
         }
 
         public Decision removeShard(MutableShardRouting shard) {
@@ -941,6 +1210,12 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                     indices.remove(shard.index());
                 }
             }
+            if (removed != null && shardUsage != null) {
+                String key = InternalClusterInfoService.shardIdentifierFromRouting(shard);
+                size -= shardUsage.size(key);
+                writeLoad -= shardUsage.writeLoad(key);
+                searchLoad -= shardUsage.searchLoad(key);
+            }
             return removed;
         }
 
@@ -52,6 +52,11 @@ public interface BlobContainer {
 
     byte[] readBlobFully(String blobName) throws IOException;
 
+    /**
+     * Reads {@code length} bytes of the blob starting at {@code offset}.
+     */
+    byte[] readBlobRange(String blobName, long offset, int length) throws IOException;
+
     boolean deleteBlob(String blobName) throws IOException;
 
     void deleteBlobsByPrefix(String blobNamePrefix) throws IOException;
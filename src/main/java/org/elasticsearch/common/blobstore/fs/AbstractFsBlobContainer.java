@@ -31,6 +31,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 
 /**
  *
@@ -75,6 +76,16 @@ public abstract class AbstractFsBlobContainer extends AbstractBlobContainer {
         return new File(path, blobName).exists();
     }
 
+    @Override
+    public byte[] readBlobRange(String blobName, long offset, int length) throws IOException {
+        byte[] range = new byte[length];
+        try (RandomAccessFile raf = new RandomAccessFile(new File(path, blobName), "r")) {
+            raf.seek(offset);
+            raf.readFully(range);
+        }
+        return range;
+    }
+
     @Override
     public void readBlob(final String blobName, final ReadBlobListener listener) {
         blobStore.executor().execute(new Runnable() {
@@ -25,9 +25,11 @@ import org.elasticsearch.common.blobstore.BlobMetaData;
 import org.elasticsearch.common.blobstore.BlobPath;
 
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -86,6 +88,59 @@ public abstract class AbstractBlobContainer implements BlobContainer {
         return bos.toByteArray();
     }
 
+    /**
+     * Streams the whole blob and only keeps the requested range. Blob stores that support ranged reads should
+     * override this.
+     */
+    @Override
+    public byte[] readBlobRange(final String blobName, final long offset, final int length) throws IOException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicLong position = new AtomicLong();
+        final byte[] range = new byte[length];
+
+        readBlob(blobName, new ReadBlobListener() {
+            @Override
+            public void onPartial(byte[] data, int dataOffset, int size) {
+                long start = position.getAndAdd(size);
+                long from = Math.max(start, offset);
+                long to = Math.min(start + size, offset + length);
+                if (from < to) {
+                    System.arraycopy(data, dataOffset + (int) (from - start), range, (int) (from - offset), (int) (to - from));
+                }
+            }
+
+            @Override
+            public void onCompleted() {
+                if (position.get() < offset + length) {
+                    failure.set(new EOFException("[" + blobName + "]: read past EOF, blob length [" + position.get() + "], requested [" + offset + "-" + (offset + length) + "]"));
+                }
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                failure.set(t);
+                latch.countDown();
+            }
+        });
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted while waiting to read [" + blobName + "]");
+        }
+
+        if (failure.get() != null) {
+            if (failure.get() instanceof IOException) {
+                throw (IOException) failure.get();
+            } else {
+                throw new IOException("Failed to get [" + blobName + "]", failure.get());
+            }
+        }
+        return range;
+    }
+
     @Override
     public ImmutableMap<String, BlobMetaData> listBlobsByPrefix(String blobNamePrefix) throws IOException {
         ImmutableMap<String, BlobMetaData> allBlobs = listBlobs();
@@ -0,0 +1,91 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.elasticsearch.common.compress.CompressedStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ */
+public class LZ4CompressedStreamInput extends CompressedStreamInput<LZ4CompressorContext> {
+
+    private final LZ4SafeDecompressor decompressor;
+
+    // scratch area buffer
+    private byte[] inputBuffer;
+
+    public LZ4CompressedStreamInput(StreamInput in, LZ4SafeDecompressor decompressor) throws IOException {
+        super(in, LZ4CompressorContext.INSTANCE);
+        this.decompressor = decompressor;
+        this.uncompressed = new byte[LZ4Compressor.MAX_CHUNK_LEN];
+        this.inputBuffer = new byte[LZ4Compressor.MAX_CHUNK_LEN];
+    }
+
+    @Override
+    public void readHeader(StreamInput in) throws IOException {
+        byte[] header = new byte[LZ4Compressor.HEADER.length];
+        in.readBytes(header, 0, header.length);
+        if (!Arrays.equals(header, LZ4Compressor.HEADER)) {
+            throw new IOException("wrong lz4 compressed header [" + Arrays.toString(header) + "]");
+        }
+    }
+
+    @Override
+    public int uncompress(StreamInput in, byte[] out) throws IOException {
+        int blockType = in.read();
+        if (blockType == -1) {
+            return -1;
+        }
+        int uncompressedLength = in.readInt();
+        if (uncompressedLength < 0 || uncompressedLength > out.length) {
+            throw new IOException("corrupted lz4 compressed stream, invalid chunk length [" + uncompressedLength + "]");
+        }
+        if (blockType == LZ4Compressor.BLOCK_TYPE_NON_COMPRESSED) {
+            in.readBytes(out, 0, uncompressedLength);
+            return uncompressedLength;
+        }
+        if (blockType != LZ4Compressor.BLOCK_TYPE_COMPRESSED) {
+            throw new IOException("corrupted lz4 compressed stream, unknown block type [" + blockType + "]");
+        }
+        int compressedLength = in.readInt();
+        if (compressedLength < 0) {
+            throw new IOException("corrupted lz4 compressed stream, invalid compressed length [" + compressedLength + "]");
+        }
+        if (compressedLength > inputBuffer.length) {
+            inputBuffer = new byte[compressedLength];
+        }
+        in.readBytes(inputBuffer, 0, compressedLength);
+        int read = decompressor.decompress(inputBuffer, 0, compressedLength, out, 0, uncompressedLength);
+        if (read != uncompressedLength) {
+            throw new IOException("corrupted lz4 compressed stream, expected [" + uncompressedLength + "] bytes but got [" + read + "]");
+        }
+        return uncompressedLength;
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        inputBuffer = null;
+        uncompressed = null;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import org.elasticsearch.common.compress.CompressedStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ */
+public class LZ4CompressedStreamOutput extends CompressedStreamOutput<LZ4CompressorContext> {
+
+    private final net.jpountz.lz4.LZ4Compressor compressor;
+
+    // scratch area buffer
+    private byte[] compressed;
+
+    public LZ4CompressedStreamOutput(StreamOutput out, net.jpountz.lz4.LZ4Compressor compressor) throws IOException {
+        super(out, LZ4CompressorContext.INSTANCE);
+        this.compressor = compressor;
+        this.uncompressed = new byte[LZ4Compressor.MAX_CHUNK_LEN];
+        this.uncompressedLength = LZ4Compressor.MAX_CHUNK_LEN;
+        this.compressed = new byte[compressor.maxCompressedLength(LZ4Compressor.MAX_CHUNK_LEN)];
+    }
+
+    @Override
+    public void writeHeader(StreamOutput out) throws IOException {
+        out.writeBytes(LZ4Compressor.HEADER);
+    }
+
+    @Override
+    protected void compress(byte[] data, int offset, int len, StreamOutput out) throws IOException {
+        int compressedLength = compressor.compress(data, offset, len, compressed, 0, compressed.length);
+        if (compressedLength >= len) {
+            // not worth it, store the chunk as is
+            out.writeByte(LZ4Compressor.BLOCK_TYPE_NON_COMPRESSED);
+            out.writeInt(len);
+            out.writeBytes(data, offset, len);
+        } else {
+            out.writeByte(LZ4Compressor.BLOCK_TYPE_COMPRESSED);
+            out.writeInt(len);
+            out.writeInt(compressedLength);
+            out.writeBytes(compressed, 0, compressedLength);
+        }
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        uncompressed = null;
+        compressed = null;
+    }
+}
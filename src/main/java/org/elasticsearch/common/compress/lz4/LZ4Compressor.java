@@ -0,0 +1,230 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.Constants;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedIndexInput;
+import org.elasticsearch.common.compress.CompressedStreamInput;
+import org.elasticsearch.common.compress.CompressedStreamOutput;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import java.io.IOException;
+
+/**
+ * A {@link Compressor} based on LZ4, which decompresses considerably faster than LZF.
+ * <p/>
+ * Compressed data starts with a {@link #HEADER} (so it can be told apart from LZF compressed data),
+ * followed by chunks of up to {@link #MAX_CHUNK_LEN} uncompressed bytes. Each chunk is made of a
+ * block type byte, the uncompressed length and, for compressed blocks, the compressed length, followed
+ * by the data. Blocks that don't compress well are stored as is.
+ */
+public class LZ4Compressor implements Compressor {
+
+    static final byte[] HEADER = {'L', 'Z', '4', 1};
+
+    static final byte BLOCK_TYPE_NON_COMPRESSED = 0;
+    static final byte BLOCK_TYPE_COMPRESSED = 1;
+
+    static final int MAX_CHUNK_LEN = 64 * 1024;
+
+    public static final String TYPE = "lz4";
+
+    private volatile net.jpountz.lz4.LZ4Compressor compressor;
+    private volatile LZ4SafeDecompressor decompressor;
+
+    public LZ4Compressor() {
+        if (Constants.SUN_OS) {
+            useFactory(LZ4Factory.safeInstance());
+        } else {
+            useFactory(unsafeFactory());
+        }
+    }
+
+    private static LZ4Factory unsafeFactory() {
+        try {
+            return LZ4Factory.unsafeInstance();
+        } catch (Throwable t) {
+            // sun.misc.Unsafe is not available
+            return LZ4Factory.safeInstance();
+        }
+    }
+
+    private void useFactory(LZ4Factory factory) {
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.safeDecompressor();
+        Loggers.getLogger(LZ4Compressor.class).debug("using [{}] implementation", factory);
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void configure(Settings settings) {
+        String impl = settings.get("compress.lz4.impl", null);
+        if (impl != null) {
+            if ("unsafe".equalsIgnoreCase(impl)) {
+                useFactory(unsafeFactory());
+            } else if ("safe".equalsIgnoreCase(impl)) {
+                useFactory(LZ4Factory.safeInstance());
+            } else {
+                Loggers.getLogger(LZ4Compressor.class).warn("lz4 implementation not recognized [{}], still using [{}]", impl, compressor);
+            }
+        }
+    }
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isCompressed(byte[] data, int offset, int length) {
+        if (length < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (data[offset + i] != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isCompressed(ChannelBuffer buffer) {
+        if (buffer.readableBytes() < HEADER.length) {
+            return false;
+        }
+        int offset = buffer.readerIndex();
+        for (int i = 0; i < HEADER.length; i++) {
+            if (buffer.getByte(offset + i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isCompressed(IndexInput in) throws IOException {
+        // compressed index files are only read for backward compatibility, and were never written with lz4
+        return false;
+    }
+
+    @Override
+    public byte[] uncompress(byte[] data, int offset, int length) throws IOException {
+        if (!isCompressed(data, offset, length)) {
+            throw new IOException("wrong lz4 compressed header");
+        }
+        final int end = offset + length;
+        // first pass over the chunk headers to size the result exactly
+        int uncompressedLength = 0;
+        int position = offset + HEADER.length;
+        while (position < end) {
+            int chunkLength = readInt(data, position + 1, end);
+            uncompressedLength += chunkLength;
+            if (data[position] == BLOCK_TYPE_COMPRESSED) {
+                position += 9 + readInt(data, position + 5, end);
+            } else {
+                position += 5 + chunkLength;
+            }
+        }
+        if (position != end) {
+            throw new IOException("corrupted lz4 compressed data");
+        }
+        byte[] uncompressed = new byte[uncompressedLength];
+        int uncompressedPosition = 0;
+        position = offset + HEADER.length;
+        while (position < end) {
+            byte blockType = data[position];
+            int chunkLength = readInt(data, position + 1, end);
+            if (blockType == BLOCK_TYPE_COMPRESSED) {
+                int compressedLength = readInt(data, position + 5, end);
+                int read = decompressor.decompress(data, position + 9, compressedLength, uncompressed, uncompressedPosition, chunkLength);
+                if (read != chunkLength) {
+                    throw new IOException("corrupted lz4 compressed data, expected [" + chunkLength + "] bytes but got [" + read + "]");
+                }
+                position += 9 + compressedLength;
+            } else if (blockType == BLOCK_TYPE_NON_COMPRESSED) {
+                System.arraycopy(data, position + 5, uncompressed, uncompressedPosition, chunkLength);
+                position += 5 + chunkLength;
+            } else {
+                throw new IOException("corrupted lz4 compressed data, unknown block type [" + blockType + "]");
+            }
+            uncompressedPosition += chunkLength;
+        }
+        return uncompressed;
+    }
+
+    private static int readInt(byte[] data, int position, int end) throws IOException {
+        if (position + 4 > end) {
+            throw new IOException("corrupted lz4 compressed data, unexpected end of data");
+        }
+        int value = ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16)
+                | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+        if (value < 0) {
+            throw new IOException("corrupted lz4 compressed data, negative length [" + value + "]");
+        }
+        return value;
+    }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) throws IOException {
+        BytesStreamOutput bStream = new BytesStreamOutput(HEADER.length + compressor.maxCompressedLength(length) + 9 * (length / MAX_CHUNK_LEN + 1));
+        StreamOutput stream = streamOutput(bStream);
+        stream.writeBytes(data, offset, length);
+        stream.close();
+        return bStream.bytes().toBytes();
+    }
+
+    @Override
+    public CompressedStreamInput streamInput(StreamInput in) throws IOException {
+        return new LZ4CompressedStreamInput(in, decompressor);
+    }
+
+    @Override
+    public CompressedStreamOutput streamOutput(StreamOutput out) throws IOException {
+        return new LZ4CompressedStreamOutput(out, compressor);
+    }
+
+    @Override
+    public CompressedIndexInput indexInput(IndexInput in) throws IOException {
+        throw new UnsupportedOperationException("lz4 is not supported for compressed index files");
+    }
+}
@@ -62,6 +62,11 @@ public class AndDocIdSet extends DocIdSet {
 
     @Override
     public DocIdSetIterator iterator() throws IOException {
+        RoaringDocIdSet[] roaringSets = RoaringDocIdSet.asRoaringSets(sets);
+        if (roaringSets != null) {
+            // compressed sets can be intersected block by block, which is much cheaper than leap-frogging their iterators
+            return RoaringDocIdSet.and(roaringSets).iterator();
+        }
         // we try and be smart here, if we can iterate through docsets quickly, prefer to iterate
         // over them as much as possible, before actually going to "bits" based ones to check
         List<DocIdSet> iterators = new ArrayList<>(sets.length);
@@ -36,6 +36,9 @@ public class DocIdSets {
         if (docIdSet instanceof FixedBitSet) {
             return ((FixedBitSet) docIdSet).getBits().length * 8 + 16;
         }
+        if (docIdSet instanceof RoaringDocIdSet) {
+            return ((RoaringDocIdSet) docIdSet).ramBytesUsed();
+        }
         // only for empty ones and unknowns...
         return 1;
     }
@@ -52,7 +55,7 @@ public class DocIdSets {
      * For example, it does not ends up iterating one doc at a time check for its "value".
      */
     public static boolean isFastIterator(DocIdSet set) {
-        return set instanceof FixedBitSet;
+        return set instanceof FixedBitSet || set instanceof RoaringDocIdSet;
     }
 
     /**
@@ -60,7 +63,12 @@ public class DocIdSets {
      * <p/>
      * Note, we don't use {@link org.apache.lucene.search.DocIdSet#isCacheable()} because execution
      * might be expensive even if its cacheable (i.e. not going back to the reader to execute). We effectively
-     * always either return an empty {@link DocIdSet} or {@link FixedBitSet} but never <code>null</code>.
+     * always either return an empty {@link DocIdSet}, a {@link FixedBitSet} or a {@link RoaringDocIdSet} but
+     * never <code>null</code>.
+     * <p/>
+     * Sets that already are a {@link FixedBitSet} are returned as is, since some consumers (like block join
+     * parent filters) rely on getting one back from the cache. Other sets are compressed, unless the
+     * compressed form would be larger than a {@link FixedBitSet}.
      */
     public static DocIdSet toCacheable(AtomicReader reader, @Nullable DocIdSet set) throws IOException {
         if (set == null || set == EMPTY_DOCIDSET) {
@@ -77,13 +85,14 @@ public class DocIdSets {
         if (set instanceof FixedBitSet) {
             return set;
         }
-        // TODO: should we use WAH8DocIdSet like Lucene?
-        FixedBitSet fixedBitSet = new FixedBitSet(reader.maxDoc());
-        do {
-            fixedBitSet.set(doc);
-            doc = it.nextDoc();
-        } while (doc != DocIdSetIterator.NO_MORE_DOCS);
-        return fixedBitSet;
+        RoaringDocIdSet.Builder builder = new RoaringDocIdSet.Builder(reader.maxDoc());
+        builder.add(doc);
+        RoaringDocIdSet roaringDocIdSet = builder.add(it).build();
+        if (roaringDocIdSet.ramBytesUsed() < FixedBitSet.bits2words(reader.maxDoc()) * 8 + 16) {
+            return roaringDocIdSet;
+        }
+        // dense sets on small segments are better off as plain bitsets
+        return toFixedBitSet(roaringDocIdSet.iterator(), reader.maxDoc());
     }
     
     /** An empty {@code DocIdSet} instance */
@@ -60,6 +60,11 @@ public class OrDocIdSet extends DocIdSet {
 
     @Override
     public DocIdSetIterator iterator() throws IOException {
+        RoaringDocIdSet[] roaringSets = RoaringDocIdSet.asRoaringSets(sets);
+        if (roaringSets != null) {
+            // compressed sets can be merged block by block, which is much cheaper than going through a heap of iterators
+            return RoaringDocIdSet.or(roaringSets).iterator();
+        }
         return new IteratorBasedIterator(sets);
     }
 
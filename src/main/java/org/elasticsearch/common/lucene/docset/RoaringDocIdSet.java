@@ -0,0 +1,743 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.docset;
+
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A compressed, immutable {@link DocIdSet} that splits the doc id space into blocks of
+ * {@value #BLOCK_SIZE} docs and stores every non empty block in whichever of three
+ * containers is the smallest for it:
+ * <ul>
+ * <li>a sorted array of the 16 low bits of the docs, for sparse blocks</li>
+ * <li>a bitmap of {@value #BLOCK_SIZE} bits, for dense blocks</li>
+ * <li>a sorted list of <tt>(start, length)</tt> runs, for blocks made of consecutive docs</li>
+ * </ul>
+ * The set is never larger than a {@link org.apache.lucene.util.FixedBitSet} over the same
+ * docs by more than a few bytes per block, and is usually much smaller, which makes it a
+ * good fit for filters that are cached per segment. It supports both fast iteration and
+ * random access, and conjunctions and disjunctions of several sets can be computed block
+ * by block without going through their iterators, see {@link #and(RoaringDocIdSet[])} and
+ * {@link #or(RoaringDocIdSet[])}.
+ */
+public final class RoaringDocIdSet extends DocIdSet {
+
+    static final int BLOCK_SIZE = 1 << 16;
+
+    /** Above this cardinality, a bitmap is smaller than an array of 16 bits values. */
+    static final int MAX_ARRAY_LENGTH = 1 << 12;
+
+    private static final int BITMAP_WORDS = BLOCK_SIZE >>> 6;
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(RoaringDocIdSet.class);
+
+    private final Container[] containers;
+    private final int maxDoc;
+    private final int cardinality;
+    private final long ramBytesUsed;
+
+    private RoaringDocIdSet(Container[] containers, int maxDoc) {
+        this.containers = containers;
+        this.maxDoc = maxDoc;
+        int cardinality = 0;
+        long ramBytesUsed = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(containers);
+        for (Container container : containers) {
+            if (container != null) {
+                cardinality += container.cardinality();
+                ramBytesUsed += container.ramBytesUsed();
+            }
+        }
+        this.cardinality = cardinality;
+        this.ramBytesUsed = ramBytesUsed;
+    }
+
+    /**
+     * The number of docs in this set.
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * The number of docs this set was built for.
+     */
+    public int maxDoc() {
+        return maxDoc;
+    }
+
+    /**
+     * The memory used by this set, in bytes.
+     */
+    public long ramBytesUsed() {
+        return ramBytesUsed;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public DocIdSetIterator iterator() throws IOException {
+        if (cardinality == 0) {
+            return DocIdSetIterator.empty();
+        }
+        return new Iterator();
+    }
+
+    @Override
+    public Bits bits() throws IOException {
+        return new Bits() {
+            @Override
+            public boolean get(int index) {
+                final Container container = containers[index >>> 16];
+                return container != null && container.get(index & 0xFFFF);
+            }
+
+            @Override
+            public int length() {
+                return maxDoc;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "RoaringDocIdSet(cardinality=" + cardinality + ",maxDoc=" + maxDoc + ",bytes=" + ramBytesUsed + ")";
+    }
+
+    /**
+     * Computes the intersection of the given sets, which must all have been built for the same
+     * {@link #maxDoc()}. Blocks that are missing from any of the sets are skipped entirely.
+     */
+    public static RoaringDocIdSet and(RoaringDocIdSet[] sets) {
+        assert sets.length > 0;
+        final int maxDoc = sets[0].maxDoc;
+        final Container[] result = new Container[sets[0].containers.length];
+        for (int block = 0; block < result.length; block++) {
+            Container container = sets[0].containers[block];
+            for (int i = 1; i < sets.length && container != null; i++) {
+                assert sets[i].maxDoc == maxDoc;
+                final Container other = sets[i].containers[block];
+                container = other == null ? null : and(container, other);
+            }
+            result[block] = container;
+        }
+        return new RoaringDocIdSet(result, maxDoc);
+    }
+
+    /**
+     * Computes the union of the given sets, which must all have been built for the same
+     * {@link #maxDoc()}.
+     */
+    public static RoaringDocIdSet or(RoaringDocIdSet[] sets) {
+        assert sets.length > 0;
+        final int maxDoc = sets[0].maxDoc;
+        final Container[] result = new Container[sets[0].containers.length];
+        long[] words = null;
+        for (int block = 0; block < result.length; block++) {
+            Container single = null;
+            int count = 0;
+            for (RoaringDocIdSet set : sets) {
+                assert set.maxDoc == maxDoc;
+                if (set.containers[block] != null) {
+                    single = set.containers[block];
+                    count++;
+                }
+            }
+            if (count <= 1) {
+                // containers are immutable, they can be shared
+                result[block] = single;
+                continue;
+            }
+            if (words == null) {
+                words = new long[BITMAP_WORDS];
+            } else {
+                Arrays.fill(words, 0L);
+            }
+            for (RoaringDocIdSet set : sets) {
+                if (set.containers[block] != null) {
+                    set.containers[block].orInto(words);
+                }
+            }
+            result[block] = fromBitmap(words);
+        }
+        return new RoaringDocIdSet(result, maxDoc);
+    }
+
+    /**
+     * Returns the given sets as {@link RoaringDocIdSet}s if there are at least two of them and all of
+     * them are compressed sets of the same segment, or <tt>null</tt> otherwise.
+     */
+    static RoaringDocIdSet[] asRoaringSets(DocIdSet[] sets) {
+        if (sets.length < 2) {
+            return null;
+        }
+        final RoaringDocIdSet[] roaringSets = new RoaringDocIdSet[sets.length];
+        for (int i = 0; i < sets.length; i++) {
+            if (!(sets[i] instanceof RoaringDocIdSet)) {
+                return null;
+            }
+            roaringSets[i] = (RoaringDocIdSet) sets[i];
+            if (roaringSets[i].maxDoc != roaringSets[0].maxDoc) {
+                return null;
+            }
+        }
+        return roaringSets;
+    }
+
+    private static Container and(Container a, Container b) {
+        if (a.cardinality() > b.cardinality()) {
+            Container tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (a.cardinality() <= MAX_ARRAY_LENGTH) {
+            // probe the larger container with the values of the smaller one
+            final char[] values = new char[a.cardinality()];
+            int size = 0;
+            final ContainerIterator it = a.iterator();
+            for (int low = it.next(); low != DocIdSetIterator.NO_MORE_DOCS; low = it.next()) {
+                if (b.get(low)) {
+                    values[size++] = (char) low;
+                }
+            }
+            return fromArray(values, size);
+        }
+        final long[] words = new long[BITMAP_WORDS];
+        a.orInto(words);
+        final long[] other = new long[BITMAP_WORDS];
+        b.orInto(other);
+        for (int i = 0; i < BITMAP_WORDS; i++) {
+            words[i] &= other[i];
+        }
+        return fromBitmap(words);
+    }
+
+    /**
+     * Picks the smallest container for the given sorted values, or <tt>null</tt> if there are none.
+     * The values are copied.
+     */
+    static Container fromArray(char[] values, int size) {
+        if (size == 0) {
+            return null;
+        }
+        int numRuns = 1;
+        for (int i = 1; i < size; i++) {
+            if (values[i] != values[i - 1] + 1) {
+                numRuns++;
+            }
+        }
+        if (RunContainer.sizeInBytes(numRuns) < ArrayContainer.sizeInBytes(size)) {
+            return RunContainer.build(new ArrayContainer(values, size).iterator(), numRuns);
+        }
+        return new ArrayContainer(Arrays.copyOf(values, size), size);
+    }
+
+    /**
+     * Picks the smallest container for the given bitmap, or <tt>null</tt> if it is empty. The
+     * bitmap is copied if it is not used as-is.
+     */
+    static Container fromBitmap(long[] words) {
+        int cardinality = 0;
+        int numRuns = 0;
+        long previous = 0L;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+            // a run starts wherever a set bit follows a clear one
+            numRuns += Long.bitCount(word & ~((word << 1) | (previous >>> 63)));
+            previous = word;
+        }
+        if (cardinality == 0) {
+            return null;
+        }
+        final BitmapContainer bitmap = new BitmapContainer(words, cardinality);
+        if (RunContainer.sizeInBytes(numRuns) < Math.min(BitmapContainer.sizeInBytes(), ArrayContainer.sizeInBytes(cardinality))) {
+            return RunContainer.build(bitmap.iterator(), numRuns);
+        }
+        if (cardinality <= MAX_ARRAY_LENGTH) {
+            final char[] values = new char[cardinality];
+            final ContainerIterator it = bitmap.iterator();
+            int i = 0;
+            for (int low = it.next(); low != DocIdSetIterator.NO_MORE_DOCS; low = it.next()) {
+                values[i++] = (char) low;
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+        return new BitmapContainer(words.clone(), cardinality);
+    }
+
+    /**
+     * Builds a {@link RoaringDocIdSet}, docs must be added in increasing order.
+     */
+    public static final class Builder {
+
+        private final int maxDoc;
+        private final Container[] containers;
+        private int lastDoc = -1;
+        private int currentBlock = -1;
+        private final char[] buffer = new char[MAX_ARRAY_LENGTH];
+        private int bufferSize;
+        private long[] bitmap;
+        private boolean usingBitmap;
+
+        public Builder(int maxDoc) {
+            this.maxDoc = maxDoc;
+            this.containers = new Container[(maxDoc + BLOCK_SIZE - 1) >>> 16];
+        }
+
+        public Builder add(int doc) {
+            if (doc <= lastDoc) {
+                throw new IllegalArgumentException("docs must be added in order, got [" + doc + "] after [" + lastDoc + "]");
+            }
+            if (doc >= maxDoc) {
+                throw new IllegalArgumentException("doc [" + doc + "] is out of bounds, maxDoc is [" + maxDoc + "]");
+            }
+            final int block = doc >>> 16;
+            if (block != currentBlock) {
+                flush();
+                currentBlock = block;
+            }
+            final int low = doc & 0xFFFF;
+            if (usingBitmap) {
+                bitmap[low >>> 6] |= 1L << low;
+            } else if (bufferSize < buffer.length) {
+                buffer[bufferSize++] = (char) low;
+            } else {
+                if (bitmap == null) {
+                    bitmap = new long[BITMAP_WORDS];
+                }
+                for (int i = 0; i < bufferSize; i++) {
+                    bitmap[buffer[i] >>> 6] |= 1L << buffer[i];
+                }
+                bitmap[low >>> 6] |= 1L << low;
+                usingBitmap = true;
+            }
+            lastDoc = doc;
+            return this;
+        }
+
+        /**
+         * Adds all the docs of the given iterator, which must be positioned before the docs to add.
+         */
+        public Builder add(DocIdSetIterator iterator) throws IOException {
+            for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+                add(doc);
+            }
+            return this;
+        }
+
+        private void flush() {
+            if (currentBlock == -1) {
+                return;
+            }
+            if (usingBitmap) {
+                containers[currentBlock] = fromBitmap(bitmap);
+                Arrays.fill(bitmap, 0L);
+                usingBitmap = false;
+            } else {
+                containers[currentBlock] = fromArray(buffer, bufferSize);
+            }
+            bufferSize = 0;
+        }
+
+        public RoaringDocIdSet build() {
+            flush();
+            currentBlock = -1;
+            return new RoaringDocIdSet(containers, maxDoc);
+        }
+    }
+
+    private class Iterator extends DocIdSetIterator {
+
+        private int block = -1;
+        private ContainerIterator sub;
+        private int doc = -1;
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            if (sub != null) {
+                final int low = sub.next();
+                if (low != NO_MORE_DOCS) {
+                    return doc = (block << 16) | low;
+                }
+            }
+            return firstDocFrom(block + 1);
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            final int targetBlock = target >>> 16;
+            if (targetBlock >= containers.length) {
+                sub = null;
+                block = containers.length;
+                return doc = NO_MORE_DOCS;
+            }
+            if (targetBlock != block) {
+                block = targetBlock;
+                sub = containers[block] == null ? null : containers[block].iterator();
+            }
+            if (sub != null) {
+                final int low = sub.advance(target & 0xFFFF);
+                if (low != NO_MORE_DOCS) {
+                    return doc = (block << 16) | low;
+                }
+            }
+            return firstDocFrom(block + 1);
+        }
+
+        private int firstDocFrom(int fromBlock) {
+            for (block = fromBlock; block < containers.length; block++) {
+                if (containers[block] != null) {
+                    sub = containers[block].iterator();
+                    // containers are never empty
+                    return doc = (block << 16) | sub.next();
+                }
+            }
+            sub = null;
+            return doc = NO_MORE_DOCS;
+        }
+
+        @Override
+        public long cost() {
+            return cardinality;
+        }
+    }
+
+    /**
+     * The docs of a single block, identified by their 16 low bits.
+     */
+    static abstract class Container {
+
+        abstract boolean get(int low);
+
+        abstract int cardinality();
+
+        abstract long ramBytesUsed();
+
+        abstract ContainerIterator iterator();
+
+        /**
+         * Sets the bits of this container in the given bitmap.
+         */
+        abstract void orInto(long[] words);
+    }
+
+    /**
+     * Iterates over the low bits of a container, {@link DocIdSetIterator#NO_MORE_DOCS} marks the end.
+     */
+    static abstract class ContainerIterator {
+
+        abstract int next();
+
+        /**
+         * Returns the first value that is greater than or equal to <tt>target</tt>, which is always
+         * greater than the current value.
+         */
+        abstract int advance(int target);
+    }
+
+    static final class ArrayContainer extends Container {
+
+        private final char[] values;
+        private final int size;
+
+        ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        static long sizeInBytes(int cardinality) {
+            return cardinality * RamUsageEstimator.NUM_BYTES_CHAR;
+        }
+
+        @Override
+        boolean get(int low) {
+            return Arrays.binarySearch(values, 0, size, (char) low) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_OBJECT_REF
+                    + RamUsageEstimator.NUM_BYTES_INT + RamUsageEstimator.sizeOf(values);
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int i = 0; i < size; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+        }
+
+        @Override
+        ContainerIterator iterator() {
+            return new ContainerIterator() {
+                int i = -1;
+
+                @Override
+                int next() {
+                    return ++i < size ? values[i] : DocIdSetIterator.NO_MORE_DOCS;
+                }
+
+                @Override
+                int advance(int target) {
+                    // gallop forward, most advances are close to the current position
+                    int lo = i + 1;
+                    int step = 1;
+                    int hi = lo;
+                    while (hi < size && values[hi] < target) {
+                        lo = hi + 1;
+                        hi += step;
+                        step <<= 1;
+                    }
+                    hi = Math.min(hi, size - 1);
+                    while (lo <= hi) {
+                        final int mid = (lo + hi) >>> 1;
+                        if (values[mid] < target) {
+                            lo = mid + 1;
+                        } else {
+                            hi = mid - 1;
+                        }
+                    }
+                    i = lo;
+                    return i < size ? values[i] : DocIdSetIterator.NO_MORE_DOCS;
+                }
+            };
+        }
+    }
+
+    static final class BitmapContainer extends Container {
+
+        private final long[] words;
+        private final int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            assert words.length == BITMAP_WORDS;
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        static long sizeInBytes() {
+            return BITMAP_WORDS * RamUsageEstimator.NUM_BYTES_LONG;
+        }
+
+        @Override
+        boolean get(int low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_OBJECT_REF
+                    + RamUsageEstimator.NUM_BYTES_INT + RamUsageEstimator.sizeOf(words);
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int i = 0; i < words.length; i++) {
+                words[i] |= this.words[i];
+            }
+        }
+
+        @Override
+        ContainerIterator iterator() {
+            return new ContainerIterator() {
+                int current = -1;
+
+                @Override
+                int next() {
+                    if (current == DocIdSetIterator.NO_MORE_DOCS) {
+                        return current;
+                    }
+                    return advance(current + 1);
+                }
+
+                @Override
+                int advance(int target) {
+                    if (target >= BLOCK_SIZE) {
+                        return current = DocIdSetIterator.NO_MORE_DOCS;
+                    }
+                    int i = target >>> 6;
+                    long word = words[i] >>> target;
+                    if (word != 0) {
+                        return current = target + Long.numberOfTrailingZeros(word);
+                    }
+                    while (++i < BITMAP_WORDS) {
+                        word = words[i];
+                        if (word != 0) {
+                            return current = (i << 6) + Long.numberOfTrailingZeros(word);
+                        }
+                    }
+                    return current = DocIdSetIterator.NO_MORE_DOCS;
+                }
+            };
+        }
+    }
+
+    static final class RunContainer extends Container {
+
+        /** Interleaved run starts and run lengths minus one. */
+        private final char[] runs;
+        private final int cardinality;
+
+        private RunContainer(char[] runs, int cardinality) {
+            this.runs = runs;
+            this.cardinality = cardinality;
+        }
+
+        static long sizeInBytes(int numRuns) {
+            return 2L * numRuns * RamUsageEstimator.NUM_BYTES_CHAR;
+        }
+
+        static RunContainer build(ContainerIterator it, int numRuns) {
+            final char[] runs = new char[numRuns << 1];
+            int cardinality = 0;
+            int r = -1;
+            int previous = -2;
+            for (int low = it.next(); low != DocIdSetIterator.NO_MORE_DOCS; low = it.next()) {
+                if (low == previous + 1) {
+                    runs[(r << 1) + 1]++;
+                } else {
+                    r++;
+                    runs[r << 1] = (char) low;
+                }
+                previous = low;
+                cardinality++;
+            }
+            assert r + 1 == numRuns;
+            return new RunContainer(runs, cardinality);
+        }
+
+        private int numRuns() {
+            return runs.length >>> 1;
+        }
+
+        private int start(int run) {
+            return runs[run << 1];
+        }
+
+        private int end(int run) {
+            return runs[run << 1] + runs[(run << 1) + 1];
+        }
+
+        @Override
+        boolean get(int low) {
+            int lo = 0;
+            int hi = numRuns() - 1;
+            while (lo <= hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (start(mid) > low) {
+                    hi = mid - 1;
+                } else if (end(mid) < low) {
+                    lo = mid + 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_OBJECT_REF
+                    + RamUsageEstimator.NUM_BYTES_INT + RamUsageEstimator.sizeOf(runs);
+        }
+
+        @Override
+        void orInto(long[] words) {
+            for (int r = 0; r < numRuns(); r++) {
+                final int start = start(r);
+                final int end = end(r);
+                final int startWord = start >>> 6;
+                final int endWord = end >>> 6;
+                final long startMask = -1L << start;
+                final long endMask = -1L >>> (63 - (end & 63));
+                if (startWord == endWord) {
+                    words[startWord] |= startMask & endMask;
+                } else {
+                    words[startWord] |= startMask;
+                    for (int i = startWord + 1; i < endWord; i++) {
+                        words[i] = -1L;
+                    }
+                    words[endWord] |= endMask;
+                }
+            }
+        }
+
+        @Override
+        ContainerIterator iterator() {
+            return new ContainerIterator() {
+                int run = 0;
+                int current = -1;
+
+                @Override
+                int next() {
+                    if (current == DocIdSetIterator.NO_MORE_DOCS) {
+                        return current;
+                    }
+                    if (current >= 0 && current < end(run)) {
+                        return ++current;
+                    }
+                    if (current >= 0) {
+                        run++;
+                    }
+                    return current = run < numRuns() ? start(run) : DocIdSetIterator.NO_MORE_DOCS;
+                }
+
+                @Override
+                int advance(int target) {
+                    while (run < numRuns() && end(run) < target) {
+                        run++;
+                    }
+                    if (run == numRuns()) {
+                        return current = DocIdSetIterator.NO_MORE_DOCS;
+                    }
+                    return current = Math.max(target, start(run));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.common.lucene.search;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.sorter.SortingMergePolicy;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Sort;
+
+import java.io.IOException;
+
+/**
+ * A collector that stops collecting a segment that was sorted by {@link SortingMergePolicy} once
+ * <tt>numDocsToCollect</tt> documents have been collected from it, which is correct as long as the wrapped
+ * collector sorts hits the same way the segment is sorted and keeps at most <tt>numDocsToCollect</tt> of them.
+ * Unlike Lucene's version, it records whether any segment was terminated early, in which case the total
+ * number of hits is a lower bound.
+ */
+public class EarlyTerminatingSortingCollector extends Collector {
+
+    private final Collector in;
+    private final Sort indexSort;
+    private final int numDocsToCollect;
+
+    private boolean segmentSorted;
+    private int segmentCollected;
+    private boolean terminatedEarly;
+
+    public EarlyTerminatingSortingCollector(Collector in, Sort indexSort, int numDocsToCollect) {
+        if (numDocsToCollect <= 0) {
+            throw new IllegalArgumentException("numDocsToCollect must be positive, got " + numDocsToCollect);
+        }
+        this.in = in;
+        this.indexSort = indexSort;
+        this.numDocsToCollect = numDocsToCollect;
+    }
+
+    @Override
+    public void setScorer(Scorer scorer) throws IOException {
+        in.setScorer(scorer);
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+        in.collect(doc);
+        if (segmentSorted && ++segmentCollected >= numDocsToCollect) {
+            terminatedEarly = true;
+            throw new CollectionTerminatedException();
+        }
+    }
+
+    @Override
+    public void setNextReader(AtomicReaderContext context) throws IOException {
+        in.setNextReader(context);
+        segmentSorted = SortingMergePolicy.isSorted(context.reader(), indexSort);
+        segmentCollected = 0;
+    }
+
+    @Override
+    public boolean acceptsDocsOutOfOrder() {
+        // the first docs of a sorted segment must be collected first
+        return false;
+    }
+
+    /**
+     * Whether the collection of at least one segment stopped before all its matching documents were collected.
+     */
+    public boolean terminatedEarly() {
+        return terminatedEarly;
+    }
+}
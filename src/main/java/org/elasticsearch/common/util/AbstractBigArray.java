@@ -27,6 +27,8 @@ import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.recycler.Recycler;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 /** Common implementation for array lists that slice data into fixed-size blocks. */
@@ -96,12 +98,16 @@ abstract class AbstractBigArray extends AbstractArray {
     }
 
     private <T> T registerNewPage(Recycler.V<T> v, int page, int expectedSize) {
+        assert Array.getLength(v.v()) == expectedSize;
+        return registerNewPage(v, page);
+    }
+
+    private <T> T registerNewPage(Recycler.V<T> v, int page) {
         cache = grow(cache, page + 1);
         assert cache[page] == null;
         cache[page] = v;
-        assert Array.getLength(v.v()) == expectedSize;
         return v.v();
-      }
+    }
 
     protected final byte[] newBytePage(int page) {
         if (recycler != null) {
@@ -157,6 +163,16 @@ abstract class AbstractBigArray extends AbstractArray {
         }
     }
 
+    protected final ByteBuffer newDirectPage(int page) {
+        if (recycler != null) {
+            final Recycler.V<ByteBuffer> v = recycler.directPage(clearOnResize);
+            assert v.v().capacity() == BigArrays.PAGE_SIZE_IN_BYTES;
+            return registerNewPage(v, page);
+        } else {
+            return ByteBuffer.allocateDirect(BigArrays.PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder());
+        }
+    }
+
     protected final void releasePage(int page) {
         if (recycler != null) {
             cache[page].close();
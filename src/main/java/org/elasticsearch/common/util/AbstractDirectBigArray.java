@@ -0,0 +1,71 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Common implementation for big arrays whose pages are direct {@link ByteBuffer}s of {@link BigArrays#PAGE_SIZE_IN_BYTES} bytes.
+ * Since the data lives outside of the heap, such arrays do not put pressure on the old generation, but their memory is still
+ * accounted for by {@link BigArrays}.
+ */
+abstract class AbstractDirectBigArray extends AbstractBigArray {
+
+    private final int elementShift;
+    protected ByteBuffer[] pages;
+
+    protected AbstractDirectBigArray(int pageSize, long size, BigArrays bigArrays, boolean clearOnResize) {
+        super(pageSize, bigArrays, clearOnResize);
+        this.elementShift = Integer.numberOfTrailingZeros(numBytesPerElement());
+        this.size = size;
+        pages = new ByteBuffer[numPages(size)];
+        for (int i = 0; i < pages.length; ++i) {
+            pages[i] = newDirectPage(i);
+        }
+    }
+
+    /** Return the offset in bytes of the element at <code>index</code> in its page. */
+    final int offsetInPage(long index) {
+        return indexInPage(index) << elementShift;
+    }
+
+    /** Change the size of this array. Content between indexes <code>0</code> and <code>min(size(), newSize)</code> will be preserved. */
+    @Override
+    public final void resize(long newSize) {
+        final int numPages = numPages(newSize);
+        if (numPages > pages.length) {
+            pages = Arrays.copyOf(pages, ArrayUtil.oversize(numPages, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+        }
+        for (int i = numPages - 1; i >= 0 && pages[i] == null; --i) {
+            pages[i] = newDirectPage(i);
+        }
+        for (int i = numPages; i < pages.length && pages[i] != null; ++i) {
+            pages[i] = null;
+            releasePage(i);
+        }
+        this.size = newSize;
+    }
+
+}
@@ -41,6 +41,8 @@ public class BigArrays extends AbstractComponent {
 
     // TODO: switch to a circuit breaker that is shared not only on big arrays level, and applies to other request level data structures
     public static final String MAX_SIZE_IN_BYTES_SETTING = "requests.memory.breaker.limit";
+    /** Whether arrays that span several pages should store their pages outside of the heap. */
+    public static final String OFF_HEAP_SETTING = "common.util.big_arrays.off_heap";
     public static final BigArrays NON_RECYCLING_INSTANCE = new BigArrays(ImmutableSettings.EMPTY, null, Long.MAX_VALUE);
 
     /** Page size in bytes: 16KB */
@@ -365,6 +367,7 @@ public class BigArrays extends AbstractComponent {
     final PageCacheRecycler recycler;
     final AtomicLong ramBytesUsed;
     final long maxSizeInBytes;
+    final boolean offHeap;
 
     @Inject
     public BigArrays(Settings settings, PageCacheRecycler recycler) {
@@ -375,9 +378,23 @@ public class BigArrays extends AbstractComponent {
         super(settings);
         this.maxSizeInBytes = maxSizeInBytes;
         this.recycler = recycler;
+        // off-heap pages are accounted for like heap pages, so they are still bounded by MAX_SIZE_IN_BYTES_SETTING
+        this.offHeap = settings.getAsBoolean(OFF_HEAP_SETTING, false);
         ramBytesUsed = new AtomicLong();
     }
 
+    /**
+     * Return a {@link BigArrays} instance that recycles pages like this one but never rejects allocations because of
+     * {@link #MAX_SIZE_IN_BYTES_SETTING}. Its allocations are accounted separately. Use it for structures that are
+     * updated after the operation they track has been applied, where failing the allocation would misreport the operation.
+     */
+    public BigArrays withoutLimit() {
+        if (maxSizeInBytes == Long.MAX_VALUE) {
+            return this;
+        }
+        return new BigArrays(settings, recycler, Long.MAX_VALUE);
+    }
+
     private void validate(long delta) {
         final long totalSizeInBytes = ramBytesUsed.addAndGet(delta);
         if (totalSizeInBytes > maxSizeInBytes) {
@@ -413,7 +430,7 @@ public class BigArrays extends AbstractComponent {
     public ByteArray newByteArray(long size, boolean clearOnResize) {
         final ByteArray array;
         if (size > BYTE_PAGE_SIZE) {
-            array = new BigByteArray(size, this, clearOnResize);
+            array = offHeap ? new DirectBigByteArray(size, this, clearOnResize) : new BigByteArray(size, this, clearOnResize);
         } else if (size >= BYTE_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<byte[]> page = recycler.bytePage(clearOnResize);
             array = new ByteArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -435,6 +452,8 @@ public class BigArrays extends AbstractComponent {
     public ByteArray resize(ByteArray array, long size) {
         if (array instanceof BigByteArray) {
             return resizeInPlace((BigByteArray) array, size);
+        } else if (array instanceof DirectBigByteArray) {
+            return resizeInPlace((DirectBigByteArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final ByteArray newArray = newByteArray(size, arr.clearOnResize);
@@ -495,7 +514,7 @@ public class BigArrays extends AbstractComponent {
     public IntArray newIntArray(long size, boolean clearOnResize) {
         final IntArray array;
         if (size > INT_PAGE_SIZE) {
-            array = new BigIntArray(size, this, clearOnResize);
+            array = offHeap ? new DirectBigIntArray(size, this, clearOnResize) : new BigIntArray(size, this, clearOnResize);
         } else if (size >= INT_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<int[]> page = recycler.intPage(clearOnResize);
             array = new IntArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -517,6 +536,8 @@ public class BigArrays extends AbstractComponent {
     public IntArray resize(IntArray array, long size) {
         if (array instanceof BigIntArray) {
             return resizeInPlace((BigIntArray) array, size);
+        } else if (array instanceof DirectBigIntArray) {
+            return resizeInPlace((DirectBigIntArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final IntArray newArray = newIntArray(size, arr.clearOnResize);
@@ -545,7 +566,7 @@ public class BigArrays extends AbstractComponent {
     public LongArray newLongArray(long size, boolean clearOnResize) {
         final LongArray array;
         if (size > LONG_PAGE_SIZE) {
-            array = new BigLongArray(size, this, clearOnResize);
+            array = offHeap ? new DirectBigLongArray(size, this, clearOnResize) : new BigLongArray(size, this, clearOnResize);
         } else if (size >= LONG_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<long[]> page = recycler.longPage(clearOnResize);
             array = new LongArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -567,6 +588,8 @@ public class BigArrays extends AbstractComponent {
     public LongArray resize(LongArray array, long size) {
         if (array instanceof BigLongArray) {
             return resizeInPlace((BigLongArray) array, size);
+        } else if (array instanceof DirectBigLongArray) {
+            return resizeInPlace((DirectBigLongArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final LongArray newArray = newLongArray(size, arr.clearOnResize);
@@ -595,7 +618,7 @@ public class BigArrays extends AbstractComponent {
     public DoubleArray newDoubleArray(long size, boolean clearOnResize) {
         final DoubleArray arr;
         if (size > DOUBLE_PAGE_SIZE) {
-            arr = new BigDoubleArray(size, this, clearOnResize);
+            arr = offHeap ? new DirectBigDoubleArray(size, this, clearOnResize) : new BigDoubleArray(size, this, clearOnResize);
         } else if (size >= DOUBLE_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<double[]> page = recycler.doublePage(clearOnResize);
             arr = new DoubleArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -614,6 +637,8 @@ public class BigArrays extends AbstractComponent {
     public DoubleArray resize(DoubleArray array, long size) {
         if (array instanceof BigDoubleArray) {
             return resizeInPlace((BigDoubleArray) array, size);
+        } else if (array instanceof DirectBigDoubleArray) {
+            return resizeInPlace((DirectBigDoubleArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final DoubleArray newArray = newDoubleArray(size, arr.clearOnResize);
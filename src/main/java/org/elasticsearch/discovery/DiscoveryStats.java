@@ -0,0 +1,111 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.discovery;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Statistics about the cluster states published by the discovery module, split between
+ * cluster states that were sent in full and the ones that were sent as a diff.
+ */
+public class DiscoveryStats implements Streamable, ToXContent {
+
+    private long fullPublishes;
+    private long diffPublishes;
+    private long incompatibleDiffs;
+
+    DiscoveryStats() {
+
+    }
+
+    public DiscoveryStats(long fullPublishes, long diffPublishes, long incompatibleDiffs) {
+        this.fullPublishes = fullPublishes;
+        this.diffPublishes = diffPublishes;
+        this.incompatibleDiffs = incompatibleDiffs;
+    }
+
+    /**
+     * The number of times a full cluster state was sent to a node.
+     */
+    public long getFullPublishes() {
+        return this.fullPublishes;
+    }
+
+    /**
+     * The number of times a cluster state diff was sent to a node.
+     */
+    public long getDiffPublishes() {
+        return this.diffPublishes;
+    }
+
+    /**
+     * The number of diffs that the receiving node could not apply, and were followed by a full cluster state.
+     */
+    public long getIncompatibleDiffs() {
+        return this.incompatibleDiffs;
+    }
+
+    public static DiscoveryStats readDiscoveryStats(StreamInput in) throws IOException {
+        DiscoveryStats stats = new DiscoveryStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        fullPublishes = in.readVLong();
+        diffPublishes = in.readVLong();
+        incompatibleDiffs = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(fullPublishes);
+        out.writeVLong(diffPublishes);
+        out.writeVLong(incompatibleDiffs);
+    }
+
+    static final class Fields {
+        static final XContentBuilderString DISCOVERY = new XContentBuilderString("discovery");
+        static final XContentBuilderString CLUSTER_STATE_PUBLISH = new XContentBuilderString("cluster_state_publish");
+        static final XContentBuilderString FULL = new XContentBuilderString("full");
+        static final XContentBuilderString DIFF = new XContentBuilderString("diff");
+        static final XContentBuilderString INCOMPATIBLE_DIFF = new XContentBuilderString("incompatible_diff");
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.DISCOVERY);
+        builder.startObject(Fields.CLUSTER_STATE_PUBLISH);
+        builder.field(Fields.FULL, fullPublishes);
+        builder.field(Fields.DIFF, diffPublishes);
+        builder.field(Fields.INCOMPATIBLE_DIFF, incompatibleDiffs);
+        builder.endObject();
+        builder.endObject();
+        return builder;
+    }
+}
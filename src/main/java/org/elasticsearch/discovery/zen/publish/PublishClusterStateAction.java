@@ -20,6 +20,7 @@
 package org.elasticsearch.discovery.zen.publish;
 
 import com.google.common.collect.Maps;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -28,23 +29,30 @@ import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.*;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.discovery.AckClusterStatePublishResponseHandler;
 import org.elasticsearch.discovery.ClusterStatePublishResponseHandler;
 import org.elasticsearch.discovery.Discovery;
 import org.elasticsearch.discovery.DiscoverySettings;
+import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.discovery.zen.DiscoveryNodesProvider;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
- *
+ * Publishes cluster states from the master to the other nodes. Nodes that received the previously
+ * published cluster state are only sent the changes against it, the other ones (and nodes that fail
+ * to apply the diff) are sent the full cluster state.
  */
 public class PublishClusterStateAction extends AbstractComponent {
 
+    public static final String SETTING_PUBLISH_DIFF_ENABLE = "discovery.zen.publish_diff.enable";
+
     public static interface NewClusterStateListener {
 
         static interface NewStateProcessed {
@@ -61,6 +69,16 @@ public class PublishClusterStateAction extends AbstractComponent {
     private final DiscoveryNodesProvider nodesProvider;
     private final NewClusterStateListener listener;
     private final DiscoverySettings discoverySettings;
+    private final boolean publishDiff;
+
+    private final CounterMetric fullPublishes = new CounterMetric();
+    private final CounterMetric diffPublishes = new CounterMetric();
+    private final CounterMetric incompatibleDiffs = new CounterMetric();
+
+    // the last cluster state published by this node while being master, used as the base for the next diff
+    private volatile ClusterState lastPublishedState;
+    // the last cluster state received from the master, diffs are applied on top of it
+    private volatile ClusterState lastSeenClusterState;
 
     public PublishClusterStateAction(Settings settings, TransportService transportService, DiscoveryNodesProvider nodesProvider,
                                      NewClusterStateListener listener, DiscoverySettings discoverySettings) {
@@ -69,6 +87,7 @@ public class PublishClusterStateAction extends AbstractComponent {
         this.nodesProvider = nodesProvider;
         this.listener = listener;
         this.discoverySettings = discoverySettings;
+        this.publishDiff = settings.getAsBoolean(SETTING_PUBLISH_DIFF_ENABLE, true);
         transportService.registerHandler(PublishClusterStateRequestHandler.ACTION, new PublishClusterStateRequestHandler());
     }
 
@@ -76,65 +95,53 @@ public class PublishClusterStateAction extends AbstractComponent {
         transportService.removeHandler(PublishClusterStateRequestHandler.ACTION);
     }
 
+    public DiscoveryStats stats() {
+        return new DiscoveryStats(fullPublishes.count(), diffPublishes.count(), incompatibleDiffs.count());
+    }
+
     public void publish(ClusterState clusterState, final Discovery.AckListener ackListener) {
         publish(clusterState, new AckClusterStatePublishResponseHandler(clusterState.nodes().size() - 1, ackListener));
     }
 
-    private void publish(ClusterState clusterState, final ClusterStatePublishResponseHandler publishResponseHandler) {
+    private void publish(final ClusterState clusterState, final ClusterStatePublishResponseHandler publishResponseHandler) {
 
         DiscoveryNode localNode = nodesProvider.nodes().localNode();
+        final ClusterState previousState = lastPublishedState;
 
-        Map<Version, BytesReference> serializedStates = Maps.newHashMap();
+        // shared with the response handlers, so nodes that fail to apply the diff reuse the full cluster state serialized here
+        final Map<Version, BytesReference> serializedStates = Maps.newHashMap();
+        Map<Version, BytesReference> serializedDiffs = Maps.newHashMap();
 
         for (final DiscoveryNode node : clusterState.nodes()) {
             if (node.equals(localNode)) {
                 continue;
             }
-            // try and serialize the cluster state once (or per version), so we don't serialize it
-            // per node when we send it over the wire, compress it while we are at it...
-            BytesReference bytes = serializedStates.get(node.version());
-            if (bytes == null) {
-                try {
-                    BytesStreamOutput bStream = new BytesStreamOutput();
-                    StreamOutput stream = new HandlesStreamOutput(CompressorFactory.defaultCompressor().streamOutput(bStream));
-                    stream.setVersion(node.version());
-                    ClusterState.Builder.writeTo(clusterState, stream);
-                    stream.close();
-                    bytes = bStream.bytes();
-                    serializedStates.put(node.version(), bytes);
-                } catch (Throwable e) {
-                    logger.warn("failed to serialize cluster_state before publishing it to node {}", e, node);
-                    publishResponseHandler.onFailure(node, e);
-                    continue;
+            // only nodes that were part of the previously published cluster state can apply a diff against it
+            final boolean sendDiff = publishDiff && previousState != null && node.version().onOrAfter(Version.V_2_0_0)
+                    && previousState.nodes().nodeExists(node.id());
+            if (sendDiff) {
+                // try and serialize the diff once (or per version), so we don't serialize it
+                // per node when we send it over the wire, compress it while we are at it...
+                BytesReference bytes = serializedDiffs.get(node.version());
+                if (bytes == null) {
+                    try {
+                        bytes = serializeDiffClusterState(previousState, clusterState, node.version());
+                        serializedDiffs.put(node.version(), bytes);
+                    } catch (Throwable e) {
+                        logger.warn("failed to serialize cluster_state diff before publishing it to node {}", e, node);
+                        publishResponseHandler.onFailure(node, e);
+                        continue;
+                    }
                 }
-            }
-            try {
-                TransportRequestOptions options = TransportRequestOptions.options().withType(TransportRequestOptions.Type.STATE).withCompress(false);
-                // no need to put a timeout on the options here, because we want the response to eventually be received
-                // and not log an error if it arrives after the timeout
-                transportService.sendRequest(node, PublishClusterStateRequestHandler.ACTION,
-                        new BytesTransportRequest(bytes, node.version()),
-                        options, // no need to compress, we already compressed the bytes
-
-                        new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
-
-                            @Override
-                            public void handleResponse(TransportResponse.Empty response) {
-                                publishResponseHandler.onResponse(node);
-                            }
-
-                            @Override
-                            public void handleException(TransportException exp) {
-                                logger.debug("failed to send cluster state to [{}]", exp, node);
-                                publishResponseHandler.onFailure(node, exp);
-                            }
-                        });
-            } catch (Throwable t) {
-                logger.debug("error sending cluster state to [{}]", t, node);
-                publishResponseHandler.onFailure(node, t);
+                diffPublishes.inc();
+                sendClusterState(clusterState, node, bytes, serializedStates, publishResponseHandler);
+            } else {
+                sendFullClusterState(clusterState, node, serializedStates, publishResponseHandler);
             }
         }
 
+        lastPublishedState = clusterState;
+
         TimeValue publishTimeout = discoverySettings.getPublishTimeout();
         if (publishTimeout.millis() > 0) {
             // only wait if the publish timeout is configured...
@@ -150,6 +157,97 @@ public class PublishClusterStateAction extends AbstractComponent {
         }
     }
 
+    /**
+     * Sends the serialized cluster state (or diff) to the node. If the node cannot apply a diff, the full cluster state is
+     * sent instead, serialized at most once per node version and publish into {@code serializedStates}. Diff responses are
+     * handled on the generic thread pool so this serialization doesn't happen on a transport thread.
+     *
+     * @param serializedStates full cluster states serialized for this publish, or {@code null} if the bytes are the full state
+     */
+    private void sendClusterState(final ClusterState clusterState, final DiscoveryNode node, BytesReference bytes,
+                                  final Map<Version, BytesReference> serializedStates,
+                                  final ClusterStatePublishResponseHandler publishResponseHandler) {
+        final boolean diff = serializedStates != null;
+        try {
+            TransportRequestOptions options = TransportRequestOptions.options().withType(TransportRequestOptions.Type.STATE).withCompress(false);
+            // no need to put a timeout on the options here, because we want the response to eventually be received
+            // and not log an error if it arrives after the timeout
+            transportService.sendRequest(node, PublishClusterStateRequestHandler.ACTION,
+                    new BytesTransportRequest(bytes, node.version()),
+                    options, // no need to compress, we already compressed the bytes
+
+                    new EmptyTransportResponseHandler(diff ? ThreadPool.Names.GENERIC : ThreadPool.Names.SAME) {
+
+                        @Override
+                        public void handleResponse(TransportResponse.Empty response) {
+                            publishResponseHandler.onResponse(node);
+                        }
+
+                        @Override
+                        public void handleException(TransportException exp) {
+                            if (diff && ExceptionsHelper.unwrapCause(exp) instanceof IncompatibleClusterStateVersionException) {
+                                logger.debug("node [{}] could not apply cluster state diff, sending full cluster state version {}", node, clusterState.version());
+                                incompatibleDiffs.inc();
+                                sendFullClusterState(clusterState, node, serializedStates, publishResponseHandler);
+                                return;
+                            }
+                            logger.debug("failed to send cluster state to [{}]", exp, node);
+                            publishResponseHandler.onFailure(node, exp);
+                        }
+                    });
+        } catch (Throwable t) {
+            logger.debug("error sending cluster state to [{}]", t, node);
+            publishResponseHandler.onFailure(node, t);
+        }
+    }
+
+    private void sendFullClusterState(ClusterState clusterState, DiscoveryNode node, Map<Version, BytesReference> serializedStates,
+                                      ClusterStatePublishResponseHandler publishResponseHandler) {
+        BytesReference bytes;
+        try {
+            // try and serialize the cluster state once (or per version), so we don't serialize it
+            // per node when we send it over the wire, compress it while we are at it...
+            synchronized (serializedStates) {
+                bytes = serializedStates.get(node.version());
+                if (bytes == null) {
+                    bytes = serializeFullClusterState(clusterState, node.version());
+                    serializedStates.put(node.version(), bytes);
+                }
+            }
+        } catch (Throwable e) {
+            logger.warn("failed to serialize cluster_state before publishing it to node {}", e, node);
+            publishResponseHandler.onFailure(node, e);
+            return;
+        }
+        fullPublishes.inc();
+        sendClusterState(clusterState, node, bytes, null, publishResponseHandler);
+    }
+
+    private static BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
+        BytesStreamOutput bStream = new BytesStreamOutput();
+        StreamOutput stream = new HandlesStreamOutput(CompressorFactory.defaultCompressor().streamOutput(bStream));
+        stream.setVersion(nodeVersion);
+        if (nodeVersion.onOrAfter(Version.V_2_0_0)) {
+            stream.writeBoolean(false);
+        }
+        ClusterState.Builder.writeTo(clusterState, stream);
+        stream.close();
+        return bStream.bytes();
+    }
+
+    private static BytesReference serializeDiffClusterState(ClusterState previousState, ClusterState clusterState, Version nodeVersion) throws IOException {
+        BytesStreamOutput bStream = new BytesStreamOutput();
+        StreamOutput stream = new HandlesStreamOutput(CompressorFactory.defaultCompressor().streamOutput(bStream));
+        stream.setVersion(nodeVersion);
+        stream.writeBoolean(true);
+        // identifies the cluster state the diff was built against
+        stream.writeLong(previousState.version());
+        stream.writeOptionalString(previousState.nodes().masterNodeId());
+        ClusterState.Builder.writeDiffTo(previousState, clusterState, stream);
+        stream.close();
+        return bStream.bytes();
+    }
+
     private class PublishClusterStateRequestHandler extends BaseTransportRequestHandler<BytesTransportRequest> {
 
         static final String ACTION = "discovery/zen/publish";
@@ -169,7 +267,24 @@ public class PublishClusterStateAction extends AbstractComponent {
                 in = CachedStreamInput.cachedHandles(request.bytes().streamInput());
             }
             in.setVersion(request.version());
-            ClusterState clusterState = ClusterState.Builder.readFrom(in, nodesProvider.nodes().localNode());
+            DiscoveryNode localNode = nodesProvider.nodes().localNode();
+            ClusterState clusterState;
+            if (request.version().onOrAfter(Version.V_2_0_0) && in.readBoolean()) {
+                long previousVersion = in.readLong();
+                String previousMasterNodeId = in.readOptionalString();
+                ClusterState previousState = lastSeenClusterState;
+                if (previousState == null || previousState.version() != previousVersion || previousMasterNodeId == null
+                        || !previousMasterNodeId.equals(previousState.nodes().masterNodeId())) {
+                    throw new IncompatibleClusterStateVersionException("received cluster state diff against version [" + previousVersion
+                            + "] from master [" + previousMasterNodeId + "], but last seen cluster state is version ["
+                            + (previousState == null ? "none" : previousState.version()) + "]");
+                }
+                clusterState = ClusterState.Builder.readDiffFrom(previousState, in, localNode);
+                logger.debug("received cluster state diff version {} against version {}", clusterState.version(), previousVersion);
+            } else {
+                clusterState = ClusterState.Builder.readFrom(in, localNode);
+            }
+            lastSeenClusterState = clusterState;
             clusterState.status(ClusterState.ClusterStateStatus.RECEIVED);
             logger.debug("received cluster state version {}", clusterState.version());
             listener.onNewClusterState(clusterState, new NewClusterStateListener.NewStateProcessed() {
@@ -82,6 +82,11 @@ public class HttpServer extends AbstractLifecycleComponent<HttpServer> {
         public void dispatchRequest(HttpRequest request, HttpChannel channel) {
             server.internalDispatchRequest(request, channel);
         }
+
+        @Override
+        public StreamingRestHandler.ContentConsumer dispatchStreamingRequest(HttpRequest request, HttpChannel channel, StreamingRestHandler.FlowControl flowControl) throws Exception {
+            return server.internalDispatchStreamingRequest(request, channel, flowControl);
+        }
     }
 
     @Override
@@ -121,6 +126,14 @@ public class HttpServer extends AbstractLifecycleComponent<HttpServer> {
         restController.dispatchRequest(request, channel);
     }
 
+    public StreamingRestHandler.ContentConsumer internalDispatchStreamingRequest(final HttpRequest request, final HttpChannel channel,
+                                                                                 final StreamingRestHandler.FlowControl flowControl) throws Exception {
+        if (request.rawPath().startsWith("/_plugin/")) {
+            return null;
+        }
+        return restController.dispatchStreamingRequest(request, channel, flowControl);
+    }
+
 
     class PluginSiteFilter extends RestFilter {
 
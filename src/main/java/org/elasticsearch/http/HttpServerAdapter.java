@@ -19,10 +19,21 @@
 
 package org.elasticsearch.http;
 
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.rest.StreamingRestHandler;
+
 /**
  *
  */
 public interface HttpServerAdapter {
 
     void dispatchRequest(HttpRequest request, HttpChannel channel);
+
+    /**
+     * Dispatches a request whose body has not been received yet. Returns the consumer its body should be streamed to,
+     * or <tt>null</tt> if the request should be dispatched through {@link #dispatchRequest(HttpRequest, HttpChannel)}
+     * once its body has been fully received.
+     */
+    @Nullable
+    StreamingRestHandler.ContentConsumer dispatchStreamingRequest(HttpRequest request, HttpChannel channel, StreamingRestHandler.FlowControl flowControl) throws Exception;
 }
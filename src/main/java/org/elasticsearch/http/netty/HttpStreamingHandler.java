@@ -0,0 +1,98 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty;
+
+import org.elasticsearch.common.bytes.ChannelBufferBytesReference;
+import org.elasticsearch.rest.StreamingRestHandler;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.*;
+import org.jboss.netty.handler.codec.http.*;
+import org.jboss.netty.util.CharsetUtil;
+
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * Sits in front of the {@link HttpChunkAggregator} and hands the chunks of requests that a
+ * {@link StreamingRestHandler} accepted over to it as they are received, instead of letting them be aggregated.
+ * Requests that are not streamed are passed on untouched. Not sharable, it holds the state of the request that
+ * is currently streamed on its channel.
+ */
+public class HttpStreamingHandler extends SimpleChannelUpstreamHandler {
+
+    private static final ChannelBuffer CONTINUE = ChannelBuffers.copiedBuffer("HTTP/1.1 100 Continue\r\n\r\n", CharsetUtil.US_ASCII);
+
+    private final NettyHttpServerTransport serverTransport;
+
+    private StreamingRestHandler.ContentConsumer consumer;
+
+    public HttpStreamingHandler(NettyHttpServerTransport serverTransport) {
+        this.serverTransport = serverTransport;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        final Object msg = e.getMessage();
+        if (consumer != null && msg instanceof HttpChunk) {
+            final HttpChunk chunk = (HttpChunk) msg;
+            final StreamingRestHandler.ContentConsumer consumer = this.consumer;
+            if (chunk.isLast()) {
+                this.consumer = null;
+            }
+            consumer.onContent(new ChannelBufferBytesReference(chunk.getContent()), chunk.isLast());
+            return;
+        }
+        if (msg instanceof HttpRequest && ((HttpRequest) msg).isChunked()) {
+            final HttpRequest request = (HttpRequest) msg;
+            final Channel channel = e.getChannel();
+            final NettyHttpRequest httpRequest = new NettyHttpRequest(request, channel);
+            final StreamingRestHandler.ContentConsumer consumer = serverTransport.dispatchStreamingRequest(httpRequest,
+                    new NettyHttpChannel(serverTransport, channel, httpRequest), new StreamingRestHandler.FlowControl() {
+                        @Override
+                        public void pause() {
+                            channel.setReadable(false);
+                        }
+
+                        @Override
+                        public void resume() {
+                            channel.setReadable(true);
+                        }
+                    });
+            if (consumer != null) {
+                if (HttpHeaders.is100ContinueExpected(request)) {
+                    Channels.write(ctx, Channels.succeededFuture(channel), CONTINUE.duplicate());
+                }
+                this.consumer = consumer;
+                return;
+            }
+        }
+        ctx.sendUpstream(e);
+    }
+
+    @Override
+    public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        final StreamingRestHandler.ContentConsumer consumer = this.consumer;
+        if (consumer != null) {
+            this.consumer = null;
+            consumer.onFailure(new ClosedChannelException());
+        }
+        super.channelClosed(ctx, e);
+    }
+}
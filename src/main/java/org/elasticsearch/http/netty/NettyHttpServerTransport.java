@@ -38,6 +38,7 @@ import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.http.*;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.monitor.jvm.JvmInfo;
+import org.elasticsearch.rest.StreamingRestHandler;
 import org.elasticsearch.transport.BindTransportException;
 import org.jboss.netty.bootstrap.ServerBootstrap;
 import org.jboss.netty.channel.*;
@@ -294,6 +295,10 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
         httpServerAdapter.dispatchRequest(request, channel);
     }
 
+    StreamingRestHandler.ContentConsumer dispatchStreamingRequest(HttpRequest request, HttpChannel channel, StreamingRestHandler.FlowControl flowControl) throws Exception {
+        return httpServerAdapter.dispatchStreamingRequest(request, channel, flowControl);
+    }
+
     void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
         if (e.getCause() instanceof ReadTimeoutException) {
             if (logger.isTraceEnabled()) {
@@ -349,6 +354,8 @@ public class NettyHttpServerTransport extends AbstractLifecycleComponent<HttpSer
             if (transport.compression) {
                 pipeline.addLast("decoder_compress", new HttpContentDecompressor());
             }
+            // bodies of requests that are streamed to their handler must not be aggregated
+            pipeline.addLast("streaming", new HttpStreamingHandler(transport));
             HttpChunkAggregator httpChunkAggregator = new HttpChunkAggregator((int) transport.maxContentLength.bytes());
             if (transport.maxCompositeBufferComponents != -1) {
                 httpChunkAggregator.setMaxCumulationBufferComponents(transport.maxCompositeBufferComponents);
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.cache.filter;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -35,6 +36,12 @@ public class FilterCacheStats implements Streamable, ToXContent {
 
     long memorySize;
     long evictions;
+    long hitCount;
+    long missCount;
+    long cacheCount;
+    long sizeEvictions;
+    long expiredEvictions;
+    long clearedCount;
 
     public FilterCacheStats() {
     }
@@ -44,9 +51,26 @@ public class FilterCacheStats implements Streamable, ToXContent {
         this.evictions = evictions;
     }
 
+    public FilterCacheStats(long memorySize, long evictions, long hitCount, long missCount, long cacheCount,
+                            long sizeEvictions, long expiredEvictions, long clearedCount) {
+        this(memorySize, evictions);
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.cacheCount = cacheCount;
+        this.sizeEvictions = sizeEvictions;
+        this.expiredEvictions = expiredEvictions;
+        this.clearedCount = clearedCount;
+    }
+
     public void add(FilterCacheStats stats) {
         this.memorySize += stats.memorySize;
         this.evictions += stats.evictions;
+        this.hitCount += stats.hitCount;
+        this.missCount += stats.missCount;
+        this.cacheCount += stats.cacheCount;
+        this.sizeEvictions += stats.sizeEvictions;
+        this.expiredEvictions += stats.expiredEvictions;
+        this.clearedCount += stats.clearedCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -61,6 +85,49 @@ public class FilterCacheStats implements Streamable, ToXContent {
         return this.evictions;
     }
 
+    /**
+     * The number of times a filter was looked up in the cache and found.
+     */
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * The number of times a filter was looked up in the cache and not found.
+     */
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * The number of filter results that were added to the cache. This is lower than the miss count when
+     * the caching policy decides that some filters are not worth caching.
+     */
+    public long getCacheCount() {
+        return this.cacheCount;
+    }
+
+    /**
+     * The number of entries that were evicted because the cache was full.
+     */
+    public long getSizeEvictions() {
+        return this.sizeEvictions;
+    }
+
+    /**
+     * The number of entries that were evicted because they expired.
+     */
+    public long getExpiredEvictions() {
+        return this.expiredEvictions;
+    }
+
+    /**
+     * The number of entries that were removed because their segment went away or the cache was cleared.
+     */
+    public long getClearedCount() {
+        return this.clearedCount;
+    }
+
     public static FilterCacheStats readFilterCacheStats(StreamInput in) throws IOException {
         FilterCacheStats stats = new FilterCacheStats();
         stats.readFrom(in);
@@ -71,12 +138,28 @@ public class FilterCacheStats implements Streamable, ToXContent {
     public void readFrom(StreamInput in) throws IOException {
         memorySize = in.readVLong();
         evictions = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            hitCount = in.readVLong();
+            missCount = in.readVLong();
+            cacheCount = in.readVLong();
+            sizeEvictions = in.readVLong();
+            expiredEvictions = in.readVLong();
+            clearedCount = in.readVLong();
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVLong(hitCount);
+            out.writeVLong(missCount);
+            out.writeVLong(cacheCount);
+            out.writeVLong(sizeEvictions);
+            out.writeVLong(expiredEvictions);
+            out.writeVLong(clearedCount);
+        }
     }
 
     @Override
@@ -84,6 +167,14 @@ public class FilterCacheStats implements Streamable, ToXContent {
         builder.startObject(Fields.FILTER_CACHE);
         builder.byteSizeField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, memorySize);
         builder.field(Fields.EVICTIONS, getEvictions());
+        builder.field(Fields.HIT_COUNT, hitCount);
+        builder.field(Fields.MISS_COUNT, missCount);
+        builder.field(Fields.CACHE_COUNT, cacheCount);
+        builder.startObject(Fields.EVICTIONS_BY_REASON);
+        builder.field(Fields.SIZE, sizeEvictions);
+        builder.field(Fields.EXPIRED, expiredEvictions);
+        builder.field(Fields.CLEARED, clearedCount);
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -93,5 +184,12 @@ public class FilterCacheStats implements Streamable, ToXContent {
         static final XContentBuilderString MEMORY_SIZE = new XContentBuilderString("memory_size");
         static final XContentBuilderString MEMORY_SIZE_IN_BYTES = new XContentBuilderString("memory_size_in_bytes");
         static final XContentBuilderString EVICTIONS = new XContentBuilderString("evictions");
+        static final XContentBuilderString HIT_COUNT = new XContentBuilderString("hit_count");
+        static final XContentBuilderString MISS_COUNT = new XContentBuilderString("miss_count");
+        static final XContentBuilderString CACHE_COUNT = new XContentBuilderString("cache_count");
+        static final XContentBuilderString EVICTIONS_BY_REASON = new XContentBuilderString("evictions_by_reason");
+        static final XContentBuilderString SIZE = new XContentBuilderString("size");
+        static final XContentBuilderString EXPIRED = new XContentBuilderString("expired");
+        static final XContentBuilderString CLEARED = new XContentBuilderString("cleared");
     }
 }
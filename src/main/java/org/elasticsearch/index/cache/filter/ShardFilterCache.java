@@ -37,6 +37,12 @@ public class ShardFilterCache extends AbstractIndexShardComponent implements Rem
 
     final CounterMetric evictionsMetric = new CounterMetric();
     final CounterMetric totalMetric = new CounterMetric();
+    final CounterMetric hitMetric = new CounterMetric();
+    final CounterMetric missMetric = new CounterMetric();
+    final CounterMetric cacheMetric = new CounterMetric();
+    final CounterMetric sizeEvictionsMetric = new CounterMetric();
+    final CounterMetric expiredEvictionsMetric = new CounterMetric();
+    final CounterMetric clearedMetric = new CounterMetric();
 
     @Inject
     public ShardFilterCache(ShardId shardId, @IndexSettings Settings indexSettings) {
@@ -44,10 +50,20 @@ public class ShardFilterCache extends AbstractIndexShardComponent implements Rem
     }
 
     public FilterCacheStats stats() {
-        return new FilterCacheStats(totalMetric.count(), evictionsMetric.count());
+        return new FilterCacheStats(totalMetric.count(), evictionsMetric.count(), hitMetric.count(), missMetric.count(),
+                cacheMetric.count(), sizeEvictionsMetric.count(), expiredEvictionsMetric.count(), clearedMetric.count());
+    }
+
+    public void onHit() {
+        hitMetric.inc();
+    }
+
+    public void onMiss() {
+        missMetric.inc();
     }
 
     public void onCached(long sizeInBytes) {
+        cacheMetric.inc();
         totalMetric.inc(sizeInBytes);
     }
 
@@ -56,6 +72,20 @@ public class ShardFilterCache extends AbstractIndexShardComponent implements Rem
         if (removalNotification.wasEvicted()) {
             evictionsMetric.inc();
         }
+        switch (removalNotification.getCause()) {
+            case SIZE:
+                sizeEvictionsMetric.inc();
+                break;
+            case EXPIRED:
+                expiredEvictionsMetric.inc();
+                break;
+            case EXPLICIT:
+                clearedMetric.inc();
+                break;
+            default:
+                // replaced entries are accounted when the new value gets cached
+                break;
+        }
         if (removalNotification.getValue() != null) {
             totalMetric.dec(DocIdSets.sizeInBytes(removalNotification.getValue()));
         }
@@ -0,0 +1,161 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.filter.support;
+
+import com.carrotsearch.hppc.ObjectIntOpenHashMap;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.queries.TermFilter;
+import org.apache.lucene.search.Filter;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.search.nested.NestedTypeFilter;
+import org.elasticsearch.index.search.nested.NonNestedDocsFilter;
+
+/**
+ * Decides whether a filter is worth caching based on how often it has been used recently, so
+ * that one-off filters (like range filters on <tt>now</tt>) do not evict the hot ones from the
+ * node level filter cache.
+ * <p/>
+ * The policy keeps the cache keys of the last <tt>history</tt> filters that were used in a ring
+ * buffer, compared by equality, and only lets a filter be cached once it appears at least <tt>min_frequency</tt> times in
+ * it. Cheap filters (single term filters) are never cached on segments that have fewer than
+ * <tt>min_segment_size</tt> documents since evaluating them again is about as fast as reading
+ * them from the cache.
+ */
+public class UsageTrackingFilterCachingPolicy {
+
+    public static final String HISTORY = "index.cache.filter.policy.history";
+    public static final String MIN_FREQUENCY = "index.cache.filter.policy.min_frequency";
+    public static final String MIN_SEGMENT_SIZE = "index.cache.filter.policy.min_segment_size";
+
+    public static final int DEFAULT_HISTORY = 256;
+    public static final int DEFAULT_MIN_FREQUENCY = 2;
+    public static final int DEFAULT_MIN_SEGMENT_SIZE = 10000;
+
+    private final int minFrequency;
+    private final int minSegmentSize;
+
+    private final Object[] history;
+    private final ObjectIntOpenHashMap<Object> frequencies;
+    private int position;
+    private int size;
+
+    public UsageTrackingFilterCachingPolicy(Settings indexSettings) {
+        this(indexSettings.getAsInt(HISTORY, DEFAULT_HISTORY),
+                indexSettings.getAsInt(MIN_FREQUENCY, DEFAULT_MIN_FREQUENCY),
+                indexSettings.getAsInt(MIN_SEGMENT_SIZE, DEFAULT_MIN_SEGMENT_SIZE));
+    }
+
+    public UsageTrackingFilterCachingPolicy(int history, int minFrequency, int minSegmentSize) {
+        if (history < 1) {
+            throw new IllegalArgumentException("[" + HISTORY + "] must be at least 1, got [" + history + "]");
+        }
+        if (minFrequency > history) {
+            throw new IllegalArgumentException("[" + MIN_FREQUENCY + "] must be at most [" + HISTORY + "] ("
+                    + history + "), got [" + minFrequency + "]");
+        }
+        this.minFrequency = minFrequency;
+        this.minSegmentSize = minSegmentSize;
+        this.history = new Object[history];
+        this.frequencies = new ObjectIntOpenHashMap<>(history);
+    }
+
+    public int minFrequency() {
+        return minFrequency;
+    }
+
+    public int minSegmentSize() {
+        return minSegmentSize;
+    }
+
+    /**
+     * Records that the given filter is about to be executed by a search.
+     *
+     * @param filter    the filter, as given to the filter cache
+     * @param filterKey the key the filter is cached under
+     */
+    public void onUse(Filter filter, Object filterKey) {
+        if (minFrequency <= 1 || alwaysCache(filter)) {
+            // no need to track usage
+            return;
+        }
+        synchronized (this) {
+            if (size == history.length) {
+                final Object evicted = history[position];
+                final int frequency = frequencies.get(evicted);
+                if (frequency <= 1) {
+                    frequencies.remove(evicted);
+                } else {
+                    frequencies.put(evicted, frequency - 1);
+                }
+            } else {
+                size++;
+            }
+            history[position] = filterKey;
+            frequencies.addTo(filterKey, 1);
+            if (++position == history.length) {
+                position = 0;
+            }
+        }
+    }
+
+    /**
+     * How many times a filter with the given key was used among the last <tt>history</tt> filters.
+     */
+    public synchronized int frequency(Object filterKey) {
+        return frequencies.get(filterKey);
+    }
+
+    /**
+     * Should the result of the given filter on the given segment be cached?
+     */
+    public boolean shouldCache(Filter filter, Object filterKey, AtomicReaderContext context) {
+        if (alwaysCache(filter)) {
+            return true;
+        }
+        if (isCheap(filter) && context.reader().maxDoc() < minSegmentSize) {
+            return false;
+        }
+        return minFrequency <= 1 || frequency(filterKey) >= minFrequency;
+    }
+
+    /**
+     * Filters whose cached result is shared by the nested (block join) support, and which are expensive to
+     * compute or needed as bitsets on every segment, are always cached.
+     */
+    static boolean alwaysCache(Filter filter) {
+        Filter unwrapped = unwrap(filter);
+        return unwrapped instanceof NonNestedDocsFilter || unwrapped instanceof NestedTypeFilter;
+    }
+
+    /**
+     * A filter on a single term only needs to read a postings list, which is about as fast as iterating
+     * over its cached doc id set.
+     */
+    static boolean isCheap(Filter filter) {
+        return unwrap(filter) instanceof TermFilter;
+    }
+
+    private static Filter unwrap(Filter filter) {
+        if (filter instanceof CacheKeyFilter.Wrapper) {
+            return ((CacheKeyFilter.Wrapper) filter).wrappedFilter();
+        }
+        return filter;
+    }
+}
@@ -40,7 +40,9 @@ import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.cache.filter.FilterCache;
+import org.elasticsearch.index.cache.filter.ShardFilterCache;
 import org.elasticsearch.index.cache.filter.support.CacheKeyFilter;
+import org.elasticsearch.index.cache.filter.support.UsageTrackingFilterCachingPolicy;
 import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.shard.ShardId;
@@ -58,10 +60,15 @@ public class WeightedFilterCache extends AbstractIndexComponent implements Filte
 
     final ConcurrentMap<Object, Boolean> seenReaders = ConcurrentCollections.newConcurrentMap();
 
+    final UsageTrackingFilterCachingPolicy cachingPolicy;
+
     @Inject
     public WeightedFilterCache(Index index, @IndexSettings Settings indexSettings, IndicesFilterCache indicesFilterCache) {
         super(index, indexSettings);
         this.indicesFilterCache = indicesFilterCache;
+        this.cachingPolicy = new UsageTrackingFilterCachingPolicy(indexSettings);
+        logger.debug("using filter caching policy with min_frequency [{}], min_segment_size [{}]",
+                cachingPolicy.minFrequency(), cachingPolicy.minSegmentSize());
     }
 
     @Override
@@ -133,6 +140,25 @@ public class WeightedFilterCache extends AbstractIndexComponent implements Filte
         return new FilterCacheFilterWrapper(filterToCache, this);
     }
 
+    static Object filterKey(Filter filter) {
+        if (filter instanceof CacheKeyFilter) {
+            return ((CacheKeyFilter) filter).cacheKey();
+        }
+        return filter;
+    }
+
+    @Nullable
+    ShardFilterCache shardFilterCache(AtomicReaderContext context) {
+        ShardId shardId = ShardUtils.extractShardId(context.reader());
+        if (shardId != null && indexService != null) {
+            IndexShard shard = indexService.shard(shardId.id());
+            if (shard != null) {
+                return shard.filterCache();
+            }
+        }
+        return null;
+    }
+
     static class FilterCacheFilterWrapper extends CachedFilter {
 
         private final Filter filter;
@@ -147,15 +173,24 @@ public class WeightedFilterCache extends AbstractIndexComponent implements Filte
 
         @Override
         public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) throws IOException {
-            Object filterKey = filter;
-            if (filter instanceof CacheKeyFilter) {
-                filterKey = ((CacheKeyFilter) filter).cacheKey();
-            }
+            Object filterKey = filterKey(filter);
             FilterCacheKey cacheKey = new FilterCacheKey(context.reader().getCoreCacheKey(), filterKey);
             Cache<FilterCacheKey, DocIdSet> innerCache = cache.indicesFilterCache.cache();
+            ShardFilterCache shardFilterCache = cache.shardFilterCache(context);
+            if (context.ord == 0) {
+                // count each execution once, on its first segment, since parsed filters might be reused (eg. alias filters)
+                cache.cachingPolicy.onUse(filter, filterKey);
+            }
 
             DocIdSet cacheValue = innerCache.getIfPresent(cacheKey);
             if (cacheValue == null) {
+                if (shardFilterCache != null) {
+                    shardFilterCache.onMiss();
+                }
+                if (!cache.cachingPolicy.shouldCache(filter, filterKey, context)) {
+                    // not worth caching (yet), so we can just as well apply the accepted docs
+                    return filter.getDocIdSet(context, acceptDocs);
+                }
                 if (!cache.seenReaders.containsKey(context.reader().getCoreCacheKey())) {
                     Boolean previous = cache.seenReaders.putIfAbsent(context.reader().getCoreCacheKey(), Boolean.TRUE);
                     if (previous == null) {
@@ -171,15 +206,13 @@ public class WeightedFilterCache extends AbstractIndexComponent implements Filte
                 cacheValue = DocIdSets.toCacheable(context.reader(), filter.getDocIdSet(context, null));
                 // we might put the same one concurrently, that's fine, it will be replaced and the removal
                 // will be called
-                ShardId shardId = ShardUtils.extractShardId(context.reader());
-                if (shardId != null) {
-                    IndexShard shard = cache.indexService.shard(shardId.id());
-                    if (shard != null) {
-                        cacheKey.removalListener = shard.filterCache();
-                        shard.filterCache().onCached(DocIdSets.sizeInBytes(cacheValue));
-                    }
+                if (shardFilterCache != null) {
+                    cacheKey.removalListener = shardFilterCache;
+                    shardFilterCache.onCached(DocIdSets.sizeInBytes(cacheValue));
                 }
                 innerCache.put(cacheKey, cacheValue);
+            } else if (shardFilterCache != null) {
+                shardFilterCache.onHit();
             }
 
             // note, we don't wrap the return value with a BitsFilteredDocIdSet.wrap(docIdSet, acceptDocs) because
@@ -50,6 +50,10 @@ import java.util.List;
 public interface Engine extends IndexShardComponent, CloseableComponent {
 
     static final String INDEX_CODEC = "index.codec";
+    /**
+     * The commit user data key holding the id of the last synced flush the commit contains all the operations of.
+     */
+    static final String SYNC_ID_KEY = "sync_id";
     static ByteSizeValue INACTIVE_SHARD_INDEXING_BUFFER = ByteSizeValue.parseBytesSizeValue("500kb");
 
     /**
@@ -57,6 +61,12 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
      */
     TimeValue defaultRefreshInterval();
 
+    /**
+     * The sort of the segments of this engine, or <tt>null</tt> if the index isn't sorted.
+     */
+    @Nullable
+    IndexSort indexSort();
+
     void enableGcDeletes(boolean enableGcDeletes);
 
     void updateIndexingBufferSize(ByteSizeValue indexingBufferSize);
@@ -124,6 +134,15 @@ public interface Engine extends IndexShardComponent, CloseableComponent {
      */
     void flush(Flush flush) throws EngineException, FlushNotAllowedEngineException;
 
+    /**
+     * Commits the provided sync id, shared by all the copies of the shard that were flushed while in sync, if the
+     * last commit has the expected generation and nothing was indexed since then. Copies committed with the same
+     * sync id can later recover by replaying the operations done since then.
+     *
+     * @return whether the sync id was committed
+     */
+    boolean syncFlush(String syncId, long expectedCommitGeneration) throws EngineException;
+
     void optimize(Optimize optimize) throws EngineException;
 
     /**
@@ -0,0 +1,147 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.fielddata.fieldcomparator.LongValuesComparatorSource;
+import org.elasticsearch.index.mapper.ParseContext.Document;
+import org.elasticsearch.search.MultiValueMode;
+
+import java.util.List;
+
+/**
+ * The sort of the segments of an index, configured with the <tt>index.sort.field</tt> and <tt>index.sort.order</tt>
+ * index settings. The value of the numeric (or date) sort field is copied into the {@link #FIELD} numeric doc values
+ * field at index time, using the min value of multi-valued fields for an ascending sort and the max value for a
+ * descending one, and merged segments are sorted on it. Hits that are sorted the same way can then be collected
+ * from merged segments until enough of them have been found.
+ * <p/>
+ * Nested documents get the value of their root document, so that blocks of documents stay together.
+ */
+public final class IndexSort {
+
+    public static final String INDEX_SORT_FIELD = "index.sort.field";
+    public static final String INDEX_SORT_ORDER = "index.sort.order";
+
+    public static final String FIELD = "_index_sort";
+
+    private final String field;
+    private final boolean reverse;
+    private final Sort sort;
+
+    IndexSort(String field, boolean reverse) {
+        this.field = field;
+        this.reverse = reverse;
+        this.sort = new Sort(new SortField(FIELD, SortField.Type.LONG, reverse));
+    }
+
+    /**
+     * Returns the sort configured in the index settings, or <tt>null</tt> if the index isn't sorted.
+     */
+    @Nullable
+    public static IndexSort fromSettings(Settings indexSettings) {
+        String field = indexSettings.get(INDEX_SORT_FIELD);
+        if (field == null) {
+            return null;
+        }
+        String order = indexSettings.get(INDEX_SORT_ORDER, "asc");
+        if ("asc".equals(order)) {
+            return new IndexSort(field, false);
+        } else if ("desc".equals(order)) {
+            return new IndexSort(field, true);
+        }
+        throw new ElasticsearchIllegalArgumentException("unknown " + INDEX_SORT_ORDER + " [" + order + "], must be one of [asc, desc]");
+    }
+
+    /**
+     * The index name of the field the index is sorted on.
+     */
+    public String field() {
+        return field;
+    }
+
+    public boolean reverse() {
+        return reverse;
+    }
+
+    /**
+     * The sort of the segments, on the {@link #FIELD} doc values.
+     */
+    public Sort sort() {
+        return sort;
+    }
+
+    /**
+     * Adds the sort value of the root document, the last one, to all the documents of the block.
+     */
+    public void addSortValue(List<Document> docs) {
+        Document root = docs.get(docs.size() - 1);
+        if (root.getField(FIELD) != null) {
+            // the operation is replayed
+            return;
+        }
+        // missing values sort last
+        long value = reverse ? Long.MIN_VALUE : Long.MAX_VALUE;
+        boolean found = false;
+        for (IndexableField indexableField : root.getFields(field)) {
+            Number number = indexableField.numericValue();
+            if (number == null) {
+                continue;
+            }
+            long v = number.longValue();
+            if (!found) {
+                value = v;
+                found = true;
+            } else {
+                value = reverse ? Math.max(value, v) : Math.min(value, v);
+            }
+        }
+        for (Document doc : docs) {
+            doc.add(new NumericDocValuesField(FIELD, value));
+        }
+    }
+
+    /**
+     * Whether hits sorted by <tt>querySort</tt> come in the same order as the documents of sorted segments, which
+     * allows to stop collecting a sorted segment after its first hits. This only applies to a sort on the index
+     * sort field alone, in the same order, with its default missing values and multi-value mode.
+     */
+    public boolean matches(@Nullable Sort querySort) {
+        if (querySort == null || querySort.getSort().length != 1) {
+            return false;
+        }
+        SortField sortField = querySort.getSort()[0];
+        if (!field.equals(sortField.getField()) || sortField.getReverse() != reverse
+                || !(sortField.getComparatorSource() instanceof LongValuesComparatorSource)) {
+            return false;
+        }
+        LongValuesComparatorSource source = (LongValuesComparatorSource) sortField.getComparatorSource();
+        Object missingValue = source.missingValue();
+        return (missingValue == null || "_last".equals(missingValue))
+                && source.sortMode() == (reverse ? MultiValueMode.MAX : MultiValueMode.MIN);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine.internal;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.translog.Translog;
+
+/**
+ * A concurrent map from _uid to {@link VersionValue} that stores its entries in paged primitive arrays rather than
+ * in one map entry, key and value object per uid. Keys are hashed to one of a fixed number of lock-protected stripes,
+ * each of which holds the uid bytes in a {@link BytesRefHash} and the version and translog location of every uid in
+ * parallel arrays indexed by the id of the uid in the hash.
+ * <p/>
+ * Entries are never physically removed: a removal only marks the entry, the space it used is reclaimed when the whole
+ * map is released, which happens on every refresh.
+ */
+final class CompactVersionMap implements Releasable {
+
+    private static final int NULL_LOCATION = -1;
+    private static final int REMOVED = -2;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+
+    CompactVersionMap(BigArrays bigArrays, int numStripes) {
+        if (numStripes <= 0 || Integer.bitCount(numStripes) != 1) {
+            throw new IllegalArgumentException("number of stripes must be a power of two, got [" + numStripes + "]");
+        }
+        stripes = new Stripe[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new Stripe(bigArrays);
+        }
+        // use the high bits of the hash to select the stripe, the hash table of each stripe uses the low bits
+        stripeShift = 32 - Integer.numberOfTrailingZeros(numStripes);
+    }
+
+    private Stripe stripe(int hash) {
+        return stripes.length == 1 ? stripes[0] : stripes[hash >>> stripeShift];
+    }
+
+    /** Returns the value associated with <code>uid</code>, or <code>null</code> if there is none. */
+    VersionValue get(BytesRef uid) {
+        final int hash = uid.hashCode();
+        return stripe(hash).get(uid, hash);
+    }
+
+    /** Associates <code>value</code> with <code>uid</code>, replacing the previous value if any. */
+    void put(BytesRef uid, VersionValue value) {
+        assert !value.delete() : "deletes are not supported";
+        final int hash = uid.hashCode();
+        stripe(hash).put(uid, hash, value);
+    }
+
+    /** Removes the value associated with <code>uid</code>, if any. */
+    void remove(BytesRef uid) {
+        final int hash = uid.hashCode();
+        stripe(hash).remove(uid, hash);
+    }
+
+    /** Returns the number of uids that currently have a value in this map. */
+    long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Releases the memory of this map. Lookups that happen after this method has been called return <code>null</code>,
+     * which is fine since a map is only released once all its entries are visible through the searcher.
+     */
+    @Override
+    public void close() {
+        for (Stripe stripe : stripes) {
+            stripe.close();
+        }
+    }
+
+    private static final class Stripe {
+
+        private final BigArrays bigArrays;
+        private BytesRefHash uids;
+        private LongArray versions;
+        private LongArray translogIds;
+        private LongArray translogPositions;
+        private IntArray translogSizes;
+        private long removed;
+
+        Stripe(BigArrays bigArrays) {
+            this.bigArrays = bigArrays;
+            uids = new BytesRefHash(16, bigArrays);
+            versions = bigArrays.newLongArray(16, false);
+            translogIds = bigArrays.newLongArray(16, false);
+            translogPositions = bigArrays.newLongArray(16, false);
+            translogSizes = bigArrays.newIntArray(16, false);
+        }
+
+        synchronized VersionValue get(BytesRef uid, int hash) {
+            if (uids == null) {
+                return null;
+            }
+            final long id = uids.find(uid, hash);
+            if (id < 0) {
+                return null;
+            }
+            final int size = translogSizes.get(id);
+            if (size == REMOVED) {
+                return null;
+            }
+            final Translog.Location location;
+            if (size == NULL_LOCATION) {
+                location = null;
+            } else {
+                location = new Translog.Location(translogIds.get(id), translogPositions.get(id), size);
+            }
+            return new VersionValue(versions.get(id), location);
+        }
+
+        synchronized void put(BytesRef uid, int hash, VersionValue value) {
+            if (uids == null) {
+                // the map was released by a concurrent refresh, same as a put into a map that was dropped
+                return;
+            }
+            long id = uids.add(uid, hash);
+            if (id < 0) {
+                id = -1 - id;
+                if (translogSizes.get(id) == REMOVED) {
+                    --removed;
+                }
+            } else {
+                versions = bigArrays.grow(versions, id + 1);
+                translogIds = bigArrays.grow(translogIds, id + 1);
+                translogPositions = bigArrays.grow(translogPositions, id + 1);
+                translogSizes = bigArrays.grow(translogSizes, id + 1);
+            }
+            versions.set(id, value.version());
+            final Translog.Location location = value.translogLocation();
+            if (location == null) {
+                translogSizes.set(id, NULL_LOCATION);
+            } else {
+                assert location.size >= 0;
+                translogIds.set(id, location.translogId);
+                translogPositions.set(id, location.translogLocation);
+                translogSizes.set(id, location.size);
+            }
+        }
+
+        synchronized void remove(BytesRef uid, int hash) {
+            if (uids == null) {
+                return;
+            }
+            final long id = uids.find(uid, hash);
+            if (id >= 0 && translogSizes.get(id) != REMOVED) {
+                translogSizes.set(id, REMOVED);
+                ++removed;
+            }
+        }
+
+        synchronized long size() {
+            return uids == null ? 0 : uids.size() - removed;
+        }
+
+        synchronized void close() {
+            if (uids != null) {
+                Releasables.close(uids, versions, translogIds, translogPositions, translogSizes);
+                uids = null;
+                versions = null;
+                translogIds = null;
+                translogPositions = null;
+                translogSizes = null;
+            }
+        }
+    }
+}
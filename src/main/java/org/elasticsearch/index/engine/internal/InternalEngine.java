@@ -64,6 +64,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.index.analysis.AnalysisService;
@@ -115,6 +116,8 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
     private final SnapshotDeletionPolicy deletionPolicy;
     private final Translog translog;
     private final MergePolicyProvider mergePolicyProvider;
+    @Nullable
+    private final IndexSort indexSort;
     private final MergeSchedulerProvider mergeScheduler;
     private final AnalysisService analysisService;
     private final SimilarityService similarityService;
@@ -173,7 +176,8 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
                           IndexSettingsService indexSettingsService, ShardIndexingService indexingService, @Nullable IndicesWarmer warmer,
                           Store store, SnapshotDeletionPolicy deletionPolicy, Translog translog,
                           MergePolicyProvider mergePolicyProvider, MergeSchedulerProvider mergeScheduler,
-                          AnalysisService analysisService, SimilarityService similarityService, CodecService codecService) throws EngineException {
+                          AnalysisService analysisService, SimilarityService similarityService, CodecService codecService,
+                          BigArrays bigArrays) throws EngineException {
         super(shardId, indexSettings);
         Preconditions.checkNotNull(store, "Store must be provided to the engine");
         Preconditions.checkNotNull(deletionPolicy, "Snapshot deletion policy must be provided to the engine");
@@ -197,7 +201,7 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
         this.codecService = codecService;
         this.compoundOnFlush = indexSettings.getAsBoolean(INDEX_COMPOUND_ON_FLUSH, this.compoundOnFlush);
         this.indexConcurrency = indexSettings.getAsInt(INDEX_INDEX_CONCURRENCY, Math.max(IndexWriterConfig.DEFAULT_MAX_THREAD_STATES, (int) (EsExecutors.boundedNumberOfProcessors(indexSettings) * 0.65)));
-        this.versionMap = new LiveVersionMap();
+        this.versionMap = new LiveVersionMap(bigArrays, indexConcurrency);
         this.dirtyLocks = new Object[indexConcurrency * 50]; // we multiply it to have enough...
         for (int i = 0; i < dirtyLocks.length; i++) {
             dirtyLocks[i] = new Object();
@@ -207,6 +211,7 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
         this.indexSettingsService.addListener(applySettings);
 
         this.failOnMergeFailure = indexSettings.getAsBoolean(INDEX_FAIL_ON_MERGE_FAILURE, true);
+        this.indexSort = IndexSort.fromSettings(indexSettings);
         if (failOnMergeFailure) {
             this.mergeScheduler.addFailureListener(new FailEngineOnMergeFailure());
         }
@@ -278,7 +283,7 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
                         translogIdGenerator.set(Long.parseLong(commitUserData.get(Translog.TRANSLOG_ID_KEY)));
                     } else {
                         translogIdGenerator.set(System.currentTimeMillis());
-                        indexWriter.setCommitData(MapBuilder.<String, String>newMapBuilder().put(Translog.TRANSLOG_ID_KEY, Long.toString(translogIdGenerator.get())).map());
+                        indexWriter.setCommitData(commitData(translogIdGenerator.get(), commitUserData.get(SYNC_ID_KEY)));
                         indexWriter.commit();
                     }
                 } else {
@@ -303,6 +308,21 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
         }
     }
 
+    /**
+     * Builds the user data of a new commit. Without a new sync id, the sync id of the last commit is carried
+     * forward, since the new commit still contains all the operations done up to that synced flush.
+     */
+    private Map<String, String> commitData(long translogId, @Nullable String syncId) {
+        if (syncId == null && lastCommittedSegmentInfos != null) {
+            syncId = lastCommittedSegmentInfos.getUserData().get(SYNC_ID_KEY);
+        }
+        MapBuilder<String, String> commitData = MapBuilder.<String, String>newMapBuilder().put(Translog.TRANSLOG_ID_KEY, Long.toString(translogId));
+        if (syncId != null) {
+            commitData.put(SYNC_ID_KEY, syncId);
+        }
+        return commitData.map();
+    }
+
     private void readLastCommittedSegmentsInfo() throws IOException {
         SegmentInfos infos = new SegmentInfos();
         infos.read(store.directory());
@@ -314,6 +334,11 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
         return new TimeValue(1, TimeUnit.SECONDS);
     }
 
+    @Override
+    public IndexSort indexSort() {
+        return indexSort;
+    }
+
     @Override
     public void enableGcDeletes(boolean enableGcDeletes) {
         this.enableGcDeletes = enableGcDeletes;
@@ -405,6 +430,8 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
             final long currentVersion;
             final VersionValue versionValue;
             if (optimizeAutoGenerateId && create.autoGeneratedId() && !create.canHaveDuplicates()) {
+                // append-only: the id was generated for this request and the request was never retried, so
+                // there can't be a document with this uid yet and we can skip both the version map and the terms lookup
                 currentVersion = Versions.NOT_FOUND;
                 versionValue = null;
             } else {
@@ -432,27 +459,33 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
             }
             updatedVersion = create.versionType().updateVersion(currentVersion, expectedVersion);
 
-            // if the doc does not exist or it exists but is not deleted
-            if (versionValue != null) {
-                if (!versionValue.delete()) {
-                    if (create.origin() == Operation.Origin.RECOVERY) {
-                        return;
-                    } else {
-                        throw new DocumentAlreadyExistsException(shardId, create.type(), create.id());
-                    }
-                }
-            } else if (currentVersion != Versions.NOT_FOUND) {
-                // its not deleted, its already there
+            // if the doc exists and is not deleted
+            boolean doUpdate = false;
+            if ((versionValue != null && !versionValue.delete()) || (versionValue == null && currentVersion != Versions.NOT_FOUND)) {
                 if (create.origin() == Operation.Origin.RECOVERY) {
                     return;
+                } else if (create.autoGeneratedId() && create.canHaveDuplicates() && currentVersion == 1 && create.version() == Versions.MATCH_ANY) {
+                    // a retry of a create with an auto generated id whose first attempt made it into the index, replace
+                    // the document instead of reporting a conflict for a document that was indexed by this very request
+                    doUpdate = true;
+                    updatedVersion = 1;
                 } else {
                     throw new DocumentAlreadyExistsException(shardId, create.type(), create.id());
                 }
             }
 
             create.updateVersion(updatedVersion);
+            if (indexSort != null) {
+                indexSort.addSortValue(create.docs());
+            }
 
-            if (create.docs().size() > 1) {
+            if (doUpdate) {
+                if (create.docs().size() > 1) {
+                    writer.updateDocuments(create.uid(), create.docs(), create.analyzer());
+                } else {
+                    writer.updateDocument(create.uid(), create.docs().get(0), create.analyzer());
+                }
+            } else if (create.docs().size() > 1) {
                 writer.addDocuments(create.docs(), create.analyzer());
             } else {
                 writer.addDocument(create.docs().get(0), create.analyzer());
@@ -511,6 +544,9 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
 
 
             index.updateVersion(updatedVersion);
+            if (indexSort != null) {
+                indexSort.addSortValue(index.docs());
+            }
             if (currentVersion == Versions.NOT_FOUND) {
                 // document does not exists, we can optimize for create
                 index.created(true);
@@ -761,7 +797,7 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
                         if (flushNeeded || flush.force()) {
                             flushNeeded = false;
                             long translogId = translogIdGenerator.incrementAndGet();
-                            indexWriter.setCommitData(MapBuilder.<String, String>newMapBuilder().put(Translog.TRANSLOG_ID_KEY, Long.toString(translogId)).map());
+                            indexWriter.setCommitData(commitData(translogId, null));
                             indexWriter.commit();
                             translog.newTranslog(translogId);
                         }
@@ -792,7 +828,7 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
                         try {
                             long translogId = translogIdGenerator.incrementAndGet();
                             translog.newTransientTranslog(translogId);
-                            indexWriter.setCommitData(MapBuilder.<String, String>newMapBuilder().put(Translog.TRANSLOG_ID_KEY, Long.toString(translogId)).map());
+                            indexWriter.setCommitData(commitData(translogId, null));
                             indexWriter.commit();
                             pruneDeletedVersions(threadPool.estimatedTimeInMillis());
                             // we need to move transient to current only after we refresh
@@ -816,7 +852,7 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
                     // other flushes use flushLock
                     try {
                         long translogId = translog.currentId();
-                        indexWriter.setCommitData(MapBuilder.<String, String>newMapBuilder().put(Translog.TRANSLOG_ID_KEY, Long.toString(translogId)).map());
+                        indexWriter.setCommitData(commitData(translogId, null));
                         indexWriter.commit();
                     } catch (Throwable e) {
                         throw new FlushFailedEngineException(shardId, e);
@@ -845,6 +881,40 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
         }
     }
 
+    @Override
+    public boolean syncFlush(String syncId, long expectedCommitGeneration) throws EngineException {
+        ensureOpen();
+        flushLock.lock();
+        try {
+            // the write lock waits for the operations in flight and keeps new ones out until the sync id is
+            // committed, so the new commit holds exactly the operations of the expected one
+            try (InternalLock _ = writeLock.acquire()) {
+                ensureOpen();
+                final IndexWriter indexWriter = currentIndexWriter();
+                if (lastCommittedSegmentInfos == null || lastCommittedSegmentInfos.getGeneration() != expectedCommitGeneration
+                        || indexWriter.hasUncommittedChanges()) {
+                    return false;
+                }
+                try {
+                    indexWriter.setCommitData(commitData(translog.currentId(), syncId));
+                    indexWriter.commit();
+                    // the current translog may hold operations that are already committed, which is
+                    // fine since replaying them on a synced copy is a noop
+                    translog.markSynced(syncId);
+                    readLastCommittedSegmentsInfo();
+                } catch (Throwable e) {
+                    throw new FlushFailedEngineException(shardId, e);
+                }
+            }
+            return true;
+        } catch (FlushFailedEngineException ex) {
+            maybeFailEngine(ex.getCause());
+            throw ex;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
     private void ensureOpen() {
         if (indexWriter == null) {
             throw new EngineClosedException(shardId, failedEngine);
@@ -1252,7 +1322,7 @@ public class InternalEngine extends AbstractIndexShardComponent implements Engin
             MergePolicy mergePolicy = mergePolicyProvider.newMergePolicy();
             // Give us the opportunity to upgrade old segments while performing
             // background merges
-            mergePolicy = new ElasticsearchMergePolicy(mergePolicy);
+            mergePolicy = new ElasticsearchMergePolicy(mergePolicy, indexSort == null ? null : indexSort.sort());
             config.setMergePolicy(mergePolicy);
             config.setSimilarity(similarityService.similarity());
             config.setRAMBufferSizeMB(indexingBufferSize.mbFrac());
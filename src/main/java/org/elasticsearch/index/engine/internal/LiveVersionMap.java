@@ -25,6 +25,8 @@ import java.util.concurrent.ConcurrentMap;
 
 import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 // TODO: use Lucene's LiveFieldValues, but we need to somehow extend it to handle SearcherManager changing, and to handle long-lasting (GC'd
@@ -33,17 +35,37 @@ import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 /** Maps _uid value to its version information. */
 class LiveVersionMap implements ReferenceManager.RefreshListener {
 
+    private final BigArrays bigArrays;
+    private final int numStripes;
+
     // All writes go into here:
-    private volatile Map<BytesRef,VersionValue> addsCurrent = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    private volatile CompactVersionMap addsCurrent;
 
     // Only used while refresh is running:
-    private volatile Map<BytesRef,VersionValue> addsOld = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    private volatile CompactVersionMap addsOld;
 
     // Holds tombstones for deleted docs, expiring by their own schedule; not private so InternalEngine can prune:
     private final Map<BytesRef,VersionValue> deletes = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
     private ReferenceManager mgr;
 
+    /**
+     * @param bigArrays     where to allocate the pages that hold pending adds from, the size limit of this instance
+     *                      does not apply since adds are recorded after the operation reached the index and translog
+     * @param concurrency   the expected number of threads that concurrently index into the engine, used to size the
+     *                      number of lock stripes of the adds maps
+     */
+    public LiveVersionMap(BigArrays bigArrays, int concurrency) {
+        this.bigArrays = bigArrays.withoutLimit();
+        this.numStripes = Integer.highestOneBit(Math.max(1, concurrency) * 4 - 1) << 1;
+        addsCurrent = newAddsMap();
+        addsOld = newAddsMap();
+    }
+
+    private CompactVersionMap newAddsMap() {
+        return new CompactVersionMap(bigArrays, numStripes);
+    }
+
     public void setManager(ReferenceManager newMgr) {
         if (mgr != null) {
             mgr.removeListener(this);
@@ -56,12 +78,15 @@ class LiveVersionMap implements ReferenceManager.RefreshListener {
 
     @Override
     public void beforeRefresh() throws IOException {
+        // normally empty, unless the previous refresh failed before afterRefresh got called
+        final CompactVersionMap previousOld = addsOld;
         addsOld = addsCurrent;
         // Start sending all updates after this point to the new
         // map.  While reopen is running, any lookup will first
         // try this new map, then fallback to old, then to the
         // current searcher:
-        addsCurrent = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+        addsCurrent = newAddsMap();
+        previousOld.close();
     }
 
     @Override
@@ -72,7 +97,9 @@ class LiveVersionMap implements ReferenceManager.RefreshListener {
         // entries in it, which is fine: it means they were
         // actually already included in the previously opened
         // reader.  So we can safely clear old here:
-        addsOld = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+        final CompactVersionMap old = addsOld;
+        addsOld = newAddsMap();
+        old.close();
     }
 
     /** Caller has a lock, so that this uid will not be concurrently added/deleted by another thread. */
@@ -126,8 +153,8 @@ class LiveVersionMap implements ReferenceManager.RefreshListener {
 
     /** Called when this index is closed. */
     public void clear() {
-        addsCurrent.clear();
-        addsOld.clear();
+        // lookups on released maps return null and puts are ignored, the engine is closed anyway
+        Releasables.close(addsCurrent, addsOld);
         deletes.clear();
         if (mgr != null) {
             mgr.removeListener(this);
@@ -20,11 +20,13 @@
 package org.elasticsearch.index.fielddata;
 
 import com.carrotsearch.hppc.ObjectLongOpenHashMap;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
@@ -39,6 +41,10 @@ public class FieldDataStats implements Streamable, ToXContent {
     long evictions;
     @Nullable
     ObjectLongOpenHashMap<String> fields;
+    long globalOrdinalsBuilds;
+    long globalOrdinalsIncrementalBuilds;
+    long globalOrdinalsBuildTimeInMillis;
+    long globalOrdinalsMemorySize;
 
     public FieldDataStats() {
 
@@ -50,9 +56,22 @@ public class FieldDataStats implements Streamable, ToXContent {
         this.fields = fields;
     }
 
+    public FieldDataStats(long memorySize, long evictions, @Nullable ObjectLongOpenHashMap<String> fields, long globalOrdinalsBuilds,
+                          long globalOrdinalsIncrementalBuilds, long globalOrdinalsBuildTimeInMillis, long globalOrdinalsMemorySize) {
+        this(memorySize, evictions, fields);
+        this.globalOrdinalsBuilds = globalOrdinalsBuilds;
+        this.globalOrdinalsIncrementalBuilds = globalOrdinalsIncrementalBuilds;
+        this.globalOrdinalsBuildTimeInMillis = globalOrdinalsBuildTimeInMillis;
+        this.globalOrdinalsMemorySize = globalOrdinalsMemorySize;
+    }
+
     public void add(FieldDataStats stats) {
         this.memorySize += stats.memorySize;
         this.evictions += stats.evictions;
+        this.globalOrdinalsBuilds += stats.globalOrdinalsBuilds;
+        this.globalOrdinalsIncrementalBuilds += stats.globalOrdinalsIncrementalBuilds;
+        this.globalOrdinalsBuildTimeInMillis += stats.globalOrdinalsBuildTimeInMillis;
+        this.globalOrdinalsMemorySize += stats.globalOrdinalsMemorySize;
         if (stats.fields != null) {
             if (fields == null) fields = new ObjectLongOpenHashMap<>();
             final boolean[] states = stats.fields.allocated;
@@ -83,6 +102,40 @@ public class FieldDataStats implements Streamable, ToXContent {
         return fields;
     }
 
+    /**
+     * The number of times global ordinals have been built.
+     */
+    public long getGlobalOrdinalsBuilds() {
+        return globalOrdinalsBuilds;
+    }
+
+    /**
+     * The number of times global ordinals have been built by only merging new segments into the global ordinals of a
+     * previous reader.
+     */
+    public long getGlobalOrdinalsIncrementalBuilds() {
+        return globalOrdinalsIncrementalBuilds;
+    }
+
+    public long getGlobalOrdinalsBuildTimeInMillis() {
+        return globalOrdinalsBuildTimeInMillis;
+    }
+
+    public TimeValue getGlobalOrdinalsBuildTime() {
+        return new TimeValue(globalOrdinalsBuildTimeInMillis);
+    }
+
+    /**
+     * The memory used by the most recently built global ordinals of every field.
+     */
+    public long getGlobalOrdinalsMemorySizeInBytes() {
+        return globalOrdinalsMemorySize;
+    }
+
+    public ByteSizeValue getGlobalOrdinalsMemorySize() {
+        return new ByteSizeValue(globalOrdinalsMemorySize);
+    }
+
     public static FieldDataStats readFieldDataStats(StreamInput in) throws IOException {
         FieldDataStats stats = new FieldDataStats();
         stats.readFrom(in);
@@ -100,6 +153,12 @@ public class FieldDataStats implements Streamable, ToXContent {
                 fields.put(in.readString(), in.readVLong());
             }
         }
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            globalOrdinalsBuilds = in.readVLong();
+            globalOrdinalsIncrementalBuilds = in.readVLong();
+            globalOrdinalsBuildTimeInMillis = in.readVLong();
+            globalOrdinalsMemorySize = in.readVLong();
+        }
     }
 
     @Override
@@ -121,6 +180,12 @@ public class FieldDataStats implements Streamable, ToXContent {
                 }
             }
         }
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVLong(globalOrdinalsBuilds);
+            out.writeVLong(globalOrdinalsIncrementalBuilds);
+            out.writeVLong(globalOrdinalsBuildTimeInMillis);
+            out.writeVLong(globalOrdinalsMemorySize);
+        }
     }
 
     @Override
@@ -128,6 +193,12 @@ public class FieldDataStats implements Streamable, ToXContent {
         builder.startObject(Fields.FIELDDATA);
         builder.byteSizeField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, memorySize);
         builder.field(Fields.EVICTIONS, getEvictions());
+        builder.startObject(Fields.GLOBAL_ORDINALS);
+        builder.field(Fields.BUILDS, globalOrdinalsBuilds);
+        builder.field(Fields.INCREMENTAL_BUILDS, globalOrdinalsIncrementalBuilds);
+        builder.timeValueField(Fields.BUILD_TIME_IN_MILLIS, Fields.BUILD_TIME, globalOrdinalsBuildTimeInMillis);
+        builder.byteSizeField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, globalOrdinalsMemorySize);
+        builder.endObject();
         if (fields != null) {
             builder.startObject(Fields.FIELDS);
             final boolean[] states = fields.allocated;
@@ -152,5 +223,10 @@ public class FieldDataStats implements Streamable, ToXContent {
         static final XContentBuilderString MEMORY_SIZE_IN_BYTES = new XContentBuilderString("memory_size_in_bytes");
         static final XContentBuilderString EVICTIONS = new XContentBuilderString("evictions");
         static final XContentBuilderString FIELDS = new XContentBuilderString("fields");
+        static final XContentBuilderString GLOBAL_ORDINALS = new XContentBuilderString("global_ordinals");
+        static final XContentBuilderString BUILDS = new XContentBuilderString("builds");
+        static final XContentBuilderString INCREMENTAL_BUILDS = new XContentBuilderString("incremental_builds");
+        static final XContentBuilderString BUILD_TIME = new XContentBuilderString("build_time");
+        static final XContentBuilderString BUILD_TIME_IN_MILLIS = new XContentBuilderString("build_time_in_millis");
     }
 }
@@ -25,6 +25,7 @@ import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.internal.ParentFieldMapper;
 import org.elasticsearch.index.settings.IndexSettings;
@@ -43,6 +44,12 @@ public class ShardFieldData extends AbstractIndexShardComponent implements Index
 
     final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
 
+    final CounterMetric globalOrdinalsBuilds = new CounterMetric();
+    final CounterMetric globalOrdinalsIncrementalBuilds = new CounterMetric();
+    final CounterMetric globalOrdinalsBuildTime = new CounterMetric();
+    // the memory used by the most recently built global ordinals, per field
+    final ConcurrentMap<String, Long> globalOrdinalsMemory = ConcurrentCollections.newConcurrentMap();
+
     @Inject
     public ShardFieldData(ShardId shardId, @IndexSettings Settings indexSettings) {
         super(shardId, indexSettings);
@@ -65,13 +72,29 @@ public class ShardFieldData extends AbstractIndexShardComponent implements Index
         if (perFieldTotals.containsKey(ParentFieldMapper.NAME)) {
             memorySize -= perFieldTotals.get(ParentFieldMapper.NAME).count();
         }
-        return new FieldDataStats(memorySize, evictionsMetric.count(), fieldTotals);
+        long globalOrdinalsMemorySize = 0;
+        for (Long size : globalOrdinalsMemory.values()) {
+            globalOrdinalsMemorySize += size;
+        }
+        return new FieldDataStats(memorySize, evictionsMetric.count(), fieldTotals, globalOrdinalsBuilds.count(),
+                globalOrdinalsIncrementalBuilds.count(), globalOrdinalsBuildTime.count(), globalOrdinalsMemorySize);
     }
 
     @Override
     public void onLoad(FieldMapper.Names fieldNames, FieldDataType fieldDataType, RamUsage ramUsage) {
         totalMetric.inc(ramUsage.getMemorySizeInBytes());
         String keyFieldName = fieldNames.indexName();
+        if (ramUsage instanceof GlobalOrdinalsIndexFieldData) {
+            final GlobalOrdinalsIndexFieldData globalOrdinals = (GlobalOrdinalsIndexFieldData) ramUsage;
+            if (globalOrdinals.getBuildTimeInMillis() >= 0) {
+                globalOrdinalsBuilds.inc();
+                globalOrdinalsBuildTime.inc(globalOrdinals.getBuildTimeInMillis());
+                if (globalOrdinals.isIncremental()) {
+                    globalOrdinalsIncrementalBuilds.inc();
+                }
+                globalOrdinalsMemory.put(keyFieldName, globalOrdinals.getMemorySizeInBytes());
+            }
+        }
         CounterMetric total = perFieldTotals.get(keyFieldName);
         if (total != null) {
             total.inc(ramUsage.getMemorySizeInBytes());
@@ -19,7 +19,6 @@
 
 package org.elasticsearch.index.fielddata.ordinals;
 
-import org.apache.lucene.index.MultiDocValues.OrdinalMap;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.index.fielddata.BytesValues;
 
@@ -29,11 +28,11 @@ import org.elasticsearch.index.fielddata.BytesValues;
 public class GlobalOrdinalMapping extends BytesValues.WithOrdinals {
 
     private final BytesValues.WithOrdinals values;
-    private final OrdinalMap ordinalMap;
+    private final GlobalOrdinalsMap ordinalMap;
     private final BytesValues.WithOrdinals[] bytesValues;
     private final int segmentIndex;
 
-    GlobalOrdinalMapping(OrdinalMap ordinalMap, BytesValues.WithOrdinals[] bytesValues, int segmentIndex) {
+    GlobalOrdinalMapping(GlobalOrdinalsMap ordinalMap, BytesValues.WithOrdinals[] bytesValues, int segmentIndex) {
         super(bytesValues[segmentIndex].isMultiValued());
         this.values = bytesValues[segmentIndex];
         this.segmentIndex = segmentIndex;
@@ -97,4 +97,19 @@ public abstract class GlobalOrdinalsIndexFieldData extends AbstractIndexComponen
         return memorySizeInBytes;
     }
 
+    /**
+     * Returns how long it took to build these global ordinals, or <tt>-1</tt> if they are composed of global ordinals
+     * that were built separately.
+     */
+    public long getBuildTimeInMillis() {
+        return -1;
+    }
+
+    /**
+     * Returns <tt>true</tt> if these global ordinals were built from the global ordinals of a previous reader.
+     */
+    public boolean isIncremental() {
+        return false;
+    }
+
 }
@@ -0,0 +1,355 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.PriorityQueue;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.AppendingPackedLongBuffer;
+import org.apache.lucene.util.packed.MonotonicAppendingLongBuffer;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.fielddata.BytesValues;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the ordinals of the segments of a top-level reader to global ordinals and back, like Lucene's
+ * {@link org.apache.lucene.index.MultiDocValues.OrdinalMap}. Unlike the latter it can be built from the map of a
+ * previous reader: the segments that both readers share are not merged again, instead the terms of the previous map
+ * that are still used are merged with the terms of the new segments, and the ordinals of the shared segments are
+ * translated to the new global ordinals.
+ */
+final class GlobalOrdinalsMap {
+
+    private final Object[] segmentKeys;
+    // segment ordinal -> global ordinal, per segment
+    private final MonotonicAppendingLongBuffer[] segmentToGlobalOrds;
+    // global ordinal -> first segment that has the term
+    private final AppendingPackedLongBuffer firstSegments;
+    // global ordinal -> global ordinal minus the ordinal of the term in its first segment
+    private final AppendingPackedLongBuffer firstSegmentOrdDeltas;
+    private final long valueCount;
+    private final boolean incremental;
+
+    private GlobalOrdinalsMap(Object[] segmentKeys, MonotonicAppendingLongBuffer[] segmentToGlobalOrds, AppendingPackedLongBuffer firstSegments,
+                              AppendingPackedLongBuffer firstSegmentOrdDeltas, long valueCount, boolean incremental) {
+        this.segmentKeys = segmentKeys;
+        this.segmentToGlobalOrds = segmentToGlobalOrds;
+        this.firstSegments = firstSegments;
+        this.firstSegmentOrdDeltas = firstSegmentOrdDeltas;
+        this.valueCount = valueCount;
+        this.incremental = incremental;
+    }
+
+    /**
+     * Returns the number of unique terms.
+     */
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Returns the global ordinal of the given ordinal of the given segment.
+     */
+    public long getGlobalOrd(int segmentIndex, long segmentOrd) {
+        return segmentToGlobalOrds[segmentIndex].get(segmentOrd);
+    }
+
+    /**
+     * Returns the index of the first segment that has the term of the given global ordinal.
+     */
+    public int getFirstSegmentNumber(long globalOrd) {
+        return (int) firstSegments.get(globalOrd);
+    }
+
+    /**
+     * Returns the ordinal of the term of the given global ordinal in the segment returned by {@link #getFirstSegmentNumber(long)}.
+     */
+    public long getFirstSegmentOrd(long globalOrd) {
+        return globalOrd - firstSegmentOrdDeltas.get(globalOrd);
+    }
+
+    /**
+     * Returns the number of segments.
+     */
+    public int getNumSegments() {
+        return segmentKeys.length;
+    }
+
+    /**
+     * Returns the key of the given segment, as passed to {@link #build}.
+     */
+    public Object getSegmentKey(int segmentIndex) {
+        return segmentKeys[segmentIndex];
+    }
+
+    /**
+     * Returns the number of ordinals of the given segment.
+     */
+    public long getSegmentValueCount(int segmentIndex) {
+        return segmentToGlobalOrds[segmentIndex].size();
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map was built from a previous map.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public long ramBytesUsed() {
+        long size = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * RamUsageEstimator.NUM_BYTES_LONG + firstSegments.ramBytesUsed() + firstSegmentOrdDeltas.ramBytesUsed()
+                + RamUsageEstimator.shallowSizeOf(segmentKeys) + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds);
+        for (MonotonicAppendingLongBuffer segmentToGlobalOrd : segmentToGlobalOrds) {
+            size += segmentToGlobalOrd.ramBytesUsed();
+        }
+        return size;
+    }
+
+    /**
+     * Builds the map of the given segments.
+     *
+     * @param segmentKeys identify the segments, segments of a previous map with the same key are expected to have the same terms
+     * @param values      the values of every segment
+     * @param previous    if not <tt>null</tt>, the terms of the segments that this map shares with the previous map are not merged again
+     */
+    public static GlobalOrdinalsMap build(Object[] segmentKeys, BytesValues.WithOrdinals[] values, @Nullable GlobalOrdinalsMap previous) {
+        assert segmentKeys.length == values.length;
+        final int numSegments = values.length;
+
+        // the index of every segment in the previous map, -1 for new segments
+        final int[] previousIndices = new int[numSegments];
+        Arrays.fill(previousIndices, -1);
+        int numReused = 0;
+        if (previous != null) {
+            final Map<Object, Integer> previousKeys = new HashMap<>();
+            for (int i = 0; i < previous.segmentKeys.length; ++i) {
+                previousKeys.put(previous.segmentKeys[i], i);
+            }
+            for (int i = 0; i < numSegments; ++i) {
+                final Integer previousIndex = previousKeys.get(segmentKeys[i]);
+                if (previousIndex != null) {
+                    previousIndices[i] = previousIndex;
+                    ++numReused;
+                }
+            }
+            if (numReused == 0 || previous.valueCount > Integer.MAX_VALUE) {
+                previous = null;
+            }
+        }
+
+        final PriorityQueue<TermSource> queue = new PriorityQueue<TermSource>(numSegments + 1) {
+            @Override
+            protected boolean lessThan(TermSource a, TermSource b) {
+                return a.current.compareTo(b.current) < 0;
+            }
+        };
+        final MonotonicAppendingLongBuffer[] segmentToGlobalOrds = new MonotonicAppendingLongBuffer[numSegments];
+        for (int i = 0; i < numSegments; ++i) {
+            if (previousIndices[i] == -1) {
+                segmentToGlobalOrds[i] = new MonotonicAppendingLongBuffer();
+                final SegmentSource source = new SegmentSource(i, values[i]);
+                if (source.next()) {
+                    queue.add(source);
+                }
+            }
+        }
+        PreviousSource previousSource = null;
+        if (previous != null) {
+            previousSource = new PreviousSource(previous, previousIndices, numReused, values);
+            if (previousSource.next()) {
+                queue.add(previousSource);
+            }
+        }
+
+        final AppendingPackedLongBuffer firstSegments = new AppendingPackedLongBuffer();
+        final AppendingPackedLongBuffer firstSegmentOrdDeltas = new AppendingPackedLongBuffer();
+        final MonotonicAppendingLongBuffer previousToNewOrds = new MonotonicAppendingLongBuffer();
+        long numMappedPreviousOrds = 0;
+        final BytesRef scratch = new BytesRef();
+        long globalOrd = 0;
+        while (queue.size() != 0) {
+            scratch.copyBytes(queue.top().current);
+            int firstSegment = Integer.MAX_VALUE;
+            long firstSegmentOrd = -1;
+            do {
+                final TermSource top = queue.top();
+                if (top == previousSource) {
+                    // previous ordinals that are not used anymore are mapped to the next used one, they are never looked up
+                    for (; numMappedPreviousOrds <= previousSource.previousOrd; ++numMappedPreviousOrds) {
+                        previousToNewOrds.add(globalOrd);
+                    }
+                } else {
+                    segmentToGlobalOrds[top.segment].add(globalOrd);
+                }
+                if (top.segment < firstSegment) {
+                    firstSegment = top.segment;
+                    firstSegmentOrd = top.segmentOrd;
+                }
+                if (top.next()) {
+                    queue.updateTop();
+                } else {
+                    queue.pop();
+                }
+            } while (queue.size() != 0 && queue.top().current.equals(scratch));
+            firstSegments.add(firstSegment);
+            firstSegmentOrdDeltas.add(globalOrd - firstSegmentOrd);
+            ++globalOrd;
+        }
+        firstSegments.freeze();
+        firstSegmentOrdDeltas.freeze();
+
+        if (previous != null) {
+            for (; numMappedPreviousOrds < previous.valueCount; ++numMappedPreviousOrds) {
+                previousToNewOrds.add(globalOrd);
+            }
+            previousToNewOrds.freeze();
+            // translate the ordinals of the reused segments
+            for (int i = 0; i < numSegments; ++i) {
+                final int previousIndex = previousIndices[i];
+                if (previousIndex != -1) {
+                    final MonotonicAppendingLongBuffer previousSegmentToGlobalOrds = previous.segmentToGlobalOrds[previousIndex];
+                    final MonotonicAppendingLongBuffer segmentToGlobalOrd = new MonotonicAppendingLongBuffer();
+                    for (long segmentOrd = 0; segmentOrd < previousSegmentToGlobalOrds.size(); ++segmentOrd) {
+                        segmentToGlobalOrd.add(previousToNewOrds.get(previousSegmentToGlobalOrds.get(segmentOrd)));
+                    }
+                    segmentToGlobalOrds[i] = segmentToGlobalOrd;
+                }
+            }
+        }
+        for (MonotonicAppendingLongBuffer segmentToGlobalOrd : segmentToGlobalOrds) {
+            segmentToGlobalOrd.freeze();
+        }
+        return new GlobalOrdinalsMap(segmentKeys, segmentToGlobalOrds, firstSegments, firstSegmentOrdDeltas, globalOrd, previous != null);
+    }
+
+    private static abstract class TermSource {
+
+        BytesRef current;
+        // the segment and segment ordinal to read the current term from
+        int segment;
+        long segmentOrd;
+
+        abstract boolean next();
+    }
+
+    /**
+     * Iterates over the terms of a new segment.
+     */
+    private static final class SegmentSource extends TermSource {
+
+        private final BytesValues.WithOrdinals values;
+        private final long maxOrd;
+
+        SegmentSource(int segment, BytesValues.WithOrdinals values) {
+            this.segment = segment;
+            this.segmentOrd = -1;
+            this.values = values;
+            this.maxOrd = values.getMaxOrd();
+        }
+
+        @Override
+        boolean next() {
+            if (++segmentOrd < maxOrd) {
+                current = values.getValueByOrd(segmentOrd);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Iterates over the terms of the previous map that at least one reused segment still has.
+     */
+    private static final class PreviousSource extends TermSource {
+
+        private final GlobalOrdinalsMap previous;
+        private final BytesValues.WithOrdinals[] values;
+        // previous segment index -> new segment index, -1 if the segment has been removed
+        private final int[] newIndices;
+        // if segments have been removed: for every previous ordinal the segment to read its term from plus one, 0 if none
+        // has it anymore, and the ordinal of the term in that segment. Packed since they hold one entry per previous ordinal.
+        private final PackedInts.Mutable termSegments;
+        private final PackedInts.Mutable termSegmentOrds;
+        long previousOrd = -1;
+
+        PreviousSource(GlobalOrdinalsMap previous, int[] previousIndices, int numReused, BytesValues.WithOrdinals[] values) {
+            this.previous = previous;
+            this.values = values;
+            this.newIndices = new int[previous.segmentKeys.length];
+            Arrays.fill(newIndices, -1);
+            for (int i = 0; i < previousIndices.length; ++i) {
+                if (previousIndices[i] != -1) {
+                    newIndices[previousIndices[i]] = i;
+                }
+            }
+            if (numReused == previous.segmentKeys.length) {
+                // all terms are still used and the first segment of every term is still there
+                termSegments = null;
+                termSegmentOrds = null;
+            } else {
+                long maxSegmentValueCount = 1;
+                for (int previousIndex : previousIndices) {
+                    if (previousIndex != -1) {
+                        maxSegmentValueCount = Math.max(maxSegmentValueCount, previous.segmentToGlobalOrds[previousIndex].size());
+                    }
+                }
+                final int valueCount = (int) previous.valueCount;
+                termSegments = PackedInts.getMutable(valueCount, PackedInts.bitsRequired(previousIndices.length), PackedInts.COMPACT);
+                termSegmentOrds = PackedInts.getMutable(valueCount, PackedInts.bitsRequired(maxSegmentValueCount - 1), PackedInts.COMPACT);
+                for (int i = 0; i < previousIndices.length; ++i) {
+                    final int previousIndex = previousIndices[i];
+                    if (previousIndex != -1) {
+                        final MonotonicAppendingLongBuffer segmentToGlobalOrds = previous.segmentToGlobalOrds[previousIndex];
+                        for (long segmentOrd = 0; segmentOrd < segmentToGlobalOrds.size(); ++segmentOrd) {
+                            final int previousOrd = (int) segmentToGlobalOrds.get(segmentOrd);
+                            if (termSegments.get(previousOrd) == 0) {
+                                termSegments.set(previousOrd, i + 1);
+                                termSegmentOrds.set(previousOrd, segmentOrd);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        boolean next() {
+            while (++previousOrd < previous.valueCount) {
+                if (termSegments == null) {
+                    segment = newIndices[previous.getFirstSegmentNumber(previousOrd)];
+                    segmentOrd = previous.getFirstSegmentOrd(previousOrd);
+                } else {
+                    segment = (int) termSegments.get((int) previousOrd) - 1;
+                    if (segment == -1) {
+                        continue;
+                    }
+                    segmentOrd = termSegmentOrds.get((int) previousOrd);
+                }
+                current = values[segment].getValueByOrd(segmentOrd);
+                return true;
+            }
+            return false;
+        }
+    }
+}
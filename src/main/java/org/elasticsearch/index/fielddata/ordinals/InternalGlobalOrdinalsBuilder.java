@@ -19,25 +19,48 @@
 
 package org.elasticsearch.index.fielddata.ordinals;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.MultiDocValues.OrdinalMap;
-import org.apache.lucene.index.TermsEnum;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.AtomicFieldData;
+import org.elasticsearch.index.fielddata.BytesValues;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.settings.IndexSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardUtils;
 import org.elasticsearch.indices.fielddata.breaker.CircuitBreakerService;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
+ * Builds global ordinals. When the global ordinals of the previous reader of the same shard are still around, only
+ * the terms of the new segments are merged into them, unless segments that held more than
+ * <tt>index.fielddata.global_ordinals.rebuild_ratio</tt> of the previous segment ordinals have been merged away,
+ * in which case the global ordinals are built from scratch.
  */
 public class InternalGlobalOrdinalsBuilder extends AbstractIndexComponent implements GlobalOrdinalsBuilder {
 
+    public static final String INCREMENTAL = "index.fielddata.global_ordinals.incremental";
+    public static final String REBUILD_RATIO = "index.fielddata.global_ordinals.rebuild_ratio";
+
+    private final boolean incremental;
+    private final double rebuildRatio;
+
+    // the last global ordinals built per shard and field, weakly referenced so that they go away once they are evicted from the cache
+    private final Cache<Tuple<ShardId, String>, InternalGlobalOrdinalsIndexFieldData> lastBuilt = CacheBuilder.newBuilder().weakValues().build();
+
     public InternalGlobalOrdinalsBuilder(Index index, @IndexSettings Settings indexSettings) {
         super(index, indexSettings);
+        this.incremental = indexSettings.getAsBoolean(INCREMENTAL, true);
+        this.rebuildRatio = indexSettings.getAsDouble(REBUILD_RATIO, 0.5d);
     }
 
     @Override
@@ -45,27 +68,66 @@ public class InternalGlobalOrdinalsBuilder extends AbstractIndexComponent implem
         assert indexReader.leaves().size() > 1;
         long startTime = System.currentTimeMillis();
 
+        final Object[] segmentKeys = new Object[indexReader.leaves().size()];
         final AtomicFieldData.WithOrdinals<?>[] atomicFD = new AtomicFieldData.WithOrdinals[indexReader.leaves().size()];
-        final TermsEnum[] subs = new TermsEnum[indexReader.leaves().size()];
+        final BytesValues.WithOrdinals[] values = new BytesValues.WithOrdinals[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
-            atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
-            subs[i] = atomicFD[i].getBytesValues().getTermsEnum();
+            final AtomicReaderContext context = indexReader.leaves().get(i);
+            segmentKeys[i] = context.reader().getCoreCacheKey();
+            atomicFD[i] = indexFieldData.load(context);
+            values[i] = atomicFD[i].getBytesValues();
         }
-        final OrdinalMap ordinalMap = new OrdinalMap(null, subs);
+        final ShardId shardId = incremental ? shardId(indexReader) : null;
+        final Tuple<ShardId, String> key = shardId == null ? null : new Tuple<>(shardId, indexFieldData.getFieldNames().indexName());
+        final GlobalOrdinalsMap ordinalMap = GlobalOrdinalsMap.build(segmentKeys, values, previousOrdinalMap(key, indexFieldData, segmentKeys));
         final long memorySizeInBytes = ordinalMap.ramBytesUsed();
         breakerService.getBreaker().addWithoutBreaking(memorySizeInBytes);
 
+        final long took = System.currentTimeMillis() - startTime;
         if (logger.isDebugEnabled()) {
             logger.debug(
-                    "Global-ordinals[{}][{}] took {} ms",
+                    "Global-ordinals[{}][{}] took {} ms, incremental [{}]",
                     indexFieldData.getFieldNames().fullName(),
                     ordinalMap.getValueCount(),
-                    (System.currentTimeMillis() - startTime)
+                    took,
+                    ordinalMap.isIncremental()
             );
         }
-        return new InternalGlobalOrdinalsIndexFieldData(indexFieldData.index(), settings, indexFieldData.getFieldNames(),
-                indexFieldData.getFieldDataType(), atomicFD, ordinalMap, memorySizeInBytes
-        );
+        final InternalGlobalOrdinalsIndexFieldData globalOrdinals = new InternalGlobalOrdinalsIndexFieldData(indexFieldData.index(), settings,
+                indexFieldData.getFieldNames(), indexFieldData.getFieldDataType(), indexFieldData, atomicFD, ordinalMap, memorySizeInBytes, took);
+        if (key != null) {
+            lastBuilt.put(key, globalOrdinals);
+        }
+        return globalOrdinals;
+    }
+
+    ShardId shardId(IndexReader indexReader) {
+        return ShardUtils.extractShardId(indexReader);
+    }
+
+    private GlobalOrdinalsMap previousOrdinalMap(Tuple<ShardId, String> key, IndexFieldData.WithOrdinals indexFieldData, Object[] segmentKeys) {
+        if (key == null) {
+            return null;
+        }
+        final InternalGlobalOrdinalsIndexFieldData previous = lastBuilt.getIfPresent(key);
+        if (previous == null || previous.source() != indexFieldData) {
+            return null;
+        }
+        final GlobalOrdinalsMap previousMap = previous.ordinalMap();
+        final Set<Object> keys = new HashSet<>(Arrays.asList(segmentKeys));
+        long total = 0;
+        long removed = 0;
+        for (int i = 0; i < previousMap.getNumSegments(); ++i) {
+            final long count = previousMap.getSegmentValueCount(i);
+            total += count;
+            if (!keys.contains(previousMap.getSegmentKey(i))) {
+                removed += count;
+            }
+        }
+        if (removed > total * rebuildRatio) {
+            return null;
+        }
+        return previousMap;
     }
 
 }
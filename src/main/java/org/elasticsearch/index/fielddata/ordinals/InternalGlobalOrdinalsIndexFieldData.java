@@ -19,12 +19,12 @@
 package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.lucene.index.AtomicReaderContext;
-import org.apache.lucene.index.MultiDocValues.OrdinalMap;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.AtomicFieldData;
 import org.elasticsearch.index.fielddata.BytesValues;
 import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.mapper.FieldMapper;
 
@@ -34,9 +34,16 @@ import org.elasticsearch.index.mapper.FieldMapper;
 final class InternalGlobalOrdinalsIndexFieldData extends GlobalOrdinalsIndexFieldData {
 
     private final Atomic[] atomicReaders;
+    private final IndexFieldData.WithOrdinals source;
+    private final GlobalOrdinalsMap ordinalMap;
+    private final long buildTimeInMillis;
 
-    InternalGlobalOrdinalsIndexFieldData(Index index, Settings settings, FieldMapper.Names fieldNames, FieldDataType fieldDataType, AtomicFieldData.WithOrdinals[] segmentAfd, OrdinalMap ordinalMap, long memorySizeInBytes) {
+    InternalGlobalOrdinalsIndexFieldData(Index index, Settings settings, FieldMapper.Names fieldNames, FieldDataType fieldDataType, IndexFieldData.WithOrdinals source,
+                                         AtomicFieldData.WithOrdinals[] segmentAfd, GlobalOrdinalsMap ordinalMap, long memorySizeInBytes, long buildTimeInMillis) {
         super(index, settings, fieldNames, fieldDataType, memorySizeInBytes);
+        this.source = source;
+        this.ordinalMap = ordinalMap;
+        this.buildTimeInMillis = buildTimeInMillis;
         this.atomicReaders = new Atomic[segmentAfd.length];
         for (int i = 0; i < segmentAfd.length; i++) {
             atomicReaders[i] = new Atomic(segmentAfd[i], ordinalMap, i);
@@ -48,13 +55,34 @@ final class InternalGlobalOrdinalsIndexFieldData extends GlobalOrdinalsIndexFiel
         return atomicReaders[context.ord];
     }
 
+    /**
+     * The field data these global ordinals were built from.
+     */
+    IndexFieldData.WithOrdinals source() {
+        return source;
+    }
+
+    GlobalOrdinalsMap ordinalMap() {
+        return ordinalMap;
+    }
+
+    @Override
+    public long getBuildTimeInMillis() {
+        return buildTimeInMillis;
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return ordinalMap.isIncremental();
+    }
+
     private final class Atomic implements AtomicFieldData.WithOrdinals {
 
         private final WithOrdinals afd;
-        private final OrdinalMap ordinalMap;
+        private final GlobalOrdinalsMap ordinalMap;
         private final int segmentIndex;
 
-        private Atomic(WithOrdinals afd, OrdinalMap ordinalMap, int segmentIndex) {
+        private Atomic(WithOrdinals afd, GlobalOrdinalsMap ordinalMap, int segmentIndex) {
             this.afd = afd;
             this.ordinalMap = ordinalMap;
             this.segmentIndex = segmentIndex;
@@ -30,14 +30,15 @@ import org.elasticsearch.index.fielddata.ScriptDocValues;
  */
 public class ParentChildAtomicFieldData implements AtomicFieldData {
 
-    private final ImmutableOpenMap<String, PagedBytesAtomicFieldData> typeToIds;
+    private final ImmutableOpenMap<String, WithOrdinals> typeToIds;
     private final long memorySizeInBytes;
 
-    public ParentChildAtomicFieldData(ImmutableOpenMap<String, PagedBytesAtomicFieldData> typeToIds) {
+    public ParentChildAtomicFieldData(ImmutableOpenMap<String, WithOrdinals> typeToIds) {
         this.typeToIds = typeToIds;
         long size = 0;
-        for (ObjectCursor<PagedBytesAtomicFieldData> cursor : typeToIds.values()) {
-            size += cursor.value.getMemorySizeInBytes();
+        for (ObjectCursor<WithOrdinals> cursor : typeToIds.values()) {
+            // doc values based ids are not held in memory and report a negative size
+            size += Math.max(0, cursor.value.getMemorySizeInBytes());
         }
         this.memorySizeInBytes = size;
     }
@@ -51,7 +52,7 @@ public class ParentChildAtomicFieldData implements AtomicFieldData {
     public BytesValues getBytesValues() {
         final BytesValues[] bytesValues = new BytesValues[typeToIds.size()];
         int index = 0;
-        for (ObjectCursor<PagedBytesAtomicFieldData> cursor : typeToIds.values()) {
+        for (ObjectCursor<WithOrdinals> cursor : typeToIds.values()) {
             bytesValues[index++] = cursor.value.getBytesValues();
         }
         return new BytesValues(true) {
@@ -117,7 +118,7 @@ public class ParentChildAtomicFieldData implements AtomicFieldData {
 
     @Override
     public void close() {
-        for (ObjectCursor<PagedBytesAtomicFieldData> cursor : typeToIds.values()) {
+        for (ObjectCursor<WithOrdinals> cursor : typeToIds.values()) {
             cursor.value.close();
         }
     }
@@ -49,16 +49,24 @@ import org.elasticsearch.indices.fielddata.breaker.CircuitBreakerService;
 import org.elasticsearch.search.MultiValueMode;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.NavigableSet;
+import java.util.Set;
 import java.util.TreeSet;
 
 /**
  * ParentChildIndexFieldData is responsible for loading the id cache mapping
  * needed for has_child and has_parent queries into memory.
+ * <p/>
+ * Parent types whose child types all map the <tt>_parent</tt> field with <tt>doc_values</tt> are not loaded
+ * into memory, their ids are read from the on-disk join field instead.
  */
 public class ParentChildIndexFieldData extends AbstractIndexFieldData<ParentChildAtomicFieldData> implements DocumentTypeListener {
 
     private final NavigableSet<BytesRef> parentTypes;
+    // parent types that at least one child type joins on doc values, resp. on the in memory ids
+    private final Set<String> docValuesJoinParentTypes = new HashSet<>();
+    private final Set<String> memoryJoinParentTypes = new HashSet<>();
     private final CircuitBreakerService breakerService;
     private final GlobalOrdinalsBuilder globalOrdinalsBuilder;
 
@@ -97,11 +105,26 @@ public class ParentChildIndexFieldData extends AbstractIndexFieldData<ParentChil
         );
 
         synchronized (lock) {
+            ImmutableOpenMap.Builder<String, AtomicFieldData.WithOrdinals> typeToAtomicFieldData = ImmutableOpenMap.builder();
+            NavigableSet<BytesRef> memoryParentTypes = new TreeSet<>(BytesRef.getUTF8SortedAsUnicodeComparator());
+            for (BytesRef parentType : parentTypes) {
+                String type = parentType.utf8ToString();
+                if (isDocValuesJoin(type)) {
+                    typeToAtomicFieldData.put(type, new SortedSetDVBytesAtomicFieldData(reader, ParentFieldMapper.joinField(type)));
+                } else {
+                    memoryParentTypes.add(parentType);
+                }
+            }
+            if (memoryParentTypes.isEmpty()) {
+                // no need to go over all the _uid terms
+                return new ParentChildAtomicFieldData(typeToAtomicFieldData.build());
+            }
+
             boolean success = false;
             ParentChildAtomicFieldData data = null;
             ParentChildFilteredTermsEnum termsEnum = new ParentChildFilteredTermsEnum(
                     new ParentChildIntersectTermsEnum(reader, UidFieldMapper.NAME, ParentFieldMapper.NAME),
-                    parentTypes
+                    memoryParentTypes
             );
             ParentChildEstimator estimator = new ParentChildEstimator(breakerService.getBreaker(), termsEnum);
             TermsEnum estimatedTermsEnum = estimator.beforeLoad(null);
@@ -131,7 +154,6 @@ public class ParentChildIndexFieldData extends AbstractIndexFieldData<ParentChil
                         }
                     }
 
-                    ImmutableOpenMap.Builder<String, PagedBytesAtomicFieldData> typeToAtomicFieldData = ImmutableOpenMap.builder(typeBuilders.size());
                     for (ObjectObjectCursor<String, TypeBuilder> cursor : typeBuilders) {
                         final long sizePointer = cursor.value.bytes.getPointer();
                         PagedBytes.Reader bytesReader = cursor.value.bytes.freeze(true);
@@ -160,6 +182,14 @@ public class ParentChildIndexFieldData extends AbstractIndexFieldData<ParentChil
         }
     }
 
+    /**
+     * Parent documents only index their id in the join field if a child type maps its <tt>_parent</tt> with
+     * <tt>doc_values</tt>, so the join field can only be used if all the child types of this parent type do.
+     */
+    private boolean isDocValuesJoin(String parentType) {
+        return docValuesJoinParentTypes.contains(parentType) && !memoryJoinParentTypes.contains(parentType);
+    }
+
     public WithOrdinals getGlobalParentChild(String type, IndexReader indexReader) {
         ParentTypesGlobalOrdinalsLoading loading = new ParentTypesGlobalOrdinalsLoading();
         ParentChildGlobalOrdinalsIndexFieldData holder = (ParentChildGlobalOrdinalsIndexFieldData) loading.loadGlobal(indexReader);
@@ -173,7 +203,13 @@ public class ParentChildIndexFieldData extends AbstractIndexFieldData<ParentChil
             if (parentFieldMapper.active()) {
                 // A _parent field can never be added to an existing mapping, so a _parent field either exists on
                 // a new created or doesn't exists. This is why we can update the known parent types via DocumentTypeListener
-                if (parentTypes.add(new BytesRef(parentFieldMapper.type()))) {
+                boolean changed = parentTypes.add(new BytesRef(parentFieldMapper.type()));
+                if (parentFieldMapper.docValuesJoin()) {
+                    changed |= docValuesJoinParentTypes.add(parentFieldMapper.type());
+                } else {
+                    changed |= memoryJoinParentTypes.add(parentFieldMapper.type());
+                }
+                if (changed) {
                     clear();
                 }
             }
@@ -186,6 +222,8 @@ public class ParentChildIndexFieldData extends AbstractIndexFieldData<ParentChil
             ParentFieldMapper parentFieldMapper = mapper.parentFieldMapper();
             if (parentFieldMapper.active()) {
                 parentTypes.remove(new BytesRef(parentFieldMapper.type()));
+                docValuesJoinParentTypes.remove(parentFieldMapper.type());
+                memoryJoinParentTypes.remove(parentFieldMapper.type());
             }
         }
     }
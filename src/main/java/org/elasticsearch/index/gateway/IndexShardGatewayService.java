@@ -20,6 +20,7 @@
 package org.elasticsearch.index.gateway;
 
 import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.routing.RestoreSource;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
@@ -129,6 +130,11 @@ public class IndexShardGatewayService extends AbstractIndexShardComponent implem
                         logger.debug("starting recovery from {} ...", shardGateway);
                         recoveryState.setType(RecoveryState.Type.GATEWAY);
                         recoveryState.setSourceNode(clusterService.localNode());
+                        RestoreSource lazyRestoreSource = indexShard.store().readLazyRestoreSource();
+                        if (lazyRestoreSource != null) {
+                            // the shard was closed while lazily restored files were still copied
+                            snapshotService.resumeRestore(lazyRestoreSource, recoveryState);
+                        }
                         shardGateway.recover(indexShouldExists, recoveryState);
                     }
 
@@ -20,6 +20,7 @@
 package org.elasticsearch.index.mapper;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
@@ -70,6 +71,8 @@ public class DocumentMapperParser extends AbstractIndexComponent {
     private volatile ImmutableMap<String, Mapper.TypeParser> typeParsers;
     private volatile ImmutableMap<String, Mapper.TypeParser> rootTypeParsers;
 
+    private volatile ImmutableSet<String> docValuesJoinParentTypes = ImmutableSet.of();
+
     public DocumentMapperParser(Index index, @IndexSettings Settings indexSettings, AnalysisService analysisService,
                                 PostingsFormatService postingsFormatService, DocValuesFormatService docValuesFormatService,
                                 SimilarityLookupService similarityLookupService) {
@@ -124,6 +127,18 @@ public class DocumentMapperParser extends AbstractIndexComponent {
         indexVersionCreated = Version.indexCreated(indexSettings);
     }
 
+    /**
+     * Is the given type the parent type of a <tt>_parent</tt> field that joins on doc values? If so,
+     * documents of that type need to index their own id in the join field.
+     */
+    public boolean isDocValuesJoinParentType(String type) {
+        return docValuesJoinParentTypes.contains(type);
+    }
+
+    void docValuesJoinParentTypes(ImmutableSet<String> docValuesJoinParentTypes) {
+        this.docValuesJoinParentTypes = docValuesJoinParentTypes;
+    }
+
     public void putTypeParser(String type, Mapper.TypeParser typeParser) {
         synchronized (typeParsersMutex) {
             typeParsers = new MapBuilder<>(typeParsers)
@@ -50,6 +50,7 @@ import org.elasticsearch.index.analysis.AnalysisService;
 import org.elasticsearch.index.codec.docvaluesformat.DocValuesFormatService;
 import org.elasticsearch.index.codec.postingsformat.PostingsFormatService;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
+import org.elasticsearch.index.mapper.internal.ParentFieldMapper;
 import org.elasticsearch.index.mapper.internal.TypeFieldMapper;
 import org.elasticsearch.index.mapper.object.ObjectMapper;
 import org.elasticsearch.index.search.nested.NonNestedDocsFilter;
@@ -303,11 +304,23 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
                     typeListener.beforeCreate(mapper);
                 }
                 mappers = newMapBuilder(mappers).put(mapper.type(), mapper).map();
+                updateDocValuesJoinParentTypes();
                 return mapper;
             }
         }
     }
 
+    private void updateDocValuesJoinParentTypes() {
+        ImmutableSet.Builder<String> parentTypes = ImmutableSet.builder();
+        for (DocumentMapper mapper : mappers.values()) {
+            ParentFieldMapper parentFieldMapper = mapper.parentFieldMapper();
+            if (parentFieldMapper.active() && parentFieldMapper.docValuesJoin()) {
+                parentTypes.add(parentFieldMapper.type());
+            }
+        }
+        documentParser.docValuesJoinParentTypes(parentTypes.build());
+    }
+
     private void addObjectMappers(ObjectMapper[] objectMappers) {
         synchronized (mappersMutex) {
             ImmutableOpenMap.Builder<String, ObjectMappers> fullPathObjectMappers = ImmutableOpenMap.builder(this.fullPathObjectMappers);
@@ -342,6 +355,7 @@ public class MapperService extends AbstractIndexComponent implements Iterable<Do
             }
             docMapper.close();
             mappers = newMapBuilder(mappers).remove(type).map();
+            updateDocValuesJoinParentTypes();
             removeObjectAndFieldMappers(docMapper);
             for (DocumentTypeListener typeListener : typeListeners) {
                 typeListener.afterRemove(docMapper);
@@ -20,6 +20,7 @@ package org.elasticsearch.index.mapper.internal;
 
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.XStringField;
 import org.apache.lucene.index.FieldInfo.IndexOptions;
 import org.apache.lucene.index.Term;
@@ -48,6 +49,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeBooleanValue;
 import static org.elasticsearch.index.mapper.MapperBuilders.parent;
 
 /**
@@ -59,6 +61,14 @@ public class ParentFieldMapper extends AbstractFieldMapper<Uid> implements Inter
 
     public static final String CONTENT_TYPE = "_parent";
 
+    /**
+     * The name of the doc values field that holds the id of the parent of type <tt>parentType</tt>, on both
+     * the parent documents and their children, when the <tt>_parent</tt> field is mapped with <tt>doc_values</tt>.
+     */
+    public static String joinField(String parentType) {
+        return NAME + "#" + parentType;
+    }
+
     public static class Defaults extends AbstractFieldMapper.Defaults {
         public static final String NAME = ParentFieldMapper.NAME;
 
@@ -83,6 +93,7 @@ public class ParentFieldMapper extends AbstractFieldMapper<Uid> implements Inter
         protected String indexName;
 
         private String type;
+        private boolean docValuesJoin;
         protected PostingsFormatProvider postingsFormat;
 
         public Builder() {
@@ -96,6 +107,11 @@ public class ParentFieldMapper extends AbstractFieldMapper<Uid> implements Inter
             return builder;
         }
 
+        public Builder docValuesJoin(boolean docValuesJoin) {
+            this.docValuesJoin = docValuesJoin;
+            return builder;
+        }
+
         protected Builder postingsFormat(PostingsFormatProvider postingsFormat) {
             this.postingsFormat = postingsFormat;
             return builder;
@@ -106,7 +122,7 @@ public class ParentFieldMapper extends AbstractFieldMapper<Uid> implements Inter
             if (type == null) {
                 throw new MapperParsingException("Parent mapping must contain the parent type");
             }
-            return new ParentFieldMapper(name, indexName, type, postingsFormat, FIELD_DATA_SETTINGS, context.indexSettings());
+            return new ParentFieldMapper(name, indexName, type, docValuesJoin, postingsFormat, FIELD_DATA_SETTINGS, context.indexSettings());
         }
     }
 
@@ -119,6 +135,8 @@ public class ParentFieldMapper extends AbstractFieldMapper<Uid> implements Inter
                 Object fieldNode = entry.getValue();
                 if (fieldName.equals("type")) {
                     builder.type(fieldNode.toString());
+                } else if (fieldName.equals("doc_values")) {
+                    builder.docValuesJoin(nodeBooleanValue(fieldNode));
                 } else if (fieldName.equals("postings_format")) {
                     String postingFormatName = fieldNode.toString();
                     builder.postingsFormat(parserContext.postingFormatService().get(postingFormatName));
@@ -130,22 +148,32 @@ public class ParentFieldMapper extends AbstractFieldMapper<Uid> implements Inter
 
     private final String type;
     private final BytesRef typeAsBytes;
+    private final boolean docValuesJoin;
 
-    protected ParentFieldMapper(String name, String indexName, String type, PostingsFormatProvider postingsFormat, @Nullable Settings fieldDataSettings, Settings indexSettings) {
+    protected ParentFieldMapper(String name, String indexName, String type, boolean docValuesJoin, PostingsFormatProvider postingsFormat, @Nullable Settings fieldDataSettings, Settings indexSettings) {
         super(new Names(name, indexName, indexName, name), Defaults.BOOST, new FieldType(Defaults.FIELD_TYPE), null,
                 Lucene.KEYWORD_ANALYZER, Lucene.KEYWORD_ANALYZER, postingsFormat, null, null, null, fieldDataSettings, indexSettings);
         this.type = type;
         this.typeAsBytes = type == null ? null : new BytesRef(type);
+        this.docValuesJoin = docValuesJoin;
     }
 
     public ParentFieldMapper() {
-        this(Defaults.NAME, Defaults.NAME, null, null, null, null);
+        this(Defaults.NAME, Defaults.NAME, null, false, null, null, null);
     }
 
     public String type() {
         return type;
     }
 
+    /**
+     * Whether parent/child joins on this type are performed on the doc values stored in {@link #joinField(String)}
+     * rather than on ids loaded in memory from the <tt>_uid</tt> and <tt>_parent</tt> terms.
+     */
+    public boolean docValuesJoin() {
+        return docValuesJoin;
+    }
+
     @Override
     public FieldType defaultFieldType() {
         return Defaults.FIELD_TYPE;
@@ -177,15 +205,21 @@ public class ParentFieldMapper extends AbstractFieldMapper<Uid> implements Inter
 
     @Override
     protected void parseCreateField(ParseContext context, List<Field> fields) throws IOException {
+        boolean parsingParentField = context.parser().currentName() != null && context.parser().currentName().equals(Defaults.NAME);
+        if (!parsingParentField && context.id() != null && context.docMapperParser().isDocValuesJoinParentType(context.type())) {
+            // children join on the id of this document
+            fields.add(new SortedSetDocValuesField(joinField(context.type()), new BytesRef(context.id())));
+        }
         if (!active()) {
             return;
         }
 
-        if (context.parser().currentName() != null && context.parser().currentName().equals(Defaults.NAME)) {
+        if (parsingParentField) {
             // we are in the parsing of _parent phase
             String parentId = context.parser().text();
             context.sourceToParse().parent(parentId);
             fields.add(new XStringField(names.indexName(), Uid.createUid(context.stringBuilder(), type, parentId), fieldType));
+            addJoinField(fields, parentId);
         } else {
             // otherwise, we are running it post processing of the xcontent
             String parsedParentId = context.doc().get(Defaults.NAME);
@@ -197,6 +231,7 @@ public class ParentFieldMapper extends AbstractFieldMapper<Uid> implements Inter
                     }
                     // we did not add it in the parsing phase, add it now
                     fields.add(new XStringField(names.indexName(), Uid.createUid(context.stringBuilder(), type, parentId), fieldType));
+                    addJoinField(fields, parentId);
                 } else if (parentId != null && !parsedParentId.equals(Uid.createUid(context.stringBuilder(), type, parentId))) {
                     throw new MapperParsingException("Parent id mismatch, document value is [" + Uid.createUid(parsedParentId).id() + "], while external value is [" + parentId + "]");
                 }
@@ -205,6 +240,12 @@ public class ParentFieldMapper extends AbstractFieldMapper<Uid> implements Inter
         // we have parent mapping, yet no value was set, ignore it...
     }
 
+    private void addJoinField(List<Field> fields, String parentId) {
+        if (docValuesJoin) {
+            fields.add(new SortedSetDocValuesField(joinField(type), new BytesRef(parentId)));
+        }
+    }
+
     @Override
     public Uid value(Object value) {
         if (value == null) {
@@ -337,6 +378,9 @@ public class ParentFieldMapper extends AbstractFieldMapper<Uid> implements Inter
 
         builder.startObject(CONTENT_TYPE);
         builder.field("type", type);
+        if (docValuesJoin) {
+            builder.field("doc_values", true);
+        }
         builder.endObject();
         return builder;
     }
@@ -344,6 +388,10 @@ public class ParentFieldMapper extends AbstractFieldMapper<Uid> implements Inter
     @Override
     public void merge(Mapper mergeWith, MergeContext mergeContext) throws MergeMappingException {
         ParentFieldMapper other = (ParentFieldMapper) mergeWith;
+        if (active() && other.active() && docValuesJoin != other.docValuesJoin) {
+            mergeContext.addConflict("The _parent field's doc_values can't be updated");
+            return;
+        }
         if (active() == other.active()) {
             return;
         }
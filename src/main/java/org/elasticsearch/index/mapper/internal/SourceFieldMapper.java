@@ -26,6 +26,7 @@ import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.FieldInfo.IndexOptions;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -63,6 +64,13 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
 
     public static final String CONTENT_TYPE = "_source";
 
+    /**
+     * The type of the compressor used to compress the source of the index documents (for example <tt>lzf</tt>
+     * or <tt>lz4</tt>), defaults to the node's default compressor. Sources compressed with any of the
+     * compressors can be read back regardless of the setting.
+     */
+    public static final String INDEX_SOURCE_COMPRESS_TYPE = "index.mapping._source.compress_type";
+
     public static class Defaults extends AbstractFieldMapper.Defaults {
         public static final String NAME = SourceFieldMapper.NAME;
         public static final boolean ENABLED = true;
@@ -130,7 +138,15 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
 
         @Override
         public SourceFieldMapper build(BuilderContext context) {
-            return new SourceFieldMapper(name, enabled, format, compress, compressThreshold, includes, excludes);
+            Compressor compressor = null;
+            String compressType = context.indexSettings() == null ? null : context.indexSettings().get(INDEX_SOURCE_COMPRESS_TYPE);
+            if (compressType != null) {
+                compressor = CompressorFactory.compressor(compressType);
+                if (compressor == null) {
+                    throw new MapperParsingException("unknown compress type [" + compressType + "] for [" + INDEX_SOURCE_COMPRESS_TYPE + "]");
+                }
+            }
+            return new SourceFieldMapper(name, enabled, format, compress, compressThreshold, compressor, includes, excludes);
         }
     }
 
@@ -181,6 +197,7 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
 
     private Boolean compress;
     private long compressThreshold;
+    private final Compressor compressor;
 
     private String[] includes;
     private String[] excludes;
@@ -190,16 +207,17 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
     private XContentType formatContentType;
 
     public SourceFieldMapper() {
-        this(Defaults.NAME, Defaults.ENABLED, Defaults.FORMAT, null, -1, null, null);
+        this(Defaults.NAME, Defaults.ENABLED, Defaults.FORMAT, null, -1, null, null, null);
     }
 
     protected SourceFieldMapper(String name, boolean enabled, String format, Boolean compress, long compressThreshold,
-                                String[] includes, String[] excludes) {
+                                @Nullable Compressor compressor, String[] includes, String[] excludes) {
         super(new Names(name, name, name, name), Defaults.BOOST, new FieldType(Defaults.FIELD_TYPE), null,
                 Lucene.KEYWORD_ANALYZER, Lucene.KEYWORD_ANALYZER, null, null, null, null, null, null); // Only stored.
         this.enabled = enabled;
         this.compress = compress;
         this.compressThreshold = compressThreshold;
+        this.compressor = compressor;
         this.includes = includes;
         this.excludes = excludes;
         this.format = format;
@@ -210,6 +228,13 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
         return this.enabled;
     }
 
+    /**
+     * The compressor used when the source needs to be compressed.
+     */
+    private Compressor compressor() {
+        return compressor != null ? compressor : CompressorFactory.defaultCompressor();
+    }
+
     public String[] excludes() {
         return this.excludes != null ? this.excludes : Strings.EMPTY_ARRAY;
 
@@ -275,7 +300,7 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
             BytesStreamOutput bStream = new BytesStreamOutput();
             StreamOutput streamOutput = bStream;
             if (compress != null && compress && (compressThreshold == -1 || source.length() > compressThreshold)) {
-                streamOutput = CompressorFactory.defaultCompressor().streamOutput(bStream);
+                streamOutput = compressor().streamOutput(bStream);
             }
             XContentType contentType = formatContentType;
             if (contentType == null) {
@@ -290,11 +315,11 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
                 BytesStreamOutput bStream = new BytesStreamOutput();
                 XContentType contentType = XContentFactory.xContentType(source);
                 if (formatContentType != null && formatContentType != contentType) {
-                    XContentBuilder builder = XContentFactory.contentBuilder(formatContentType, CompressorFactory.defaultCompressor().streamOutput(bStream));
+                    XContentBuilder builder = XContentFactory.contentBuilder(formatContentType, compressor().streamOutput(bStream));
                     builder.copyCurrentStructure(XContentFactory.xContent(contentType).createParser(source));
                     builder.close();
                 } else {
-                    StreamOutput streamOutput = CompressorFactory.defaultCompressor().streamOutput(bStream);
+                    StreamOutput streamOutput = compressor().streamOutput(bStream);
                     source.writeTo(streamOutput);
                     streamOutput.close();
                 }
@@ -312,7 +337,7 @@ public class SourceFieldMapper extends AbstractFieldMapper<byte[]> implements In
                 if (contentType != formatContentType) {
                     // we need to reread and store back, compressed....
                     BytesStreamOutput bStream = new BytesStreamOutput();
-                    StreamOutput streamOutput = CompressorFactory.defaultCompressor().streamOutput(bStream);
+                    StreamOutput streamOutput = compressor().streamOutput(bStream);
                     XContentBuilder builder = XContentFactory.contentBuilder(formatContentType, streamOutput);
                     builder.copyCurrentStructure(XContentFactory.xContent(contentType).createParser(compressedStreamInput));
                     builder.close();
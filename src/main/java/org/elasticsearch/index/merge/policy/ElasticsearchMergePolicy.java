@@ -24,11 +24,15 @@ import com.google.common.collect.Lists;
 import org.apache.lucene.index.*;
 import org.apache.lucene.index.FieldInfo.DocValuesType;
 import org.apache.lucene.index.FieldInfo.IndexOptions;
+import org.apache.lucene.index.sorter.SortingMergePolicy;
+import org.apache.lucene.index.sorter.XSortingOneMerge;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.packed.GrowableWriter;
 import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.index.mapper.internal.VersionFieldMapper;
@@ -50,16 +54,30 @@ import java.util.Map;
  * <p>
  * For now, this {@link MergePolicy} takes care of moving versions that used to
  * be stored as payloads to numeric doc values.
+ * <p>
+ * When the index has an {@link org.elasticsearch.index.engine.IndexSort}, merged
+ * segments are sorted the same way as with a {@link SortingMergePolicy}, after
+ * they have been upgraded.
  */
 @SuppressWarnings("PMD.ProperCloneImplementation")
 public final class ElasticsearchMergePolicy extends MergePolicy {
 
     private final MergePolicy delegate;
+    private final Sort indexSort;
     private volatile boolean force;
 
     /** @param delegate the merge policy to wrap */
     public ElasticsearchMergePolicy(MergePolicy delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * @param delegate the merge policy to wrap
+     * @param indexSort the sort of merged segments, <code>null</code> if they should not be sorted
+     */
+    public ElasticsearchMergePolicy(MergePolicy delegate, @Nullable Sort indexSort) {
         this.delegate = delegate;
+        this.indexSort = indexSort;
     }
 
     /** Return an "upgraded" view of the reader. */
@@ -162,11 +180,35 @@ public final class ElasticsearchMergePolicy extends MergePolicy {
 
     }
 
+    static class IndexUpgraderSortingOneMerge extends XSortingOneMerge {
+
+        public IndexUpgraderSortingOneMerge(List<SegmentCommitInfo> segments, Sort indexSort) {
+            super(segments, indexSort);
+        }
+
+        @Override
+        protected AtomicReader wrapForMerge(AtomicReader reader) throws IOException {
+            return filter(reader);
+        }
+
+    }
+
     static class IndexUpgraderMergeSpecification extends MergeSpecification {
 
+        private final Sort indexSort;
+
+        /** @param indexSort the sort of merged segments, <code>null</code> if they should not be sorted */
+        IndexUpgraderMergeSpecification(@Nullable Sort indexSort) {
+            this.indexSort = indexSort;
+        }
+
         @Override
         public void add(OneMerge merge) {
-          super.add(new IndexUpgraderOneMerge(merge.segments));
+          if (indexSort == null) {
+              super.add(new IndexUpgraderOneMerge(merge.segments));
+          } else {
+              super.add(new IndexUpgraderSortingOneMerge(merge.segments, indexSort));
+          }
         }
 
         @Override
@@ -176,11 +218,11 @@ public final class ElasticsearchMergePolicy extends MergePolicy {
 
     }
 
-    static MergeSpecification upgradedMergeSpecification(MergeSpecification spec) {
+    MergeSpecification upgradedMergeSpecification(MergeSpecification spec) {
         if (spec == null) {
             return null;
         }
-        MergeSpecification upgradedSpec = new IndexUpgraderMergeSpecification();
+        MergeSpecification upgradedSpec = new IndexUpgraderMergeSpecification(indexSort);
         for (OneMerge merge : spec.merges) {
           upgradedSpec.add(merge);
         }
@@ -205,7 +247,8 @@ public final class ElasticsearchMergePolicy extends MergePolicy {
               }
           }
           if (!segments.isEmpty()) {
-              MergeSpecification spec = new IndexUpgraderMergeSpecification();
+              // this merge is not sorted, so search requests can't terminate early on the resulting segment
+              MergeSpecification spec = new IndexUpgraderMergeSpecification(null);
               spec.add(new OneMerge(segments));
               return spec;
           }
@@ -221,7 +264,7 @@ public final class ElasticsearchMergePolicy extends MergePolicy {
 
     @Override
     public MergePolicy clone() {
-      return new ElasticsearchMergePolicy(delegate.clone());
+      return new ElasticsearchMergePolicy(delegate.clone(), indexSort);
     }
 
     @Override
@@ -251,7 +294,7 @@ public final class ElasticsearchMergePolicy extends MergePolicy {
 
     @Override
     public String toString() {
-      return getClass().getSimpleName() + "(" + delegate + ")";
+      return getClass().getSimpleName() + "(" + delegate + (indexSort == null ? "" : ", sort=" + indexSort) + ")";
     }
 
 }
@@ -20,6 +20,7 @@
 package org.elasticsearch.index.query;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import org.apache.lucene.queryparser.classic.MapperQueryParser;
 import org.apache.lucene.queryparser.classic.QueryParserSettings;
@@ -74,6 +75,31 @@ public class QueryParseContext {
         typesContext.remove();
     }
 
+    /**
+     * Parsers whose queries and filters keep no per segment state in their weights, so that a search context can search
+     * them over several slices of segments concurrently. Any other parser, including the ones registered by plugins,
+     * disables concurrent search for the current search context.
+     */
+    private static final ImmutableSet<Class<?>> CONCURRENT_SAFE_PARSERS = ImmutableSet.<Class<?>>of(
+            // queries
+            BoolQueryParser.class, BoostingQueryParser.class, CommonTermsQueryParser.class, ConstantScoreQueryParser.class,
+            DisMaxQueryParser.class, FieldMaskingSpanQueryParser.class, FilteredQueryParser.class, FuzzyLikeThisFieldQueryParser.class,
+            FuzzyLikeThisQueryParser.class, FuzzyQueryParser.class, GeoShapeQueryParser.class, IdsQueryParser.class,
+            IndicesQueryParser.class, MatchAllQueryParser.class, MatchQueryParser.class, MoreLikeThisFieldQueryParser.class,
+            MoreLikeThisQueryParser.class, MultiMatchQueryParser.class, NestedQueryParser.class, PrefixQueryParser.class,
+            QueryStringQueryParser.class, RangeQueryParser.class, RegexpQueryParser.class, SimpleQueryStringParser.class,
+            SpanFirstQueryParser.class, SpanMultiTermQueryParser.class, SpanNearQueryParser.class, SpanNotQueryParser.class,
+            SpanOrQueryParser.class, SpanTermQueryParser.class, TemplateQueryParser.class, TermQueryParser.class,
+            TermsQueryParser.class, WildcardQueryParser.class, WrapperQueryParser.class,
+            // filters
+            AndFilterParser.class, BoolFilterParser.class, ExistsFilterParser.class, FQueryFilterParser.class,
+            GeoBoundingBoxFilterParser.class, GeoDistanceFilterParser.class, GeoDistanceRangeFilterParser.class,
+            GeoPolygonFilterParser.class, GeoShapeFilterParser.class, IdsFilterParser.class, IndicesFilterParser.class,
+            MatchAllFilterParser.class, MissingFilterParser.class, NestedFilterParser.class, NotFilterParser.class,
+            NumericRangeFilterParser.class, OrFilterParser.class, PrefixFilterParser.class, QueryFilterParser.class,
+            RangeFilterParser.class, RegexpFilterParser.class, TermFilterParser.class, TermsFilterParser.class,
+            TypeFilterParser.class, WrapperFilterParser.class);
+
     private final Index index;
 
     private boolean propagateNoCache = false;
@@ -224,6 +250,7 @@ public class QueryParseContext {
         if (queryParser == null) {
             throw new QueryParsingException(index, "No query registered for [" + queryName + "]");
         }
+        checkConcurrentSearch(queryParser);
         Query result = queryParser.parse(this);
         if (parser.currentToken() == XContentParser.Token.END_OBJECT || parser.currentToken() == XContentParser.Token.END_ARRAY) {
             // if we are at END_OBJECT, move to the next one...
@@ -280,6 +307,7 @@ public class QueryParseContext {
     private Filter executeFilterParser(FilterParser filterParser) throws IOException {
         final boolean propagateNoCache = this.propagateNoCache; // first safe the state that we need to restore
         this.propagateNoCache = false; // parse the subfilter with caching, that's fine
+        checkConcurrentSearch(filterParser);
         Filter result = filterParser.parse(this);
         // now make sure we set propagateNoCache to true if it is true already or if the result is
         // an instance of NoCacheFilter or if we used to be true! all filters above will
@@ -288,6 +316,15 @@ public class QueryParseContext {
         return result;
     }
 
+    private void checkConcurrentSearch(Object parser) {
+        if (!CONCURRENT_SAFE_PARSERS.contains(parser.getClass())) {
+            SearchContext current = SearchContext.current();
+            if (current != null) {
+                current.disableConcurrentSearch();
+            }
+        }
+    }
+
     public FieldMapper fieldMapper(String name) {
         FieldMappers fieldMappers = indexQueryParser.mapperService.smartNameFieldMappers(name, getTypes());
         if (fieldMappers == null) {
@@ -339,6 +376,8 @@ public class QueryParseContext {
     public SearchLookup lookup() {
         SearchContext current = SearchContext.current();
         if (current != null) {
+            // the lookup keeps the segment it reads from, slices searching concurrently would move it under each other
+            current.disableConcurrentSearch();
             return current.lookup();
         }
         if (lookup == null) {
@@ -113,6 +113,7 @@ abstract class NestedFieldComparator extends FieldComparator {
         if (DocIdSets.isEmpty(innerDocuments)) {
             this.innerDocuments = null;
         } else if (innerDocuments instanceof FixedBitSet) {
+            // nested type filters are cached as bitsets, only custom nested filters need to be converted
             this.innerDocuments = (FixedBitSet) innerDocuments;
         } else {
             this.innerDocuments = DocIdSets.toFixedBitSet(innerDocuments.iterator(), context.reader().maxDoc());
@@ -0,0 +1,80 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.search.nested;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermFilter;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.common.lucene.docset.DocIdSets;
+import org.elasticsearch.index.mapper.internal.TypeFieldMapper;
+
+import java.io.IOException;
+
+/**
+ * Filters the nested documents of a nested object mapping. The documents are returned as a {@link FixedBitSet}, so
+ * that the filter cache keeps them in that form, since nested sorting and block join queries need random access
+ * to them on every segment.
+ */
+public class NestedTypeFilter extends Filter {
+
+    private final TermFilter filter;
+
+    public NestedTypeFilter(BytesRef nestedTypePath) {
+        this.filter = new TermFilter(new Term(TypeFieldMapper.NAME, nestedTypePath));
+    }
+
+    @Override
+    public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) throws IOException {
+        DocIdSet docSet = filter.getDocIdSet(context, acceptDocs);
+        if (DocIdSets.isEmpty(docSet)) {
+            return null;
+        }
+        DocIdSetIterator iterator = docSet.iterator();
+        if (iterator == null) {
+            return null;
+        }
+        return DocIdSets.toFixedBitSet(iterator, context.reader().maxDoc());
+    }
+
+    @Override
+    public int hashCode() {
+        return filter.hashCode() ^ 0x4E535454;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof NestedTypeFilter)) {
+            return false;
+        }
+        return filter.equals(((NestedTypeFilter) obj).filter);
+    }
+
+    @Override
+    public String toString() {
+        return "nested_type(" + filter + ")";
+    }
+}
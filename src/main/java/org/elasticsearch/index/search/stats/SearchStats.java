@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.search.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -151,14 +152,22 @@ public class SearchStats implements Streamable, ToXContent {
     @Nullable
     Map<String, Stats> groupStats;
 
+    @Nullable
+    Map<String, Long> fetchSubPhaseTimeInMillis;
+
     public SearchStats() {
         totalStats = new Stats();
     }
 
     public SearchStats(Stats totalStats, long openContexts, @Nullable Map<String, Stats> groupStats) {
+        this(totalStats, openContexts, groupStats, null);
+    }
+
+    public SearchStats(Stats totalStats, long openContexts, @Nullable Map<String, Stats> groupStats, @Nullable Map<String, Long> fetchSubPhaseTimeInMillis) {
         this.totalStats = totalStats;
         this.openContexts = openContexts;
         this.groupStats = groupStats;
+        this.fetchSubPhaseTimeInMillis = fetchSubPhaseTimeInMillis;
     }
 
     public void add(SearchStats searchStats) {
@@ -184,6 +193,15 @@ public class SearchStats implements Streamable, ToXContent {
                 }
             }
         }
+        if (searchStats.fetchSubPhaseTimeInMillis != null && !searchStats.fetchSubPhaseTimeInMillis.isEmpty()) {
+            if (fetchSubPhaseTimeInMillis == null) {
+                fetchSubPhaseTimeInMillis = new HashMap<>(searchStats.fetchSubPhaseTimeInMillis.size());
+            }
+            for (Map.Entry<String, Long> entry : searchStats.fetchSubPhaseTimeInMillis.entrySet()) {
+                Long time = fetchSubPhaseTimeInMillis.get(entry.getKey());
+                fetchSubPhaseTimeInMillis.put(entry.getKey(), time == null ? entry.getValue() : time + entry.getValue());
+            }
+        }
     }
 
     public Stats getTotal() {
@@ -199,6 +217,14 @@ public class SearchStats implements Streamable, ToXContent {
         return this.groupStats;
     }
 
+    /**
+     * The time spent in each fetch sub phase (highlight, source, script_fields, ...), keyed by the sub phase name.
+     */
+    @Nullable
+    public Map<String, Long> getFetchSubPhaseTimeInMillis() {
+        return this.fetchSubPhaseTimeInMillis;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, ToXContent.Params params) throws IOException {
         builder.startObject(Fields.SEARCH);
@@ -213,6 +239,15 @@ public class SearchStats implements Streamable, ToXContent {
             }
             builder.endObject();
         }
+        if (fetchSubPhaseTimeInMillis != null && !fetchSubPhaseTimeInMillis.isEmpty()) {
+            builder.startObject(Fields.FETCH_SUB_PHASES);
+            for (Map.Entry<String, Long> entry : fetchSubPhaseTimeInMillis.entrySet()) {
+                builder.startObject(entry.getKey(), XContentBuilder.FieldCaseConversion.NONE);
+                builder.timeValueField(Fields.TIME_IN_MILLIS, Fields.TIME, entry.getValue());
+                builder.endObject();
+            }
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -229,6 +264,9 @@ public class SearchStats implements Streamable, ToXContent {
         static final XContentBuilderString FETCH_TIME = new XContentBuilderString("fetch_time");
         static final XContentBuilderString FETCH_TIME_IN_MILLIS = new XContentBuilderString("fetch_time_in_millis");
         static final XContentBuilderString FETCH_CURRENT = new XContentBuilderString("fetch_current");
+        static final XContentBuilderString FETCH_SUB_PHASES = new XContentBuilderString("fetch_sub_phases");
+        static final XContentBuilderString TIME = new XContentBuilderString("time");
+        static final XContentBuilderString TIME_IN_MILLIS = new XContentBuilderString("time_in_millis");
     }
 
     public static SearchStats readSearchStats(StreamInput in) throws IOException {
@@ -248,6 +286,13 @@ public class SearchStats implements Streamable, ToXContent {
                 groupStats.put(in.readString(), Stats.readStats(in));
             }
         }
+        if (in.getVersion().onOrAfter(Version.V_2_0_0) && in.readBoolean()) {
+            int size = in.readVInt();
+            fetchSubPhaseTimeInMillis = new HashMap<>(size);
+            for (int i = 0; i < size; i++) {
+                fetchSubPhaseTimeInMillis.put(in.readString(), in.readVLong());
+            }
+        }
     }
 
     @Override
@@ -264,6 +309,18 @@ public class SearchStats implements Streamable, ToXContent {
                 entry.getValue().writeTo(out);
             }
         }
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            if (fetchSubPhaseTimeInMillis == null || fetchSubPhaseTimeInMillis.isEmpty()) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                out.writeVInt(fetchSubPhaseTimeInMillis.size());
+                for (Map.Entry<String, Long> entry : fetchSubPhaseTimeInMillis.entrySet()) {
+                    out.writeString(entry.getKey());
+                    out.writeVLong(entry.getValue());
+                }
+            }
+        }
     }
 
     @Override
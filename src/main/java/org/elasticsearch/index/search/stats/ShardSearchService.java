@@ -46,6 +46,7 @@ public class ShardSearchService extends AbstractIndexShardComponent {
     private final CounterMetric openContexts = new CounterMetric();
 
     private volatile Map<String, StatsHolder> groupsStats = ImmutableMap.of();
+    private volatile Map<String, MeanMetric> fetchSubPhaseStats = ImmutableMap.of();
 
     @Inject
     public ShardSearchService(ShardId shardId, @IndexSettings Settings indexSettings, ShardSlowLogSearchService slowLogSearchService) {
@@ -75,7 +76,11 @@ public class ShardSearchService extends AbstractIndexShardComponent {
                 }
             }
         }
-        return new SearchStats(total, openContexts.count(), groupsSt);
+        Map<String, Long> fetchSubPhaseSt = new HashMap<>(fetchSubPhaseStats.size());
+        for (Map.Entry<String, MeanMetric> entry : fetchSubPhaseStats.entrySet()) {
+            fetchSubPhaseSt.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue().sum()));
+        }
+        return new SearchStats(total, openContexts.count(), groupsSt, fetchSubPhaseSt);
     }
 
     public void onPreQueryPhase(SearchContext searchContext) {
@@ -140,8 +145,28 @@ public class ShardSearchService extends AbstractIndexShardComponent {
         slowLogSearchService.onFetchPhase(searchContext, tookInNanos);
     }
 
+    /**
+     * Records the time spent by a fetch sub phase (highlight, source, ...) while executing a single fetch phase.
+     */
+    public void onFetchSubPhase(String name, long tookInNanos) {
+        MeanMetric metric = fetchSubPhaseStats.get(name);
+        if (metric == null) {
+            synchronized (this) {
+                metric = fetchSubPhaseStats.get(name);
+                if (metric == null) {
+                    metric = new MeanMetric();
+                    fetchSubPhaseStats = MapBuilder.newMapBuilder(fetchSubPhaseStats).put(name, metric).immutableMap();
+                }
+            }
+        }
+        metric.inc(tookInNanos);
+    }
+
     public void clear() {
         totalStats.clear();
+        for (MeanMetric metric : fetchSubPhaseStats.values()) {
+            metric.clear();
+        }
         synchronized (this) {
             if (!groupsStats.isEmpty()) {
                 MapBuilder<String, StatsHolder> typesStatsBuilder = MapBuilder.newMapBuilder();
@@ -26,10 +26,13 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.cache.filter.FilterCacheStats;
 import org.elasticsearch.index.cache.filter.ShardFilterCache;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
+import org.elasticsearch.index.cache.query.ShardQueryCache;
 import org.elasticsearch.index.cache.id.IdCacheStats;
 import org.elasticsearch.index.deletionpolicy.SnapshotIndexCommit;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.EngineException;
+import org.elasticsearch.index.engine.IndexSort;
 import org.elasticsearch.index.engine.SegmentsStats;
 import org.elasticsearch.index.fielddata.FieldDataStats;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
@@ -77,6 +80,8 @@ public interface IndexShard extends IndexShardComponent {
 
     ShardFilterCache filterCache();
 
+    ShardQueryCache queryCache();
+
     ShardFieldData fieldData();
 
     ShardRouting routingEntry();
@@ -103,6 +108,8 @@ public interface IndexShard extends IndexShardComponent {
 
     FilterCacheStats filterCacheStats();
 
+    QueryCacheStats queryCacheStats();
+
     IdCacheStats idCacheStats();
 
     FieldDataStats fieldDataStats(String... fields);
@@ -121,6 +128,12 @@ public interface IndexShard extends IndexShardComponent {
 
     ShardSuggestService shardSuggestService();
 
+    /**
+     * The sort of the segments of this shard, or <tt>null</tt> if the index isn't sorted.
+     */
+    @Nullable
+    IndexSort indexSort();
+
     MapperService mapperService();
 
     IndexFieldDataService indexFieldDataService();
@@ -149,8 +162,21 @@ public interface IndexShard extends IndexShardComponent {
 
     void refresh(Engine.Refresh refresh) throws ElasticsearchException;
 
+    /**
+     * Makes the operations performed so far durable in the translog when the translog durability
+     * is set to <tt>request</tt>, does nothing otherwise.
+     */
+    void syncTranslogOnRequest() throws ElasticsearchException;
+
     void flush(Engine.Flush flush) throws ElasticsearchException;
 
+    /**
+     * Commits the provided sync id if nothing changed since the commit with the expected generation.
+     *
+     * @see Engine#syncFlush(String, long)
+     */
+    boolean syncFlush(String syncId, long expectedCommitGeneration) throws ElasticsearchException;
+
     void optimize(Engine.Optimize optimize) throws ElasticsearchException;
 
     SnapshotIndexCommit snapshotIndex() throws EngineException;
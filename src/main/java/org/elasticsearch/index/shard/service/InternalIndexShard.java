@@ -46,6 +46,8 @@ import org.elasticsearch.index.aliases.IndexAliasesService;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.filter.FilterCacheStats;
 import org.elasticsearch.index.cache.filter.ShardFilterCache;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
+import org.elasticsearch.index.cache.query.ShardQueryCache;
 import org.elasticsearch.index.cache.id.IdCacheStats;
 import org.elasticsearch.index.codec.CodecService;
 import org.elasticsearch.index.deletionpolicy.SnapshotIndexCommit;
@@ -79,6 +81,7 @@ import org.elasticsearch.index.suggest.stats.ShardSuggestService;
 import org.elasticsearch.index.suggest.stats.SuggestStats;
 import org.elasticsearch.index.termvectors.ShardTermVectorService;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogException;
 import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
@@ -118,6 +121,7 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
     private final ShardGetService getService;
     private final ShardIndexWarmerService shardWarmerService;
     private final ShardFilterCache shardFilterCache;
+    private final ShardQueryCache shardQueryCache;
     private final ShardFieldData shardFieldData;
     private final PercolatorQueriesRegistry percolatorQueriesRegistry;
     private final ShardPercolateService shardPercolateService;
@@ -150,7 +154,7 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
     public InternalIndexShard(ShardId shardId, @IndexSettings Settings indexSettings, IndexSettingsService indexSettingsService, IndicesLifecycle indicesLifecycle, Store store, Engine engine, MergeSchedulerProvider mergeScheduler, Translog translog,
                               ThreadPool threadPool, MapperService mapperService, IndexQueryParserService queryParserService, IndexCache indexCache, IndexAliasesService indexAliasesService, ShardIndexingService indexingService, ShardGetService getService, ShardSearchService searchService, ShardIndexWarmerService shardWarmerService,
                               ShardFilterCache shardFilterCache, ShardFieldData shardFieldData, PercolatorQueriesRegistry percolatorQueriesRegistry, ShardPercolateService shardPercolateService, CodecService codecService,
-                              ShardTermVectorService termVectorService, IndexFieldDataService indexFieldDataService, IndexService indexService, ShardSuggestService shardSuggestService) {
+                              ShardTermVectorService termVectorService, IndexFieldDataService indexFieldDataService, IndexService indexService, ShardSuggestService shardSuggestService, ShardQueryCache shardQueryCache) {
         super(shardId, indexSettings);
         this.indicesLifecycle = (InternalIndicesLifecycle) indicesLifecycle;
         this.indexSettingsService = indexSettingsService;
@@ -176,6 +180,7 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         this.indexService = indexService;
         this.codecService = codecService;
         this.shardSuggestService = shardSuggestService;
+        this.shardQueryCache = shardQueryCache;
         state = IndexShardState.CREATED;
 
         this.refreshInterval = indexSettings.getAsTime(INDEX_REFRESH_INTERVAL, engine.defaultRefreshInterval());
@@ -223,6 +228,11 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         return shardSuggestService;
     }
 
+    @Override
+    public IndexSort indexSort() {
+        return engine.indexSort();
+    }
+
     @Override
     public IndexFieldDataService indexFieldDataService() {
         return indexFieldDataService;
@@ -253,6 +263,11 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         return this.shardFilterCache;
     }
 
+    @Override
+    public ShardQueryCache queryCache() {
+        return this.shardQueryCache;
+    }
+
     @Override
     public ShardFieldData fieldData() {
         return this.shardFieldData;
@@ -480,6 +495,15 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         refreshMetric.inc(System.nanoTime() - time);
     }
 
+    @Override
+    public void syncTranslogOnRequest() throws ElasticsearchException {
+        try {
+            translog.syncOnRequest();
+        } catch (IOException e) {
+            throw new TranslogException(shardId, "failed to sync translog", e);
+        }
+    }
+
     @Override
     public RefreshStats refreshStats() {
         return new RefreshStats(refreshMetric.count(), TimeUnit.NANOSECONDS.toMillis(refreshMetric.sum()));
@@ -544,6 +568,11 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         return shardFilterCache.stats();
     }
 
+    @Override
+    public QueryCacheStats queryCacheStats() {
+        return shardQueryCache.stats();
+    }
+
     @Override
     public FieldDataStats fieldDataStats(String... fields) {
         return shardFieldData.stats(fields);
@@ -605,6 +634,15 @@ public class InternalIndexShard extends AbstractIndexShardComponent implements I
         flushMetric.inc(System.nanoTime() - time);
     }
 
+    @Override
+    public boolean syncFlush(String syncId, long expectedCommitGeneration) throws ElasticsearchException {
+        verifyStarted();
+        if (logger.isTraceEnabled()) {
+            logger.trace("synced flush [{}] of commit generation [{}]", syncId, expectedCommitGeneration);
+        }
+        return engine.syncFlush(syncId, expectedCommitGeneration);
+    }
+
     @Override
     public void optimize(Engine.Optimize optimize) throws ElasticsearchException {
         verifyStarted();
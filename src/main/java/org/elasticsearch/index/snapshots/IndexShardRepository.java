@@ -52,13 +52,32 @@ public interface IndexShardRepository {
      * Restores snapshot of the shard.
      * <p/>
      * The index can be renamed on restore, hence different {@code shardId} and {@code snapshotShardId} are supplied.
+     * <p/>
+     * The shard can be opened once this method returns. Implementations may still copy files in the background at that
+     * point, the listener is notified once all files of the shard are stored locally.
      *
      * @param snapshotId      snapshot id
      * @param shardId         shard id (in the current index)
      * @param snapshotShardId shard id (in the snapshot)
      * @param recoveryState   recovery state
+     * @param listener        listener notified once the files are restored
      */
-    void restore(SnapshotId snapshotId, ShardId shardId, ShardId snapshotShardId, RecoveryState recoveryState);
+    void restore(SnapshotId snapshotId, ShardId shardId, ShardId snapshotShardId, RecoveryState recoveryState, RestoreListener listener);
+
+    /**
+     * Resumes copying the files of a restore that was interrupted while its files were still being copied in the
+     * background, for example by a node restart.
+     * <p/>
+     * Files of the snapshot that are missing locally are served from the repository again until they are copied, the
+     * files that are already local are kept.
+     *
+     * @param snapshotId      snapshot id
+     * @param shardId         shard id (in the current index)
+     * @param snapshotShardId shard id (in the snapshot)
+     * @param recoveryState   recovery state
+     * @param listener        listener notified once the files are restored
+     */
+    void resumeRestore(SnapshotId snapshotId, ShardId shardId, ShardId snapshotShardId, RecoveryState recoveryState, RestoreListener listener);
 
     /**
      * Retrieve shard snapshot status for the stored snapshot
@@ -69,4 +88,20 @@ public interface IndexShardRepository {
      */
     IndexShardSnapshotStatus snapshotStatus(SnapshotId snapshotId, ShardId shardId);
 
+    /**
+     * Listener for the files of a shard restore
+     */
+    interface RestoreListener {
+
+        /**
+         * Called once all files of the shard are stored locally
+         */
+        void onFilesRestored();
+
+        /**
+         * Called if the files could not be copied after the shard was opened
+         */
+        void onFailure(Throwable t);
+    }
+
 }
@@ -103,6 +103,9 @@ public class IndexShardSnapshotAndRestoreService extends AbstractIndexShardCompo
 
     /**
      * Restores shard from {@link RestoreSource} associated with this shard in routing table
+     * <p/>
+     * The restore is reported as completed once all files are local, lazily restored files might still be copied
+     * after this method returns.
      *
      * @param recoveryState recovery state
      */
@@ -116,15 +119,59 @@ public class IndexShardSnapshotAndRestoreService extends AbstractIndexShardCompo
         }
         try {
             IndexShardRepository indexShardRepository = repositoriesService.indexShardRepository(restoreSource.snapshotId().getRepository());
-            ShardId snapshotShardId = shardId;
-            if (!shardId.getIndex().equals(restoreSource.index())) {
-                snapshotShardId = new ShardId(restoreSource.index(), shardId.id());
-            }
-            indexShardRepository.restore(restoreSource.snapshotId(), shardId, snapshotShardId, recoveryState);
-            restoreService.indexShardRestoreCompleted(restoreSource.snapshotId(), shardId);
+            indexShardRepository.restore(restoreSource.snapshotId(), shardId, snapshotShardId(restoreSource), recoveryState, new RestoreListener(restoreSource));
         } catch (Throwable t) {
             throw new IndexShardRestoreFailedException(shardId, "restore failed", t);
         }
     }
 
+    /**
+     * Resumes copying the files of a lazy restore that didn't complete before the shard was closed
+     *
+     * @param restoreSource restore source the shard was lazily restored from
+     * @param recoveryState recovery state
+     */
+    public void resumeRestore(final RestoreSource restoreSource, final RecoveryState recoveryState) {
+        logger.debug("[{}] resuming lazy restore of shard [{}]", restoreSource.snapshotId(), shardId);
+        try {
+            IndexShardRepository indexShardRepository = repositoriesService.indexShardRepository(restoreSource.snapshotId().getRepository());
+            indexShardRepository.resumeRestore(restoreSource.snapshotId(), shardId, snapshotShardId(restoreSource), recoveryState, new RestoreListener(restoreSource));
+        } catch (Throwable t) {
+            throw new IndexShardRestoreFailedException(shardId, "resuming restore failed", t);
+        }
+    }
+
+    private ShardId snapshotShardId(RestoreSource restoreSource) {
+        if (!shardId.getIndex().equals(restoreSource.index())) {
+            return new ShardId(restoreSource.index(), shardId.id());
+        }
+        return shardId;
+    }
+
+    private class RestoreListener implements IndexShardRepository.RestoreListener {
+
+        private final RestoreSource restoreSource;
+
+        RestoreListener(RestoreSource restoreSource) {
+            this.restoreSource = restoreSource;
+        }
+
+        @Override
+        public void onFilesRestored() {
+            restoreService.indexShardRestoreCompleted(restoreSource.snapshotId(), shardId);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            if (indexShard.state() == IndexShardState.CLOSED) {
+                // the shard was closed, eg. relocated, the master completes the restore once the primary moved and a
+                // copy recovered again on this node from its local files resumes copying the missing ones
+                logger.debug("[{}] stopped copying lazily restored files of closed shard", t, restoreSource.snapshotId());
+                return;
+            }
+            // the master fails the restore of the shard unless it is recovered again on this node, where the copy resumes
+            indexShard.failShard("failed to copy lazily restored files", t);
+        }
+    }
+
 }
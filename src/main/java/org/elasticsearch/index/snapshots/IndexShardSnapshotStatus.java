@@ -173,6 +173,13 @@ public class IndexShardSnapshotStatus {
         processedSize += size;
     }
 
+    /**
+     * Increments size of processed files without changing the number of processed files
+     */
+    public synchronized void addProcessedBytes(long size) {
+        processedSize += size;
+    }
+
     /**
      * Number of files
      *
@@ -209,7 +216,6 @@ public class IndexShardSnapshotStatus {
         return processedSize;
     }
 
-
     /**
      * Sets index version
      *
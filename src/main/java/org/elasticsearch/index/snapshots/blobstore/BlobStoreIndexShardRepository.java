@@ -28,6 +28,8 @@ import org.apache.lucene.store.RateLimiter;
 import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.cluster.metadata.SnapshotId;
+import org.elasticsearch.cluster.routing.RestoreSource;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.blobstore.*;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -56,6 +58,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -84,8 +87,14 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
 
     private RateLimitingInputStream.Listener snapshotThrottleListener;
 
+    private boolean lazyRestore;
+
+    private ByteSizeValue lazyRestoreCacheSize;
+
     private static final String SNAPSHOT_PREFIX = "snapshot-";
 
+    private static final int LAZY_COPY_ATTEMPTS = 3;
+
     @Inject
     BlobStoreIndexShardRepository(Settings settings, RepositoryName repositoryName, IndicesService indicesService) {
         super(settings);
@@ -99,13 +108,18 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
      * @param blobStore blob store
      * @param basePath  base path to blob store
      * @param chunkSize chunk size
+     * @param lazyRestore if true, restored shards are opened before their files are copied over
+     * @param lazyRestoreCacheSize size of the per shard cache of blocks read from the repository during lazy restores
      */
     public void initialize(BlobStore blobStore, BlobPath basePath, ByteSizeValue chunkSize,
                            RateLimiter snapshotRateLimiter, RateLimiter restoreRateLimiter,
-                           final RateLimiterListener rateLimiterListener) {
+                           final RateLimiterListener rateLimiterListener,
+                           boolean lazyRestore, ByteSizeValue lazyRestoreCacheSize) {
         this.blobStore = blobStore;
         this.basePath = basePath;
         this.chunkSize = chunkSize;
+        this.lazyRestore = lazyRestore;
+        this.lazyRestoreCacheSize = lazyRestoreCacheSize;
         this.snapshotRateLimiter = snapshotRateLimiter;
         this.restoreRateLimiter = restoreRateLimiter;
         this.rateLimiterListener = rateLimiterListener;
@@ -145,8 +159,8 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
      * {@inheritDoc}
      */
     @Override
-    public void restore(SnapshotId snapshotId, ShardId shardId, ShardId snapshotShardId, RecoveryState recoveryState) {
-        RestoreContext snapshotContext = new RestoreContext(snapshotId, shardId, snapshotShardId, recoveryState);
+    public void restore(SnapshotId snapshotId, ShardId shardId, ShardId snapshotShardId, RecoveryState recoveryState, RestoreListener listener) {
+        RestoreContext snapshotContext = new RestoreContext(snapshotId, shardId, snapshotShardId, recoveryState, listener);
 
         try {
             recoveryState.getIndex().startTime(System.currentTimeMillis());
@@ -157,6 +171,20 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void resumeRestore(SnapshotId snapshotId, ShardId shardId, ShardId snapshotShardId, RecoveryState recoveryState, RestoreListener listener) {
+        RestoreContext snapshotContext = new RestoreContext(snapshotId, shardId, snapshotShardId, recoveryState, listener);
+
+        try {
+            snapshotContext.resume();
+        } catch (Throwable e) {
+            throw new IndexShardRestoreFailedException(shardId, "failed to resume restore of snapshot [" + snapshotId.getSnapshot() + "]", e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -442,9 +470,16 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
     //                snapshotRequired = true; // we want to always snapshot the segment file if the index changed
     //            }
 
-                    BlobStoreIndexShardSnapshot.FileInfo fileInfo = snapshots.findPhysicalIndexFile(fileName);
+                    // reuse any blob of a previous snapshot with the same name, length and checksum
+                    BlobStoreIndexShardSnapshot.FileInfo fileInfo = null;
+                    for (BlobStoreIndexShardSnapshot.FileInfo existingFileInfo : snapshots.findPhysicalIndexFiles(fileName)) {
+                        if (existingFileInfo.isSame(md) && snapshotFileExistsInBlobs(existingFileInfo, blobs)) {
+                            fileInfo = existingFileInfo;
+                            break;
+                        }
+                    }
 
-                    if (fileInfo == null || !fileInfo.isSame(md) || !snapshotFileExistsInBlobs(fileInfo, blobs)) {
+                    if (fileInfo == null) {
                         // commit point file does not exists in any commit point, or has different length, or does not fully exists in the listed blobs
                         snapshotRequired = true;
                     }
@@ -530,6 +565,7 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
          * @throws IOException
          */
         private void snapshotFile(final BlobStoreIndexShardSnapshot.FileInfo fileInfo, final CountDownLatch latch, final List<Throwable> failures) throws IOException {
+            // all parts are written concurrently, the latch is counted down once the last one completes
             final AtomicLong counter = new AtomicLong(fileInfo.numberOfParts());
             for (long i = 0; i < fileInfo.numberOfParts(); i++) {
                 IndexInput indexInput = null;
@@ -540,7 +576,7 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
                     InputStreamIndexInput inputStreamIndexInput = new ThreadSafeInputStreamIndexInput(indexInput, fileInfo.partBytes());
 
                     final IndexInput fIndexInput = indexInput;
-                    long size = inputStreamIndexInput.actualSizeToRead();
+                    final long size = inputStreamIndexInput.actualSizeToRead();
                     InputStream inputStream;
                     if (snapshotRateLimiter != null) {
                         inputStream = new RateLimitingInputStream(inputStreamIndexInput, snapshotRateLimiter, snapshotThrottleListener);
@@ -552,8 +588,9 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
                         @Override
                         public void onCompleted() {
                             IOUtils.closeWhileHandlingException(fIndexInput);
-                            snapshotStatus.addProcessedFile(fileInfo.length());
+                            snapshotStatus.addProcessedBytes(size);
                             if (counter.decrementAndGet() == 0) {
+                                snapshotStatus.addProcessedFile(0);
                                 latch.countDown();
                             }
                         }
@@ -561,9 +598,9 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
                         @Override
                         public void onFailure(Throwable t) {
                             IOUtils.closeWhileHandlingException(fIndexInput);
-                            snapshotStatus.addProcessedFile(0);
                             failures.add(t);
                             if (counter.decrementAndGet() == 0) {
+                                snapshotStatus.addProcessedFile(0);
                                 latch.countDown();
                             }
                         }
@@ -571,7 +608,12 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
                 } catch (Throwable e) {
                     IOUtils.closeWhileHandlingException(indexInput);
                     failures.add(e);
-                    latch.countDown();
+                    // the remaining parts are not going to be written, only wait for the ones already submitted
+                    if (counter.addAndGet(i - fileInfo.numberOfParts()) == 0) {
+                        snapshotStatus.addProcessedFile(0);
+                        latch.countDown();
+                    }
+                    return;
                 }
             }
         }
@@ -642,6 +684,10 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
 
         private final RecoveryState recoveryState;
 
+        private final ShardId snapshotShardId;
+
+        private final RestoreListener listener;
+
         /**
          * Constructs new restore context
          *
@@ -649,11 +695,14 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
          * @param shardId         shard to be restored
          * @param snapshotShardId shard in the snapshot that data should be restored from
          * @param recoveryState   recovery state to report progress
+         * @param listener        listener notified once the files are restored
          */
-        public RestoreContext(SnapshotId snapshotId, ShardId shardId, ShardId snapshotShardId, RecoveryState recoveryState) {
+        public RestoreContext(SnapshotId snapshotId, ShardId shardId, ShardId snapshotShardId, RecoveryState recoveryState, RestoreListener listener) {
             super(snapshotId, shardId, snapshotShardId);
             store = indicesService.indexServiceSafe(shardId.getIndex()).shardInjectorSafe(shardId.id()).getInstance(Store.class);
             this.recoveryState = recoveryState;
+            this.snapshotShardId = snapshotShardId;
+            this.listener = listener;
         }
 
         /**
@@ -713,22 +762,42 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
                     logger.trace("[{}] [{}] recovering_files [{}] with total_size [{}], reusing_files [{}] with reused_size [{}]", shardId, snapshotId, numberOfFiles, new ByteSizeValue(totalSize), numberOfReusedFiles, new ByteSizeValue(reusedTotalSize));
                 }
 
-                final CountDownLatch latch = new CountDownLatch(filesToRecover.size());
-                final CopyOnWriteArrayList<Throwable> failures = new CopyOnWriteArrayList<>();
+                LazyRestoreDirectory lazyDirectory = null;
+                if (lazyRestore && !filesToRecover.isEmpty()) {
+                    // serve the missing files from the repository for now, so the shard can be opened right away
+                    lazyDirectory = serveLazily(filesToRecover);
+                } else {
+                    final CountDownLatch latch = new CountDownLatch(filesToRecover.size());
+                    final CopyOnWriteArrayList<Throwable> failures = new CopyOnWriteArrayList<>();
+
+                    for (final FileInfo fileToRecover : filesToRecover) {
+                        logger.trace("[{}] [{}] restoring file [{}]", shardId, snapshotId, fileToRecover.name());
+                        restoreFile(fileToRecover, null, new FileRestoreListener() {
+                            @Override
+                            public void onRestored() {
+                                latch.countDown();
+                            }
 
-                for (final FileInfo fileToRecover : filesToRecover) {
-                    logger.trace("[{}] [{}] restoring file [{}]", shardId, snapshotId, fileToRecover.name());
-                    restoreFile(fileToRecover, latch, failures);
-                }
+                            @Override
+                            public void onFailure(Throwable t) {
+                                try {
+                                    failures.add(t);
+                                } finally {
+                                    latch.countDown();
+                                }
+                            }
+                        });
+                    }
 
-                try {
-                    latch.await();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
 
-                if (!failures.isEmpty()) {
-                    throw new IndexShardRestoreFailedException(shardId, "Failed to recover index", failures.get(0));
+                    if (!failures.isEmpty()) {
+                        throw new IndexShardRestoreFailedException(shardId, "Failed to recover index", failures.get(0));
+                    }
                 }
 
                 // read the snapshot data persisted
@@ -756,32 +825,176 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
                 } catch (IOException e) {
                     // ignore
                 }
+
+                if (lazyDirectory != null) {
+                    // remember where the files come from, in case the shard is recovered again before they are copied
+                    try {
+                        store.writeLazyRestoreSource(new RestoreSource(snapshotId, snapshotShardId.getIndex()));
+                    } catch (IOException e) {
+                        throw new IndexShardRestoreFailedException(shardId, "Failed to write lazy restore source", e);
+                    }
+                    copyLazily(filesToRecover, lazyDirectory);
+                } else {
+                    listener.onFilesRestored();
+                }
             } finally {
                 store.decRef();
             }
         }
 
+        /**
+         * Resumes a lazy restore, serving the files of the snapshot that are missing locally from the repository again
+         * until they are copied
+         */
+        public void resume() {
+            store.incRef();
+            try {
+                logger.debug("[{}] [{}] resuming restore to [{}] ...", snapshotId, repositoryName, shardId);
+                BlobStoreIndexShardSnapshot snapshot = loadSnapshot();
+
+                List<FileInfo> filesToRecover = Lists.newArrayList();
+                for (FileInfo fileInfo : snapshot.indexFiles()) {
+                    try {
+                        // local files are complete, copies are only renamed into place once done
+                        if (store.metaData(fileInfo.physicalName()) == null) {
+                            filesToRecover.add(fileInfo);
+                        }
+                        if (store.directory().fileExists(lazyCopyName(fileInfo))) {
+                            store.directory().deleteFile(lazyCopyName(fileInfo));
+                        }
+                    } catch (IOException e) {
+                        throw new IndexShardRestoreFailedException(shardId, "Failed to check local copy of [" + fileInfo.physicalName() + "]", e);
+                    }
+                }
+
+                if (filesToRecover.isEmpty()) {
+                    logger.trace("[{}] [{}] all files were copied already", shardId, snapshotId);
+                    try {
+                        store.deleteLazyRestoreSource();
+                    } catch (IOException e) {
+                        throw new IndexShardRestoreFailedException(shardId, "Failed to delete lazy restore source", e);
+                    }
+                    listener.onFilesRestored();
+                } else {
+                    logger.debug("[{}] [{}] resuming copy of [{}] files", shardId, snapshotId, filesToRecover.size());
+                    copyLazily(filesToRecover, serveLazily(filesToRecover));
+                }
+            } finally {
+                store.decRef();
+            }
+        }
+
+        /**
+         * Registers the files in the store, reading them from the repository until they are copied
+         */
+        private LazyRestoreDirectory serveLazily(List<FileInfo> filesToRecover) {
+            LazyRestoreDirectory lazyDirectory = new LazyRestoreDirectory(blobContainer, filesToRecover, lazyRestoreCacheSize);
+            for (FileInfo fileToRecover : filesToRecover) {
+                try {
+                    // drop any stale local copy
+                    store.directory().deleteFile(fileToRecover.physicalName());
+                } catch (IOException e) {
+                    throw new IndexShardRestoreFailedException(shardId, "Failed to delete stale file [" + fileToRecover.physicalName() + "]", e);
+                }
+                store.addLazyFile(fileToRecover.physicalName(), fileToRecover.length(), fileToRecover.checksum(), lazyDirectory);
+            }
+            return lazyDirectory;
+        }
+
+        /**
+         * Copies the lazily served files in the background, they are switched to the local copy one by one
+         */
+        private void copyLazily(List<FileInfo> filesToRecover, LazyRestoreDirectory lazyDirectory) {
+            LazyCopy lazyCopy = new LazyCopy(lazyDirectory, filesToRecover.size());
+            for (FileInfo fileToRecover : filesToRecover) {
+                logger.trace("[{}] [{}] lazily restoring file [{}]", shardId, snapshotId, fileToRecover.name());
+                copyLazily(fileToRecover, lazyCopy, 1);
+            }
+        }
+
+        private void copyLazily(final FileInfo fileInfo, final LazyCopy lazyCopy, final int attempt) {
+            restoreFile(fileInfo, lazyCopy.lazyDirectory, new FileRestoreListener() {
+                @Override
+                public void onRestored() {
+                    lazyCopy.onFileCopied();
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    if (attempt < LAZY_COPY_ATTEMPTS) {
+                        logger.debug("[{}] [{}] failed to copy lazily restored file [{}], retrying", t, shardId, snapshotId, fileInfo.physicalName());
+                        copyLazily(fileInfo, lazyCopy, attempt + 1);
+                    } else {
+                        logger.warn("[{}] [{}] failed to copy lazily restored file [{}] after [{}] attempts", t, shardId, snapshotId, fileInfo.physicalName(), attempt);
+                        lazyCopy.onFailure(t);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Tracks the background copy of lazily restored files and notifies the listener once it is done
+         */
+        private class LazyCopy {
+
+            private final LazyRestoreDirectory lazyDirectory;
+
+            private final AtomicInteger pendingFiles;
+
+            private final AtomicBoolean failed = new AtomicBoolean();
+
+            LazyCopy(LazyRestoreDirectory lazyDirectory, int numberOfFiles) {
+                this.lazyDirectory = lazyDirectory;
+                this.pendingFiles = new AtomicInteger(numberOfFiles);
+            }
+
+            void onFileCopied() {
+                if (pendingFiles.decrementAndGet() > 0 || failed.get()) {
+                    return;
+                }
+                try {
+                    store.deleteLazyRestoreSource();
+                } catch (Throwable t) {
+                    onFailure(t);
+                    return;
+                }
+                IOUtils.closeWhileHandlingException(lazyDirectory);
+                logger.debug("[{}] [{}] copied all lazily restored files", shardId, snapshotId);
+                listener.onFilesRestored();
+            }
+
+            void onFailure(Throwable t) {
+                if (failed.compareAndSet(false, true)) {
+                    listener.onFailure(t);
+                }
+            }
+        }
+
+        /**
+         * Returns the temporary name a lazily restored file is copied to
+         */
+        private String lazyCopyName(FileInfo fileInfo) {
+            return "restore." + fileInfo.physicalName();
+        }
+
         /**
          * Restores a file
-         * This is asynchronous method. Upon completion of the operation latch is getting counted down and any failures are
-         * added to the {@code failures} list
+         * This is asynchronous method. Upon completion of the operation the listener is notified.
          *
-         * @param fileInfo file to be restored
-         * @param latch    latch that should be counted down once file is snapshoted
-         * @param failures thread-safe list of failures
+         * @param fileInfo      file to be restored
+         * @param lazyDirectory directory the file is currently read from, or null if it is not lazily restored
+         * @param listener      listener notified once the file is restored or failed
          */
-        private void restoreFile(final FileInfo fileInfo, final CountDownLatch latch, final List<Throwable> failures) {
+        private void restoreFile(final FileInfo fileInfo, @Nullable final LazyRestoreDirectory lazyDirectory, final FileRestoreListener listener) {
+            // lazily restored files are copied under a temporary name and only renamed once complete
+            final String fileName = lazyDirectory == null ? fileInfo.physicalName() : lazyCopyName(fileInfo);
             final IndexOutput indexOutput;
             try {
                 // we create an output with no checksum, this is because the pure binary data of the file is not
                 // the checksum (because of seek). We will create the checksum file once copying is done
-                indexOutput = store.createOutputRaw(fileInfo.physicalName());
-            } catch (IOException e) {
-                try {
-                    failures.add(e);
-                } finally {
-                    latch.countDown();
-                }
+                indexOutput = store.createOutputRaw(fileName);
+            } catch (Throwable t) {
+                listener.onFailure(t);
                 return;
             }
 
@@ -817,33 +1030,38 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
                                 indexOutput.close();
                                 // write the checksum
                                 if (fileInfo.checksum() != null) {
-                                    store.writeChecksum(fileInfo.physicalName(), fileInfo.checksum());
+                                    store.writeChecksum(fileName, fileInfo.checksum());
+                                }
+                                store.directory().sync(Collections.singleton(fileName));
+                                if (lazyDirectory != null) {
+                                    // switch over to the local copy, unless the engine deleted the file in the meantime
+                                    if (store.replaceLazyFile(fileName, fileInfo.physicalName(), lazyDirectory)) {
+                                        lazyDirectory.switchToLocal(fileInfo.physicalName(), store.directory());
+                                    } else {
+                                        store.directory().deleteFile(fileName);
+                                        lazyDirectory.evict(fileInfo.physicalName());
+                                    }
                                 }
-                                store.directory().sync(Collections.singleton(fileInfo.physicalName()));
                                 recoveryState.getIndex().addRecoveredFileCount(1);
-                            } catch (IOException e) {
-                                onFailure(e);
+                            } catch (Throwable t) {
+                                onFailure(t);
                                 return;
                             }
                         }
-                        latch.countDown();
+                        listener.onRestored();
                     }
 
                     @Override
                     public void onFailure(Throwable t) {
-                        try {
-                            IOUtils.closeWhileHandlingException(indexOutput);
-                            failures.add(t);
-                        } finally {
-                            latch.countDown();
-                        }
+                        IOUtils.closeWhileHandlingException(indexOutput);
+                        listener.onFailure(t);
                     }
                 });
                 success = true;
             } finally {
                 if (!success) {
                     IOUtils.closeWhileHandlingException(indexOutput);
-                    latch.countDown();
+                    listener.onFailure(new IndexShardRestoreFailedException(shardId, "Failed to read [" + firstFileToRecover + "]"));
                 }
             }
 
@@ -851,6 +1069,17 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
 
     }
 
+    /**
+     * Listener for the restore of a single file
+     */
+    private interface FileRestoreListener {
+
+        void onRestored();
+
+        void onFailure(Throwable t);
+
+    }
+
     public interface RateLimiterListener {
         void onRestorePause(long nanos);
 
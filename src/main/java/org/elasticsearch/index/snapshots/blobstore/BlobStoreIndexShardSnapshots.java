@@ -20,10 +20,13 @@
 package org.elasticsearch.index.snapshots.blobstore;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Contains information about all snapshot for the given shard in repository
@@ -34,8 +37,32 @@ import java.util.List;
 public class BlobStoreIndexShardSnapshots implements Iterable<BlobStoreIndexShardSnapshot> {
     private final ImmutableList<BlobStoreIndexShardSnapshot> shardSnapshots;
 
+    private final ImmutableMap<String, ImmutableList<FileInfo>> physicalFiles;
+
     public BlobStoreIndexShardSnapshots(List<BlobStoreIndexShardSnapshot> shardSnapshots) {
         this.shardSnapshots = ImmutableList.copyOf(shardSnapshots);
+        // index all snapshotted files by their original name, so lookups don't have to scan every snapshot
+        Map<String, ImmutableList.Builder<FileInfo>> physicalFiles = new HashMap<>();
+        Map<String, FileInfo> seen = new HashMap<>();
+        for (BlobStoreIndexShardSnapshot snapshot : shardSnapshots) {
+            for (FileInfo fileInfo : snapshot.indexFiles()) {
+                if (seen.put(fileInfo.name(), fileInfo) != null) {
+                    // the same blob is referenced by several snapshots
+                    continue;
+                }
+                ImmutableList.Builder<FileInfo> files = physicalFiles.get(fileInfo.physicalName());
+                if (files == null) {
+                    files = ImmutableList.builder();
+                    physicalFiles.put(fileInfo.physicalName(), files);
+                }
+                files.add(fileInfo);
+            }
+        }
+        ImmutableMap.Builder<String, ImmutableList<FileInfo>> builder = ImmutableMap.builder();
+        for (Map.Entry<String, ImmutableList.Builder<FileInfo>> entry : physicalFiles.entrySet()) {
+            builder.put(entry.getKey(), entry.getValue().build());
+        }
+        this.physicalFiles = builder.build();
     }
 
     /**
@@ -54,13 +81,25 @@ public class BlobStoreIndexShardSnapshots implements Iterable<BlobStoreIndexShar
      * @return file info or null if file is not present in any of snapshots
      */
     public FileInfo findPhysicalIndexFile(String physicalName) {
-        for (BlobStoreIndexShardSnapshot snapshot : shardSnapshots) {
-            FileInfo fileInfo = snapshot.findPhysicalIndexFile(physicalName);
-            if (fileInfo != null) {
-                return fileInfo;
-            }
+        ImmutableList<FileInfo> files = physicalFiles.get(physicalName);
+        if (files == null) {
+            return null;
         }
-        return null;
+        return files.get(0);
+    }
+
+    /**
+     * Finds all distinct snapshotted files with the given original name
+     *
+     * @param physicalName original name
+     * @return list of file infos, empty if file is not present in any of snapshots
+     */
+    public ImmutableList<FileInfo> findPhysicalIndexFiles(String physicalName) {
+        ImmutableList<FileInfo> files = physicalFiles.get(physicalName);
+        if (files == null) {
+            return ImmutableList.of();
+        }
+        return files;
     }
 
     /**
@@ -0,0 +1,299 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.snapshots.blobstore;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.apache.lucene.store.*;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Read-only directory that serves snapshotted files straight from the blob container.
+ * <p/>
+ * Files are read in blocks of {@link #BLOCK_SIZE} bytes that are fetched when first accessed and kept in a bounded
+ * in-memory cache. It lets a shard open against a snapshot while its files are still being copied over, see
+ * {@link org.elasticsearch.index.store.Store#addLazyFile}. Once a file has been copied, {@link #switchToLocal} moves
+ * its reads over to the local copy.
+ */
+public class LazyRestoreDirectory extends BaseDirectory {
+
+    static final int BLOCK_SIZE = 256 * 1024;
+
+    private final BlobContainer blobContainer;
+
+    private final ConcurrentMap<String, FileInfo> files = ConcurrentCollections.newConcurrentMap();
+
+    private final ConcurrentMap<String, Directory> localFiles = ConcurrentCollections.newConcurrentMap();
+
+    private final Cache<String, byte[]> blocks;
+
+    /**
+     * Constructs new directory
+     *
+     * @param blobContainer blob container of the snapshotted shard
+     * @param files         files to serve
+     * @param cacheSize     maximum size of the cached blocks
+     */
+    public LazyRestoreDirectory(BlobContainer blobContainer, Collection<FileInfo> files, ByteSizeValue cacheSize) {
+        this.blobContainer = blobContainer;
+        for (FileInfo fileInfo : files) {
+            this.files.put(fileInfo.physicalName(), fileInfo);
+        }
+        this.blocks = CacheBuilder.newBuilder().maximumWeight(cacheSize.bytes()).weigher(new Weigher<String, byte[]>() {
+            @Override
+            public int weigh(String key, byte[] value) {
+                return value.length;
+            }
+        }).build();
+        setLockFactory(NoLockFactory.getNoLockFactory());
+    }
+
+    @Override
+    public String[] listAll() throws IOException {
+        ensureOpen();
+        return files.keySet().toArray(new String[files.size()]);
+    }
+
+    @Override
+    public boolean fileExists(String name) throws IOException {
+        ensureOpen();
+        return files.containsKey(name);
+    }
+
+    /**
+     * Stops serving the file, the blobs in the repository are left untouched
+     */
+    @Override
+    public void deleteFile(String name) throws IOException {
+        ensureOpen();
+        if (files.remove(name) == null) {
+            throw new FileNotFoundException(name);
+        }
+        evict(name);
+    }
+
+    @Override
+    public long fileLength(String name) throws IOException {
+        ensureOpen();
+        return fileInfo(name).length();
+    }
+
+    @Override
+    public IndexOutput createOutput(String name, IOContext context) throws IOException {
+        throw new UnsupportedOperationException("[" + name + "]: lazily restored files are read only");
+    }
+
+    @Override
+    public void sync(Collection<String> names) throws IOException {
+        // nothing is written locally
+    }
+
+    @Override
+    public IndexInput openInput(String name, IOContext context) throws IOException {
+        ensureOpen();
+        return new BlobIndexInput(fileInfo(name), context);
+    }
+
+    @Override
+    public void close() throws IOException {
+        isOpen = false;
+        blocks.invalidateAll();
+    }
+
+    /**
+     * Drops the cached blocks of the given file
+     */
+    public void evict(String name) {
+        String prefix = name + "#";
+        for (String key : blocks.asMap().keySet()) {
+            if (key.startsWith(prefix)) {
+                blocks.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Redirects the reads of the given file to its local copy in the given directory, including the reads of the
+     * inputs that are already open. Those keep reading from the repository if the local copy cannot be opened.
+     */
+    public void switchToLocal(String name, Directory directory) {
+        localFiles.put(name, directory);
+        evict(name);
+    }
+
+    @Override
+    public String toString() {
+        return "lazy_restore(" + blobContainer.path() + ")";
+    }
+
+    private FileInfo fileInfo(String name) throws FileNotFoundException {
+        FileInfo fileInfo = files.get(name);
+        if (fileInfo == null) {
+            throw new FileNotFoundException(name);
+        }
+        return fileInfo;
+    }
+
+    private byte[] block(final FileInfo fileInfo, final long part, final long blockStart) throws IOException {
+        String key = fileInfo.physicalName() + "#" + part + "@" + blockStart;
+        try {
+            return blocks.get(key, new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws Exception {
+                    long partLength = Math.min(fileInfo.partBytes(), fileInfo.length() - part * fileInfo.partBytes());
+                    int length = (int) Math.min(BLOCK_SIZE, partLength - blockStart);
+                    return blobContainer.readBlobRange(fileInfo.partName(part), blockStart, length);
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("failed to read [" + key + "]", e.getCause());
+        }
+    }
+
+    /**
+     * The local copy of a file, opened once it is available and shared by an input and its clones
+     */
+    private final class LocalInput {
+
+        private final String name;
+
+        private final IOContext context;
+
+        private IndexInput input;
+
+        private boolean closed;
+
+        LocalInput(String name, IOContext context) {
+            this.name = name;
+            this.context = context;
+        }
+
+        synchronized IndexInput get() {
+            if (input == null && !closed) {
+                Directory directory = localFiles.get(name);
+                if (directory != null) {
+                    try {
+                        input = directory.openInput(name, context);
+                    } catch (IOException e) {
+                        // the local copy got deleted already, don't try again
+                        localFiles.remove(name, directory);
+                    }
+                }
+            }
+            return input;
+        }
+
+        synchronized void close() throws IOException {
+            closed = true;
+            if (input != null) {
+                input.close();
+            }
+        }
+    }
+
+    private final class BlobIndexInput extends BufferedIndexInput {
+
+        private final FileInfo fileInfo;
+
+        private final LocalInput localInput;
+
+        private IndexInput local;
+
+        private boolean isClone;
+
+        BlobIndexInput(FileInfo fileInfo, IOContext context) {
+            super("LazyRestoreIndexInput(name=" + fileInfo.physicalName() + ")", context);
+            this.fileInfo = fileInfo;
+            this.localInput = new LocalInput(fileInfo.physicalName(), context);
+        }
+
+        @Override
+        protected void readInternal(byte[] b, int offset, int length) throws IOException {
+            long position = getFilePointer();
+            if (position + length > fileInfo.length()) {
+                throw new EOFException("read past EOF: " + this);
+            }
+            if (local == null) {
+                IndexInput input = localInput.get();
+                if (input != null) {
+                    // clones need their own position in the local copy
+                    local = isClone ? input.clone() : input;
+                }
+            }
+            if (local != null) {
+                local.seek(position);
+                local.readBytes(b, offset, length);
+                return;
+            }
+            while (length > 0) {
+                long part = position / fileInfo.partBytes();
+                long positionInPart = position - part * fileInfo.partBytes();
+                long blockStart = positionInPart - positionInPart % BLOCK_SIZE;
+                byte[] block = block(fileInfo, part, blockStart);
+                int offsetInBlock = (int) (positionInPart - blockStart);
+                int toCopy = Math.min(length, block.length - offsetInBlock);
+                System.arraycopy(block, offsetInBlock, b, offset, toCopy);
+                position += toCopy;
+                offset += toCopy;
+                length -= toCopy;
+            }
+        }
+
+        @Override
+        protected void seekInternal(long pos) throws IOException {
+            // reads are positioned by getFilePointer()
+        }
+
+        @Override
+        public BlobIndexInput clone() {
+            BlobIndexInput clone = (BlobIndexInput) super.clone();
+            clone.local = null;
+            clone.isClone = true;
+            return clone;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!isClone) {
+                localInput.close();
+            }
+        }
+
+        @Override
+        public long length() {
+            return fileInfo.length();
+        }
+    }
+}
@@ -25,13 +25,17 @@ import com.google.common.collect.Maps;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.store.*;
 import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.cluster.routing.RestoreSource;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.Directories;
+import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.CloseableIndexComponent;
@@ -48,6 +52,7 @@ import java.io.IOException;
 import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -61,6 +66,8 @@ public class Store extends AbstractIndexShardComponent implements CloseableIndex
 
     static final String CHECKSUMS_PREFIX = "_checksums-";
 
+    static final String LAZY_RESTORE_SOURCE = "restore.lazy";
+
     public static final boolean isChecksum(String name) {
         return name.startsWith(CHECKSUMS_PREFIX);
     }
@@ -116,6 +123,17 @@ public class Store extends AbstractIndexShardComponent implements CloseableIndex
         return builder.build();
     }
 
+    /**
+     * Returns the user data of the last commit in this store, or an empty map if the store holds no index.
+     */
+    public Map<String, String> readLastCommittedUserData() throws IOException {
+        ensureOpen();
+        if (!Lucene.indexExists(directory())) {
+            return ImmutableMap.of();
+        }
+        return Lucene.readSegmentInfos(directory()).getUserData();
+    }
+
     public StoreFileMetaData metaData(String name) throws IOException {
         ensureOpen();
         StoreFileMetaData md = filesMetadata.get(name);
@@ -182,6 +200,86 @@ public class Store extends AbstractIndexShardComponent implements CloseableIndex
         }
     }
 
+    /**
+     * Adds a file that is not stored locally yet and is read from the given directory instead. Once a local copy has
+     * been written under a temporary name, {@link #replaceLazyFile} switches the file over to it.
+     */
+    public void addLazyFile(String name, long length, String checksum, Directory directory) {
+        ensureOpen();
+        synchronized (mutex) {
+            StoreFileMetaData metaData = new StoreFileMetaData(name, length, checksum, directory);
+            filesMetadata = ImmutableOpenMap.builder(filesMetadata).fPut(name, metaData).build();
+            files = filesMetadata.keys().toArray(String.class);
+        }
+    }
+
+    /**
+     * Renames the local copy {@code from} to the lazily read file {@code to}, unless {@code to} got deleted or
+     * replaced in the meantime.
+     *
+     * @return true if the file was renamed, false otherwise
+     */
+    public boolean replaceLazyFile(String from, String to, Directory lazyDirectory) throws IOException {
+        ensureOpen();
+        synchronized (mutex) {
+            StoreFileMetaData toMetaData = filesMetadata.get(to);
+            if (toMetaData == null || toMetaData.directory() != lazyDirectory) {
+                return false;
+            }
+            renameFile(from, to);
+            return true;
+        }
+    }
+
+    /**
+     * Records the snapshot that the lazily added files of this store are restored from, so that the copy can be
+     * resumed if the shard is recovered again before it is done.
+     */
+    public void writeLazyRestoreSource(RestoreSource restoreSource) throws IOException {
+        ensureOpen();
+        BytesStreamOutput out = new BytesStreamOutput();
+        restoreSource.writeTo(out);
+        byte[] bytes = out.bytes().toBytes();
+        IndexOutput output = createOutputRaw(LAZY_RESTORE_SOURCE);
+        try {
+            output.writeVInt(bytes.length);
+            output.writeBytes(bytes, bytes.length);
+        } finally {
+            output.close();
+        }
+        directory.sync(Collections.singleton(LAZY_RESTORE_SOURCE));
+    }
+
+    /**
+     * Returns the snapshot the files of this store are still being restored from, or null if no lazy restore is
+     * pending.
+     */
+    @Nullable
+    public RestoreSource readLazyRestoreSource() throws IOException {
+        ensureOpen();
+        if (!directory.fileExists(LAZY_RESTORE_SOURCE)) {
+            return null;
+        }
+        IndexInput input = openInputRaw(LAZY_RESTORE_SOURCE, IOContext.READONCE);
+        try {
+            byte[] bytes = new byte[input.readVInt()];
+            input.readBytes(bytes, 0, bytes.length);
+            return RestoreSource.readRestoreSource(new BytesStreamInput(bytes, false));
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Marks the lazy restore of this store as done, see {@link #writeLazyRestoreSource(RestoreSource)}.
+     */
+    public void deleteLazyRestoreSource() throws IOException {
+        ensureOpen();
+        if (directory.fileExists(LAZY_RESTORE_SOURCE)) {
+            directory.deleteFile(LAZY_RESTORE_SOURCE);
+        }
+    }
+
     public static Map<String, String> readChecksums(File[] locations) throws IOException {
         Directory[] dirs = new Directory[locations.length];
         try {
@@ -20,6 +20,7 @@
 package org.elasticsearch.index.translog;
 
 import org.apache.lucene.index.Term;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.ElasticsearchIllegalStateException;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
@@ -38,6 +39,7 @@ import org.elasticsearch.index.shard.IndexShardComponent;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
 /**
  *
@@ -118,6 +120,21 @@ public interface Translog extends IndexShardComponent, CloseableIndexComponent {
      */
     Snapshot snapshot(Snapshot snapshot);
 
+    /**
+     * Marks the current transaction log as the one holding the operations done after the synced flush
+     * with the provided sync id.
+     */
+    void markSynced(String syncId);
+
+    /**
+     * Snapshots the retained (older) transaction logs holding the operations done after the synced flush
+     * with the provided sync id, oldest first. The operations of the current transaction log are not
+     * included. Returns <tt>null</tt> if the sync id is unknown or its transaction logs are no longer
+     * retained.
+     */
+    @Nullable
+    List<Snapshot> snapshotsSince(String syncId) throws TranslogException;
+
     /**
      * Clears unreferenced transaclogs.
      */
@@ -132,11 +149,40 @@ public interface Translog extends IndexShardComponent, CloseableIndexComponent {
 
     void syncOnEachOperation(boolean syncOnEachOperation);
 
+    /**
+     * Makes sure all the operations added so far are fsync'ed when the durability is {@link Durability#REQUEST},
+     * does nothing otherwise. Concurrent callers wait on a single shared fsync (group commit).
+     */
+    void syncOnRequest() throws IOException;
+
     /**
      * return stats
      */
     TranslogStats stats();
 
+    /**
+     * Controls when the translog is fsync'ed.
+     */
+    static enum Durability {
+        /**
+         * The translog is fsync'ed in the background, every <tt>index.gateway.local.sync</tt> interval.
+         */
+        ASYNC,
+        /**
+         * The translog is fsync'ed before each write request is acknowledged, concurrent requests share the fsync.
+         */
+        REQUEST;
+
+        public static Durability fromString(String durability) throws ElasticsearchIllegalArgumentException {
+            if (ASYNC.name().equalsIgnoreCase(durability)) {
+                return ASYNC;
+            } else if (REQUEST.name().equalsIgnoreCase(durability)) {
+                return REQUEST;
+            }
+            throw new ElasticsearchIllegalArgumentException("No translog durability [" + durability + "]");
+        }
+    }
+
     static class Location {
         public final long translogId;
         public final long translogLocation;
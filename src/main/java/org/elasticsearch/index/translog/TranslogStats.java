@@ -16,11 +16,14 @@
  * specific language governing permissions and limitations
  * under the License.
  */
+
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
@@ -32,9 +35,26 @@ import java.io.IOException;
  */
 public class TranslogStats implements ToXContent, Streamable {
 
+    /**
+     * Upper bounds (inclusive) of the sync latency histogram buckets, in milliseconds. The last
+     * bucket of the histogram counts the syncs that took longer than the last bound.
+     */
+    public static final long[] SYNC_LATENCY_BUCKETS = new long[]{1, 5, 10, 50, 100, 500, 1000};
+
+    /**
+     * Upper bounds (inclusive) of the sync batch size histogram buckets, the batch size being the number of
+     * requests that were waiting on the same fsync. The last bucket counts the larger batches.
+     */
+    public static final long[] SYNC_BATCH_SIZE_BUCKETS = new long[]{1, 2, 4, 8, 16, 32, 64};
+
     private long translogSizeInBytes = 0;
     private int estimatedNumberOfOperations = 0;
 
+    private long syncCount = 0;
+    private long syncTimeInMillis = 0;
+    private long[] syncLatencyHistogram = new long[SYNC_LATENCY_BUCKETS.length + 1];
+    private long[] syncBatchSizeHistogram = new long[SYNC_BATCH_SIZE_BUCKETS.length + 1];
+
     public TranslogStats() {}
 
     public TranslogStats(int estimatedNumberOfOperations, long translogSizeInBytes) {
@@ -42,6 +62,27 @@ public class TranslogStats implements ToXContent, Streamable {
         this.translogSizeInBytes = translogSizeInBytes;
     }
 
+    public TranslogStats(int estimatedNumberOfOperations, long translogSizeInBytes, long syncCount, long syncTimeInMillis,
+                         long[] syncLatencyHistogram, long[] syncBatchSizeHistogram) {
+        this(estimatedNumberOfOperations, translogSizeInBytes);
+        this.syncCount = syncCount;
+        this.syncTimeInMillis = syncTimeInMillis;
+        this.syncLatencyHistogram = syncLatencyHistogram;
+        this.syncBatchSizeHistogram = syncBatchSizeHistogram;
+    }
+
+    /**
+     * Returns the index of the histogram bucket the value falls into.
+     */
+    public static int bucket(long[] bounds, long value) {
+        for (int i = 0; i < bounds.length; i++) {
+            if (value <= bounds[i]) {
+                return i;
+            }
+        }
+        return bounds.length;
+    }
+
     public void add(TranslogStats translogStats) {
         if (translogStats == null) {
             return;
@@ -49,6 +90,39 @@ public class TranslogStats implements ToXContent, Streamable {
 
         this.estimatedNumberOfOperations += translogStats.estimatedNumberOfOperations;
         this.translogSizeInBytes =+ translogStats.translogSizeInBytes;
+        this.syncCount += translogStats.syncCount;
+        this.syncTimeInMillis += translogStats.syncTimeInMillis;
+        for (int i = 0; i < syncLatencyHistogram.length; i++) {
+            this.syncLatencyHistogram[i] += translogStats.syncLatencyHistogram[i];
+        }
+        for (int i = 0; i < syncBatchSizeHistogram.length; i++) {
+            this.syncBatchSizeHistogram[i] += translogStats.syncBatchSizeHistogram[i];
+        }
+    }
+
+    /**
+     * The number of group commit fsyncs performed on behalf of write requests.
+     */
+    public long getSyncCount() {
+        return this.syncCount;
+    }
+
+    public TimeValue getSyncTime() {
+        return new TimeValue(syncTimeInMillis);
+    }
+
+    /**
+     * The number of syncs per latency bucket, see {@link #SYNC_LATENCY_BUCKETS}.
+     */
+    public long[] getSyncLatencyHistogram() {
+        return this.syncLatencyHistogram;
+    }
+
+    /**
+     * The number of syncs per batch size bucket, see {@link #SYNC_BATCH_SIZE_BUCKETS}.
+     */
+    public long[] getSyncBatchSizeHistogram() {
+        return this.syncBatchSizeHistogram;
     }
 
     @Override
@@ -56,24 +130,57 @@ public class TranslogStats implements ToXContent, Streamable {
         builder.startObject(Fields.TRANSLOG);
         builder.field(Fields.OPERATIONS, estimatedNumberOfOperations);
         builder.byteSizeField(Fields.SIZE_IN_BYTES, Fields.SIZE, translogSizeInBytes);
+        builder.startObject(Fields.SYNC);
+        builder.field(Fields.TOTAL, syncCount);
+        builder.timeValueField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, syncTimeInMillis);
+        histogramToXContent(builder, Fields.LATENCY_IN_MILLIS, SYNC_LATENCY_BUCKETS, syncLatencyHistogram);
+        histogramToXContent(builder, Fields.BATCH_SIZE, SYNC_BATCH_SIZE_BUCKETS, syncBatchSizeHistogram);
+        builder.endObject();
         builder.endObject();
         return builder;
     }
 
+    private static void histogramToXContent(XContentBuilder builder, XContentBuilderString name, long[] bounds, long[] histogram) throws IOException {
+        builder.startObject(name);
+        for (int i = 0; i < bounds.length; i++) {
+            builder.field("<=" + bounds[i], histogram[i]);
+        }
+        builder.field(">" + bounds[bounds.length - 1], histogram[bounds.length]);
+        builder.endObject();
+    }
+
     static final class Fields {
         static final XContentBuilderString TRANSLOG = new XContentBuilderString("translog");
         static final XContentBuilderString OPERATIONS = new XContentBuilderString("operations");
         static final XContentBuilderString SIZE = new XContentBuilderString("size");
         static final XContentBuilderString SIZE_IN_BYTES = new XContentBuilderString("size_in_bytes");
+        static final XContentBuilderString SYNC = new XContentBuilderString("sync");
+        static final XContentBuilderString TOTAL = new XContentBuilderString("total");
+        static final XContentBuilderString TOTAL_TIME = new XContentBuilderString("total_time");
+        static final XContentBuilderString TOTAL_TIME_IN_MILLIS = new XContentBuilderString("total_time_in_millis");
+        static final XContentBuilderString LATENCY_IN_MILLIS = new XContentBuilderString("latency_in_millis");
+        static final XContentBuilderString BATCH_SIZE = new XContentBuilderString("batch_size");
     }
 
     @Override
     public void readFrom(StreamInput in) throws IOException {
         estimatedNumberOfOperations = in.readVInt();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            syncCount = in.readVLong();
+            syncTimeInMillis = in.readVLong();
+            syncLatencyHistogram = in.readLongArray();
+            syncBatchSizeHistogram = in.readLongArray();
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVInt(estimatedNumberOfOperations);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVLong(syncCount);
+            out.writeVLong(syncTimeInMillis);
+            out.writeLongArray(syncLatencyHistogram);
+            out.writeLongArray(syncBatchSizeHistogram);
+        }
     }
 }
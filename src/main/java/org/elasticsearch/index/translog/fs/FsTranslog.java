@@ -25,7 +25,9 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.env.NodeEnvironment;
@@ -40,8 +42,12 @@ import org.elasticsearch.index.translog.TranslogStreams;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -51,6 +57,9 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class FsTranslog extends AbstractIndexShardComponent implements Translog {
 
     public static final String INDEX_TRANSLOG_FS_TYPE = "index.translog.fs.type";
+    public static final String INDEX_TRANSLOG_DURABILITY = "index.translog.durability";
+    public static final String INDEX_TRANSLOG_RETENTION_SIZE = "index.translog.retention.size";
+    public static final ByteSizeValue DEFAULT_RETENTION_SIZE = new ByteSizeValue(512, ByteSizeUnit.MB);
 
     class ApplySettings implements IndexSettingsService.Listener {
         @Override
@@ -60,6 +69,16 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
                 logger.info("updating type from [{}] to [{}]", FsTranslog.this.type, type);
                 FsTranslog.this.type = type;
             }
+            Durability durability = Durability.fromString(settings.get(INDEX_TRANSLOG_DURABILITY, FsTranslog.this.durability.name()));
+            if (durability != FsTranslog.this.durability) {
+                logger.info("updating durability from [{}] to [{}]", FsTranslog.this.durability, durability);
+                FsTranslog.this.durability = durability;
+            }
+            ByteSizeValue retentionSize = settings.getAsBytesSize(INDEX_TRANSLOG_RETENTION_SIZE, FsTranslog.this.retentionSize);
+            if (!retentionSize.equals(FsTranslog.this.retentionSize)) {
+                logger.info("updating retention.size from [{}] to [{}]", FsTranslog.this.retentionSize, retentionSize);
+                FsTranslog.this.retentionSize = retentionSize;
+            }
         }
     }
 
@@ -79,6 +98,29 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
     private volatile int bufferSize;
     private volatile int transientBufferSize;
 
+    private volatile Durability durability;
+
+    private volatile ByteSizeValue retentionSize;
+
+    // translogs replaced by a flush since the oldest synced flush still covered, oldest first, kept around (up to the
+    // retention size) so that copies that were in sync at any of these synced flushes, including copies that were
+    // offline during the later ones, can recover by replaying the operations done since then. guarded by the write
+    // lock, together with the translog id each synced flush starts at
+    private final Deque<FsTranslogFile> retained = new ArrayDeque<>();
+    private final Map<String, Long> syncedTranslogIds = new HashMap<>();
+
+    // group commit state, guarded by groupSyncMutex: each request takes a ticket once its operations
+    // are added, and a single sync covers all the tickets taken before it started
+    private final Object groupSyncMutex = new Object();
+    private long groupSyncRequested;
+    private long groupSyncCompleted;
+    private boolean groupSyncRunning;
+
+    private final CounterMetric syncCount = new CounterMetric();
+    private final CounterMetric syncTimeInMillis = new CounterMetric();
+    private final AtomicLongArray syncLatencyHistogram = new AtomicLongArray(TranslogStats.SYNC_LATENCY_BUCKETS.length + 1);
+    private final AtomicLongArray syncBatchSizeHistogram = new AtomicLongArray(TranslogStats.SYNC_BATCH_SIZE_BUCKETS.length + 1);
+
     private final ApplySettings applySettings = new ApplySettings();
 
     @Inject
@@ -96,6 +138,8 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         this.type = FsTranslogFile.Type.fromString(componentSettings.get("type", FsTranslogFile.Type.BUFFERED.name()));
         this.bufferSize = (int) componentSettings.getAsBytesSize("buffer_size", ByteSizeValue.parseBytesSizeValue("64k")).bytes(); // Not really interesting, updated by IndexingMemoryController...
         this.transientBufferSize = (int) componentSettings.getAsBytesSize("transient_buffer_size", ByteSizeValue.parseBytesSizeValue("8k")).bytes();
+        this.durability = Durability.fromString(indexSettings.get(INDEX_TRANSLOG_DURABILITY, Durability.ASYNC.name()));
+        this.retentionSize = indexSettings.getAsBytesSize(INDEX_TRANSLOG_RETENTION_SIZE, DEFAULT_RETENTION_SIZE);
 
         indexSettingsService.addListener(applySettings);
     }
@@ -108,6 +152,8 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         this.bigArrays = BigArrays.NON_RECYCLING_INSTANCE;
 
         this.type = FsTranslogFile.Type.fromString(componentSettings.get("type", FsTranslogFile.Type.BUFFERED.name()));
+        this.durability = Durability.fromString(indexSettings.get(INDEX_TRANSLOG_DURABILITY, Durability.ASYNC.name()));
+        this.retentionSize = indexSettings.getAsBytesSize(INDEX_TRANSLOG_RETENTION_SIZE, DEFAULT_RETENTION_SIZE);
     }
 
     @Override
@@ -152,6 +198,12 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
             if (current1 != null) {
                 current1.close(delete);
             }
+            // retained translogs are not needed to recover this shard locally
+            for (FsTranslogFile file : retained) {
+                file.close(true);
+            }
+            retained.clear();
+            syncedTranslogIds.clear();
         } finally {
             rwl.writeLock().unlock();
         }
@@ -207,6 +259,9 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
                         if (trans != null && file.getName().equals("translog-" + trans.id())) {
                             continue;
                         }
+                        if (isRetained(file.getName())) {
+                            continue;
+                        }
                         try {
                             file.delete();
                         } catch (Exception e) {
@@ -245,11 +300,11 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
             current = newFile;
             if (old != null) {
                 // we might create a new translog overriding the current translog id
-                boolean delete = true;
                 if (old.id() == id) {
-                    delete = false;
+                    old.close(false);
+                } else if (!retain(old)) {
+                    old.close(true);
                 }
-                old.close(delete);
             }
         } finally {
             rwl.writeLock().unlock();
@@ -289,11 +344,113 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
             old = current;
             this.current = this.trans;
             this.trans = null;
+            if (retain(old)) {
+                old = null;
+            }
+        } finally {
+            rwl.writeLock().unlock();
+        }
+        if (old != null) {
+            old.close(true);
+            current.reuse(old);
+        }
+    }
+
+    /**
+     * Keeps the provided translog, just replaced by a flush, around for operation based recoveries, dropping
+     * the oldest retained ones beyond the retention size. Must be called under the write lock.
+     */
+    private boolean retain(FsTranslogFile old) {
+        long retentionSizeInBytes = retentionSize.bytes();
+        if (syncedTranslogIds.isEmpty()) {
+            // no synced flush this shard could replay from, which is the case of shards that are always indexed into
+            return false;
+        }
+        if (retentionSizeInBytes <= 0 || old.translogSizeInBytes() > retentionSizeInBytes) {
+            return false;
+        }
+        try {
+            // make sure the buffered operations are written, since the retained translog is only read from disk
+            old.sync();
+        } catch (IOException e) {
+            logger.debug("failed to sync translog [{}], not retaining it", e, old.id());
+            return false;
+        }
+        retained.addLast(old);
+        long retainedSizeInBytes = 0;
+        for (FsTranslogFile file : retained) {
+            retainedSizeInBytes += file.translogSizeInBytes();
+        }
+        while (retainedSizeInBytes > retentionSizeInBytes) {
+            FsTranslogFile oldest = retained.removeFirst();
+            retainedSizeInBytes -= oldest.translogSizeInBytes();
+            oldest.close(true);
+        }
+        // forget about the synced flushes whose translogs are gone
+        long oldestId = retained.isEmpty() ? current.id() : retained.getFirst().id();
+        for (Iterator<Long> it = syncedTranslogIds.values().iterator(); it.hasNext(); ) {
+            if (it.next() < oldestId) {
+                it.remove();
+            }
+        }
+        return true;
+    }
+
+    private boolean isRetained(String fileName) {
+        for (FsTranslogFile file : retained) {
+            if (fileName.equals("translog-" + file.id())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void markSynced(String syncId) {
+        rwl.writeLock().lock();
+        try {
+            // copies that were offline during this synced flush still hold an older sync id, so the translogs retained
+            // for older synced flushes are kept until the retention size drops them
+            syncedTranslogIds.put(syncId, current.id());
+        } finally {
+            rwl.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Snapshot> snapshotsSince(String syncId) throws TranslogException {
+        rwl.writeLock().lock();
+        try {
+            Long translogId = syncedTranslogIds.get(syncId);
+            if (translogId == null) {
+                return null;
+            }
+            List<Snapshot> snapshots = new ArrayList<>();
+            boolean found = translogId == current.id();
+            boolean success = false;
+            try {
+                for (FsTranslogFile file : retained) {
+                    if (file.id() == translogId) {
+                        found = true;
+                    }
+                    if (found) {
+                        FsChannelSnapshot snapshot = file.snapshot();
+                        if (snapshot == null) {
+                            return null;
+                        }
+                        snapshots.add(snapshot);
+                    }
+                }
+                success = found;
+                return found ? snapshots : null;
+            } finally {
+                if (!success) {
+                    Releasables.close(snapshots);
+                }
+            }
         } finally {
             rwl.writeLock().unlock();
         }
-        old.close(true);
-        current.reuse(old);
     }
 
     @Override
@@ -434,8 +591,83 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         }
     }
 
+    @Override
+    public void syncOnRequest() throws IOException {
+        if (durability != Durability.REQUEST) {
+            return;
+        }
+        long ticket;
+        long target;
+        long batchSize;
+        synchronized (groupSyncMutex) {
+            ticket = ++groupSyncRequested;
+            while (groupSyncRunning && groupSyncCompleted < ticket) {
+                try {
+                    groupSyncMutex.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted while waiting for translog sync");
+                }
+            }
+            if (groupSyncCompleted >= ticket) {
+                // the operations were synced by another request
+                return;
+            }
+            // we lead the next sync, which covers all the requests that took a ticket so far
+            groupSyncRunning = true;
+            target = groupSyncRequested;
+            batchSize = target - groupSyncCompleted;
+        }
+        boolean success = false;
+        long startTime = System.nanoTime();
+        try {
+            syncCurrentAndTransient();
+            success = true;
+        } finally {
+            synchronized (groupSyncMutex) {
+                if (success) {
+                    groupSyncCompleted = target;
+                }
+                // on failure, one of the waiting requests will lead the next attempt
+                groupSyncRunning = false;
+                groupSyncMutex.notifyAll();
+            }
+        }
+        long tookInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        syncCount.inc();
+        syncTimeInMillis.inc(tookInMillis);
+        syncLatencyHistogram.incrementAndGet(TranslogStats.bucket(TranslogStats.SYNC_LATENCY_BUCKETS, tookInMillis));
+        syncBatchSizeHistogram.incrementAndGet(TranslogStats.bucket(TranslogStats.SYNC_BATCH_SIZE_BUCKETS, batchSize));
+    }
+
+    private void syncCurrentAndTransient() throws IOException {
+        // operations added while flushing are also written to the transient translog, which will become the
+        // current one once the flush is done, so it needs to be synced as well
+        FsTranslogFile trans1 = this.trans;
+        sync();
+        if (trans1 != null) {
+            try {
+                trans1.sync();
+            } catch (IOException e) {
+                // the transient translog was reverted or became the current one (and was synced above)
+                if (this.trans == trans1) {
+                    throw e;
+                }
+            }
+        }
+    }
+
     @Override
     public TranslogStats stats() {
-        return new TranslogStats(estimatedNumberOfOperations(), translogSizeInBytes());
+        return new TranslogStats(estimatedNumberOfOperations(), translogSizeInBytes(), syncCount.count(), syncTimeInMillis.count(),
+                toArray(syncLatencyHistogram), toArray(syncBatchSizeHistogram));
+    }
+
+    private static long[] toArray(AtomicLongArray histogram) {
+        long[] values = new long[histogram.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = histogram.get(i);
+        }
+        return values;
     }
 }
@@ -713,7 +713,8 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
 
                 RecoveryState.Type type = shardRouting.primary() ? RecoveryState.Type.RELOCATION : RecoveryState.Type.REPLICA;
                 final StartRecoveryRequest request = new StartRecoveryRequest(indexShard.shardId(), sourceNode, nodes.localNode(),
-                        false, indexShard.store().list(), type, recoveryIdGenerator.incrementAndGet());
+                        false, indexShard.store().list(), indexShard.store().readLastCommittedUserData().get(Engine.SYNC_ID_KEY),
+                        type, recoveryIdGenerator.incrementAndGet());
                 recoveryTarget.startRecovery(request, indexShard, new PeerRecoveryListener(request, shardRouting, indexService, indexMetaData));
 
             } catch (Throwable e) {
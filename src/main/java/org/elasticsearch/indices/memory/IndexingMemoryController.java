@@ -38,6 +38,7 @@ import org.elasticsearch.index.shard.service.InternalIndexShard;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.IndicesLifecycle;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.recovery.SyncedFlushService;
 import org.elasticsearch.monitor.jvm.JvmInfo;
 import org.elasticsearch.threadpool.ThreadPool;
 
@@ -53,6 +54,7 @@ public class IndexingMemoryController extends AbstractLifecycleComponent<Indexin
 
     private final ThreadPool threadPool;
     private final IndicesService indicesService;
+    private final SyncedFlushService syncedFlushService;
 
     private final ByteSizeValue indexingBuffer;
     private final ByteSizeValue minShardIndexBufferSize;
@@ -75,10 +77,11 @@ public class IndexingMemoryController extends AbstractLifecycleComponent<Indexin
     private final Object mutex = new Object();
 
     @Inject
-    public IndexingMemoryController(Settings settings, ThreadPool threadPool, IndicesService indicesService) {
+    public IndexingMemoryController(Settings settings, ThreadPool threadPool, IndicesService indicesService, SyncedFlushService syncedFlushService) {
         super(settings);
         this.threadPool = threadPool;
         this.indicesService = indicesService;
+        this.syncedFlushService = syncedFlushService;
 
         ByteSizeValue indexingBuffer;
         String indexingBufferSetting = componentSettings.get("index_buffer_size", "10%");
@@ -200,6 +203,11 @@ public class IndexingMemoryController extends AbstractLifecycleComponent<Indexin
                     try {
                         ((InternalIndexShard) indexShard).engine().updateIndexingBufferSize(Engine.INACTIVE_SHARD_INDEXING_BUFFER);
                         ((InternalIndexShard) indexShard).translog().updateBuffer(Translog.INACTIVE_SHARD_TRANSLOG_BUFFER);
+                        if (indexShard.routingEntry() != null && indexShard.routingEntry().primary()) {
+                            // all the copies of an inactive shard hold the same operations, mark them so a copy
+                            // that restarts can recover by replaying the operations done since then
+                            syncedFlushService.attemptSyncedFlush(indexShard.shardId());
+                        }
                     } catch (EngineClosedException e) {
                         // ignore
                     } catch (FlushNotAllowedEngineException e) {
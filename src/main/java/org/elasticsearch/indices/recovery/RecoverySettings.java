@@ -43,6 +43,7 @@ public class RecoverySettings extends AbstractComponent {
     public static final String INDICES_RECOVERY_COMPRESS = "indices.recovery.compress";
     public static final String INDICES_RECOVERY_CONCURRENT_STREAMS = "indices.recovery.concurrent_streams";
     public static final String INDICES_RECOVERY_CONCURRENT_SMALL_FILE_STREAMS = "indices.recovery.concurrent_small_file_streams";
+    public static final String INDICES_RECOVERY_CONCURRENT_FILE_CHUNKS = "indices.recovery.concurrent_file_chunks";
     public static final String INDICES_RECOVERY_MAX_BYTES_PER_SEC = "indices.recovery.max_bytes_per_sec";
 
     public static final long SMALL_FILE_CUTOFF_BYTES = ByteSizeValue.parseBytesSizeValue("5mb").bytes();
@@ -61,6 +62,7 @@ public class RecoverySettings extends AbstractComponent {
 
     private volatile int concurrentStreams;
     private volatile int concurrentSmallFileStreams;
+    private volatile int concurrentFileChunks;
     private final ThreadPoolExecutor concurrentStreamPool;
     private final ThreadPoolExecutor concurrentSmallFileStreamPool;
 
@@ -81,6 +83,8 @@ public class RecoverySettings extends AbstractComponent {
         this.concurrentSmallFileStreams = componentSettings.getAsInt("concurrent_small_file_streams", settings.getAsInt("index.shard.recovery.concurrent_small_file_streams", 2));
         this.concurrentSmallFileStreamPool = EsExecutors.newScaling(0, concurrentSmallFileStreams, 60, TimeUnit.SECONDS, EsExecutors.daemonThreadFactory(settings, "[small_file_recovery_stream]"));
 
+        this.concurrentFileChunks = componentSettings.getAsInt("concurrent_file_chunks", 4);
+
         this.maxBytesPerSec = componentSettings.getAsBytesSize("max_bytes_per_sec", componentSettings.getAsBytesSize("max_size_per_sec", new ByteSizeValue(20, ByteSizeUnit.MB)));
         if (maxBytesPerSec.bytes() <= 0) {
             rateLimiter = null;
@@ -88,8 +92,8 @@ public class RecoverySettings extends AbstractComponent {
             rateLimiter = new SimpleRateLimiter(maxBytesPerSec.mbFrac());
         }
 
-        logger.debug("using max_bytes_per_sec[{}], concurrent_streams [{}], file_chunk_size [{}], translog_size [{}], translog_ops [{}], and compress [{}]",
-                maxBytesPerSec, concurrentStreams, fileChunkSize, translogSize, translogOps, compress);
+        logger.debug("using max_bytes_per_sec[{}], concurrent_streams [{}], concurrent_file_chunks [{}], file_chunk_size [{}], translog_size [{}], translog_ops [{}], and compress [{}]",
+                maxBytesPerSec, concurrentStreams, concurrentFileChunks, fileChunkSize, translogSize, translogOps, compress);
 
         nodeSettingsService.addListener(new ApplySettings());
     }
@@ -124,6 +128,13 @@ public class RecoverySettings extends AbstractComponent {
         return concurrentStreams;
     }
 
+    /**
+     * The number of file chunks a recovery source keeps in flight per file before waiting for the target to ack them.
+     */
+    public int concurrentFileChunks() {
+        return concurrentFileChunks;
+    }
+
     public ThreadPoolExecutor concurrentStreamPool() {
         return concurrentStreamPool;
     }
@@ -189,6 +200,12 @@ public class RecoverySettings extends AbstractComponent {
                 RecoverySettings.this.concurrentSmallFileStreams = concurrentSmallFileStreams;
                 RecoverySettings.this.concurrentSmallFileStreamPool.setMaximumPoolSize(concurrentSmallFileStreams);
             }
+
+            int concurrentFileChunks = settings.getAsInt(INDICES_RECOVERY_CONCURRENT_FILE_CHUNKS, RecoverySettings.this.concurrentFileChunks);
+            if (concurrentFileChunks != RecoverySettings.this.concurrentFileChunks) {
+                logger.info("updating [indices.recovery.concurrent_file_chunks] from [{}] to [{}]", RecoverySettings.this.concurrentFileChunks, concurrentFileChunks);
+                RecoverySettings.this.concurrentFileChunks = concurrentFileChunks;
+            }
         }
     }
 }
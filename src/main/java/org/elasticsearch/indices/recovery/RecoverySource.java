@@ -33,6 +33,7 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
@@ -52,7 +53,9 @@ import org.elasticsearch.transport.*;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -119,9 +122,36 @@ public class RecoverySource extends AbstractComponent {
 
         logger.trace("[{}][{}] starting recovery to {}, mark_as_relocated {}", request.shardId().index().name(), request.shardId().id(), request.targetNode(), request.markAsRelocated());
         final RecoveryResponse response = new RecoveryResponse();
+        // the retained translogs to replay when the target was in sync at its last synced flush
+        final AtomicReference<List<Translog.Snapshot>> retainedSnapshots = new AtomicReference<>();
+        try {
+            recover(request, shard, response, retainedSnapshots);
+        } finally {
+            List<Translog.Snapshot> snapshots = retainedSnapshots.get();
+            if (snapshots != null) {
+                Releasables.close(snapshots);
+            }
+        }
+        return response;
+    }
+
+    private void recover(final StartRecoveryRequest request, final InternalIndexShard shard, final RecoveryResponse response,
+                         final AtomicReference<List<Translog.Snapshot>> retainedSnapshots) {
         shard.recover(new Engine.RecoveryHandler() {
             @Override
             public void phase1(final SnapshotIndexCommit snapshot) throws ElasticsearchException {
+                if (request.syncId() != null) {
+                    // flushes are not allowed while recovering, so no translog gets released until phase2 is done
+                    List<Translog.Snapshot> snapshots = shard.translog().snapshotsSince(request.syncId());
+                    if (snapshots != null) {
+                        retainedSnapshots.set(snapshots);
+                        logger.trace("[{}][{}] recovery [phase1] to {}: skipping files, replaying the operations done since synced flush [{}] from [{}] retained translogs",
+                                request.shardId().index().name(), request.shardId().id(), request.targetNode(), request.syncId(), snapshots.size());
+                        return;
+                    }
+                    logger.trace("[{}][{}] recovery [phase1] to {}: operations since synced flush [{}] are not retained, recovering files",
+                            request.shardId().index().name(), request.shardId().id(), request.targetNode(), request.syncId());
+                }
                 long totalSize = 0;
                 long existingTotalSize = 0;
                 final Store store = shard.store();
@@ -183,7 +213,6 @@ public class RecoverySource extends AbstractComponent {
                                 store.incRef();
                                 try {
                                     final int BUFFER_SIZE = (int) recoverySettings.fileChunkSize().bytes();
-                                    byte[] buf = new byte[BUFFER_SIZE];
                                     StoreFileMetaData md = store.metaData(name);
                                     // TODO: maybe use IOContext.READONCE?
                                     indexInput = store.openInputRaw(name, IOContext.READ);
@@ -192,12 +221,21 @@ public class RecoverySource extends AbstractComponent {
                                         shouldCompressRequest = false;
                                     }
 
+                                    TransportRequestOptions requestOptions = TransportRequestOptions.options().withCompress(shouldCompressRequest).withType(TransportRequestOptions.Type.RECOVERY).withTimeout(internalActionTimeout);
+                                    // chunks are pipelined, we only wait for acks once concurrent_file_chunks of them are in flight
+                                    final int maxChunksInFlight = Math.max(1, recoverySettings.concurrentFileChunks());
+                                    final Semaphore chunksInFlight = new Semaphore(maxChunksInFlight);
+                                    final AtomicReference<Throwable> chunkException = new AtomicReference<>();
+
                                     long len = indexInput.length();
                                     long readCount = 0;
                                     while (readCount < len) {
                                         if (shard.state() == IndexShardState.CLOSED) { // check if the shard got closed on us
                                             throw new IndexShardClosedException(shard.shardId());
                                         }
+                                        if (chunkException.get() != null) {
+                                            throw chunkException.get();
+                                        }
                                         int toRead = readCount + BUFFER_SIZE > len ? (int) (len - readCount) : BUFFER_SIZE;
                                         long position = indexInput.getFilePointer();
 
@@ -205,12 +243,32 @@ public class RecoverySource extends AbstractComponent {
                                             recoverySettings.rateLimiter().pause(toRead);
                                         }
 
+                                        // each chunk gets its own buffer, previous ones might still be in flight
+                                        byte[] buf = new byte[toRead];
                                         indexInput.readBytes(buf, 0, toRead, false);
-                                        BytesArray content = new BytesArray(buf, 0, toRead);
-                                        transportService.submitRequest(request.targetNode(), RecoveryTarget.Actions.FILE_CHUNK, new RecoveryFileChunkRequest(request.recoveryId(), request.shardId(), name, position, len, md.checksum(), content),
-                                                TransportRequestOptions.options().withCompress(shouldCompressRequest).withType(TransportRequestOptions.Type.RECOVERY).withTimeout(internalActionTimeout), EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
+                                        RecoveryFileChunkRequest chunkRequest = new RecoveryFileChunkRequest(request.recoveryId(), request.shardId(), name, position, len, md.checksum(), new BytesArray(buf));
+                                        if (position == 0) {
+                                            // the first chunk opens the output on the target, it must be acked before we send the rest
+                                            transportService.submitRequest(request.targetNode(), RecoveryTarget.Actions.FILE_CHUNK, chunkRequest, requestOptions, EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
+                                        } else {
+                                            acquireChunkPermits(chunksInFlight, 1, chunkException);
+                                            transportService.sendRequest(request.targetNode(), RecoveryTarget.Actions.FILE_CHUNK, chunkRequest, requestOptions, new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
+                                                @Override
+                                                public void handleResponse(TransportResponse.Empty response) {
+                                                    chunksInFlight.release();
+                                                }
+
+                                                @Override
+                                                public void handleException(TransportException exp) {
+                                                    chunkException.compareAndSet(null, exp);
+                                                    chunksInFlight.release();
+                                                }
+                                            });
+                                        }
                                         readCount += toRead;
                                     }
+                                    // wait for the outstanding chunks to be acked
+                                    acquireChunkPermits(chunksInFlight, maxChunksInFlight, chunkException);
                                 } catch (Throwable e) {
                                     lastException.set(e);
                                 } finally {
@@ -260,7 +318,15 @@ public class RecoverySource extends AbstractComponent {
 
                 logger.trace("[{}][{}] recovery [phase2] to {}: sending transaction log operations", request.shardId().index().name(), request.shardId().id(), request.targetNode());
                 stopWatch = new StopWatch().start();
-                int totalOperations = sendSnapshot(snapshot);
+                int totalOperations = 0;
+                List<Translog.Snapshot> retained = retainedSnapshots.get();
+                if (retained != null) {
+                    // the operations done since the synced flush the target is at, up to the current translog
+                    for (Translog.Snapshot retainedSnapshot : retained) {
+                        totalOperations += sendSnapshot(retainedSnapshot);
+                    }
+                }
+                totalOperations += sendSnapshot(snapshot);
                 stopWatch.stop();
                 logger.trace("[{}][{}] recovery [phase2] to {}: took [{}]", request.shardId().index().name(), request.shardId().id(), request.targetNode(), stopWatch.totalTime());
                 response.phase2Time = stopWatch.totalTime().millis();
@@ -331,7 +397,21 @@ public class RecoverySource extends AbstractComponent {
                 return totalOperations;
             }
         });
-        return response;
+    }
+
+    /**
+     * Acquires permits for file chunks to send, failing as soon as one of the in flight chunks failed. The target
+     * holds back the chunks that follow a failed one, so they would not be acked until the recovery is cancelled.
+     */
+    private static void acquireChunkPermits(Semaphore chunksInFlight, int permits, AtomicReference<Throwable> chunkException) throws Throwable {
+        while (!chunksInFlight.tryAcquire(permits, 100, TimeUnit.MILLISECONDS)) {
+            if (chunkException.get() != null) {
+                throw chunkException.get();
+            }
+        }
+        if (chunkException.get() != null) {
+            throw chunkException.get();
+        }
     }
 
     class StartRecoveryTransportRequestHandler extends BaseTransportRequestHandler<StartRecoveryRequest> {
@@ -335,6 +335,8 @@ public class RecoveryState implements ToXContent, Streamable {
         static final XContentBuilderString PERCENT = new XContentBuilderString("percent");
         static final XContentBuilderString DETAILS = new XContentBuilderString("details");
         static final XContentBuilderString BYTES = new XContentBuilderString("bytes");
+        static final XContentBuilderString THROUGHPUT = new XContentBuilderString("throughput");
+        static final XContentBuilderString THROUGHPUT_IN_BYTES_PER_SEC = new XContentBuilderString("throughput_in_bytes_per_sec");
     }
 
     public static class Timer {
@@ -686,6 +688,21 @@ public class RecoveryState implements ToXContent, Streamable {
             recoveredByteCount.addAndGet(updatedSize);
         }
 
+        /**
+         * Returns the average number of bytes recovered per second, measured over the index stage or,
+         * if it is still running, over the time elapsed since it started.
+         */
+        public long recoveredBytesPerSec() {
+            long took = time;
+            if (took == 0 && startTime > 0) {
+                took = System.currentTimeMillis() - startTime;
+            }
+            if (took <= 0) {
+                return 0;
+            }
+            return recoveredByteCount.get() * 1000 / took;
+        }
+
         public long numberOfRecoveredBytes() {
             return recoveredByteCount.get() - reusedByteCount;
         }
@@ -807,6 +824,7 @@ public class RecoveryState implements ToXContent, Streamable {
             builder.field(Fields.REUSED, reusedByteCount);
             builder.field(Fields.RECOVERED, bytesRecovered);
             builder.field(Fields.PERCENT, String.format(Locale.ROOT, "%1.1f%%", percentBytesRecovered(bytesRecovered)));
+            builder.byteSizeField(Fields.THROUGHPUT_IN_BYTES_PER_SEC, Fields.THROUGHPUT, recoveredBytesPerSec());
             builder.endObject();
             builder.timeValueField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, time);
 
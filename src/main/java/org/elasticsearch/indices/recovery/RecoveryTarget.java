@@ -356,6 +356,8 @@ public class RecoveryTarget extends AbstractComponent {
             Map.Entry<String, IndexOutput> entry = iterator.next();
             synchronized (entry.getValue()) {
                 IOUtils.closeWhileHandlingException(entry.getValue());
+                // wake up file chunks waiting for their preceding chunks, they bail out on the cancelled recovery
+                entry.getValue().notifyAll();
             }
             iterator.remove();
 
@@ -493,6 +495,7 @@ public class RecoveryTarget extends AbstractComponent {
             onGoingRecovery.recoveryState().getIndex().totalByteCount(request.phase1TotalSize);
             onGoingRecovery.recoveryState().getIndex().reusedByteCount(request.phase1ExistingTotalSize);
             onGoingRecovery.recoveryState().getIndex().totalFileCount(request.phase1FileNames.size());
+            onGoingRecovery.recoveryState().getIndex().startTime(System.currentTimeMillis());
             onGoingRecovery.stage(RecoveryState.Stage.INDEX);
             channel.sendResponse(TransportResponse.Empty.INSTANCE);
         }
@@ -522,6 +525,9 @@ public class RecoveryTarget extends AbstractComponent {
                 throw new IndexShardClosedException(request.shardId());
             }
 
+            RecoveryState.Index index = onGoingRecovery.recoveryState().getIndex();
+            index.time(System.currentTimeMillis() - index.startTime());
+
             final Store store = onGoingRecovery.indexShard.store();
             store.incRef();
             try {
@@ -627,6 +633,13 @@ public class RecoveryTarget extends AbstractComponent {
                 boolean success = false;
                 synchronized (indexOutput) {
                     try {
+                        // chunks are pipelined by the source and may be handled out of order, wait for the preceding ones
+                        while (indexOutput.getFilePointer() < request.position()) {
+                            if (onGoingRecovery.isCanceled() || onGoingRecovery.getOpenIndexOutput(request.name()) != indexOutput) {
+                                throw new IndexShardClosedException(request.shardId());
+                            }
+                            indexOutput.wait(100);
+                        }
                         if (recoverySettings.rateLimiter() != null) {
                             recoverySettings.rateLimiter().pause(request.content().length());
                         }
@@ -654,6 +667,7 @@ public class RecoveryTarget extends AbstractComponent {
                         }
                         success = true;
                     } finally {
+                        indexOutput.notifyAll();
                         if (!success || onGoingRecovery.isCanceled()) {
                             IndexOutput remove = onGoingRecovery.removeOpenIndexOutputs(request.name());
                             assert remove == null || remove == indexOutput;
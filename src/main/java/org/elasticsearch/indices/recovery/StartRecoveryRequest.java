@@ -22,6 +22,7 @@ package org.elasticsearch.indices.recovery;
 import com.google.common.collect.Maps;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.index.shard.ShardId;
@@ -50,6 +51,8 @@ public class StartRecoveryRequest extends TransportRequest {
 
     private RecoveryState.Type recoveryType;
 
+    private String syncId;
+
     StartRecoveryRequest() {
     }
 
@@ -61,15 +64,17 @@ public class StartRecoveryRequest extends TransportRequest {
      * @param targetNode      The node to recover to
      * @param markAsRelocated
      * @param existingFiles
+     * @param syncId          The sync id of the last commit of the target shard, if any
      */
     public StartRecoveryRequest(ShardId shardId, DiscoveryNode sourceNode, DiscoveryNode targetNode, boolean markAsRelocated, Map<String,
-                                StoreFileMetaData> existingFiles, RecoveryState.Type recoveryType, long recoveryId) {
+                                StoreFileMetaData> existingFiles, @Nullable String syncId, RecoveryState.Type recoveryType, long recoveryId) {
         this.recoveryId = recoveryId;
         this.shardId = shardId;
         this.sourceNode = sourceNode;
         this.targetNode = targetNode;
         this.markAsRelocated = markAsRelocated;
         this.existingFiles = existingFiles;
+        this.syncId = syncId;
         this.recoveryType = recoveryType;
     }
 
@@ -97,6 +102,15 @@ public class StartRecoveryRequest extends TransportRequest {
         return existingFiles;
     }
 
+    /**
+     * The sync id of the last commit of the target shard. When the source still retains the operations
+     * done since that synced flush, they are replayed instead of copying the files.
+     */
+    @Nullable
+    public String syncId() {
+        return syncId;
+    }
+
     public RecoveryState.Type recoveryType() {
         return recoveryType;
     }
@@ -118,6 +132,9 @@ public class StartRecoveryRequest extends TransportRequest {
         if (in.getVersion().onOrAfter(Version.V_1_2_2)) {
             recoveryType = RecoveryState.Type.fromId(in.readByte());
         }
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            syncId = in.readOptionalString();
+        }
     }
 
     @Override
@@ -135,5 +152,8 @@ public class StartRecoveryRequest extends TransportRequest {
         if (out.getVersion().onOrAfter(Version.V_1_2_2)) {
             out.writeByte(recoveryType.id());
         }
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeOptionalString(syncId);
+        }
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.io.IOException;
+
+/**
+ *
+ */
+class SyncedFlushRequest extends TransportRequest {
+
+    private ShardId shardId;
+
+    private String syncId;
+
+    private SyncedFlushService.CommitFingerprint fingerprint;
+
+    SyncedFlushRequest() {
+    }
+
+    SyncedFlushRequest(ShardId shardId, String syncId, SyncedFlushService.CommitFingerprint fingerprint) {
+        this.shardId = shardId;
+        this.syncId = syncId;
+        this.fingerprint = fingerprint;
+    }
+
+    public ShardId shardId() {
+        return shardId;
+    }
+
+    public String syncId() {
+        return syncId;
+    }
+
+    /**
+     * The fingerprint of the documents in the synced commit of the primary shard.
+     */
+    public SyncedFlushService.CommitFingerprint fingerprint() {
+        return fingerprint;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        shardId = ShardId.readShardId(in);
+        syncId = in.readString();
+        fingerprint = new SyncedFlushService.CommitFingerprint(in.readVLong(), in.readVInt(), in.readLong());
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        shardId.writeTo(out);
+        out.writeString(syncId);
+        out.writeVLong(fingerprint.generation());
+        out.writeVInt(fingerprint.numDocs());
+        out.writeLong(fingerprint.hash());
+    }
+}
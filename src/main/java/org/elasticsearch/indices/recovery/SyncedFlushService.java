@@ -0,0 +1,256 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchIllegalStateException;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.index.mapper.internal.VersionFieldMapper;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.service.InternalIndexShard;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.*;
+
+import java.io.IOException;
+
+/**
+ * Flushes all the copies of an inactive shard with a shared sync id. No operations are done on an inactive
+ * shard, so its copies all hold the same operations at that point, and a copy that goes away can later
+ * recover by replaying the operations its primary did since then (as long as the primary still retains
+ * their translogs) instead of copying over all the files.
+ * <p/>
+ * Copies don't have the same segments, so whether a replica holds the same operations as its primary is
+ * checked on the documents of their commits: the <tt>_uid</tt> and version of every live document are hashed
+ * into a {@link CommitFingerprint}. A copy then only commits the sync id if nothing was indexed since the
+ * commit that was fingerprinted, so operations that are still in flight either show up in the fingerprint or
+ * are replayed later on.
+ */
+public class SyncedFlushService extends AbstractComponent {
+
+    public static class Actions {
+        public static final String SYNCED_FLUSH = "index/shard/recovery/syncedFlush";
+    }
+
+    private final IndicesService indicesService;
+    private final ClusterService clusterService;
+    private final TransportService transportService;
+    private final ThreadPool threadPool;
+
+    @Inject
+    public SyncedFlushService(Settings settings, IndicesService indicesService, ClusterService clusterService,
+                              TransportService transportService, ThreadPool threadPool) {
+        super(settings);
+        this.indicesService = indicesService;
+        this.clusterService = clusterService;
+        this.transportService = transportService;
+        this.threadPool = threadPool;
+
+        transportService.registerHandler(Actions.SYNCED_FLUSH, new SyncedFlushTransportRequestHandler());
+    }
+
+    /**
+     * Flushes the provided shard and its started replicas with a new sync id in the background, if the
+     * primary of the shard is allocated on this node.
+     */
+    public void attemptSyncedFlush(final ShardId shardId) {
+        threadPool.executor(ThreadPool.Names.FLUSH).execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    syncedFlush(shardId);
+                } catch (Throwable t) {
+                    logger.debug("{} failed to perform synced flush", t, shardId);
+                }
+            }
+        });
+    }
+
+    private void syncedFlush(final ShardId shardId) throws IOException {
+        ClusterState state = clusterService.state();
+        IndexRoutingTable indexRoutingTable = state.routingTable().index(shardId.index().name());
+        if (indexRoutingTable == null) {
+            return;
+        }
+        IndexShardRoutingTable shardRoutingTable = indexRoutingTable.shard(shardId.id());
+        ShardRouting primary = shardRoutingTable.primaryShard();
+        if (primary == null || !primary.started() || !state.nodes().localNodeId().equals(primary.currentNodeId())) {
+            return;
+        }
+        InternalIndexShard shard = (InternalIndexShard) indicesService.indexServiceSafe(shardId.index().name()).shardSafe(shardId.id());
+        final String syncId = Strings.randomBase64UUID();
+        final CommitFingerprint fingerprint = flushAndFingerprint(shard);
+        if (!shard.syncFlush(syncId, fingerprint.generation())) {
+            logger.trace("{} not performing synced flush, operations were done while flushing the primary", shardId);
+            return;
+        }
+        logger.trace("{} synced flush [{}] on primary with {}", shardId, syncId, fingerprint);
+
+        for (ShardRouting replica : shardRoutingTable.replicaShards()) {
+            // initializing replicas recover from the primary as it is now anyhow
+            if (!replica.started()) {
+                continue;
+            }
+            final DiscoveryNode node = state.nodes().get(replica.currentNodeId());
+            if (node == null) {
+                continue;
+            }
+            transportService.sendRequest(node, Actions.SYNCED_FLUSH, new SyncedFlushRequest(shardId, syncId, fingerprint),
+                    new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
+                        @Override
+                        public void handleException(TransportException exp) {
+                            logger.debug("{} failed to perform synced flush [{}] on replica on {}", exp, shardId, syncId, node);
+                        }
+                    });
+        }
+    }
+
+    void replicaSyncedFlush(SyncedFlushRequest request) throws IOException {
+        InternalIndexShard shard = (InternalIndexShard) indicesService.indexServiceSafe(request.shardId().index().name()).shardSafe(request.shardId().id());
+        // only mark the commit once we know the replica holds the same operations as its primary
+        CommitFingerprint fingerprint = flushAndFingerprint(shard);
+        if (!fingerprint.sameDocuments(request.fingerprint())) {
+            throw new ElasticsearchIllegalStateException("shard " + request.shardId() + " is not in sync with its primary, has "
+                    + fingerprint + ", expected " + request.fingerprint());
+        }
+        if (!shard.syncFlush(request.syncId(), fingerprint.generation())) {
+            throw new ElasticsearchIllegalStateException("shard " + request.shardId() + " received operations while flushing");
+        }
+        logger.trace("{} synced flush [{}] on replica with {}", request.shardId(), request.syncId(), fingerprint);
+    }
+
+    private static CommitFingerprint flushAndFingerprint(InternalIndexShard shard) throws IOException {
+        shard.flush(new Engine.Flush().force(true).waitIfOngoing(true));
+        Store store = shard.store();
+        store.incRef();
+        try (DirectoryReader reader = DirectoryReader.open(store.directory())) {
+            return CommitFingerprint.of(reader);
+        } finally {
+            store.decRef();
+        }
+    }
+
+    /**
+     * Identifies the documents of a commit by their <tt>_uid</tt> and version, regardless of the segments
+     * they are in, along with the generation of the commit.
+     */
+    static class CommitFingerprint {
+
+        private final long generation;
+        private final int numDocs;
+        private final long hash;
+
+        CommitFingerprint(long generation, int numDocs, long hash) {
+            this.generation = generation;
+            this.numDocs = numDocs;
+            this.hash = hash;
+        }
+
+        /**
+         * Fingerprints the live documents of the provided commit.
+         */
+        static CommitFingerprint of(DirectoryReader reader) throws IOException {
+            long hash = 0;
+            MurmurHash3.Hash128 docHash = new MurmurHash3.Hash128();
+            for (AtomicReaderContext context : reader.leaves()) {
+                AtomicReader leaf = context.reader();
+                Terms terms = leaf.terms(UidFieldMapper.NAME);
+                if (terms == null) {
+                    continue;
+                }
+                // old segments have their versions in payloads, both copies still hold the same _uid values then
+                NumericDocValues versions = leaf.getNumericDocValues(VersionFieldMapper.NAME);
+                Bits liveDocs = leaf.getLiveDocs();
+                TermsEnum termsEnum = terms.iterator(null);
+                DocsEnum docsEnum = null;
+                for (BytesRef uid = termsEnum.next(); uid != null; uid = termsEnum.next()) {
+                    docsEnum = termsEnum.docs(liveDocs, docsEnum, DocsEnum.FLAG_NONE);
+                    for (int doc = docsEnum.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docsEnum.nextDoc()) {
+                        long version = versions == null ? 0 : versions.get(doc);
+                        MurmurHash3.hash128(uid.bytes, uid.offset, uid.length, version, docHash);
+                        // summing makes the fingerprint independent of the order of the documents
+                        hash += docHash.h1;
+                    }
+                }
+            }
+            return new CommitFingerprint(reader.getIndexCommit().getGeneration(), reader.numDocs(), hash);
+        }
+
+        long generation() {
+            return generation;
+        }
+
+        int numDocs() {
+            return numDocs;
+        }
+
+        long hash() {
+            return hash;
+        }
+
+        /**
+         * Whether both commits hold the same documents, with the same versions.
+         */
+        boolean sameDocuments(CommitFingerprint other) {
+            return numDocs == other.numDocs && hash == other.hash;
+        }
+
+        @Override
+        public String toString() {
+            return "commit [" + generation + "] with [" + numDocs + "] docs, hash [" + hash + "]";
+        }
+    }
+
+    class SyncedFlushTransportRequestHandler extends BaseTransportRequestHandler<SyncedFlushRequest> {
+
+        @Override
+        public SyncedFlushRequest newInstance() {
+            return new SyncedFlushRequest();
+        }
+
+        @Override
+        public String executor() {
+            return ThreadPool.Names.FLUSH;
+        }
+
+        @Override
+        public void messageReceived(SyncedFlushRequest request, TransportChannel channel) throws Exception {
+            replicaSyncedFlush(request);
+            channel.sendResponse(TransportResponse.Empty.INSTANCE);
+        }
+    }
+}
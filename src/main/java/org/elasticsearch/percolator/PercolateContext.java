@@ -348,7 +348,7 @@ public class PercolateContext extends SearchContext {
     }
 
     @Override
-    public long nowInMillis() {
+    protected long nowInMillisImpl() {
         throw new UnsupportedOperationException();
     }
 
@@ -524,6 +524,26 @@ public class PercolateContext extends SearchContext {
         return trackScores;
     }
 
+    @Override
+    public SearchContext searchAfter(Object[] searchAfter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object[] searchAfter() {
+        return null;
+    }
+
+    @Override
+    public SearchContext sliceFilter(Filter sliceFilter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Filter sliceFilter() {
+        return null;
+    }
+
     @Override
     public SearchContext parsedPostFilter(ParsedFilter postFilter) {
         throw new UnsupportedOperationException();
@@ -121,6 +121,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent<Rep
 
     private final RateLimiter restoreRateLimiter;
 
+    private final boolean lazyRestore;
+
+    private final ByteSizeValue lazyRestoreCacheSize;
+
     private final CounterMetric snapshotRateLimitingTimeInNanos = new CounterMetric();
 
     private final CounterMetric restoreRateLimitingTimeInNanos = new CounterMetric();
@@ -143,6 +147,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent<Rep
         globalOnlyFormatParams = new ToXContent.MapParams(globalOnlyParams);
         snapshotRateLimiter = getRateLimiter(repositorySettings, "max_snapshot_bytes_per_sec", new ByteSizeValue(20, ByteSizeUnit.MB));
         restoreRateLimiter = getRateLimiter(repositorySettings, "max_restore_bytes_per_sec", new ByteSizeValue(20, ByteSizeUnit.MB));
+        lazyRestore = repositorySettings.settings().getAsBoolean("lazy_restore", componentSettings.getAsBoolean("lazy_restore", false));
+        lazyRestoreCacheSize = repositorySettings.settings().getAsBytesSize("lazy_restore_cache_size",
+                componentSettings.getAsBytesSize("lazy_restore_cache_size", new ByteSizeValue(32, ByteSizeUnit.MB)));
     }
 
     /**
@@ -151,7 +158,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent<Rep
     @Override
     protected void doStart() throws ElasticsearchException {
         this.snapshotsBlobContainer = blobStore().immutableBlobContainer(basePath());
-        indexShardRepository.initialize(blobStore(), basePath(), chunkSize(), snapshotRateLimiter, restoreRateLimiter, this);
+        indexShardRepository.initialize(blobStore(), basePath(), chunkSize(), snapshotRateLimiter, restoreRateLimiter, this, lazyRestore, lazyRestoreCacheSize);
     }
 
     /**
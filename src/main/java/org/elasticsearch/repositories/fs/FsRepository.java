@@ -43,6 +43,7 @@ import java.io.IOException;
  * <dt>{@code concurrent_streams}</dt><dd>Number of concurrent read/write stream (per repository on each node). Defaults to 5.</dd>
  * <dt>{@code chunk_size}</dt><dd>Large file can be divided into chunks. This parameter specifies the chunk size. Defaults to not chucked.</dd>
  * <dt>{@code compress}</dt><dd>If set to true metadata files will be stored compressed. Defaults to false.</dd>
+ * <dt>{@code lazy_restore}</dt><dd>If set to true restored shards are opened while their files are still copied over. Defaults to false.</dd>
  * </ol>
  */
 public class FsRepository extends BlobStoreRepository {
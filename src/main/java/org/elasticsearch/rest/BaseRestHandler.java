@@ -63,7 +63,14 @@ public abstract class BaseRestHandler extends AbstractComponent implements RestH
 
     @Override
     public final void handleRequest(RestRequest request, RestChannel channel) throws Exception {
-        handleRequest(request, channel, usefulHeaders.length == 0 ? client : new HeadersCopyClient(client, request, usefulHeaders));
+        handleRequest(request, channel, client(request));
+    }
+
+    /**
+     * Returns the client to execute the actions of the given request with.
+     */
+    protected final Client client(RestRequest request) {
+        return usefulHeaders.length == 0 ? client : new HeadersCopyClient(client, request, usefulHeaders);
     }
 
     protected abstract void handleRequest(RestRequest request, RestChannel channel, Client client) throws Exception;
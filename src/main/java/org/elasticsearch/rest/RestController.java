@@ -169,6 +169,25 @@ public class RestController extends AbstractLifecycleComponent<RestController> {
         }
     }
 
+    /**
+     * Dispatches a request whose body has not been received yet to a {@link StreamingRestHandler}. Returns the consumer
+     * the body should be handed over to, or <tt>null</tt> if the request is not streamed, in which case it must be
+     * dispatched through {@link #dispatchRequest(RestRequest, RestChannel)} once its body has been received. Requests
+     * are never streamed when filters are registered since those expect the full request.
+     */
+    @Nullable
+    public StreamingRestHandler.ContentConsumer dispatchStreamingRequest(final RestRequest request, final RestChannel channel,
+                                                                         final StreamingRestHandler.FlowControl flowControl) throws Exception {
+        if (filters.length > 0) {
+            return null;
+        }
+        final RestHandler handler = getHandler(request);
+        if (handler instanceof StreamingRestHandler && ((StreamingRestHandler) handler).streamContent(request)) {
+            return ((StreamingRestHandler) handler).startStream(request, channel, flowControl);
+        }
+        return null;
+    }
+
     void executeHandler(RestRequest request, RestChannel channel) throws Exception {
         final RestHandler handler = getHandler(request);
         if (handler != null) {
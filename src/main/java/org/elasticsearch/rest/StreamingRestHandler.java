@@ -0,0 +1,78 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesReference;
+
+/**
+ * A {@link RestHandler} that can consume the body of a request while it is being received, instead of once it has
+ * been fully buffered in memory. HTTP transports that support it offer the request to {@link #streamContent(RestRequest)}
+ * before aggregating its body, and hand the body over chunk by chunk to the {@link ContentConsumer} returned by
+ * {@link #startStream(RestRequest, RestChannel, FlowControl)} if the handler accepted it.
+ */
+public interface StreamingRestHandler extends RestHandler {
+
+    /**
+     * Returns <tt>true</tt> if the body of the request should be streamed to this handler. The content of the request
+     * is not available at this point, only its method, path, parameters and headers.
+     */
+    boolean streamContent(RestRequest request);
+
+    /**
+     * Starts handling a streamed request. The handler is responsible for sending exactly one response on the channel,
+     * which may happen before the whole body has been received.
+     */
+    ContentConsumer startStream(RestRequest request, RestChannel channel, FlowControl flowControl) throws Exception;
+
+    /**
+     * Receives the body of a streamed request. Calls are never concurrent and happen in the order the content was received.
+     */
+    interface ContentConsumer {
+
+        /**
+         * Called for every chunk of the body. The content is only valid for the duration of the call, consumers that
+         * need it for longer must copy it.
+         *
+         * @param last <tt>true</tt> if this is the last chunk of the body
+         */
+        void onContent(BytesReference content, boolean last) throws Exception;
+
+        /**
+         * Called if the body could not be fully received, for instance because the connection got closed.
+         */
+        void onFailure(Throwable t);
+    }
+
+    /**
+     * Allows a streaming handler to stop reading the body from the network while it catches up.
+     */
+    interface FlowControl {
+
+        /**
+         * Stops reading more content until {@link #resume()} is called.
+         */
+        void pause();
+
+        /**
+         * Resumes reading content.
+         */
+        void resume();
+    }
+}
@@ -19,24 +19,43 @@
 
 package org.elasticsearch.rest.action.bulk;
 
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.WriteConsistencyLevel;
 import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.bulk.BulkShardRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.replication.ReplicationType;
+import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
 import org.elasticsearch.rest.*;
 import org.elasticsearch.rest.action.support.RestBuilderListener;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.elasticsearch.rest.RestRequest.Method.POST;
 import static org.elasticsearch.rest.RestRequest.Method.PUT;
 import static org.elasticsearch.rest.RestStatus.OK;
@@ -49,10 +68,28 @@ import static org.elasticsearch.rest.RestStatus.OK;
  * { "create" : { "_index" : "test", "_type" : "type1", "_id" : "1" }
  * { "type1" : { "field1" : "value1" } }
  * </pre>
+ *
+ * When streaming is enabled, either for all requests with <tt>rest.action.bulk.stream</tt> or per request with the
+ * <tt>stream</tt> parameter, bodies that are received in chunks are parsed as they arrive and sent to the shards in
+ * batches of <tt>rest.action.bulk.stream.batch_size</tt> bytes, while at most
+ * <tt>rest.action.bulk.stream.max_in_flight</tt> bytes of batches are executing. A single response covering all
+ * items is returned once all batches are done. Streamed bodies are limited to
+ * <tt>rest.action.bulk.stream.max_content_length</tt> bytes, which defaults to <tt>http.max_content_length</tt>.
+ * If the body can't be parsed or exceeds the limit, the response holds the error as well as the items of the batches
+ * that were already executed.
  */
-public class RestBulkAction extends BaseRestHandler {
+public class RestBulkAction extends BaseRestHandler implements StreamingRestHandler {
+
+    public static final String STREAM = "rest.action.bulk.stream";
+    public static final String STREAM_BATCH_SIZE = "rest.action.bulk.stream.batch_size";
+    public static final String STREAM_MAX_IN_FLIGHT = "rest.action.bulk.stream.max_in_flight";
+    public static final String STREAM_MAX_CONTENT_LENGTH = "rest.action.bulk.stream.max_content_length";
 
     private final boolean allowExplicitIndex;
+    private final boolean stream;
+    private final ByteSizeValue streamBatchSize;
+    private final ByteSizeValue streamMaxInFlight;
+    private final ByteSizeValue streamMaxContentLength;
 
     @Inject
     public RestBulkAction(Settings settings, Client client, RestController controller) {
@@ -66,16 +103,43 @@ public class RestBulkAction extends BaseRestHandler {
         controller.registerHandler(PUT, "/{index}/{type}/_bulk", this);
 
         this.allowExplicitIndex = settings.getAsBoolean("rest.action.multi.allow_explicit_index", true);
+        this.stream = settings.getAsBoolean(STREAM, false);
+        this.streamBatchSize = settings.getAsBytesSize(STREAM_BATCH_SIZE, new ByteSizeValue(5, ByteSizeUnit.MB));
+        this.streamMaxInFlight = settings.getAsBytesSize(STREAM_MAX_IN_FLIGHT, new ByteSizeValue(50, ByteSizeUnit.MB));
+        this.streamMaxContentLength = settings.getAsBytesSize(STREAM_MAX_CONTENT_LENGTH,
+                settings.getAsBytesSize("http.max_content_length", new ByteSizeValue(100, ByteSizeUnit.MB)));
+        if (streamMaxInFlight.bytes() < streamBatchSize.bytes()) {
+            throw new ElasticsearchIllegalArgumentException("[" + STREAM_MAX_IN_FLIGHT + "] must be at least [" + STREAM_BATCH_SIZE + "], got ["
+                    + streamMaxInFlight + "] and [" + streamBatchSize + "]");
+        }
     }
 
     @Override
     public void handleRequest(final RestRequest request, final RestChannel channel, final Client client) throws Exception {
+        BulkRequest bulkRequest = newBulkRequest(request);
+        bulkRequest.add(request.content(), request.contentUnsafe(), request.param("index"), request.param("type"), request.param("routing"), null, allowExplicitIndex);
+
+        client.bulk(bulkRequest, new RestBuilderListener<BulkResponse>(channel) {
+            @Override
+            public RestResponse buildResponse(BulkResponse response, XContentBuilder builder) throws Exception {
+                return RestBulkAction.buildResponse(response, builder);
+            }
+        });
+    }
+
+    @Override
+    public boolean streamContent(RestRequest request) {
+        return request.paramAsBoolean("stream", stream);
+    }
+
+    @Override
+    public ContentConsumer startStream(RestRequest request, RestChannel channel, FlowControl flowControl) throws Exception {
+        return new StreamingBulkConsumer(request, channel, flowControl, client(request));
+    }
+
+    private static BulkRequest newBulkRequest(RestRequest request) {
         BulkRequest bulkRequest = Requests.bulkRequest();
         bulkRequest.listenerThreaded(false);
-        String defaultIndex = request.param("index");
-        String defaultType = request.param("type");
-        String defaultRouting = request.param("routing");
-
         String replicationType = request.param("replication");
         if (replicationType != null) {
             bulkRequest.replicationType(ReplicationType.fromString(replicationType));
@@ -86,62 +150,299 @@ public class RestBulkAction extends BaseRestHandler {
         }
         bulkRequest.timeout(request.paramAsTime("timeout", BulkShardRequest.DEFAULT_TIMEOUT));
         bulkRequest.refresh(request.paramAsBoolean("refresh", bulkRequest.refresh()));
-        bulkRequest.add(request.content(), request.contentUnsafe(), defaultIndex, defaultType, defaultRouting, null, allowExplicitIndex);
+        return bulkRequest;
+    }
 
-        client.bulk(bulkRequest, new RestBuilderListener<BulkResponse>(channel) {
-            @Override
-            public RestResponse buildResponse(BulkResponse response, XContentBuilder builder) throws Exception {
-                builder.startObject();
-                builder.field(Fields.TOOK, response.getTookInMillis());
-                builder.field(Fields.ERRORS, response.hasFailures());
-                builder.startArray(Fields.ITEMS);
-                for (BulkItemResponse itemResponse : response) {
-                    builder.startObject();
-                    builder.startObject(itemResponse.getOpType());
-                    builder.field(Fields._INDEX, itemResponse.getIndex());
-                    builder.field(Fields._TYPE, itemResponse.getType());
-                    builder.field(Fields._ID, itemResponse.getId());
-                    long version = itemResponse.getVersion();
-                    if (version != -1) {
-                        builder.field(Fields._VERSION, itemResponse.getVersion());
+    static RestResponse buildResponse(BulkResponse response, XContentBuilder builder) throws Exception {
+        return buildResponse(response, null, builder);
+    }
+
+    /**
+     * Builds the response of a bulk request, along with the error that stopped a streamed request from being fully
+     * executed if there is one.
+     */
+    static RestResponse buildResponse(BulkResponse response, @Nullable Throwable failure, XContentBuilder builder) throws Exception {
+        builder.startObject();
+        if (failure != null) {
+            builder.field(Fields.ERROR, ExceptionsHelper.detailedMessage(failure));
+            builder.field(Fields.STATUS, ExceptionsHelper.status(failure).getStatus());
+        }
+        builder.field(Fields.TOOK, response.getTookInMillis());
+        builder.field(Fields.ERRORS, failure != null || response.hasFailures());
+        builder.startArray(Fields.ITEMS);
+        for (BulkItemResponse itemResponse : response) {
+            builder.startObject();
+            builder.startObject(itemResponse.getOpType());
+            builder.field(Fields._INDEX, itemResponse.getIndex());
+            builder.field(Fields._TYPE, itemResponse.getType());
+            builder.field(Fields._ID, itemResponse.getId());
+            long version = itemResponse.getVersion();
+            if (version != -1) {
+                builder.field(Fields._VERSION, itemResponse.getVersion());
+            }
+            if (itemResponse.isFailed()) {
+                builder.field(Fields.STATUS, itemResponse.getFailure().getStatus().getStatus());
+                builder.field(Fields.ERROR, itemResponse.getFailure().getMessage());
+            } else {
+                if (itemResponse.getResponse() instanceof DeleteResponse) {
+                    DeleteResponse deleteResponse = itemResponse.getResponse();
+                    if (deleteResponse.isFound()) {
+                        builder.field(Fields.STATUS, RestStatus.OK.getStatus());
+                    } else {
+                        builder.field(Fields.STATUS, RestStatus.NOT_FOUND.getStatus());
                     }
-                    if (itemResponse.isFailed()) {
-                        builder.field(Fields.STATUS, itemResponse.getFailure().getStatus().getStatus());
-                        builder.field(Fields.ERROR, itemResponse.getFailure().getMessage());
+                    builder.field(Fields.FOUND, deleteResponse.isFound());
+                } else if (itemResponse.getResponse() instanceof IndexResponse) {
+                    IndexResponse indexResponse = itemResponse.getResponse();
+                    if (indexResponse.isCreated()) {
+                        builder.field(Fields.STATUS, RestStatus.CREATED.getStatus());
                     } else {
-                        if (itemResponse.getResponse() instanceof DeleteResponse) {
-                            DeleteResponse deleteResponse = itemResponse.getResponse();
-                            if (deleteResponse.isFound()) {
-                                builder.field(Fields.STATUS, RestStatus.OK.getStatus());
-                            } else {
-                                builder.field(Fields.STATUS, RestStatus.NOT_FOUND.getStatus());
-                            }
-                            builder.field(Fields.FOUND, deleteResponse.isFound());
-                        } else if (itemResponse.getResponse() instanceof IndexResponse) {
-                            IndexResponse indexResponse = itemResponse.getResponse();
-                            if (indexResponse.isCreated()) {
-                                builder.field(Fields.STATUS, RestStatus.CREATED.getStatus());
-                            } else {
-                                builder.field(Fields.STATUS, RestStatus.OK.getStatus());
-                            }
-                        } else if (itemResponse.getResponse() instanceof UpdateResponse) {
-                            UpdateResponse updateResponse = itemResponse.getResponse();
-                            if (updateResponse.isCreated()) {
-                                builder.field(Fields.STATUS, RestStatus.CREATED.getStatus());
+                        builder.field(Fields.STATUS, RestStatus.OK.getStatus());
+                    }
+                } else if (itemResponse.getResponse() instanceof UpdateResponse) {
+                    UpdateResponse updateResponse = itemResponse.getResponse();
+                    if (updateResponse.isCreated()) {
+                        builder.field(Fields.STATUS, RestStatus.CREATED.getStatus());
+                    } else {
+                        builder.field(Fields.STATUS, RestStatus.OK.getStatus());
+                    }
+                }
+            }
+            builder.endObject();
+            builder.endObject();
+        }
+        builder.endArray();
+
+        builder.endObject();
+        return new BytesRestResponse(failure == null ? OK : ExceptionsHelper.status(failure), builder);
+    }
+
+    /**
+     * Parses the body of a streamed bulk request as it is received, and executes a bulk request for every batch of
+     * complete actions. Content is only received on one thread at a time, while batches complete concurrently on
+     * other threads.
+     */
+    final class StreamingBulkConsumer implements ContentConsumer {
+
+        private final RestRequest request;
+        private final RestChannel channel;
+        private final FlowControl flowControl;
+        private final Client client;
+        private final long startTime = System.currentTimeMillis();
+
+        // only accessed by the thread receiving content
+        private BytesStreamOutput pending = new BytesStreamOutput();
+        private long nextBatchSize = streamBatchSize.bytes();
+        private long receivedBytes;
+        private int numBatches;
+
+        // results of the batches, in the order of the batches
+        private final List<BulkItemResponse[]> results = new ArrayList<>();
+        private final AtomicInteger runningBatches = new AtomicInteger();
+        private final AtomicBoolean responded = new AtomicBoolean();
+        private volatile boolean contentDone;
+        // the failure that stopped the body from being parsed, reported along with the items of the executed batches
+        private volatile Throwable failure;
+
+        // guarded by this
+        private long inFlightBytes;
+        private boolean paused;
+
+        StreamingBulkConsumer(RestRequest request, RestChannel channel, FlowControl flowControl, Client client) {
+            this.request = request;
+            this.channel = channel;
+            this.flowControl = flowControl;
+            this.client = client;
+        }
+
+        @Override
+        public void onContent(BytesReference content, boolean last) throws Exception {
+            if (responded.get() || failure != null) {
+                // the request already failed, drain the rest of the body
+                return;
+            }
+            receivedBytes += content.length();
+            if (receivedBytes > streamMaxContentLength.bytes()) {
+                fail(new ContentTooLongException("streamed bulk body is larger than [" + streamMaxContentLength + "]"));
+                return;
+            }
+            content.writeTo(pending);
+            if (last || pending.size() >= nextBatchSize) {
+                flush(last);
+            }
+            if (last) {
+                contentDone = true;
+                maybeFinish();
+            }
+        }
+
+        private void flush(boolean last) {
+            final BytesReference data = pending.bytes();
+            final BulkRequest batch = newBulkRequest(request);
+            final int consumed;
+            try {
+                if (last) {
+                    batch.add(data, false, request.param("index"), request.param("type"), request.param("routing"), null, allowExplicitIndex);
+                    consumed = data.length();
+                } else {
+                    consumed = batch.addCompleteActions(data, false, request.param("index"), request.param("type"), request.param("routing"), null, allowExplicitIndex);
+                }
+                // a single action can be larger than a batch, avoid parsing it over and over while it is being received
+                nextBatchSize = consumed == 0 ? (long) data.length() * 2 : streamBatchSize.bytes();
+                pending = new BytesStreamOutput();
+                data.slice(consumed, data.length() - consumed).writeTo(pending);
+            } catch (Throwable t) {
+                fail(t);
+                return;
+            }
+            if (batch.numberOfActions() > 0) {
+                execute(batch, consumed);
+            } else if (last && numBatches == 0) {
+                fail(batch.validate());
+            }
+        }
+
+        private void execute(final BulkRequest batch, final long bytes) {
+            final int batchIndex = numBatches++;
+            synchronized (results) {
+                results.add(null);
+            }
+            runningBatches.incrementAndGet();
+            synchronized (this) {
+                inFlightBytes += bytes;
+                if (!paused && inFlightBytes > streamMaxInFlight.bytes()) {
+                    paused = true;
+                    flowControl.pause();
+                }
+            }
+            client.bulk(batch, new ActionListener<BulkResponse>() {
+                @Override
+                public void onResponse(BulkResponse response) {
+                    onBatchDone(batchIndex, bytes, response.getItems());
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    onBatchDone(batchIndex, bytes, failedItems(batch, e));
+                }
+            });
+        }
+
+        private void onBatchDone(int batchIndex, long bytes, BulkItemResponse[] items) {
+            synchronized (results) {
+                results.set(batchIndex, items);
+            }
+            synchronized (this) {
+                inFlightBytes -= bytes;
+                if (paused && inFlightBytes <= streamMaxInFlight.bytes()) {
+                    paused = false;
+                    flowControl.resume();
+                }
+            }
+            runningBatches.decrementAndGet();
+            maybeFinish();
+        }
+
+        private void maybeFinish() {
+            if (contentDone && runningBatches.get() == 0 && responded.compareAndSet(false, true)) {
+                final Throwable failure = this.failure;
+                if (failure != null && numBatches == 0) {
+                    // nothing was executed, respond like a non streamed request would
+                    sendFailure(failure);
+                    return;
+                }
+                final List<BulkItemResponse> items = new ArrayList<>();
+                synchronized (results) {
+                    for (BulkItemResponse[] batchItems : results) {
+                        for (BulkItemResponse item : batchItems) {
+                            // renumber the items so that their ids are relative to the whole request
+                            final int id = items.size();
+                            if (item.isFailed()) {
+                                items.add(new BulkItemResponse(id, item.getOpType(), item.getFailure()));
                             } else {
-                                builder.field(Fields.STATUS, RestStatus.OK.getStatus());
+                                items.add(new BulkItemResponse(id, item.getOpType(), item.getResponse()));
                             }
                         }
                     }
-                    builder.endObject();
-                    builder.endObject();
                 }
-                builder.endArray();
+                final BulkResponse response = new BulkResponse(items.toArray(new BulkItemResponse[items.size()]), System.currentTimeMillis() - startTime);
+                try {
+                    channel.sendResponse(buildResponse(response, failure, channel.newBuilder()));
+                } catch (Throwable t) {
+                    sendFailure(t);
+                }
+            }
+        }
 
-                builder.endObject();
-                return new BytesRestResponse(OK, builder);
+        /**
+         * Stops parsing the body, the response is sent with the items of the batches that were already executed once
+         * they are done.
+         */
+        private void fail(Throwable t) {
+            if (failure == null) {
+                failure = t;
             }
-        });
+            pending = new BytesStreamOutput();
+            synchronized (this) {
+                if (paused) {
+                    // keep reading so that the rest of the body is drained
+                    paused = false;
+                    flowControl.resume();
+                }
+            }
+            contentDone = true;
+            maybeFinish();
+        }
+
+        private void sendFailure(Throwable t) {
+            try {
+                channel.sendResponse(new BytesRestResponse(channel, t));
+            } catch (Throwable e) {
+                logger.error("failed to send failure response", e);
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            // the body could not be received, there is nobody left to respond to
+            responded.set(true);
+            logger.debug("failed to receive the body of a streamed bulk request", t);
+        }
+    }
+
+    /**
+     * Thrown when a streamed body exceeds {@link #STREAM_MAX_CONTENT_LENGTH}.
+     */
+    static class ContentTooLongException extends ElasticsearchException {
+
+        ContentTooLongException(String msg) {
+            super(msg);
+        }
+
+        @Override
+        public RestStatus status() {
+            return RestStatus.REQUEST_ENTITY_TOO_LARGE;
+        }
+    }
+
+    private static BulkItemResponse[] failedItems(BulkRequest batch, Throwable e) {
+        final List<ActionRequest> requests = batch.requests();
+        final BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            final ActionRequest request = requests.get(i);
+            if (request instanceof IndexRequest) {
+                IndexRequest indexRequest = (IndexRequest) request;
+                items[i] = new BulkItemResponse(i, indexRequest.opType().toString().toLowerCase(Locale.ENGLISH),
+                        new BulkItemResponse.Failure(indexRequest.index(), indexRequest.type(), indexRequest.id(), e));
+            } else if (request instanceof DeleteRequest) {
+                DeleteRequest deleteRequest = (DeleteRequest) request;
+                items[i] = new BulkItemResponse(i, "delete", new BulkItemResponse.Failure(deleteRequest.index(), deleteRequest.type(), deleteRequest.id(), e));
+            } else {
+                UpdateRequest updateRequest = (UpdateRequest) request;
+                items[i] = new BulkItemResponse(i, "update", new BulkItemResponse.Failure(updateRequest.index(), updateRequest.type(), updateRequest.id(), e));
+            }
+        }
+        return items;
     }
 
     static final class Fields {
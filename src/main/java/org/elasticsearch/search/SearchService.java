@@ -61,6 +61,7 @@ import org.elasticsearch.index.service.IndexService;
 import org.elasticsearch.index.shard.service.IndexShard;
 import org.elasticsearch.indices.IndicesLifecycle;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.cache.query.IndicesQueryCache;
 import org.elasticsearch.indices.warmer.IndicesWarmer;
 import org.elasticsearch.indices.warmer.IndicesWarmer.WarmerContext;
 import org.elasticsearch.script.ExecutableScript;
@@ -97,6 +98,8 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     public static final String DEFAUTL_KEEPALIVE_KEY = "search." + DEFAUTL_KEEPALIVE_COMPONENENT_KEY;
     private static final String KEEPALIVE_INTERVAL_COMPONENENT_KEY = "keep_alive_interval";
     public static final String KEEPALIVE_INTERVAL_KEY = "search." + KEEPALIVE_INTERVAL_COMPONENENT_KEY;
+    private static final String MAX_CONCURRENT_SLICES_COMPONENT_KEY = "max_concurrent_slices";
+    public static final String MAX_CONCURRENT_SLICES_KEY = "search." + MAX_CONCURRENT_SLICES_COMPONENT_KEY;
 
 
     private final ThreadPool threadPool;
@@ -121,8 +124,12 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
     private final FetchPhase fetchPhase;
 
+    private final IndicesQueryCache indicesQueryCache;
+
     private final long defaultKeepAlive;
 
+    private final int maxConcurrentSlices;
+
     private final ScheduledFuture<?> keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
@@ -133,7 +140,8 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
     @Inject
     public SearchService(Settings settings, ClusterService clusterService, IndicesService indicesService, IndicesLifecycle indicesLifecycle, IndicesWarmer indicesWarmer, ThreadPool threadPool,
-                         ScriptService scriptService, CacheRecycler cacheRecycler, PageCacheRecycler pageCacheRecycler, BigArrays bigArrays, DfsPhase dfsPhase, QueryPhase queryPhase, FetchPhase fetchPhase) {
+                         ScriptService scriptService, CacheRecycler cacheRecycler, PageCacheRecycler pageCacheRecycler, BigArrays bigArrays, DfsPhase dfsPhase, QueryPhase queryPhase, FetchPhase fetchPhase,
+                         IndicesQueryCache indicesQueryCache) {
         super(settings);
         this.threadPool = threadPool;
         this.clusterService = clusterService;
@@ -146,10 +154,13 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         this.dfsPhase = dfsPhase;
         this.queryPhase = queryPhase;
         this.fetchPhase = fetchPhase;
+        this.indicesQueryCache = indicesQueryCache;
 
         TimeValue keepAliveInterval = componentSettings.getAsTime(KEEPALIVE_INTERVAL_COMPONENENT_KEY, timeValueMinutes(1));
         // we can have 5 minutes here, since we make sure to clean with search requests and when shard/index closes
         this.defaultKeepAlive = componentSettings.getAsTime(DEFAUTL_KEEPALIVE_COMPONENENT_KEY, timeValueMinutes(5)).millis();
+        // the main query of a shard runs on a single thread unless explicitly configured otherwise
+        this.maxConcurrentSlices = componentSettings.getAsInt(MAX_CONCURRENT_SLICES_COMPONENT_KEY, 1);
 
         Map<String, SearchParseElement> elementParsers = new HashMap<>();
         elementParsers.putAll(dfsPhase.parseElements());
@@ -254,7 +265,11 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
             context.indexShard().searchService().onPreQueryPhase(context);
             long time = System.nanoTime();
             contextProcessing(context);
-            queryPhase.execute(context);
+            if (indicesQueryCache.canCache(request, context)) {
+                indicesQueryCache.loadIntoContext(request, context, queryPhase);
+            } else {
+                queryPhase.execute(context);
+            }
             if (context.searchType() == SearchType.COUNT) {
                 freeContext(context.id());
             } else {
@@ -503,6 +518,9 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         Engine.Searcher engineSearcher = searcher == null ? indexShard.acquireSearcher("search") : searcher;
         SearchContext context = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget, engineSearcher, indexService, indexShard, scriptService, cacheRecycler, pageCacheRecycler, bigArrays);
         SearchContext.setCurrent(context);
+        if (maxConcurrentSlices > 1) {
+            context.searcher().concurrentSearch(threadPool.executor(ThreadPool.Names.CONCURRENT_SEARCH), maxConcurrentSlices);
+        }
         try {
             context.scroll(request.scroll());
             context.useSlowScroll(request.useSlowScroll());
@@ -518,6 +536,17 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
             if (context.size() == -1) {
                 context.size(10);
             }
+            if (context.searchAfter() != null) {
+                if (context.scroll() != null) {
+                    throw new SearchContextException(context, "search_after can't be used with scroll");
+                }
+                if (context.from() > 0) {
+                    throw new SearchContextException(context, "from must be 0 when search_after is used, but was [" + context.from() + "]");
+                }
+            }
+            if (context.sliceFilter() != null && context.scroll() == null) {
+                throw new SearchContextException(context, "slice can only be used with scroll");
+            }
 
             // pre process
             dfsPhase.preProcess(context);
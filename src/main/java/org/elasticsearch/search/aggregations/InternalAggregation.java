@@ -85,10 +85,25 @@ public abstract class InternalAggregation implements Aggregation, ToXContent, St
 
         private final List<InternalAggregation> aggregations;
         private final BigArrays bigArrays;
+        private final boolean finalReduce;
 
         public ReduceContext(List<InternalAggregation> aggregations, BigArrays bigArrays) {
+            this(aggregations, bigArrays, true);
+        }
+
+        public ReduceContext(List<InternalAggregation> aggregations, BigArrays bigArrays, boolean finalReduce) {
             this.aggregations = aggregations;
             this.bigArrays = bigArrays;
+            this.finalReduce = finalReduce;
+        }
+
+        /**
+         * Returns <tt>true</tt> if this reduce produces the final result. Partial reduces happen on the coordinating node
+         * while shard results are still coming in, and their result is reduced again later on, so they must not prune
+         * buckets based on their (partial) counts.
+         */
+        public boolean isFinalReduce() {
+            return finalReduce;
         }
 
         public List<InternalAggregation> aggregations() {
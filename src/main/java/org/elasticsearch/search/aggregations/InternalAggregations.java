@@ -113,6 +113,17 @@ public class InternalAggregations implements Aggregations, ToXContent, Streamabl
      * @return                  The reduced addAggregation
      */
     public static InternalAggregations reduce(List<InternalAggregations> aggregationsList, BigArrays bigArrays) {
+        return reduce(aggregationsList, bigArrays, true);
+    }
+
+    /**
+     * Reduces the given lists of addAggregation.
+     *
+     * @param aggregationsList  A list of aggregation to reduce
+     * @param finalReduce       Whether this reduce produces the final result, or a partial result that will be reduced again
+     * @return                  The reduced addAggregation
+     */
+    public static InternalAggregations reduce(List<InternalAggregations> aggregationsList, BigArrays bigArrays, boolean finalReduce) {
         if (aggregationsList.isEmpty()) {
             return null;
         }
@@ -137,7 +148,7 @@ public class InternalAggregations implements Aggregations, ToXContent, Streamabl
         for (Map.Entry<String, List<InternalAggregation>> entry : aggByName.entrySet()) {
             List<InternalAggregation> aggregations = entry.getValue();
             InternalAggregation first = aggregations.get(0); // the list can't be empty as it's created on demand
-            reducedAggregations.add(first.reduce(new InternalAggregation.ReduceContext(aggregations, bigArrays)));
+            reducedAggregations.add(first.reduce(new InternalAggregation.ReduceContext(aggregations, bigArrays, finalReduce)));
         }
         return new InternalAggregations(reducedAggregations);
     }
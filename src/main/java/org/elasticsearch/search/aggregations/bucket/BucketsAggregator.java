@@ -26,6 +26,8 @@ import org.elasticsearch.search.aggregations.support.AggregationContext;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  *
@@ -33,6 +35,8 @@ import java.util.Arrays;
 public abstract class BucketsAggregator extends Aggregator {
 
     private IntArray docCounts;
+    private SubAggCollectionMode subAggCollectMode = SubAggCollectionMode.DEPTH_FIRST;
+    private final Set<Aggregator> eagerSubAggregators = new HashSet<>();
 
     public BucketsAggregator(String name, BucketAggregationMode bucketAggregationMode, AggregatorFactories factories,
                              long estimatedBucketsCount, AggregationContext context, Aggregator parent) {
@@ -40,6 +44,27 @@ public abstract class BucketsAggregator extends Aggregator {
         docCounts = bigArrays.newIntArray(estimatedBucketsCount, true);
     }
 
+    /**
+     * Sets how sub aggregators are collected. This must be called from the constructor of aggregators that prune their
+     * buckets. In {@link SubAggCollectionMode#BREADTH_FIRST} mode, sub aggregators only see the documents of the buckets
+     * that survive pruning, which the aggregator reports through {@link #runDeferredCollections(long...)} before it builds
+     * sub aggregations. Sub aggregators that the pruning depends on, such as the one buckets are sorted on, must be given
+     * as <code>eagerSubAggregators</code> so that they are still collected in the first pass.
+     */
+    protected final void subAggCollectionMode(SubAggCollectionMode mode, Aggregator... eagerSubAggregators) {
+        this.subAggCollectMode = mode;
+        for (Aggregator aggregator : eagerSubAggregators) {
+            if (aggregator != null) {
+                this.eagerSubAggregators.add(aggregator);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldDefer(Aggregator aggregator) {
+        return subAggCollectMode == SubAggCollectionMode.BREADTH_FIRST && !eagerSubAggregators.contains(aggregator);
+    }
+
     /**
      * Return an upper bound of the maximum bucket ordinal seen so far.
      */
@@ -28,7 +28,6 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.rounding.Rounding;
 import org.elasticsearch.common.text.StringText;
 import org.elasticsearch.common.text.Text;
-import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.LongObjectPagedHashMap;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.aggregations.AggregationStreams;
@@ -108,14 +107,14 @@ public class InternalHistogram<B extends InternalHistogram.Bucket> extends Inter
             return aggregations;
         }
 
-        <B extends Bucket> B reduce(List<B> buckets, BigArrays bigArrays) {
+        <B extends Bucket> B reduce(List<B> buckets, ReduceContext reduceContext) {
             List<InternalAggregations> aggregations = new ArrayList<>(buckets.size());
             long docCount = 0;
             for (Bucket bucket : buckets) {
                 docCount += bucket.docCount;
                 aggregations.add((InternalAggregations) bucket.getAggregations());
             }
-            InternalAggregations aggs = InternalAggregations.reduce(aggregations, bigArrays);
+            InternalAggregations aggs = InternalAggregations.reduce(aggregations, reduceContext.bigArrays(), reduceContext.isFinalReduce());
             return (B) getFactory().createBucket(key, docCount, aggs, formatter);
         }
 
@@ -274,15 +273,15 @@ public class InternalHistogram<B extends InternalHistogram.Bucket> extends Inter
         List<B> reducedBuckets = new ArrayList<>((int) bucketsByKey.size());
         for (LongObjectPagedHashMap.Cursor<List<B>> cursor : bucketsByKey) {
             List<B> sameTermBuckets = cursor.value;
-            B bucket = sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext.bigArrays());
-            if (bucket.getDocCount() >= minDocCount) {
+            B bucket = sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext);
+            if (bucket.getDocCount() >= minDocCount || !reduceContext.isFinalReduce()) {
                 reducedBuckets.add(bucket);
             }
         }
         bucketsByKey.close();
 
-        // adding empty buckets in needed
-        if (minDocCount == 0) {
+        // adding empty buckets in needed, only once the final buckets are known
+        if (minDocCount == 0 && reduceContext.isFinalReduce()) {
             CollectionUtil.introSort(reducedBuckets, order.asc ? InternalOrder.KEY_ASC.comparator() : InternalOrder.KEY_DESC.comparator());
             List<B> list = order.asc ? reducedBuckets : Lists.reverse(reducedBuckets);
             B lastBucket = null;
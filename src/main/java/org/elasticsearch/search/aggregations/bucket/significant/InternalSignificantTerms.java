@@ -20,7 +20,6 @@ package org.elasticsearch.search.aggregations.bucket.significant;
 
 import com.google.common.collect.Maps;
 import org.elasticsearch.common.io.stream.Streamable;
-import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -141,7 +140,7 @@ public abstract class InternalSignificantTerms extends InternalAggregation imple
             return aggregations;
         }
 
-        public Bucket reduce(List<? extends Bucket> buckets, BigArrays bigArrays) {
+        public Bucket reduce(List<? extends Bucket> buckets, ReduceContext reduceContext) {
             long subsetDf = 0;
             long supersetDf = 0;
             List<InternalAggregations> aggregationsList = new ArrayList<>(buckets.size());
@@ -150,7 +149,7 @@ public abstract class InternalSignificantTerms extends InternalAggregation imple
                 supersetDf += bucket.supersetDf;
                 aggregationsList.add(bucket.aggregations);
             }
-            InternalAggregations aggs = InternalAggregations.reduce(aggregationsList, bigArrays);
+            InternalAggregations aggs = InternalAggregations.reduce(aggregationsList, reduceContext.bigArrays(), reduceContext.isFinalReduce());
             return newBucket(subsetDf, subsetSize, supersetDf, supersetSize, aggs);
         }
 
@@ -222,12 +221,13 @@ public abstract class InternalSignificantTerms extends InternalAggregation imple
             }
         }
 
-        final int size = Math.min(requiredSize, buckets.size());
+        // partial reduces keep all buckets, scores are only meaningful once the sizes of all shards are known
+        final int size = reduceContext.isFinalReduce() ? Math.min(requiredSize, buckets.size()) : buckets.size();
         BucketSignificancePriorityQueue ordered = new BucketSignificancePriorityQueue(size);
         for (Map.Entry<String, List<Bucket>> entry : buckets.entrySet()) {
             List<Bucket> sameTermBuckets = entry.getValue();
-            final Bucket b = sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext.bigArrays());
-            if ((b.score > 0) && (b.subsetDf >= minDocCount)) {
+            final Bucket b = sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext);
+            if (!reduceContext.isFinalReduce() || ((b.score > 0) && (b.subsetDf >= minDocCount))) {
                 ordered.insertWithOverflow(b);
             }
         }
@@ -22,6 +22,8 @@ package org.elasticsearch.search.aggregations.bucket.significant;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
 import org.elasticsearch.search.aggregations.bucket.terms.AbstractTermsParametersParser;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregator;
 
@@ -44,6 +46,7 @@ public class SignificantTermsBuilder extends AggregationBuilder<SignificantTerms
     private String excludePattern;
     private int excludeFlags;
     private FilterBuilder filterBuilder;
+    private SubAggCollectionMode collectionMode;
 
 
     public SignificantTermsBuilder(String name) {
@@ -86,6 +89,15 @@ public class SignificantTermsBuilder extends AggregationBuilder<SignificantTerms
         return this;
     }
 
+    /**
+     * Expert: set the collection mode. With {@link SubAggCollectionMode#BREADTH_FIRST}, sub aggregations are only
+     * computed for the terms that are the most significant on the shard.
+     */
+    public SignificantTermsBuilder collectMode(SubAggCollectionMode mode) {
+        this.collectionMode = mode;
+        return this;
+    }
+
     /**
      * Define a regular expression that will determine what terms should be aggregated. The regular expression is based
      * on the {@link java.util.regex.Pattern} class.
@@ -140,6 +152,9 @@ public class SignificantTermsBuilder extends AggregationBuilder<SignificantTerms
         if (executionHint != null) {
             builder.field(AbstractTermsParametersParser.EXECUTION_HINT_FIELD_NAME.getPreferredName(), executionHint);
         }
+        if (collectionMode != null) {
+            builder.field(Aggregator.COLLECT_MODE.getPreferredName(), collectionMode.parseField().getPreferredName());
+        }
         if (includePattern != null) {
             if (includeFlags == 0) {
                 builder.field("include", includePattern);
@@ -64,6 +64,7 @@ public class SignificantTermsParser implements Aggregator.Parser {
         }
 
         bucketCountThresholds.ensureValidity();
-        return new SignificantTermsAggregatorFactory(aggregationName, vsParser.config(), bucketCountThresholds, aggParser.getIncludeExclude(), aggParser.getExecutionHint(), aggParser.getFilter());
+        return new SignificantTermsAggregatorFactory(aggregationName, vsParser.config(), bucketCountThresholds, aggParser.getIncludeExclude(), aggParser.getExecutionHint(), aggParser.getFilter(),
+                aggParser.getCollectionMode());
     }
 }
@@ -22,7 +22,6 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import org.elasticsearch.common.io.stream.Streamable;
-import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -62,14 +61,14 @@ public abstract class InternalTerms extends InternalAggregation implements Terms
 
         abstract Bucket newBucket(long docCount, InternalAggregations aggs);
 
-        public Bucket reduce(List<? extends Bucket> buckets, BigArrays bigArrays) {
+        public Bucket reduce(List<? extends Bucket> buckets, ReduceContext reduceContext) {
             long docCount = 0;
             List<InternalAggregations> aggregationsList = new ArrayList<>(buckets.size());
             for (Bucket bucket : buckets) {
                 docCount += bucket.docCount;
                 aggregationsList.add(bucket.aggregations);
             }
-            InternalAggregations aggs = InternalAggregations.reduce(aggregationsList, bigArrays);
+            InternalAggregations aggs = InternalAggregations.reduce(aggregationsList, reduceContext.bigArrays(), reduceContext.isFinalReduce());
             return newBucket(docCount, aggs);
         }
     }
@@ -119,12 +118,13 @@ public abstract class InternalTerms extends InternalAggregation implements Terms
             }
         }
 
-        final int size = Math.min(requiredSize, buckets.size());
+        // partial reduces keep all buckets, a term may still make it to the top once the counts of other shards are added
+        final int size = reduceContext.isFinalReduce() ? Math.min(requiredSize, buckets.size()) : buckets.size();
         BucketPriorityQueue ordered = new BucketPriorityQueue(size, order.comparator(null));
         for (Collection<Bucket> l : buckets.asMap().values()) {
             List<Bucket> sameTermBuckets = (List<Bucket>) l; // cast is ok according to javadocs
-            final Bucket b = sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext.bigArrays());
-            if (b.docCount >= minDocCount) {
+            final Bucket b = sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext);
+            if (b.docCount >= minDocCount || !reduceContext.isFinalReduce()) {
                 ordered.insertWithOverflow(b);
             }
         }
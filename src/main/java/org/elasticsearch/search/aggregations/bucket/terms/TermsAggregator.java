@@ -129,23 +129,17 @@ public abstract class TermsAggregator extends BucketsAggregator {
     protected final BucketCountThresholds bucketCountThresholds;
     protected InternalOrder order;
     protected Aggregator aggUsedForSorting;
-    protected SubAggCollectionMode subAggCollectMode;
 
     public TermsAggregator(String name, BucketAggregationMode bucketAggregationMode, AggregatorFactories factories, long estimatedBucketsCount, AggregationContext context, Aggregator parent, BucketCountThresholds bucketCountThresholds, InternalOrder order, SubAggCollectionMode subAggCollectMode) {
         super(name, bucketAggregationMode, factories, estimatedBucketsCount, context, parent);
         this.bucketCountThresholds = bucketCountThresholds;
         this.order = InternalOrder.validate(order, this);
-        this.subAggCollectMode = subAggCollectMode;
         // Don't defer any child agg if we are dependent on it for pruning results
         if (order instanceof Aggregation){
             OrderPath path = ((Aggregation) order).path();
             aggUsedForSorting = path.resolveTopmostAggregator(this, false);
         }
+        subAggCollectionMode(subAggCollectMode, aggUsedForSorting);
     }
 
-    @Override
-    protected boolean shouldDefer(Aggregator aggregator) {
-        return (subAggCollectMode == SubAggCollectionMode.BREADTH_FIRST) && (aggregator != aggUsedForSorting);
-    }
-    
 }
@@ -25,6 +25,7 @@ import org.apache.lucene.util.OpenBitSet;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
@@ -159,6 +160,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private final Hashset hashSet;
     private final int p, m;
     private final double alphaMM;
+    private byte[] mergeSpare;
 
     public HyperLogLogPlusPlus(int precision, BigArrays bigArrays, long initialBucketCount) {
         Preconditions.checkArgument(precision >= 4, "precision must be >= 4");
@@ -200,31 +202,79 @@ public final class HyperLogLogPlusPlus implements Releasable {
         Preconditions.checkArgument(p == other.p);
         ensureCapacity(thisBucket + 1);
         if (other.algorithm.get(otherBucket) == LINEAR_COUNTING) {
-            final IntArray values = other.hashSet.values(otherBucket);
-            try {
-                for (long i = 0; i < values.size(); ++i) {
-                    final int encoded = values.get(i);
-                    if (algorithm.get(thisBucket) == LINEAR_COUNTING) {
-                        collectLcEncoded(thisBucket, encoded);
-                    } else {
-                        collectHllEncoded(thisBucket, encoded);
-                    }
-                }
-            } finally {
-                Releasables.close(values);
-            }
+            mergeLc(thisBucket, other, otherBucket);
         } else {
             if (algorithm.get(thisBucket) != HYPERLOGLOG) {
                 upgradeToHll(thisBucket);
             }
-            final long thisStart = thisBucket << p;
-            final long otherStart = otherBucket << p;
-            for (int i = 0; i < m; ++i) {
-                runLens.set(thisStart + i, (byte) Math.max(runLens.get(thisStart + i), other.runLens.get(otherStart + i)));
+            mergeHll(thisBucket, other, otherBucket);
+        }
+    }
+
+    /**
+     * Merge the linear counting hash set of <code>otherBucket</code> by reading its table in a single slice instead of
+     * copying its values to a temporary array first.
+     */
+    private void mergeLc(long thisBucket, HyperLogLogPlusPlus other, long otherBucket) {
+        if (other.hashSet.size(otherBucket) == 0) {
+            return;
+        }
+        final BytesRef table = new BytesRef();
+        // the slice may be a reference to the other counter's storage, which we only read from
+        other.runLens.get(otherBucket << p, m, table);
+        for (int i = 0; i < hashSet.capacity; ++i) {
+            final int encoded = UnsafeUtils.readIntLE(table.bytes, table.offset + (i << 2));
+            if (encoded != 0) {
+                if (algorithm.get(thisBucket) == LINEAR_COUNTING) {
+                    collectLcEncoded(thisBucket, encoded);
+                } else {
+                    collectHllEncoded(thisBucket, encoded);
+                }
             }
         }
     }
 
+    /**
+     * Merge the registers of <code>otherBucket</code> page by page so that the inner loop runs on plain byte arrays.
+     */
+    private void mergeHll(long thisBucket, HyperLogLogPlusPlus other, long otherBucket) {
+        final long thisStart = thisBucket << p;
+        final long otherStart = otherBucket << p;
+        final int chunkSize = Math.min(m, BigArrays.BYTE_PAGE_SIZE);
+        final byte[] merged = mergeSpare(chunkSize);
+        final BytesRef thisChunk = new BytesRef();
+        final BytesRef otherChunk = new BytesRef();
+        for (int offset = 0; offset < m; offset += chunkSize) {
+            runLens.get(thisStart + offset, chunkSize, thisChunk);
+            other.runLens.get(otherStart + offset, chunkSize, otherChunk);
+            if (max(thisChunk.bytes, thisChunk.offset, otherChunk.bytes, otherChunk.offset, merged, chunkSize)) {
+                runLens.set(thisStart + offset, merged, 0, chunkSize);
+            }
+        }
+    }
+
+    private byte[] mergeSpare(int size) {
+        if (mergeSpare == null || mergeSpare.length < size) {
+            mergeSpare = new byte[size];
+        }
+        return mergeSpare;
+    }
+
+    /**
+     * Write the element-wise maximum of <code>a</code> and <code>b</code> to <code>dest</code> and return whether it is
+     * different from <code>a</code>.
+     */
+    static boolean max(byte[] a, int aOffset, byte[] b, int bOffset, byte[] dest, int len) {
+        boolean changed = false;
+        for (int i = 0; i < len; ++i) {
+            final byte x = a[aOffset + i];
+            final byte y = b[bOffset + i];
+            dest[i] = x >= y ? x : y;
+            changed |= y > x;
+        }
+        return changed;
+    }
+
     public void collect(long bucket, long hash) {
         ensureCapacity(bucket + 1);
         if (algorithm.get(bucket) == LINEAR_COUNTING) {
@@ -510,34 +560,132 @@ public final class HyperLogLogPlusPlus implements Releasable {
         if (algorithm.get(bucket) == LINEAR_COUNTING) {
             out.writeBoolean(LINEAR_COUNTING);
             try (IntArray hashes = hashSet.values(bucket)) {
-                out.writeVLong(hashes.size());
-                for (long i = 0; i < hashes.size(); ++i) {
-                    out.writeInt(hashes.get(i));
+                if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+                    writeSortedHashes(hashes, out);
+                } else {
+                    out.writeVLong(hashes.size());
+                    for (long i = 0; i < hashes.size(); ++i) {
+                        out.writeInt(hashes.get(i));
+                    }
                 }
             }
         } else {
             out.writeBoolean(HYPERLOGLOG);
-            for (long i = bucket << p, end = i + m; i < end; ++i) {
-                out.writeByte(runLens.get(i));
+            if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+                writePackedRunLens(bucket, out);
+            } else {
+                for (long i = bucket << p, end = i + m; i < end; ++i) {
+                    out.writeByte(runLens.get(i));
+                }
             }
         }
     }
 
+    /**
+     * Write the encoded hashes of a linear counting set as deltas between the sorted (unsigned) hashes.
+     */
+    private static void writeSortedHashes(IntArray hashes, StreamOutput out) throws IOException {
+        final long[] sorted = new long[(int) hashes.size()];
+        for (int i = 0; i < sorted.length; ++i) {
+            sorted[i] = hashes.get(i) & 0xFFFFFFFFL;
+        }
+        Arrays.sort(sorted);
+        out.writeVInt(sorted.length);
+        long previous = 0;
+        for (long hash : sorted) {
+            out.writeVLong(hash - previous);
+            previous = hash;
+        }
+    }
+
+    private static void readSortedHashes(HyperLogLogPlusPlus counts, StreamInput in) throws IOException {
+        final int size = in.readVInt();
+        long hash = 0;
+        for (int i = 0; i < size; ++i) {
+            hash += in.readVLong();
+            counts.hashSet.add(0, (int) hash);
+        }
+    }
+
+    /**
+     * Write the registers of a bucket using as many bits per register as required by the largest run length.
+     */
+    private void writePackedRunLens(long bucket, StreamOutput out) throws IOException {
+        final BytesRef registers = new BytesRef();
+        runLens.get(bucket << p, m, registers);
+        int maxRunLen = 0;
+        for (int i = 0; i < m; ++i) {
+            maxRunLen = Math.max(maxRunLen, registers.bytes[registers.offset + i]);
+        }
+        final int bitsPerValue = maxRunLen == 0 ? 0 : PackedInts.bitsRequired(maxRunLen);
+        out.writeByte((byte) bitsPerValue);
+        if (bitsPerValue == 0) {
+            return;
+        }
+        // m is a multiple of 8 so registers never straddle the last byte
+        final byte[] packed = new byte[(m * bitsPerValue) >>> 3];
+        long buffer = 0;
+        int bufferedBits = 0;
+        int o = 0;
+        for (int i = 0; i < m; ++i) {
+            buffer = (buffer << bitsPerValue) | registers.bytes[registers.offset + i];
+            bufferedBits += bitsPerValue;
+            while (bufferedBits >= 8) {
+                bufferedBits -= 8;
+                packed[o++] = (byte) (buffer >>> bufferedBits);
+            }
+        }
+        assert o == packed.length && bufferedBits == 0;
+        out.writeBytes(packed);
+    }
+
+    private static void readPackedRunLens(HyperLogLogPlusPlus counts, StreamInput in) throws IOException {
+        final int bitsPerValue = in.readByte();
+        if (bitsPerValue == 0) {
+            return;
+        }
+        final byte[] packed = new byte[(counts.m * bitsPerValue) >>> 3];
+        in.readBytes(packed, 0, packed.length);
+        final byte[] registers = new byte[counts.m];
+        final long valueMask = mask(bitsPerValue);
+        long buffer = 0;
+        int bufferedBits = 0;
+        int o = 0;
+        for (byte b : packed) {
+            buffer = (buffer << 8) | (b & 0xFF);
+            bufferedBits += 8;
+            while (bufferedBits >= bitsPerValue) {
+                bufferedBits -= bitsPerValue;
+                registers[o++] = (byte) ((buffer >>> bufferedBits) & valueMask);
+            }
+        }
+        assert o == registers.length;
+        counts.runLens.set(0, registers, 0, registers.length);
+    }
+
     public static HyperLogLogPlusPlus readFrom(StreamInput in, BigArrays bigArrays) throws IOException {
         final int precision = in.readVInt();
         HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, bigArrays, 1);
         final boolean algorithm = in.readBoolean();
         if (algorithm == LINEAR_COUNTING) {
             counts.algorithm.clear(0);
-            final long size = in.readVLong();
-            for (long i = 0; i < size; ++i) {
-                final int encoded = in.readInt();
-                counts.hashSet.add(0, encoded);
+            if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+                readSortedHashes(counts, in);
+            } else {
+                final long size = in.readVLong();
+                for (long i = 0; i < size; ++i) {
+                    final int encoded = in.readInt();
+                    counts.hashSet.add(0, encoded);
+                }
             }
         } else {
             counts.algorithm.set(0);
-            for (int i = 0; i < counts.m; ++i) {
-                counts.runLens.set(i, in.readByte());
+            if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+                readPackedRunLens(counts, in);
+            } else {
+                for (int i = 0; i < counts.m; ++i) {
+                    counts.runLens.set(i, in.readByte());
+                }
             }
         }
         return counts;
@@ -49,6 +49,8 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
     }
 
     private HyperLogLogPlusPlus counts;
+    // true if counts has been deserialized, in which case nothing else references it and it can be reused by reduce
+    private boolean reusableCounts;
 
     InternalCardinality(String name, HyperLogLogPlusPlus counts) {
         super(name);
@@ -79,6 +81,7 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
         valueFormatter = ValueFormatterStreams.readOptional(in);
         if (in.readBoolean()) {
             counts = HyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE);
+            reusableCounts = true;
         } else {
             counts = null;
         }
@@ -104,6 +107,12 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
             final InternalCardinality cardinality = (InternalCardinality) aggregation;
             if (cardinality.counts != null) {
                 if (reduced == null) {
+                    if (cardinality.reusableCounts) {
+                        // merge into the first deserialized counter rather than allocating a new one for every reduce
+                        cardinality.reusableCounts = false;
+                        reduced = new InternalCardinality(name, cardinality.counts);
+                        continue;
+                    }
                     reduced = new InternalCardinality(name, new HyperLogLogPlusPlus(cardinality.counts.precision(), BigArrays.NON_RECYCLING_INSTANCE, 1));
                 }
                 reduced.merge(cardinality);
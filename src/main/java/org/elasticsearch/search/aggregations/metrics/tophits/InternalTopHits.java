@@ -104,7 +104,8 @@ public class InternalTopHits extends InternalMetricsAggregation implements TopHi
 
         try {
             int[] tracker = new int[shardHits.length];
-            TopDocs reducedTopDocs = TopDocs.merge(sort, from, size, shardDocs);
+            // partial reduces keep the top from + size hits, the from offset is only applied by the final reduce
+            TopDocs reducedTopDocs = reduceContext.isFinalReduce() ? TopDocs.merge(sort, from, size, shardDocs) : TopDocs.merge(sort, 0, from + size, shardDocs);
             InternalSearchHit[] hits = new InternalSearchHit[reducedTopDocs.scoreDocs.length];
             for (int i = 0; i < reducedTopDocs.scoreDocs.length; i++) {
                 ScoreDoc scoreDoc = reducedTopDocs.scoreDocs[i];
@@ -114,7 +115,11 @@ public class InternalTopHits extends InternalMetricsAggregation implements TopHi
                 } while (shardDocs[scoreDoc.shardIndex].scoreDocs[position] != scoreDoc);
                 hits[i] = (InternalSearchHit) shardHits[scoreDoc.shardIndex].getAt(position);
             }
-            return new InternalTopHits(name, new InternalSearchHits(hits, reducedTopDocs.totalHits, reducedTopDocs.getMaxScore()));
+            InternalSearchHits reducedHits = new InternalSearchHits(hits, reducedTopDocs.totalHits, reducedTopDocs.getMaxScore());
+            if (reduceContext.isFinalReduce()) {
+                return new InternalTopHits(name, reducedHits);
+            }
+            return new InternalTopHits(name, from, size, sort, reducedTopDocs, reducedHits);
         } catch (IOException e) {
             throw ExceptionsHelper.convertToElastic(e);
         }
@@ -170,7 +170,7 @@ public class TopHitsContext extends SearchContext {
     }
 
     @Override
-    public long nowInMillis() {
+    protected long nowInMillisImpl() {
         return context.nowInMillis();
     }
 
@@ -399,6 +399,26 @@ public class TopHitsContext extends SearchContext {
         return trackScores;
     }
 
+    @Override
+    public SearchContext searchAfter(Object[] searchAfter) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    @Override
+    public Object[] searchAfter() {
+        return null;
+    }
+
+    @Override
+    public SearchContext sliceFilter(Filter sliceFilter) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    @Override
+    public Filter sliceFilter() {
+        return null;
+    }
+
     @Override
     public SearchContext parsedPostFilter(ParsedFilter postFilter) {
         throw new UnsupportedOperationException("Not supported");
@@ -41,6 +41,7 @@ import org.elasticsearch.search.facet.FacetBuilder;
 import org.elasticsearch.search.fetch.source.FetchSourceContext;
 import org.elasticsearch.search.highlight.HighlightBuilder;
 import org.elasticsearch.search.rescore.RescoreBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
@@ -94,6 +95,10 @@ public class SearchSourceBuilder implements ToXContent {
 
     private boolean trackScores = false;
 
+    private Object[] searchAfter;
+
+    private SliceBuilder slice;
+
     private Float minScore;
 
     private long timeoutInMillis = -1;
@@ -347,6 +352,23 @@ public class SearchSourceBuilder implements ToXContent {
         return this;
     }
 
+    /**
+     * Continues the search after the hit with the provided sort values, one value per sort, or only the score
+     * when sorting by relevance. Allows to page through the hits without a scroll, <tt>from</tt> must be 0.
+     */
+    public SearchSourceBuilder searchAfter(Object... searchAfter) {
+        this.searchAfter = searchAfter;
+        return this;
+    }
+
+    /**
+     * Restricts the scroll to one slice of the documents, see {@link SliceBuilder}.
+     */
+    public SearchSourceBuilder slice(SliceBuilder slice) {
+        this.slice = slice;
+        return this;
+    }
+
     /**
      * Add a facet to perform as part of the search.
      */
@@ -861,6 +883,19 @@ public class SearchSourceBuilder implements ToXContent {
             builder.field("track_scores", trackScores);
         }
 
+        if (searchAfter != null) {
+            builder.startArray("search_after");
+            for (Object value : searchAfter) {
+                builder.value(value);
+            }
+            builder.endArray();
+        }
+
+        if (slice != null) {
+            builder.field("slice");
+            slice.toXContent(builder, params);
+        }
+
         if (indexBoost != null) {
             builder.startObject("indices_boost");
             final boolean[] states = indexBoost.allocated;
@@ -24,6 +24,7 @@ import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
 import com.google.common.collect.Lists;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.*;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.cache.recycler.CacheRecycler;
 import org.elasticsearch.common.collect.HppcMaps;
@@ -72,6 +73,7 @@ public class SearchPhaseController extends AbstractComponent {
     private final CacheRecycler cacheRecycler;
     private final BigArrays bigArrays;
     private final boolean optimizeSingleShard;
+    private final int batchedReduceSize;
 
     @Inject
     public SearchPhaseController(Settings settings, CacheRecycler cacheRecycler, BigArrays bigArrays) {
@@ -79,12 +81,149 @@ public class SearchPhaseController extends AbstractComponent {
         this.cacheRecycler = cacheRecycler;
         this.bigArrays = bigArrays;
         this.optimizeSingleShard = componentSettings.getAsBoolean("optimize_single_shard", true);
+        this.batchedReduceSize = componentSettings.getAsInt("batched_reduce_size", 512);
     }
 
     public boolean optimizeSingleShard() {
         return optimizeSingleShard;
     }
 
+    /**
+     * Creates a consumer that partially reduces the query results of the given request as they are added to
+     * <code>results</code>.
+     */
+    public QueryResultConsumer newQueryResultConsumer(SearchRequest request, AtomicArray<? extends QuerySearchResultProvider> results) {
+        final int batchSize = request.batchedReduceSize() == -1 ? batchedReduceSize : request.batchedReduceSize();
+        // scroll requests need all the hits of every shard to compute the last emitted doc of each shard
+        return new QueryResultConsumer(results, batchSize, request.scroll() == null);
+    }
+
+    /**
+     * Partially reduces query results in batches, as they arrive, so that the coordinating node does not need to hold
+     * the aggregations and top docs of all shards until the last one has responded. Every batch of results is reduced
+     * together with the result of the previous partial reduce:
+     * <ul>
+     * <li>aggregations are reduced into the first result that has aggregations, those of the other results are released,</li>
+     * <li>the top docs of every result are truncated to the hits that are still competitive for the top <code>from + size</code>.</li>
+     * </ul>
+     * The final reduce, done by {@link #sortDocs} and {@link #merge}, is then performed on the partially reduced results.
+     */
+    public class QueryResultConsumer {
+
+        private final AtomicArray<? extends QuerySearchResultProvider> results;
+        private final int batchSize;
+        private final boolean reduceTopDocs;
+        private final IntArrayList pending = new IntArrayList();
+        // the index of the result that holds the partially reduced aggregations, -1 if there is none yet
+        private int reducedAggregationsIndex = -1;
+        private int numPartialReduces;
+
+        QueryResultConsumer(AtomicArray<? extends QuerySearchResultProvider> results, int batchSize, boolean reduceTopDocs) {
+            this.results = results;
+            this.batchSize = batchSize;
+            this.reduceTopDocs = reduceTopDocs;
+        }
+
+        /**
+         * Must be called once the result of the given shard has been added to the results, and before the last result is
+         * accounted for so that partial reduces never run concurrently with the final reduce.
+         */
+        public synchronized void consume(int shardIndex) {
+            if (results.length() <= batchSize) {
+                // all results fit in a single batch, just wait for the final reduce
+                return;
+            }
+            pending.add(shardIndex);
+            if (pending.size() >= batchSize) {
+                partialReduce();
+                pending.clear();
+            }
+        }
+
+        /**
+         * Returns the number of partial reduces that have been performed.
+         */
+        public synchronized int getNumPartialReduces() {
+            return numPartialReduces;
+        }
+
+        private void partialReduce() {
+            ++numPartialReduces;
+            reduceAggregations();
+            final QuerySearchResult first = results.get(pending.get(0)).queryResult();
+            if (reduceTopDocs && !first.includeFetch()) {
+                reduceTopDocs(first.from() + first.size());
+            }
+        }
+
+        private void reduceAggregations() {
+            final List<InternalAggregations> aggregationsList = new ArrayList<>(pending.size() + 1);
+            QuerySearchResult holder = null;
+            if (reducedAggregationsIndex != -1) {
+                holder = results.get(reducedAggregationsIndex).queryResult();
+                aggregationsList.add((InternalAggregations) holder.aggregations());
+            }
+            for (int i = 0; i < pending.size(); ++i) {
+                final QuerySearchResult result = results.get(pending.get(i)).queryResult();
+                if (result.aggregations() == null) {
+                    continue;
+                }
+                aggregationsList.add((InternalAggregations) result.aggregations());
+                if (holder == null) {
+                    holder = result;
+                    reducedAggregationsIndex = pending.get(i);
+                } else {
+                    // release the shard aggregations as soon as they are reduced
+                    result.aggregations(null);
+                }
+            }
+            if (holder != null) {
+                holder.aggregations(InternalAggregations.reduce(aggregationsList, bigArrays, false));
+            }
+        }
+
+        private void reduceTopDocs(int topN) {
+            final TopDocs[] shardTopDocs = new TopDocs[results.length()];
+            Sort sort = null;
+            for (int i = 0; i < shardTopDocs.length; i++) {
+                final QuerySearchResultProvider result = results.get(i);
+                if (result == null) {
+                    // TopDocs#merge can't deal with null shard TopDocs
+                    shardTopDocs[i] = Lucene.EMPTY_TOP_DOCS;
+                } else {
+                    shardTopDocs[i] = result.queryResult().topDocs();
+                    if (sort == null && shardTopDocs[i] instanceof TopFieldDocs) {
+                        sort = new Sort(((TopFieldDocs) shardTopDocs[i]).fields);
+                    }
+                }
+            }
+            final TopDocs merged;
+            try {
+                merged = TopDocs.merge(sort, 0, topN, shardTopDocs);
+            } catch (IOException e) {
+                throw ExceptionsHelper.convertToElastic(e);
+            }
+            // the competitive hits of a shard are a prefix of its hits, only keep those
+            final int[] competitive = new int[shardTopDocs.length];
+            for (ScoreDoc scoreDoc : merged.scoreDocs) {
+                ++competitive[scoreDoc.shardIndex];
+            }
+            for (int i = 0; i < shardTopDocs.length; i++) {
+                if (competitive[i] < shardTopDocs[i].scoreDocs.length) {
+                    results.get(i).queryResult().topDocs(truncate(shardTopDocs[i], competitive[i]));
+                }
+            }
+        }
+
+        private TopDocs truncate(TopDocs topDocs, int length) {
+            final ScoreDoc[] scoreDocs = Arrays.copyOf(topDocs.scoreDocs, length);
+            if (topDocs instanceof TopFieldDocs) {
+                return new TopFieldDocs(topDocs.totalHits, scoreDocs, ((TopFieldDocs) topDocs).fields, topDocs.getMaxScore());
+            }
+            return new TopDocs(topDocs.totalHits, scoreDocs, topDocs.getMaxScore());
+        }
+    }
+
     public AggregatedDfs aggregateDfs(AtomicArray<DfsSearchResult> results) {
         ObjectObjectOpenHashMap<Term, TermStatistics> termStatistics = HppcMaps.newNoNullKeysMap();
         ObjectObjectOpenHashMap<String, CollectionStatistics> fieldStatistics = HppcMaps.newNoNullKeysMap();
@@ -318,11 +457,19 @@ public class SearchPhaseController extends AbstractComponent {
         long totalHits = 0;
         float maxScore = Float.NEGATIVE_INFINITY;
         boolean timedOut = false;
+        Boolean terminatedEarly = null;
         for (AtomicArray.Entry<? extends QuerySearchResultProvider> entry : queryResults) {
             QuerySearchResult result = entry.value.queryResult();
             if (result.searchTimedOut()) {
                 timedOut = true;
             }
+            if (result.terminatedEarly() != null) {
+                if (terminatedEarly == null) {
+                    terminatedEarly = result.terminatedEarly();
+                } else if (result.terminatedEarly()) {
+                    terminatedEarly = true;
+                }
+            }
             totalHits += result.topDocs().totalHits;
             if (!Float.isNaN(result.topDocs().getMaxScore())) {
                 maxScore = Math.max(maxScore, result.topDocs().getMaxScore());
@@ -386,18 +533,22 @@ public class SearchPhaseController extends AbstractComponent {
         // merge addAggregation
         InternalAggregations aggregations = null;
         if (!queryResults.isEmpty()) {
-            if (firstResult.aggregations() != null && firstResult.aggregations().asList() != null) {
-                List<InternalAggregations> aggregationsList = new ArrayList<>(queryResults.size());
-                for (AtomicArray.Entry<? extends QuerySearchResultProvider> entry : queryResults) {
-                    aggregationsList.add((InternalAggregations) entry.value.queryResult().aggregations());
+            List<InternalAggregations> aggregationsList = new ArrayList<>(queryResults.size());
+            for (AtomicArray.Entry<? extends QuerySearchResultProvider> entry : queryResults) {
+                // the aggregations of partially reduced results have been released, see QueryResultConsumer
+                InternalAggregations shardAggregations = (InternalAggregations) entry.value.queryResult().aggregations();
+                if (shardAggregations != null && shardAggregations.asList() != null) {
+                    aggregationsList.add(shardAggregations);
                 }
+            }
+            if (!aggregationsList.isEmpty()) {
                 aggregations = InternalAggregations.reduce(aggregationsList, bigArrays);
             }
         }
 
         InternalSearchHits searchHits = new InternalSearchHits(hits.toArray(new InternalSearchHit[hits.size()]), totalHits, maxScore);
 
-        return new InternalSearchResponse(searchHits, facets, aggregations, suggest, timedOut);
+        return new InternalSearchResponse(searchHits, facets, aggregations, suggest, timedOut, terminatedEarly);
     }
 
 }
@@ -22,6 +22,7 @@ package org.elasticsearch.search.fetch;
 import com.google.common.collect.ImmutableMap;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.util.InPlaceMergeSorter;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.text.StringAndBytesText;
@@ -150,7 +151,15 @@ public class FetchPhase implements SearchPhase {
 
         InternalSearchHit[] hits = new InternalSearchHit[context.docIdsToLoadSize()];
         FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
-        for (int index = 0; index < context.docIdsToLoadSize(); index++) {
+        boolean[] hitExecutionNeeded = new boolean[fetchSubPhases.length];
+        for (int i = 0; i < fetchSubPhases.length; i++) {
+            hitExecutionNeeded[i] = fetchSubPhases[i].hitExecutionNeeded(context);
+        }
+        long[] fetchSubPhaseTimesInNanos = new long[fetchSubPhases.length];
+        List<AtomicReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        AtomicReaderContext subReaderContext = null;
+        // load the hits in doc id order, so that stored fields are read sequentially and each segment is only set once
+        for (int index : docIdsOrder(context)) {
             int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
 
             loadStoredFields(context, fieldsVisitor, docId);
@@ -175,12 +184,13 @@ public class FetchPhase implements SearchPhase {
 
             hits[index] = searchHit;
 
-            int readerIndex = ReaderUtil.subIndex(docId, context.searcher().getIndexReader().leaves());
-            AtomicReaderContext subReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
+            if (subReaderContext == null || docId >= subReaderContext.docBase + subReaderContext.reader().maxDoc()) {
+                subReaderContext = leaves.get(ReaderUtil.subIndex(docId, leaves));
+                context.lookup().setNextReader(subReaderContext);
+            }
             int subDoc = docId - subReaderContext.docBase;
 
             // go over and extract fields that are not mapped / stored
-            context.lookup().setNextReader(subReaderContext);
             context.lookup().setNextDocId(subDoc);
             if (fieldsVisitor.source() != null) {
                 context.lookup().source().setNextSource(fieldsVisitor.source());
@@ -206,22 +216,64 @@ public class FetchPhase implements SearchPhase {
             }
 
             hitContext.reset(searchHit, subReaderContext, subDoc, context.searcher().getIndexReader(), docId, fieldsVisitor);
-            for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
-                if (fetchSubPhase.hitExecutionNeeded(context)) {
-                    fetchSubPhase.hitExecute(context, hitContext);
+            for (int i = 0; i < fetchSubPhases.length; i++) {
+                if (hitExecutionNeeded[i]) {
+                    long start = System.nanoTime();
+                    fetchSubPhases[i].hitExecute(context, hitContext);
+                    fetchSubPhaseTimesInNanos[i] += System.nanoTime() - start;
                 }
             }
         }
 
-        for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
-            if (fetchSubPhase.hitsExecutionNeeded(context)) {
-                fetchSubPhase.hitsExecute(context, hits);
+        for (int i = 0; i < fetchSubPhases.length; i++) {
+            if (fetchSubPhases[i].hitsExecutionNeeded(context)) {
+                long start = System.nanoTime();
+                fetchSubPhases[i].hitsExecute(context, hits);
+                fetchSubPhaseTimesInNanos[i] += System.nanoTime() - start;
+            }
+        }
+        for (int i = 0; i < fetchSubPhases.length; i++) {
+            if (fetchSubPhaseTimesInNanos[i] > 0) {
+                context.indexShard().searchService().onFetchSubPhase(fetchSubPhases[i].name(), fetchSubPhaseTimesInNanos[i]);
             }
         }
 
         context.fetchResult().hits(new InternalSearchHits(hits, context.queryResult().topDocs().totalHits, context.queryResult().topDocs().getMaxScore()));
     }
 
+    /**
+     * Returns the indices of the docs to load, sorted by doc id.
+     */
+    private static int[] docIdsOrder(SearchContext context) {
+        final int[] docIds = context.docIdsToLoad();
+        final int from = context.docIdsToLoadFrom();
+        final int size = context.docIdsToLoadSize();
+        final int[] order = new int[size];
+        boolean sorted = true;
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            if (i > 0 && docIds[from + i] < docIds[from + i - 1]) {
+                sorted = false;
+            }
+        }
+        if (!sorted) {
+            new InPlaceMergeSorter() {
+                @Override
+                protected int compare(int i, int j) {
+                    return Integer.compare(docIds[from + order[i]], docIds[from + order[j]]);
+                }
+
+                @Override
+                protected void swap(int i, int j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                }
+            }.sort(0, size);
+        }
+        return order;
+    }
+
     private void loadStoredFields(SearchContext context, FieldsVisitor fieldVisitor, int docId) {
         fieldVisitor.reset();
         try {
@@ -101,6 +101,11 @@ public interface FetchSubPhase {
         }
     }
 
+    /**
+     * The name the time spent in this sub phase is reported under in the search stats.
+     */
+    String name();
+
     Map<String, ? extends SearchParseElement> parseElements();
 
     boolean hitExecutionNeeded(SearchContext context);
@@ -36,6 +36,11 @@ import java.util.Map;
  */
 public class ExplainFetchSubPhase implements FetchSubPhase {
 
+    @Override
+    public String name() {
+        return "explain";
+    }
+
     @Override
     public Map<String, ? extends SearchParseElement> parseElements() {
         return ImmutableMap.of("explain", new ExplainParseElement());
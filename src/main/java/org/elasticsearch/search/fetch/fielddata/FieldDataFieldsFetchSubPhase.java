@@ -47,6 +47,11 @@ public class FieldDataFieldsFetchSubPhase implements FetchSubPhase {
     public FieldDataFieldsFetchSubPhase() {
     }
 
+    @Override
+    public String name() {
+        return "fielddata_fields";
+    }
+
     @Override
     public Map<String, ? extends SearchParseElement> parseElements() {
         ImmutableMap.Builder<String, SearchParseElement> parseElements = ImmutableMap.builder();
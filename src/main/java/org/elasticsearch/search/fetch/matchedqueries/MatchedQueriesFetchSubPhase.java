@@ -41,6 +41,11 @@ import java.util.Map;
  */
 public class MatchedQueriesFetchSubPhase implements FetchSubPhase {
 
+    @Override
+    public String name() {
+        return "matched_queries";
+    }
+
     @Override
     public Map<String, ? extends SearchParseElement> parseElements() {
         return ImmutableMap.of();
@@ -42,6 +42,11 @@ public class PartialFieldsFetchSubPhase implements FetchSubPhase {
 
     }
 
+    @Override
+    public String name() {
+        return "partial_fields";
+    }
+
     @Override
     public Map<String, ? extends SearchParseElement> parseElements() {
         ImmutableMap.Builder<String, SearchParseElement> parseElements = ImmutableMap.builder();
@@ -41,6 +41,11 @@ public class ScriptFieldsFetchSubPhase implements FetchSubPhase {
     public ScriptFieldsFetchSubPhase() {
     }
 
+    @Override
+    public String name() {
+        return "script_fields";
+    }
+
     @Override
     public Map<String, ? extends SearchParseElement> parseElements() {
         ImmutableMap.Builder<String, SearchParseElement> parseElements = ImmutableMap.builder();
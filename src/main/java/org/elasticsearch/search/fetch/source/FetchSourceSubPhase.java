@@ -41,6 +41,11 @@ public class FetchSourceSubPhase implements FetchSubPhase {
 
     }
 
+    @Override
+    public String name() {
+        return "source";
+    }
+
     @Override
     public Map<String, ? extends SearchParseElement> parseElements() {
         ImmutableMap.Builder<String, SearchParseElement> parseElements = ImmutableMap.builder();
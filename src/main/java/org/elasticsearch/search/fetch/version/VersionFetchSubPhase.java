@@ -36,6 +36,11 @@ import java.util.Map;
  */
 public class VersionFetchSubPhase implements FetchSubPhase {
 
+    @Override
+    public String name() {
+        return "version";
+    }
+
     @Override
     public Map<String, ? extends SearchParseElement> parseElements() {
         return ImmutableMap.of("version", new VersionParseElement());
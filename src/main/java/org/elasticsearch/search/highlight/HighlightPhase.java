@@ -55,6 +55,11 @@ public class HighlightPhase extends AbstractComponent implements FetchSubPhase {
         this.highlighters = highlighters;
     }
 
+    @Override
+    public String name() {
+        return "highlight";
+    }
+
     @Override
     public Map<String, ? extends SearchParseElement> parseElements() {
         return ImmutableMap.of("highlight", new HighlighterParseElement());
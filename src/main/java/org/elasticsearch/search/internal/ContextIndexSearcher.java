@@ -21,6 +21,8 @@ package org.elasticsearch.search.internal;
 
 import org.apache.lucene.index.AtomicReaderContext;
 import org.apache.lucene.search.*;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.lucene.MinimumScoreCollector;
@@ -28,6 +30,7 @@ import org.elasticsearch.common.lucene.MultiCollector;
 import org.elasticsearch.common.lucene.search.FilteredCollector;
 import org.elasticsearch.common.lucene.search.XCollector;
 import org.elasticsearch.common.lucene.search.XFilteredQuery;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.search.dfs.CachedDfSource;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
@@ -35,6 +38,11 @@ import org.elasticsearch.search.internal.SearchContext.Lifetime;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -62,6 +70,9 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
     private boolean enableMainDocIdSetCollector;
     private DocIdSetCollector mainDocIdSetCollector;
 
+    private Executor concurrentExecutor;
+    private int maxConcurrentSlices = 1;
+
     public ContextIndexSearcher(SearchContext searchContext, Engine.Searcher searcher) {
         super(searcher.reader());
         in = searcher.searcher();
@@ -90,6 +101,13 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         queryCollectors.add(collector);
     }
 
+    /**
+     * Whether collectors other than the top docs collector run on the main query, eg. for facets or aggregations.
+     */
+    public boolean hasMainQueryCollectors() {
+        return enableMainDocIdSetCollector || (queryCollectors != null && !queryCollectors.isEmpty());
+    }
+
     public DocIdSetCollector mainDocIdSetCollector() {
         return this.mainDocIdSetCollector;
     }
@@ -98,6 +116,17 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         this.enableMainDocIdSetCollector = true;
     }
 
+    /**
+     * Allows the main query to be executed concurrently over up to <tt>maxSlices</tt> slices of segments using the given
+     * executor. This only applies to requests that just collect top docs, other requests (eg. with aggregations or facets,
+     * whose collectors are not thread-safe, or with queries and sorts that disabled concurrent search on the search
+     * context because they keep per segment state) keep on being executed on the calling thread.
+     */
+    public void concurrentSearch(Executor executor, int maxSlices) {
+        this.concurrentExecutor = executor;
+        this.maxConcurrentSlices = maxSlices;
+    }
+
     public void inStage(Stage stage) {
         this.currentState = stage;
     }
@@ -165,15 +194,7 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
 
         // we only compute the doc id set once since within a context, we execute the same query always...
         try {
-            if (searchContext.timeoutInMillis() != -1) {
-                try {
-                    super.search(leaves, weight, collector);
-                } catch (TimeLimitingCollector.TimeExceededException e) {
-                    searchContext.queryResult().searchTimedOut(true);
-                }
-            } else {
-                super.search(leaves, weight, collector);
-            }
+            searchLeaves(leaves, weight, collector);
 
             if (currentState == Stage.MAIN_QUERY) {
                 if (enableMainDocIdSetCollector) {
@@ -193,6 +214,202 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         }
     }
 
+    /**
+     * Searches the given leaves with a collector that is already time limited if the request has a timeout.
+     */
+    private void searchLeaves(List<AtomicReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+        try {
+            super.search(leaves, weight, collector);
+        } catch (TimeLimitingCollector.TimeExceededException e) {
+            searchContext.queryResult().searchTimedOut(true);
+        }
+    }
+
+    @Override
+    protected TopDocs search(final Weight weight, final ScoreDoc after, int nDocs) throws IOException {
+        final List<AtomicReaderContext> leaves = getIndexReader().leaves();
+        if (!canSearchConcurrently(leaves)) {
+            return super.search(weight, after, nDocs);
+        }
+        final int limit = Math.max(1, getIndexReader().maxDoc());
+        if (after != null && after.doc >= limit) {
+            throw new IllegalArgumentException("after.doc exceeds the number of documents in the reader: after.doc=" + after.doc + " limit=" + limit);
+        }
+        final int numHits = Math.min(nDocs, limit);
+        final TopDocs[] sliceTopDocs = searchSlices(leaves, weight, new SliceCollectorFactory() {
+            @Override
+            public TopDocsCollector<?> newCollector() throws IOException {
+                return TopScoreDocCollector.create(numHits, after, !weight.scoresDocsOutOfOrder());
+            }
+        });
+        return mergeSlices(null, numHits, sliceTopDocs);
+    }
+
+    @Override
+    protected TopFieldDocs search(final Weight weight, final FieldDoc after, int nDocs, final Sort sort, final boolean fillFields,
+                                  final boolean doDocScores, final boolean doMaxScore) throws IOException {
+        final List<AtomicReaderContext> leaves = getIndexReader().leaves();
+        // slices can only be merged if the sort values are available
+        if (!fillFields || !canSearchConcurrently(leaves)) {
+            return super.search(weight, after, nDocs, sort, fillFields, doDocScores, doMaxScore);
+        }
+        final int numHits = Math.min(nDocs, Math.max(1, getIndexReader().maxDoc()));
+        final TopDocs[] sliceTopDocs = searchSlices(leaves, weight, new SliceCollectorFactory() {
+            @Override
+            public TopDocsCollector<?> newCollector() throws IOException {
+                return TopFieldCollector.create(sort, numHits, after, fillFields, doDocScores, doMaxScore, !weight.scoresDocsOutOfOrder());
+            }
+        });
+        return (TopFieldDocs) mergeSlices(sort, numHits, sliceTopDocs);
+    }
+
+    private boolean canSearchConcurrently(List<AtomicReaderContext> leaves) {
+        return concurrentExecutor != null && maxConcurrentSlices > 1 && leaves.size() > 1
+                && currentState == Stage.MAIN_QUERY
+                && !enableMainDocIdSetCollector
+                && (queryCollectors == null || queryCollectors.isEmpty())
+                && searchContext.parsedPostFilter() == null
+                && searchContext.minimumScore() == null
+                && !searchContext.concurrentSearchDisabled();
+    }
+
+    /**
+     * Splits the leaves into at most {@link #maxConcurrentSlices} slices of contiguous leaves that have about the same
+     * number of documents. Keeping leaves contiguous makes ties across slices resolved by doc id, like a sequential search.
+     */
+    List<List<AtomicReaderContext>> slices(List<AtomicReaderContext> leaves) {
+        final int numSlices = Math.min(maxConcurrentSlices, leaves.size());
+        long totalDocs = 0;
+        for (AtomicReaderContext leaf : leaves) {
+            totalDocs += leaf.reader().maxDoc();
+        }
+        final List<List<AtomicReaderContext>> slices = new ArrayList<>(numSlices);
+        List<AtomicReaderContext> current = new ArrayList<>();
+        long accumulatedDocs = 0;
+        for (AtomicReaderContext leaf : leaves) {
+            current.add(leaf);
+            accumulatedDocs += leaf.reader().maxDoc();
+            if (slices.size() < numSlices - 1 && accumulatedDocs * numSlices >= totalDocs * (slices.size() + 1)) {
+                slices.add(current);
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            slices.add(current);
+        }
+        return slices;
+    }
+
+    private TopDocs[] searchSlices(List<AtomicReaderContext> leaves, final Weight weight, final SliceCollectorFactory collectorFactory) throws IOException {
+        final List<List<AtomicReaderContext>> slices = slices(leaves);
+        final List<FutureTask<TopDocs>> tasks = new ArrayList<>(slices.size());
+        final AtomicBoolean failed = new AtomicBoolean();
+        for (final List<AtomicReaderContext> slice : slices) {
+            tasks.add(new FutureTask<>(new Callable<TopDocs>() {
+                @Override
+                public TopDocs call() throws Exception {
+                    if (failed.get()) {
+                        // another slice failed already, the result is not going to be used
+                        return null;
+                    }
+                    // some queries look up the current context while they are executed
+                    final boolean forked = SearchContext.current() != searchContext;
+                    if (forked) {
+                        SearchContext.setCurrent(searchContext);
+                    }
+                    try {
+                        final TopDocsCollector<?> collector = collectorFactory.newCollector();
+                        searchSlice(slice, weight, collector);
+                        return collector.topDocs();
+                    } catch (Throwable t) {
+                        failed.set(true);
+                        throw t;
+                    } finally {
+                        if (forked) {
+                            SearchContext.removeCurrent();
+                        }
+                    }
+                }
+            }));
+        }
+        try {
+            for (int i = 1; i < tasks.size(); i++) {
+                try {
+                    concurrentExecutor.execute(tasks.get(i));
+                } catch (EsRejectedExecutionException e) {
+                    // the calling thread picks it up below
+                }
+            }
+            // the calling thread searches the first slice, and then every slice that no pool thread started yet so
+            // that it never waits behind slices of other requests. Running a task that already started is a no-op.
+            for (FutureTask<TopDocs> task : tasks) {
+                task.run();
+            }
+            return awaitSlices(tasks);
+        } finally {
+            // only release once no pool thread uses the reader of this context anymore
+            searchContext.clearReleasables(Lifetime.COLLECTION);
+        }
+    }
+
+    /**
+     * Waits for all slice tasks, even if one of them failed, and rethrows the first failure.
+     */
+    private static TopDocs[] awaitSlices(List<FutureTask<TopDocs>> tasks) throws IOException {
+        final TopDocs[] sliceTopDocs = new TopDocs[tasks.size()];
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (int i = 0; i < tasks.size(); i++) {
+            while (true) {
+                try {
+                    sliceTopDocs[i] = tasks.get(i).get();
+                    break;
+                } catch (InterruptedException e) {
+                    // keep waiting, the slice still holds on to the reader
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = ExceptionsHelper.unwrapCause(e.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            if (failure == null) {
+                throw new ThreadInterruptedException(new InterruptedException());
+            }
+        }
+        if (failure != null) {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            throw ExceptionsHelper.convertToRuntime(failure);
+        }
+        return sliceTopDocs;
+    }
+
+    private void searchSlice(List<AtomicReaderContext> slice, Weight weight, Collector collector) throws IOException {
+        if (searchContext.timeoutInMillis() != -1) {
+            collector = new TimeLimitingCollector(collector, TimeLimitingCollector.getGlobalCounter(), searchContext.timeoutInMillis());
+        }
+        searchLeaves(slice, weight, collector);
+    }
+
+    private static TopDocs mergeSlices(Sort sort, int numHits, TopDocs[] sliceTopDocs) throws IOException {
+        final TopDocs topDocs = TopDocs.merge(sort, numHits, sliceTopDocs);
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            // merging sets the slice index, which is not meaningful outside of this searcher
+            scoreDoc.shardIndex = -1;
+        }
+        return topDocs;
+    }
+
+    private static interface SliceCollectorFactory {
+        TopDocsCollector<?> newCollector() throws IOException;
+    }
+
     @Override
     public Explanation explain(Query query, int doc) throws IOException {
         try {
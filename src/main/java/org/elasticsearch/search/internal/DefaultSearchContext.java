@@ -25,6 +25,7 @@ import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.join.FixedBitSetCachingWrapperFilter;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.cache.recycler.CacheRecycler;
@@ -142,6 +143,10 @@ public class DefaultSearchContext extends SearchContext {
 
     private boolean trackScores = false; // when sorting, track scores as well...
 
+    private Object[] searchAfter;
+
+    private Filter sliceFilter;
+
     private ParsedQuery originalQuery;
 
     private Query query;
@@ -232,6 +237,11 @@ public class DefaultSearchContext extends SearchContext {
                 parsedQuery(new ParsedQuery(new XFilteredQuery(query(), searchFilter), parsedQuery()));
             }
         }
+        if (sliceFilter != null && sliceFilter != Queries.MATCH_ALL_FILTER) {
+            // the slice is applied on every page of the scroll, and the scroll keeps its reader, so the slice
+            // is computed once per segment for the whole context instead of relying on the node filter cache
+            parsedQuery(new ParsedQuery(new XFilteredQuery(query(), new FixedBitSetCachingWrapperFilter(sliceFilter)), parsedQuery()));
+        }
     }
 
     public Filter searchFilter(String[] types) {
@@ -293,7 +303,7 @@ public class DefaultSearchContext extends SearchContext {
         return this;
     }
 
-    public long nowInMillis() {
+    protected long nowInMillisImpl() {
         return request.nowInMillis();
     }
 
@@ -498,6 +508,28 @@ public class DefaultSearchContext extends SearchContext {
         return this.trackScores;
     }
 
+    @Override
+    public SearchContext searchAfter(Object[] searchAfter) {
+        this.searchAfter = searchAfter;
+        return this;
+    }
+
+    @Override
+    public Object[] searchAfter() {
+        return searchAfter;
+    }
+
+    @Override
+    public SearchContext sliceFilter(Filter sliceFilter) {
+        this.sliceFilter = sliceFilter;
+        return this;
+    }
+
+    @Override
+    public Filter sliceFilter() {
+        return sliceFilter;
+    }
+
     public SearchContext parsedPostFilter(ParsedFilter postFilter) {
         this.postFilter = postFilter;
         return this;
@@ -89,6 +89,10 @@ public abstract class SearchContext implements Releasable {
 
     private Multimap<Lifetime, Releasable> clearables = null;
 
+    private boolean nowInMillisUsed;
+
+    private boolean concurrentSearchDisabled;
+
     public final void close() {
         try {
             clearReleasables(Lifetime.CONTEXT);
@@ -128,7 +132,35 @@ public abstract class SearchContext implements Releasable {
 
     public abstract SearchContext queryBoost(float queryBoost);
 
-    public abstract long nowInMillis();
+    public final long nowInMillis() {
+        nowInMillisUsed = true;
+        return nowInMillisImpl();
+    }
+
+    /**
+     * Returns <tt>true</tt> if {@link #nowInMillis()} was accessed while building this context, in which case
+     * the result depends on the time the request was executed and can't be cached.
+     */
+    public final boolean nowInMillisUsed() {
+        return nowInMillisUsed;
+    }
+
+    protected abstract long nowInMillisImpl();
+
+    /**
+     * Prevents the main query from being searched over several slices of segments concurrently, because the query or
+     * sort of this request keeps per segment state, eg. in scripts, that slices running on other threads would overwrite.
+     */
+    public final void disableConcurrentSearch() {
+        concurrentSearchDisabled = true;
+    }
+
+    /**
+     * Returns <tt>true</tt> if {@link #disableConcurrentSearch()} was called while building this context.
+     */
+    public final boolean concurrentSearchDisabled() {
+        return concurrentSearchDisabled;
+    }
 
     public abstract Scroll scroll();
 
@@ -224,6 +256,22 @@ public abstract class SearchContext implements Releasable {
 
     public abstract boolean trackScores();
 
+    /**
+     * The sort values of the hit to continue the search after, <tt>null</tt> if the search starts from the top.
+     */
+    public abstract SearchContext searchAfter(Object[] searchAfter);
+
+    @Nullable
+    public abstract Object[] searchAfter();
+
+    /**
+     * The filter of the scroll slice this context is restricted to, <tt>null</tt> if the scroll isn't sliced.
+     */
+    public abstract SearchContext sliceFilter(Filter sliceFilter);
+
+    @Nullable
+    public abstract Filter sliceFilter();
+
     public abstract SearchContext parsedPostFilter(ParsedFilter postFilter);
 
     public abstract ParsedFilter parsedPostFilter();
@@ -308,14 +356,14 @@ public abstract class SearchContext implements Releasable {
      * Schedule the release of a resource. The time when {@link Releasable#release()} will be called on this object
      * is function of the provided {@link Lifetime}.
      */
-    public void addReleasable(Releasable releasable, Lifetime lifetime) {
+    public synchronized void addReleasable(Releasable releasable, Lifetime lifetime) {
         if (clearables == null) {
             clearables = MultimapBuilder.enumKeys(Lifetime.class).arrayListValues().build();
         }
         clearables.put(lifetime, releasable);
     }
 
-    public void clearReleasables(Lifetime lifetime) {
+    public synchronized void clearReleasables(Lifetime lifetime) {
         if (clearables != null) {
             List<Collection<Releasable>> releasables = new ArrayList<>();
             for (Lifetime lc : Lifetime.values()) {
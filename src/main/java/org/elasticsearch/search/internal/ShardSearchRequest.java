@@ -26,6 +26,7 @@ import org.elasticsearch.action.search.type.ParsedScrollId;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.Scroll;
@@ -79,6 +80,8 @@ public class ShardSearchRequest extends TransportRequest {
 
     private boolean useSlowScroll;
 
+    private Boolean queryCache;
+
     public ShardSearchRequest() {
     }
 
@@ -96,6 +99,7 @@ public class ShardSearchRequest extends TransportRequest {
         this.scroll = searchRequest.scroll();
         this.types = searchRequest.types();
         this.useSlowScroll = useSlowScroll;
+        this.queryCache = searchRequest.queryCache();
     }
 
     public ShardSearchRequest(ShardRouting shardRouting, int numberOfShards, SearchType searchType) {
@@ -202,6 +206,37 @@ public class ShardSearchRequest extends TransportRequest {
         return useSlowScroll;
     }
 
+    public Boolean queryCache() {
+        return this.queryCache;
+    }
+
+    public ShardSearchRequest queryCache(Boolean queryCache) {
+        this.queryCache = queryCache;
+        return this;
+    }
+
+    /**
+     * Returns the bytes that identify the result of this request on a given shard and reader, used
+     * as part of the key of the query cache. Must be called once the template (if any) has been
+     * processed into the source.
+     */
+    public BytesReference cacheKey() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.writeByte(searchType.id());
+        out.writeBytesReference(source);
+        out.writeBytesReference(extraSource);
+        out.writeStringArray(types);
+        out.writeStringArrayNullable(filteringAliases);
+        out.writeBytesReference(templateSource);
+        out.writeOptionalString(templateName);
+        boolean existTemplateParams = templateParams != null;
+        out.writeBoolean(existTemplateParams);
+        if (existTemplateParams) {
+            out.writeGenericValue(templateParams);
+        }
+        return out.bytes();
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -233,6 +268,9 @@ public class ShardSearchRequest extends TransportRequest {
             // This means that this request was send from a 1.0.x or 1.1.x node and we need to fallback to slow scroll.
             useSlowScroll = in.getVersion().before(ParsedScrollId.SCROLL_SEARCH_AFTER_MINIMUM_VERSION);
         }
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            queryCache = in.readOptionalBoolean();
+        }
     }
 
     @Override
@@ -266,5 +304,8 @@ public class ShardSearchRequest extends TransportRequest {
         if (out.getVersion().onOrAfter(ParsedScrollId.SCROLL_SEARCH_AFTER_MINIMUM_VERSION)) {
             out.writeBoolean(useSlowScroll);
         }
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeOptionalBoolean(queryCache);
+        }
     }
 }
@@ -23,10 +23,14 @@ import com.google.common.collect.ImmutableMap;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.search.EarlyTerminatingSortingCollector;
+import org.elasticsearch.index.engine.IndexSort;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.SearchPhase;
 import org.elasticsearch.search.aggregations.AggregationPhase;
@@ -35,10 +39,12 @@ import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.rescore.RescorePhase;
 import org.elasticsearch.search.rescore.RescoreSearchContext;
+import org.elasticsearch.search.slice.SliceParseElement;
 import org.elasticsearch.search.sort.SortParseElement;
 import org.elasticsearch.search.sort.TrackScoresParseElement;
 import org.elasticsearch.search.suggest.SuggestPhase;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -79,6 +85,8 @@ public class QueryPhase implements SearchPhase {
                 .put("min_score", new MinScoreParseElement())
                 .put("minScore", new MinScoreParseElement())
                 .put("timeout", new TimeoutParseElement())
+                .put("search_after", new SearchAfterParseElement())
+                .put("slice", new SliceParseElement())
                 .putAll(facetPhase.parseElements())
                 .putAll(aggregationPhase.parseElements())
                 .putAll(suggestPhase.parseElements())
@@ -117,23 +125,16 @@ public class QueryPhase implements SearchPhase {
                 topDocs = new TopDocs(collector.getTotalHits(), Lucene.EMPTY_SCORE_DOCS, 0);
             } else if (searchContext.searchType() == SearchType.SCAN) {
                 topDocs = searchContext.scanContext().execute(searchContext);
+            } else if (searchContext.searchAfter() != null) {
+                // from is 0, each shard only needs to collect size docs that sort after the last hit of the previous page
+                ScoreDoc after = SearchAfterParseElement.buildAfterDoc(searchContext.sort(), searchContext.searchAfter());
+                rescore = searchContext.sort() == null && !searchContext.rescore().isEmpty();
+                topDocs = searchAfter(searchContext, query, after);
             } else {
                 // Perhaps have a dedicated scroll phase?
                 if (!searchContext.useSlowScroll() && searchContext.request().scroll() != null) {
-                    numDocs = searchContext.size();
-                    ScoreDoc lastEmittedDoc = searchContext.lastEmittedDoc();
-                    if (searchContext.sort() != null) {
-                        topDocs = searchContext.searcher().searchAfter(
-                                lastEmittedDoc, query, null, numDocs, searchContext.sort(),
-                                searchContext.trackScores(), searchContext.trackScores()
-                        );
-                    } else {
-                        rescore = !searchContext.rescore().isEmpty();
-                        for (RescoreSearchContext rescoreContext : searchContext.rescore()) {
-                            numDocs = Math.max(rescoreContext.window(), numDocs);
-                        }
-                        topDocs = searchContext.searcher().searchAfter(lastEmittedDoc, query, numDocs);
-                    }
+                    rescore = searchContext.sort() == null && !searchContext.rescore().isEmpty();
+                    topDocs = searchAfter(searchContext, query, searchContext.lastEmittedDoc());
 
                     int size = topDocs.scoreDocs.length;
                     if (size > 0) {
@@ -145,7 +146,17 @@ public class QueryPhase implements SearchPhase {
                         }
                     }
                 } else {
-                    if (searchContext.sort() != null) {
+                    IndexSort indexSort = searchContext.indexShard().indexSort();
+                    if (indexSort != null && indexSort.matches(searchContext.sort()) && !searchContext.searcher().hasMainQueryCollectors()) {
+                        // sorted segments can stop being collected once they produced numDocs hits
+                        numDocs = Math.min(numDocs, Math.max(1, searchContext.searcher().getIndexReader().maxDoc()));
+                        TopFieldCollector topDocsCollector = TopFieldCollector.create(searchContext.sort(), numDocs, true,
+                                searchContext.trackScores(), searchContext.trackScores(), true);
+                        EarlyTerminatingSortingCollector collector = new EarlyTerminatingSortingCollector(topDocsCollector, indexSort.sort(), numDocs);
+                        searchContext.searcher().search(query, collector);
+                        topDocs = topDocsCollector.topDocs();
+                        searchContext.queryResult().terminatedEarly(collector.terminatedEarly());
+                    } else if (searchContext.sort() != null) {
                         topDocs = searchContext.searcher().search(query, null, numDocs, searchContext.sort(),
                                 searchContext.trackScores(), searchContext.trackScores());
                     } else {
@@ -170,4 +181,22 @@ public class QueryPhase implements SearchPhase {
         facetPhase.execute(searchContext);
         aggregationPhase.execute(searchContext);
     }
+
+    /**
+     * Collects the top <tt>size</tt> hits that come after the given doc, which is how both scrolls and
+     * search_after requests page. Unsorted hits are collected up to the largest rescore window.
+     */
+    private static TopDocs searchAfter(SearchContext searchContext, Query query, @Nullable ScoreDoc after) throws IOException {
+        int numDocs = searchContext.size();
+        if (searchContext.sort() != null) {
+            return searchContext.searcher().searchAfter(
+                    after, query, null, numDocs, searchContext.sort(),
+                    searchContext.trackScores(), searchContext.trackScores()
+            );
+        }
+        for (RescoreSearchContext rescoreContext : searchContext.rescore()) {
+            numDocs = Math.max(rescoreContext.window(), numDocs);
+        }
+        return searchContext.searcher().searchAfter(after, query, numDocs);
+    }
 }
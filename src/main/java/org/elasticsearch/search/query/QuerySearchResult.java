@@ -20,6 +20,8 @@
 package org.elasticsearch.search.query;
 
 import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.SearchShardTarget;
@@ -49,6 +51,7 @@ public class QuerySearchResult extends TransportResponse implements QuerySearchR
     private InternalAggregations aggregations;
     private Suggest suggest;
     private boolean searchTimedOut;
+    private Boolean terminatedEarly;
 
     public QuerySearchResult() {
 
@@ -90,6 +93,18 @@ public class QuerySearchResult extends TransportResponse implements QuerySearchR
         return searchTimedOut;
     }
 
+    public void terminatedEarly(boolean terminatedEarly) {
+        this.terminatedEarly = terminatedEarly;
+    }
+
+    /**
+     * Whether the collection of sorted segments stopped early, <tt>null</tt> if the index isn't sorted like the hits.
+     */
+    @Nullable
+    public Boolean terminatedEarly() {
+        return terminatedEarly;
+    }
+
     public TopDocs topDocs() {
         return topDocs;
     }
@@ -149,7 +164,12 @@ public class QuerySearchResult extends TransportResponse implements QuerySearchR
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
-        id = in.readLong();
+        long id = in.readLong();
+        readFromWithId(id, in);
+    }
+
+    public void readFromWithId(long id, StreamInput in) throws IOException {
+        this.id = id;
 //        shardTarget = readSearchShardTarget(in);
         from = in.readVInt();
         size = in.readVInt();
@@ -164,12 +184,19 @@ public class QuerySearchResult extends TransportResponse implements QuerySearchR
             suggest = Suggest.readSuggest(Suggest.Fields.SUGGEST, in);
         }
         searchTimedOut = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            terminatedEarly = in.readOptionalBoolean();
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
         out.writeLong(id);
+        writeToNoId(out);
+    }
+
+    public void writeToNoId(StreamOutput out) throws IOException {
 //        shardTarget.writeTo(out);
         out.writeVInt(from);
         out.writeVInt(size);
@@ -193,5 +220,8 @@ public class QuerySearchResult extends TransportResponse implements QuerySearchR
             suggest.writeTo(out);
         }
         out.writeBoolean(searchTimedOut);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeOptionalBoolean(terminatedEarly);
+        }
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.search.SearchParseElement;
+import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the <tt>search_after</tt> array, the sort values of the last hit of the previous page. The values are
+ * converted to the types of the sort fields once the sort has been parsed, see {@link QueryPhase}.
+ */
+public class SearchAfterParseElement implements SearchParseElement {
+
+    @Override
+    public void parse(XContentParser parser, SearchContext context) throws Exception {
+        XContentParser.Token token = parser.currentToken();
+        if (token != XContentParser.Token.START_ARRAY) {
+            throw new SearchParseException(context, "search_after must be an array of sort values");
+        }
+        List<Object> values = new ArrayList<>();
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == XContentParser.Token.VALUE_NULL) {
+                values.add(null);
+            } else if (token == XContentParser.Token.VALUE_NUMBER) {
+                values.add(parser.numberValue());
+            } else if (token == XContentParser.Token.VALUE_STRING) {
+                values.add(parser.text());
+            } else if (token == XContentParser.Token.VALUE_BOOLEAN) {
+                values.add(parser.booleanValue());
+            } else {
+                throw new SearchParseException(context, "search_after only supports values, got [" + token + "]");
+            }
+        }
+        context.searchAfter(values.toArray());
+    }
+
+    /**
+     * Builds the doc to search after from the sort values of the last hit. The doc id is set to
+     * {@link Integer#MAX_VALUE} so that the hits that tie with the last hit are skipped as well, which
+     * requires the sort to be unique, eg. by sorting on <tt>_uid</tt> last.
+     */
+    public static ScoreDoc buildAfterDoc(@Nullable Sort sort, Object[] values) {
+        if (sort == null) {
+            // relevance order, the only sort value is the score
+            if (values.length != 1) {
+                throw new ElasticsearchIllegalArgumentException("search_after has " + values.length + " values but the hits are only sorted by score");
+            }
+            return new ScoreDoc(Integer.MAX_VALUE, ((Number) convert(SortField.Type.FLOAT, values[0])).floatValue());
+        }
+        SortField[] sortFields = sort.getSort();
+        if (values.length != sortFields.length) {
+            throw new ElasticsearchIllegalArgumentException("search_after has " + values.length + " values but the sort has " + sortFields.length + " fields");
+        }
+        Object[] fieldValues = new Object[values.length];
+        for (int i = 0; i < sortFields.length; i++) {
+            SortField.Type type = sortFields[i].getType();
+            if (type == SortField.Type.CUSTOM && sortFields[i].getComparatorSource() instanceof IndexFieldData.XFieldComparatorSource) {
+                type = ((IndexFieldData.XFieldComparatorSource) sortFields[i].getComparatorSource()).reducedType();
+            }
+            fieldValues[i] = convert(type, values[i]);
+        }
+        return new FieldDoc(Integer.MAX_VALUE, Float.NaN, fieldValues);
+    }
+
+    private static Object convert(SortField.Type type, Object value) {
+        if (value == null) {
+            if (type == SortField.Type.STRING || type == SortField.Type.STRING_VAL) {
+                // missing values of string sorts are null
+                return null;
+            }
+            throw new ElasticsearchIllegalArgumentException("search_after doesn't support null values for [" + type + "] sorts");
+        }
+        switch (type) {
+            case DOC:
+            case INT:
+                return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString());
+            case LONG:
+                return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+            case SCORE:
+            case FLOAT:
+                return value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(value.toString());
+            case DOUBLE:
+                return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
+            case STRING:
+            case STRING_VAL:
+                return new BytesRef(value.toString());
+            default:
+                throw new ElasticsearchIllegalArgumentException("search_after doesn't support [" + type + "] sorts");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.slice;
+
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Restricts a scroll to one of <tt>max</tt> disjoint slices of the documents, so that the slices can be
+ * consumed in parallel by independent scrolls.
+ */
+public class SliceBuilder implements ToXContent {
+
+    private final int id;
+    private final int max;
+
+    public SliceBuilder(int id, int max) {
+        if (max <= 1) {
+            throw new ElasticsearchIllegalArgumentException("max must be greater than 1, got [" + max + "]");
+        }
+        if (id < 0 || id >= max) {
+            throw new ElasticsearchIllegalArgumentException("id must be between 0 and max - 1, got [" + id + "]");
+        }
+        this.id = id;
+        this.max = max;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public int max() {
+        return max;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field("id", id);
+        builder.field("max", max);
+        builder.endObject();
+        return builder;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.slice;
+
+import org.apache.lucene.search.Filter;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.lucene.search.Queries;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.search.SearchParseElement;
+import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.internal.SearchContext;
+
+/**
+ * Parses the <tt>slice</tt> of a scroll:
+ * <pre>
+ * "slice" : {
+ *     "id" : 0,
+ *     "max" : 4
+ * }
+ * </pre>
+ */
+public class SliceParseElement implements SearchParseElement {
+
+    @Override
+    public void parse(XContentParser parser, SearchContext context) throws Exception {
+        XContentParser.Token token = parser.currentToken();
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new SearchParseException(context, "slice must be an object");
+        }
+        int id = -1;
+        int max = -1;
+        String currentFieldName = null;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token.isValue()) {
+                if ("id".equals(currentFieldName)) {
+                    id = parser.intValue();
+                } else if ("max".equals(currentFieldName)) {
+                    max = parser.intValue();
+                } else {
+                    throw new SearchParseException(context, "slice doesn't support [" + currentFieldName + "]");
+                }
+            }
+        }
+        if (max <= 1) {
+            throw new SearchParseException(context, "slice max must be greater than 1, got [" + max + "]");
+        }
+        if (id < 0 || id >= max) {
+            throw new SearchParseException(context, "slice id must be between 0 and max - 1, got [" + id + "]");
+        }
+        int numShards = context.indexShard().indexSettings().getAsInt(IndexMetaData.SETTING_NUMBER_OF_SHARDS, -1);
+        context.sliceFilter(sliceFilter(id, max, context.indexShard().shardId().id(), numShards));
+    }
+
+    /**
+     * Returns the filter of the slice on this shard. Whole shards are assigned to slices when there are at least
+     * as many shards as slices, so that most shards don't need to look at their documents at all. Otherwise,
+     * if the slices divide evenly over the shards each shard is split into <tt>max / numShards</tt> slices,
+     * and if they don't every shard is split into all slices.
+     */
+    static Filter sliceFilter(int id, int max, int shardId, int numShards) {
+        if (numShards <= 0) {
+            return new UidSliceFilter(id, max);
+        }
+        if (numShards >= max) {
+            return shardId % max == id ? Queries.MATCH_ALL_FILTER : Queries.MATCH_NO_FILTER;
+        }
+        if (max % numShards == 0) {
+            if (id % numShards != shardId) {
+                return Queries.MATCH_NO_FILTER;
+            }
+            return new UidSliceFilter(id / numShards, max / numShards);
+        }
+        return new UidSliceFilter(id, max);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.slice;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.cluster.routing.operation.hash.djb.DjbHashFunction;
+import org.elasticsearch.common.math.MathUtils;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+
+import java.io.IOException;
+
+/**
+ * A filter that only matches the documents whose <tt>_uid</tt> hashes to the given slice. The hash of the
+ * <tt>_uid</tt> doesn't depend on the doc ids, so the slices are the same on every copy of the shard.
+ */
+public class UidSliceFilter extends Filter {
+
+    private final int id;
+    private final int max;
+
+    public UidSliceFilter(int id, int max) {
+        this.id = id;
+        this.max = max;
+    }
+
+    /**
+     * Returns the slice of the provided <tt>_uid</tt> among <tt>max</tt> slices.
+     */
+    public static int slice(BytesRef uid, int max) {
+        return MathUtils.mod(DjbHashFunction.DJB_HASH(uid.bytes, uid.offset, uid.length), max);
+    }
+
+    @Override
+    public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) throws IOException {
+        Terms terms = context.reader().terms(UidFieldMapper.NAME);
+        if (terms == null) {
+            return null;
+        }
+        FixedBitSet result = null;
+        TermsEnum termsEnum = terms.iterator(null);
+        DocsEnum docsEnum = null;
+        for (BytesRef uid = termsEnum.next(); uid != null; uid = termsEnum.next()) {
+            if (slice(uid, max) != id) {
+                continue;
+            }
+            docsEnum = termsEnum.docs(acceptDocs, docsEnum, DocsEnum.FLAG_NONE);
+            for (int doc = docsEnum.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docsEnum.nextDoc()) {
+                if (result == null) {
+                    result = new FixedBitSet(context.reader().maxDoc());
+                }
+                result.set(doc);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        UidSliceFilter that = (UidSliceFilter) o;
+        return id == that.id && max == that.max;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * id + max;
+    }
+
+    @Override
+    public String toString() {
+        return "UidSliceFilter(" + id + "/" + max + ")";
+    }
+}
@@ -96,6 +96,8 @@ public class ScriptSortParser implements SortParser {
         if (type == null) {
             throw new SearchParseException(context, "_script sorting requires setting the type of the script");
         }
+        // the script reads the current segment through the shared lookup, slices must not search concurrently
+        context.disableConcurrentSearch();
         SearchScript searchScript = context.scriptService().search(context.lookup(), scriptLang, script, params);
         IndexFieldData.XFieldComparatorSource fieldComparatorSource;
         if ("string".equals(type)) {
@@ -28,8 +28,11 @@ import org.elasticsearch.cluster.*;
 import org.elasticsearch.cluster.block.ClusterBlocks;
 import org.elasticsearch.cluster.metadata.*;
 import org.elasticsearch.cluster.metadata.RestoreMetaData.ShardRestoreStatus;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.RestoreSource;
 import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 import org.elasticsearch.common.component.AbstractComponent;
@@ -74,7 +77,9 @@ import static org.elasticsearch.cluster.metadata.MetaDataIndexStateService.INDEX
  * method to start shard restore process.
  * <p/>
  * At the end of the successful restore process {@code IndexShardSnapshotAndRestoreService} calls {@link #indexShardRestoreCompleted(SnapshotId, ShardId)},
- * which updates {@link RestoreMetaData} in cluster state or removes it when all shards are completed. In case of
+ * which updates {@link RestoreMetaData} in cluster state or removes it when all shards are completed. Lazily restored
+ * shards are started before their files are copied and only call it once the copy is done, unless their primary moves
+ * to another node or is lost in the meantime, which completes their restore on the master. In case of
  * restore failure a normal recovery fail-over process kicks in.
  */
 public class RestoreService extends AbstractComponent implements ClusterStateListener {
@@ -396,6 +401,63 @@ public class RestoreService extends AbstractComponent implements ClusterStateLis
         }
     }
 
+    /**
+     * Completes the restore of lazily restored shards whose primary left the node that was copying their files.
+     * <p/>
+     * A lazily restored primary is started while its files are still copied, and only reports the restore as completed
+     * once the copy is done. If the primary moves to another node, by relocation or by the promotion of a replica, the
+     * new primary was recovered from the complete files served by the old one, so the shard restore is successful. If
+     * the primary is lost, eg. because its node left the cluster, the shard restore fails. A primary that is recovered
+     * again on the same node resumes the copy and reports the restore as completed once done.
+     *
+     * @param event cluster changed event
+     */
+    private void processLazilyRestoredShards(ClusterChangedEvent event) {
+        RestoreMetaData restore = event.state().metaData().custom(RestoreMetaData.TYPE);
+        if (restore == null) {
+            // Not restoring - nothing to do
+            return;
+        }
+        for (RestoreMetaData.Entry entry : restore.entries()) {
+            for (ImmutableMap.Entry<ShardId, ShardRestoreStatus> shard : entry.shards().entrySet()) {
+                if (shard.getValue().state().completed()) {
+                    continue;
+                }
+                ShardRouting previousPrimary = primaryShard(event.previousState().routingTable(), shard.getKey());
+                if (previousPrimary == null || !previousPrimary.active()) {
+                    // still restoring, a failed restore is retried by the normal recovery fail-over process
+                    continue;
+                }
+                ShardRouting primary = primaryShard(event.state().routingTable(), shard.getKey());
+                if (primary == null || previousPrimary.currentNodeId().equals(primary.currentNodeId())) {
+                    // deleted indices are handled separately, a primary that stays on its node keeps copying its files
+                    continue;
+                }
+                ShardRestoreStatus status;
+                if (primary.active()) {
+                    logger.trace("[{}] lazily restored shard [{}] moved to [{}]", entry.snapshotId(), shard.getKey(), primary.currentNodeId());
+                    status = new ShardRestoreStatus(primary.currentNodeId(), RestoreMetaData.State.SUCCESS);
+                } else {
+                    logger.trace("[{}] failing lazily restored shard [{}], primary was lost", entry.snapshotId(), shard.getKey());
+                    status = new ShardRestoreStatus(previousPrimary.currentNodeId(), RestoreMetaData.State.FAILURE, "primary was lost before its files were copied");
+                }
+                innerUpdateRestoreState(new UpdateIndexShardRestoreStatusRequest(entry.snapshotId(), shard.getKey(), status));
+            }
+        }
+    }
+
+    private ShardRouting primaryShard(RoutingTable routingTable, ShardId shardId) {
+        IndexRoutingTable indexRoutingTable = routingTable.index(shardId.getIndex());
+        if (indexRoutingTable == null) {
+            return null;
+        }
+        IndexShardRoutingTable shardRoutingTable = indexRoutingTable.shard(shardId.id());
+        if (shardRoutingTable == null) {
+            return null;
+        }
+        return shardRoutingTable.primaryShard();
+    }
+
     private boolean failed(Snapshot snapshot, String index) {
         for (SnapshotShardFailure failure : snapshot.shardFailures()) {
             if (index.equals(failure.index())) {
@@ -442,6 +504,9 @@ public class RestoreService extends AbstractComponent implements ClusterStateLis
         try {
             if (event.localNodeMaster()) {
                 processDeletedIndices(event);
+                if (event.routingTableChanged()) {
+                    processLazilyRestoredShards(event);
+                }
             }
         } catch (Throwable t) {
             logger.warn("Failed to update restore state ", t);
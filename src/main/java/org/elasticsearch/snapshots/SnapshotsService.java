@@ -1067,6 +1067,11 @@ public class SnapshotsService extends AbstractLifecycleComponent<SnapshotsServic
             public ClusterState execute(ClusterState currentState) throws Exception {
                 MetaData metaData = currentState.metaData();
                 MetaData.Builder mdBuilder = MetaData.builder(currentState.metaData());
+                RestoreMetaData restore = metaData.custom(RestoreMetaData.TYPE);
+                if (restore != null && restore.snapshot(snapshotId) != null) {
+                    // lazily restored shards might still read their files from this snapshot
+                    throw new ConcurrentSnapshotExecutionException(snapshotId, "cannot delete snapshot while it is being restored");
+                }
                 SnapshotMetaData snapshots = metaData.custom(SnapshotMetaData.TYPE);
                 if (snapshots == null) {
                     // No snapshots running - we can continue
@@ -117,4 +117,37 @@ public class BulkRequestTests extends ElasticsearchTestCase {
         assertThat(bulkRequest.requests().get(1), instanceOf(UpdateRequest.class));
         assertThat(bulkRequest.requests().get(2), instanceOf(DeleteRequest.class));
     }
+
+    @Test
+    public void testAddCompleteActionsInChunks() throws Exception {
+        String bulkAction = copyToStringFromClasspath("/org/elasticsearch/action/bulk/simple-bulk.json");
+        if (Constants.WINDOWS) {
+            bulkAction = Strings.replace(bulkAction, "\r\n", "\n");
+        }
+        final byte[] bytes = bulkAction.getBytes(Charsets.UTF_8);
+        BulkRequest expected = new BulkRequest();
+        expected.add(new BytesArray(bytes), false, null, null);
+
+        // feed the data in random chunks and keep whatever was not consumed for the next round, like a streamed request
+        BulkRequest bulkRequest = new BulkRequest();
+        int from = 0;
+        int to = 0;
+        while (to < bytes.length) {
+            to = Math.min(bytes.length, to + randomIntBetween(1, 20));
+            from += bulkRequest.addCompleteActions(new BytesArray(bytes, from, to - from), false, null, null, null, null, true);
+        }
+        assertThat(bulkRequest.numberOfActions(), equalTo(expected.numberOfActions()));
+        for (int i = 0; i < expected.numberOfActions(); i++) {
+            assertThat(bulkRequest.requests().get(i).getClass(), equalTo((Object) expected.requests().get(i).getClass()));
+            if (expected.requests().get(i) instanceof IndexRequest) {
+                assertThat(((IndexRequest) bulkRequest.requests().get(i)).source().toBytes(), equalTo(((IndexRequest) expected.requests().get(i)).source().toBytes()));
+            }
+        }
+
+        // an action whose source has not been fully received yet is not consumed
+        String partial = "{ \"index\" : { \"_index\" : \"test\", \"_type\" : \"type1\", \"_id\" : \"1\" } }\n{ \"field1\" : ";
+        bulkRequest = new BulkRequest();
+        assertThat(bulkRequest.addCompleteActions(new BytesArray(partial), false, null, null, null, null, true), equalTo(0));
+        assertThat(bulkRequest.numberOfActions(), equalTo(0));
+    }
 }
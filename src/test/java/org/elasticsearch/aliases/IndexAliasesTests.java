@@ -26,6 +26,7 @@ import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder
 import org.elasticsearch.action.admin.indices.alias.exists.AliasesExistResponse;
 import org.elasticsearch.action.admin.indices.alias.get.GetAliasesResponse;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.cluster.ClusterState;
@@ -34,6 +35,7 @@ import org.elasticsearch.cluster.metadata.AliasMetaData;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.cache.filter.support.UsageTrackingFilterCachingPolicy;
 import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -911,6 +913,33 @@ public class IndexAliasesTests extends ElasticsearchIntegrationTest {
         assertThat(aliasMetaData.searchRouting(), equalTo("search"));
     }
 
+    @Test
+    public void testAliasFilterIsCachedOnceUsedRepeatedly() throws Exception {
+        logger.info("--> creating index [test] that caches filters used twice");
+        assertAcked(prepareCreate("test").setSettings(settingsBuilder()
+                .put("index.number_of_shards", 1)
+                .put("index.number_of_replicas", 0)
+                .put(UsageTrackingFilterCachingPolicy.MIN_FREQUENCY, 2)));
+        ensureGreen();
+
+        logger.info("--> adding filtered alias [recent], its filter is parsed once and reused by every search");
+        assertAcked(admin().indices().prepareAliases().addAlias("test", "recent", FilterBuilders.rangeFilter("num").gte(5)));
+        for (int i = 0; i < 10; i++) {
+            client().prepareIndex("test", "type1", Integer.toString(i)).setSource("num", i).get();
+        }
+        refresh();
+
+        logger.info("--> the first search doesn't cache the filter");
+        assertThat(client().prepareSearch("recent").get().getHits().totalHits(), equalTo(5l));
+        IndicesStatsResponse statsResponse = admin().indices().prepareStats("test").clear().setFilterCache(true).get();
+        assertThat(statsResponse.getTotal().getFilterCache().getMemorySizeInBytes(), equalTo(0l));
+
+        logger.info("--> the second search caches the filter");
+        assertThat(client().prepareSearch("recent").get().getHits().totalHits(), equalTo(5l));
+        statsResponse = admin().indices().prepareStats("test").clear().setFilterCache(true).get();
+        assertThat(statsResponse.getTotal().getFilterCache().getMemorySizeInBytes(), internalCluster().hasFilterCache() ? greaterThan(0l) : is(0l));
+    }
+
     private void assertHits(SearchHits hits, String... ids) {
         assertThat(hits.totalHits(), equalTo((long) ids.length));
         Set<String> hitIds = newHashSet();
@@ -0,0 +1,179 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.cluster;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.ClusterInfoService;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.DiskUsage;
+import org.elasticsearch.cluster.InternalClusterInfoService;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.MutableShardRouting;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
+import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocators;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.elasticsearch.test.ElasticsearchAllocationTestCase;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
+import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
+
+/**
+ * Simulates a cluster with skewed shard sizes that is expanded by a few nodes and
+ * reports how many relocations the {@link BalancedShardsAllocator} needs to converge
+ * and how evenly the bytes end up spread, with and without the disk balance factor.
+ */
+public class ClusterBalanceSimulatorBenchmark {
+
+    private static final ESLogger logger = Loggers.getLogger(ClusterBalanceSimulatorBenchmark.class);
+
+    public static void main(String[] args) {
+        final int numIndices = 100;
+        final int numShards = 5;
+        final int numReplicas = 1;
+        final int numberOfNodes = 10;
+        final int numberOfAddedNodes = 2;
+        final float[] diskBalanceFactors = new float[]{0.0f, 0.25f, 0.5f};
+
+        MetaData.Builder mb = MetaData.builder();
+        for (int i = 1; i <= numIndices; i++) {
+            mb.put(IndexMetaData.builder("test_" + i).numberOfShards(numShards).numberOfReplicas(numReplicas));
+        }
+        MetaData metaData = mb.build();
+        RoutingTable.Builder rb = RoutingTable.builder();
+        for (int i = 1; i <= numIndices; i++) {
+            rb.addAsNew(metaData.index("test_" + i));
+        }
+        RoutingTable routingTable = rb.build();
+
+        // a few large indices and a long tail of small ones
+        Random random = new Random(1);
+        final long maxShardSize = ByteSizeValue.parseBytesSizeValue("50gb").bytes();
+        final Map<String, Long> shardSizes = new HashMap<>();
+        for (ShardRouting shard : routingTable.allShards()) {
+            final String key = InternalClusterInfoService.shardIdentifierFromRouting(shard);
+            if (!shardSizes.containsKey(key)) {
+                double skew = Math.pow(random.nextDouble(), 4);
+                shardSizes.put(key, maxShardSize / 100 + (long) (skew * maxShardSize));
+            }
+        }
+        final ClusterInfo clusterInfo = new ClusterInfo(ImmutableMap.<String, DiskUsage>of(), ImmutableMap.copyOf(shardSizes));
+        ClusterInfoService clusterInfoService = new ClusterInfoService() {
+            @Override
+            public ClusterInfo getClusterInfo() {
+                return clusterInfo;
+            }
+        };
+
+        for (float diskBalance : diskBalanceFactors) {
+            Settings settings = ImmutableSettings.builder()
+                    .put(BalancedShardsAllocator.SETTING_DISK_BALANCE_FACTOR, diskBalance)
+                    .build();
+            AllocationService strategy = new AllocationService(settings,
+                    ElasticsearchAllocationTestCase.randomAllocationDeciders(settings, new NodeSettingsService(ImmutableSettings.Builder.EMPTY_SETTINGS), new Random(1)),
+                    new ShardsAllocators(settings), clusterInfoService);
+
+            DiscoveryNodes.Builder nb = DiscoveryNodes.builder();
+            for (int i = 1; i <= numberOfNodes; i++) {
+                nb.put(ElasticsearchAllocationTestCase.newNode("node" + i));
+            }
+            ClusterState clusterState = ClusterState.builder(ClusterName.DEFAULT).metaData(metaData).routingTable(routingTable).nodes(nb).build();
+            long start = System.currentTimeMillis();
+            int[] movesAndRounds = new int[2];
+            clusterState = converge(strategy, clusterState, movesAndRounds);
+            logger.info("[disk {}] initial allocation took {} rounds, {}, byte spread {}", diskBalance, movesAndRounds[1],
+                    TimeValue.timeValueMillis(System.currentTimeMillis() - start), byteSpread(clusterState, shardSizes));
+
+            nb = DiscoveryNodes.builder(clusterState.nodes());
+            for (int i = 1; i <= numberOfAddedNodes; i++) {
+                nb.put(ElasticsearchAllocationTestCase.newNode("node" + (numberOfNodes + i)));
+            }
+            clusterState = ClusterState.builder(clusterState).nodes(nb).build();
+            start = System.currentTimeMillis();
+            movesAndRounds = new int[2];
+            clusterState = converge(strategy, clusterState, movesAndRounds);
+            logger.info("[disk {}] adding {} nodes took {} relocations in {} rounds, {}, byte spread {}", diskBalance, numberOfAddedNodes,
+                    movesAndRounds[0], movesAndRounds[1], TimeValue.timeValueMillis(System.currentTimeMillis() - start),
+                    byteSpread(clusterState, shardSizes));
+        }
+    }
+
+    /**
+     * Starts initializing shards and reroutes until the cluster has no more initializing
+     * or relocating shards. The number of relocations and rounds is added to the given array.
+     */
+    private static ClusterState converge(AllocationService strategy, ClusterState clusterState, int[] movesAndRounds) {
+        RoutingAllocation.Result result = strategy.reroute(clusterState);
+        clusterState = ClusterState.builder(clusterState).routingResult(result).build();
+        int moves = clusterState.readOnlyRoutingNodes().shardsWithState(RELOCATING).size();
+        int rounds = 0;
+        while (!clusterState.readOnlyRoutingNodes().shardsWithState(INITIALIZING).isEmpty()) {
+            rounds++;
+            result = strategy.applyStartedShards(clusterState, clusterState.readOnlyRoutingNodes().shardsWithState(INITIALIZING));
+            clusterState = ClusterState.builder(clusterState).routingResult(result).build();
+            result = strategy.reroute(clusterState);
+            clusterState = ClusterState.builder(clusterState).routingResult(result).build();
+            moves += clusterState.readOnlyRoutingNodes().shardsWithState(RELOCATING).size();
+        }
+        movesAndRounds[0] += moves;
+        movesAndRounds[1] += rounds;
+        return clusterState;
+    }
+
+    /**
+     * Returns the difference between the fullest and the emptiest node relative to the average node
+     */
+    private static String byteSpread(ClusterState clusterState, Map<String, Long> shardSizes) {
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        long total = 0;
+        int nodes = 0;
+        for (RoutingNode node : clusterState.readOnlyRoutingNodes()) {
+            long size = 0;
+            for (MutableShardRouting shard : node) {
+                size += shardSizes.get(InternalClusterInfoService.shardIdentifierFromRouting(shard));
+            }
+            min = Math.min(min, size);
+            max = Math.max(max, size);
+            total += size;
+            nodes++;
+        }
+        return new ByteSizeValue(max - min) + " (" + String.format(Locale.ROOT, "%.1f", 100.0 * (max - min) / (total / nodes)) + "% of avg node)";
+    }
+}
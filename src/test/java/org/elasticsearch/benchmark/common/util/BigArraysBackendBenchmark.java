@@ -0,0 +1,154 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.benchmark.common.util;
+
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the on-heap and off-heap page backends of {@link BigArrays} on access patterns that are typical of
+ * terms and cardinality aggregations: arrays that grow as new buckets are discovered and random increments.
+ */
+public class BigArraysBackendBenchmark {
+
+    private static final Random R = new Random(0);
+    private static final int NUM_BUCKETS = 1 << 22;
+    private static final int NUM_OPS = 1 << 24;
+    private static final int ITERS = 5;
+
+    // To avoid JVM optimizations
+    @SuppressWarnings("unused")
+    private static long DUMMY;
+
+    enum Workload {
+        GROW_AND_INCREMENT {
+            @Override
+            long run(BigArrays bigArrays, int[] buckets) {
+                LongArray counts = bigArrays.newLongArray(1, true);
+                DoubleArray sums = bigArrays.newDoubleArray(1, true);
+                long maxBucket = 0;
+                for (int bucket : buckets) {
+                    counts = bigArrays.grow(counts, bucket + 1);
+                    sums = bigArrays.grow(sums, bucket + 1);
+                    counts.increment(bucket, 1);
+                    sums.increment(bucket, bucket);
+                    maxBucket = Math.max(maxBucket, bucket);
+                }
+                final long result = counts.get(maxBucket) + (long) sums.get(maxBucket);
+                counts.close();
+                sums.close();
+                return result;
+            }
+        },
+        SEQUENTIAL_SCAN {
+            @Override
+            long run(BigArrays bigArrays, int[] buckets) {
+                final LongArray values = bigArrays.newLongArray(NUM_BUCKETS, false);
+                for (long i = 0; i < values.size(); ++i) {
+                    values.set(i, i);
+                }
+                long sum = 0;
+                for (int iter = 0; iter < 4; ++iter) {
+                    for (long i = 0; i < values.size(); ++i) {
+                        sum += values.get(i);
+                    }
+                }
+                values.close();
+                return sum;
+            }
+        };
+
+        abstract long run(BigArrays bigArrays, int[] buckets);
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long bench(Workload workload, BigArrays bigArrays, int[] buckets, int iters) {
+        long dummy = 0;
+        final long start = System.nanoTime();
+        for (int iter = 0; iter < iters; ++iter) {
+            dummy += workload.run(bigArrays, buckets);
+        }
+        DUMMY = dummy;
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final ThreadPool threadPool = new ThreadPool();
+        final PageCacheRecycler recycler = new PageCacheRecycler(ImmutableSettings.EMPTY, threadPool);
+        final BigArrays onHeap = new BigArrays(ImmutableSettings.builder().put(BigArrays.OFF_HEAP_SETTING, false).build(), recycler);
+        final BigArrays offHeap = new BigArrays(ImmutableSettings.builder().put(BigArrays.OFF_HEAP_SETTING, true).build(), recycler);
+
+        final int[] buckets = new int[NUM_OPS];
+        for (int i = 0; i < buckets.length; ++i) {
+            // skewed distribution, most increments go to a few buckets, like term frequencies
+            buckets[i] = (int) (Math.abs(R.nextGaussian()) * NUM_BUCKETS / 4) % NUM_BUCKETS;
+        }
+
+        // warmup
+        final long start = System.nanoTime();
+        while (System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10)) {
+            for (Workload workload : Workload.values()) {
+                bench(workload, onHeap, buckets, 1);
+                bench(workload, offHeap, buckets, 1);
+            }
+        }
+
+        for (Workload workload : Workload.values()) {
+            System.out.println("## " + workload);
+            for (int i = 0; i < 3; ++i) {
+                // make sure GC from the previous run doesn't hurt results
+                System.gc();
+                Thread.sleep(2000);
+                long gcStart = totalGcMillis();
+                final long onHeapTime = bench(workload, onHeap, buckets, ITERS);
+                final long onHeapGc = totalGcMillis() - gcStart;
+                System.gc();
+                Thread.sleep(2000);
+                gcStart = totalGcMillis();
+                final long offHeapTime = bench(workload, offHeap, buckets, ITERS);
+                final long offHeapGc = totalGcMillis() - gcStart;
+                System.out.println("on-heap  " + new TimeValue(onHeapTime, TimeUnit.NANOSECONDS) + " (gc " + onHeapGc + "ms)");
+                System.out.println("off-heap " + new TimeValue(offHeapTime, TimeUnit.NANOSECONDS) + " (gc " + offHeapGc + "ms)");
+            }
+        }
+
+        recycler.close();
+        threadPool.shutdownNow();
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import com.carrotsearch.hppc.hash.MurmurHash3;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Simulates the reduction of a cardinality aggregation under a histogram with many buckets on the coordinating node:
+ * the per-shard counters of every bucket are serialized, deserialized and merged, using both the legacy and the
+ * compact wire formats.
+ */
+public class HyperLogLogPlusPlusReduceBenchmark {
+
+    private static final int NUM_SHARDS = 5;
+    private static final int NUM_BUCKETS = 10000;
+    private static final int PRECISION = 14;
+    private static final int ITERS = 5;
+
+    public static void main(String[] args) throws IOException {
+        final Random random = new Random(0);
+        final HyperLogLogPlusPlus[] shards = new HyperLogLogPlusPlus[NUM_SHARDS];
+        for (int shard = 0; shard < NUM_SHARDS; ++shard) {
+            shards[shard] = new HyperLogLogPlusPlus(PRECISION, BigArrays.NON_RECYCLING_INSTANCE, NUM_BUCKETS);
+            for (int bucket = 0; bucket < NUM_BUCKETS; ++bucket) {
+                // a mix of sparse (linear counting) and dense (hyperloglog) buckets
+                final int numValues = random.nextInt(10) == 0 ? 5000 + random.nextInt(50000) : random.nextInt(1000);
+                for (int i = 0; i < numValues; ++i) {
+                    shards[shard].collect(bucket, MurmurHash3.hash((long) random.nextInt(1000000)));
+                }
+            }
+        }
+
+        for (Version version : new Version[] {Version.V_1_3_0, Version.CURRENT}) {
+            final BytesReference[] serialized = new BytesReference[NUM_SHARDS];
+            long size = 0;
+            for (int shard = 0; shard < NUM_SHARDS; ++shard) {
+                final BytesStreamOutput out = new BytesStreamOutput();
+                out.setVersion(version);
+                for (int bucket = 0; bucket < NUM_BUCKETS; ++bucket) {
+                    shards[shard].writeTo(bucket, out);
+                }
+                serialized[shard] = out.bytes();
+                size += out.size();
+            }
+            System.out.println("--> version [" + version + "], serialized size [" + new ByteSizeValue(size) + "]");
+
+            for (int iter = 0; iter < ITERS; ++iter) {
+                final StopWatch stopWatch = new StopWatch().start();
+                final BytesStreamInput[] ins = new BytesStreamInput[NUM_SHARDS];
+                for (int shard = 0; shard < NUM_SHARDS; ++shard) {
+                    ins[shard] = new BytesStreamInput(serialized[shard]);
+                    ins[shard].setVersion(version);
+                }
+                long sum = 0;
+                for (int bucket = 0; bucket < NUM_BUCKETS; ++bucket) {
+                    HyperLogLogPlusPlus reduced = null;
+                    for (int shard = 0; shard < NUM_SHARDS; ++shard) {
+                        final HyperLogLogPlusPlus counts = HyperLogLogPlusPlus.readFrom(ins[shard], BigArrays.NON_RECYCLING_INSTANCE);
+                        if (reduced == null) {
+                            reduced = counts;
+                        } else {
+                            reduced.merge(0, counts, 0);
+                        }
+                    }
+                    sum += reduced.cardinality(0);
+                }
+                stopWatch.stop();
+                System.out.println("--> version [" + version + "], read and reduce took [" + stopWatch.totalTime() + "], checksum [" + sum + "]");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.stress;
+
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.monitor.jvm.JvmStats;
+import org.elasticsearch.node.Node;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.node.NodeBuilder.nodeBuilder;
+
+/**
+ * Indexes small documents from many threads with a long refresh interval, so that the live version map of the engine
+ * holds many pending uids, and reports throughput, GC activity and heap usage.
+ */
+public class ConcurrentIndexingVersionMapStress {
+
+    public static void main(String[] args) throws Exception {
+        final int numThreads = Runtime.getRuntime().availableProcessors() * 2;
+        final long numDocsPerThread = 500000;
+        final int idRange = 2000000;
+        final String refreshInterval = "30s";
+
+        Settings settings = settingsBuilder()
+                .put("index.refresh_interval", refreshInterval)
+                .put("index.translog.flush_threshold_ops", 100000)
+                .put("gateway.type", "none")
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .build();
+
+        final Node node = nodeBuilder().settings(settingsBuilder().put(settings).put("name", "node1")).local(true).node();
+        final Client client = node.client();
+        client.admin().indices().prepareCreate("test").execute().actionGet();
+        client.admin().cluster().prepareHealth("test").setWaitForGreenStatus().execute().actionGet();
+
+        final CountDownLatch latch = new CountDownLatch(numThreads);
+        final AtomicLong indexed = new AtomicLong();
+        final long gcCountBefore = gcCount();
+        final long gcTimeBefore = gcTimeInMillis();
+        StopWatch stopWatch = new StopWatch().start();
+        System.out.println("Indexing [" + numThreads * numDocsPerThread + "] docs with [" + numThreads + "] threads, refresh interval [" + refreshInterval + "] ...");
+        for (int t = 0; t < numThreads; t++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (long i = 0; i < numDocsPerThread; i++) {
+                            client.prepareIndex("test", "type1", Integer.toString(random.nextInt(idRange)))
+                                    .setSource("field", i).execute().actionGet();
+                            long count = indexed.incrementAndGet();
+                            if (count % 100000 == 0) {
+                                System.out.println("Indexed " + count + ", heap used " + JvmStats.jvmStats().mem().heapUsed());
+                            }
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }.start();
+        }
+        latch.await();
+        stopWatch.stop();
+
+        System.out.println("Indexing took " + stopWatch.totalTime() + ", TPS " + (((double) indexed.get()) / stopWatch.totalTime().secondsFrac()));
+        System.out.println("GC collections " + (gcCount() - gcCountBefore) + ", GC time " + (gcTimeInMillis() - gcTimeBefore) + "ms");
+        System.out.println("Heap used " + JvmStats.jvmStats().mem().heapUsed());
+
+        client.close();
+        node.close();
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (JvmStats.GarbageCollector gc : JvmStats.jvmStats().gc()) {
+            count += gc.collectionCount();
+        }
+        return count;
+    }
+
+    private static long gcTimeInMillis() {
+        long millis = 0;
+        for (JvmStats.GarbageCollector gc : JvmStats.jvmStats().gc()) {
+            millis += gc.collectionTime().millis();
+        }
+        return millis;
+    }
+}
@@ -20,8 +20,12 @@
 package org.elasticsearch.cluster.routing.allocation;
 
 import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterInfoService;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.DiskUsage;
+import org.elasticsearch.cluster.InternalClusterInfoService;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -35,11 +39,14 @@ import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.gateway.none.NoneGatewayAllocator;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.test.ElasticsearchAllocationTestCase;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
+import java.util.Map;
+
 import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
 import static org.elasticsearch.cluster.routing.ShardRoutingState.STARTED;
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
@@ -53,6 +60,22 @@ public class BalanceConfigurationTests extends ElasticsearchAllocationTestCase {
     final int numberOfShards = 2;
     final int numberOfReplicas = 2;
 
+    // single shard indices, the first one is far larger and busier than all others
+    private static final int NUMBER_OF_SKEWED_INDICES = 40;
+
+    private static final ClusterInfo SKEWED_USAGE;
+
+    static {
+        ImmutableMap.Builder<String, Long> sizes = ImmutableMap.builder();
+        ImmutableMap.Builder<String, Double> loads = ImmutableMap.builder();
+        for (int i = 0; i < NUMBER_OF_SKEWED_INDICES; i++) {
+            String shard = new ShardId("skewed" + i, 0).toString() + "[p]";
+            sizes.put(shard, i == 0 ? 30L : 1L);
+            loads.put(shard, i == 0 ? 30.0d : 1.0d);
+        }
+        SKEWED_USAGE = new ClusterInfo(ImmutableMap.<String, DiskUsage>of(), sizes.build(), loads.build(), ImmutableMap.<String, Double>of());
+    }
+
     @Test
     public void testIndexBalance() {
         /* Tests balance over indices only */
@@ -305,6 +328,111 @@ public class BalanceConfigurationTests extends ElasticsearchAllocationTestCase {
         }
     }
 
+    @Test
+    public void testDiskAndLoadBalance() {
+        /* Tests that the disk and load balance move shards off the node that holds the large and busy shard */
+        final float threshold = 1.0f;
+
+        ImmutableSettings.Builder settings = settingsBuilder();
+        settings.put(BalancedShardsAllocator.SETTING_THRESHOLD, threshold);
+        ClusterState countBalanced = balanceSkewedUsage(settings);
+        double countBalancedSizeSpread = usageSpread(countBalanced, SKEWED_USAGE.getShardSizes());
+        double countBalancedLoadSpread = usageSpread(countBalanced, SKEWED_USAGE.getShardWriteLoads());
+        assertThat(countBalancedSizeSpread, Matchers.greaterThanOrEqualTo(25.0d));
+
+        settings = settingsBuilder();
+        settings.put(BalancedShardsAllocator.SETTING_THRESHOLD, threshold);
+        settings.put(BalancedShardsAllocator.SETTING_DISK_BALANCE_FACTOR, 1.0f);
+        ClusterState diskBalanced = balanceSkewedUsage(settings);
+        double diskBalancedSizeSpread = usageSpread(diskBalanced, SKEWED_USAGE.getShardSizes());
+        logger.info("size spread [{}] with the disk balance, [{}] without", diskBalancedSizeSpread, countBalancedSizeSpread);
+        assertThat(diskBalancedSizeSpread, Matchers.lessThan(countBalancedSizeSpread));
+
+        settings = settingsBuilder();
+        settings.put(BalancedShardsAllocator.SETTING_THRESHOLD, threshold);
+        settings.put(BalancedShardsAllocator.SETTING_WRITE_LOAD_BALANCE_FACTOR, 1.0f);
+        ClusterState loadBalanced = balanceSkewedUsage(settings);
+        double loadBalancedLoadSpread = usageSpread(loadBalanced, SKEWED_USAGE.getShardWriteLoads());
+        logger.info("write load spread [{}] with the write load balance, [{}] without", loadBalancedLoadSpread, countBalancedLoadSpread);
+        assertThat(loadBalancedLoadSpread, Matchers.lessThan(countBalancedLoadSpread));
+    }
+
+    /**
+     * Allocates single shard indices with {@link #SKEWED_USAGE} on two nodes, adds two more nodes and
+     * rebalances until no more shards move
+     */
+    private ClusterState balanceSkewedUsage(ImmutableSettings.Builder settings) {
+        settings.put("cluster.routing.allocation.allow_rebalance", ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString());
+        AllocationService strategy = new AllocationService(settings.build(), randomAllocationDeciders(settings.build(),
+                new NodeSettingsService(ImmutableSettings.Builder.EMPTY_SETTINGS), getRandom()), new ShardsAllocators(settings.build()),
+                new ClusterInfoService() {
+                    @Override
+                    public ClusterInfo getClusterInfo() {
+                        return SKEWED_USAGE;
+                    }
+                });
+
+        MetaData.Builder metaDataBuilder = MetaData.builder();
+        for (int i = 0; i < NUMBER_OF_SKEWED_INDICES; i++) {
+            metaDataBuilder.put(IndexMetaData.builder("skewed" + i).numberOfShards(1).numberOfReplicas(0));
+        }
+        MetaData metaData = metaDataBuilder.build();
+        RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
+        for (ObjectCursor<IndexMetaData> cursor : metaData.indices().values()) {
+            routingTableBuilder.addAsNew(cursor.value);
+        }
+
+        logger.info("start 2 nodes");
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.DEFAULT)
+                .nodes(DiscoveryNodes.builder().put(newNode("node0")).put(newNode("node1")))
+                .metaData(metaData).routingTable(routingTableBuilder.build()).build();
+        clusterState = startUntilBalanced(clusterState, strategy);
+
+        logger.info("start 2 more nodes");
+        clusterState = ClusterState.builder(clusterState).nodes(DiscoveryNodes.builder(clusterState.nodes())
+                .put(newNode("node2")).put(newNode("node3")))
+                .build();
+        clusterState = startUntilBalanced(clusterState, strategy);
+
+        for (RoutingNode node : clusterState.routingNodes()) {
+            assertThat(node.size(), Matchers.greaterThan(0));
+        }
+        return clusterState;
+    }
+
+    private ClusterState startUntilBalanced(ClusterState clusterState, AllocationService strategy) {
+        RoutingTable routingTable = strategy.reroute(clusterState).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+        RoutingNodes routingNodes = clusterState.routingNodes();
+
+        int rounds = 0;
+        while (!routingNodes.shardsWithState(INITIALIZING).isEmpty()) {
+            // the disk and load terms must not make shards move back and forth
+            assertThat("rebalancing did not converge", ++rounds, Matchers.lessThan(100));
+            routingTable = strategy.applyStartedShards(clusterState, routingNodes.shardsWithState(INITIALIZING)).routingTable();
+            clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+            routingNodes = clusterState.routingNodes();
+        }
+        return clusterState;
+    }
+
+    /**
+     * Returns the difference between the node with the highest and the node with the lowest sum of the given shard values
+     */
+    private double usageSpread(ClusterState clusterState, Map<String, ? extends Number> shardValues) {
+        double min = Double.MAX_VALUE;
+        double max = 0.0d;
+        for (RoutingNode node : clusterState.routingNodes()) {
+            double sum = 0.0d;
+            for (MutableShardRouting shard : node) {
+                sum += shardValues.get(InternalClusterInfoService.shardIdentifierFromRouting(shard)).doubleValue();
+            }
+            min = Math.min(min, sum);
+            max = Math.max(max, sum);
+        }
+        return max - min;
+    }
+
     @Test
     public void testPersistedSettings() {
         ImmutableSettings.Builder settings = settingsBuilder();
@@ -312,6 +440,7 @@ public class BalanceConfigurationTests extends ElasticsearchAllocationTestCase {
         settings.put(BalancedShardsAllocator.SETTING_SHARD_BALANCE_FACTOR, 0.3);
         settings.put(BalancedShardsAllocator.SETTING_PRIMARY_BALANCE_FACTOR, 0.5);
         settings.put(BalancedShardsAllocator.SETTING_THRESHOLD, 2.0);
+        settings.put(BalancedShardsAllocator.SETTING_DISK_BALANCE_FACTOR, 0.25);
         final NodeSettingsService.Listener[] listeners = new NodeSettingsService.Listener[1];
         NodeSettingsService service = new NodeSettingsService(settingsBuilder().build()) {
 
@@ -327,6 +456,8 @@ public class BalanceConfigurationTests extends ElasticsearchAllocationTestCase {
         assertThat(allocator.getShardBalance(), Matchers.equalTo(0.3f));
         assertThat(allocator.getPrimaryBalance(), Matchers.equalTo(0.5f));
         assertThat(allocator.getThreshold(), Matchers.equalTo(2.0f));
+        assertThat(allocator.getDiskBalance(), Matchers.equalTo(0.25f));
+        assertThat(allocator.getWriteLoadBalance(), Matchers.equalTo(0.0f));
 
         settings = settingsBuilder();
         settings.put("cluster.routing.allocation.allow_rebalance", ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString());
@@ -335,17 +466,25 @@ public class BalanceConfigurationTests extends ElasticsearchAllocationTestCase {
         assertThat(allocator.getShardBalance(), Matchers.equalTo(0.3f));
         assertThat(allocator.getPrimaryBalance(), Matchers.equalTo(0.5f));
         assertThat(allocator.getThreshold(), Matchers.equalTo(2.0f));
+        assertThat(allocator.getDiskBalance(), Matchers.equalTo(0.25f));
+        assertThat(allocator.getWriteLoadBalance(), Matchers.equalTo(0.0f));
 
         settings = settingsBuilder();
         settings.put(BalancedShardsAllocator.SETTING_INDEX_BALANCE_FACTOR, 0.5);
         settings.put(BalancedShardsAllocator.SETTING_SHARD_BALANCE_FACTOR, 0.1);
         settings.put(BalancedShardsAllocator.SETTING_PRIMARY_BALANCE_FACTOR, 0.4);
         settings.put(BalancedShardsAllocator.SETTING_THRESHOLD, 3.0);
+        settings.put(BalancedShardsAllocator.SETTING_DISK_BALANCE_FACTOR, 0.0);
+        settings.put(BalancedShardsAllocator.SETTING_WRITE_LOAD_BALANCE_FACTOR, 0.1);
+        settings.put(BalancedShardsAllocator.SETTING_SEARCH_LOAD_BALANCE_FACTOR, 0.2);
         listeners[0].onRefreshSettings(settings.build());
         assertThat(allocator.getIndexBalance(), Matchers.equalTo(0.5f));
         assertThat(allocator.getShardBalance(), Matchers.equalTo(0.1f));
         assertThat(allocator.getPrimaryBalance(), Matchers.equalTo(0.4f));
         assertThat(allocator.getThreshold(), Matchers.equalTo(3.0f));
+        assertThat(allocator.getDiskBalance(), Matchers.equalTo(0.0f));
+        assertThat(allocator.getWriteLoadBalance(), Matchers.equalTo(0.1f));
+        assertThat(allocator.getSearchLoadBalance(), Matchers.equalTo(0.2f));
     }
 
     @Test
@@ -85,4 +85,47 @@ public class ClusterSerializationTests extends ElasticsearchAllocationTestCase {
         assertThat(target.prettyPrint(), equalTo(source.prettyPrint()));
     }
 
+    @Test
+    public void testClusterStateDiffSerialization() throws Exception {
+        MetaData metaData = MetaData.builder()
+                .put(IndexMetaData.builder("test1").numberOfShards(5).numberOfReplicas(1))
+                .build();
+
+        RoutingTable routingTable = RoutingTable.builder()
+                .addAsNew(metaData.index("test1"))
+                .build();
+
+        DiscoveryNodes nodes = DiscoveryNodes.builder().put(newNode("node1")).put(newNode("node2")).put(newNode("node3")).localNodeId("node1").masterNodeId("node2").build();
+
+        ClusterState previousState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.DEFAULT).nodes(nodes).metaData(metaData).routingTable(routingTable).build();
+
+        AllocationService strategy = createAllocationService();
+        previousState = ClusterState.builder(previousState).routingTable(strategy.reroute(previousState).routingTable()).build();
+
+        // the receiving side holds its own deserialized copy of the previous state
+        ClusterState receivedPreviousState = ClusterState.Builder.fromBytes(ClusterState.Builder.toBytes(previousState), newNode("node1"));
+
+        metaData = MetaData.builder(previousState.metaData())
+                .put(IndexMetaData.builder("test2").numberOfShards(3).numberOfReplicas(1))
+                .build();
+        routingTable = RoutingTable.builder(previousState.routingTable())
+                .addAsNew(metaData.index("test2"))
+                .build();
+        ClusterState clusterState = ClusterState.builder(previousState).metaData(metaData).routingTable(routingTable).build();
+        clusterState = ClusterState.builder(clusterState).routingTable(strategy.reroute(clusterState).routingTable()).build();
+
+        BytesStreamOutput outStream = new BytesStreamOutput();
+        ClusterState.Builder.writeDiffTo(previousState, clusterState, outStream);
+        BytesStreamInput inStream = new BytesStreamInput(outStream.bytes().toBytes(), false);
+        ClusterState serializedClusterState = ClusterState.Builder.readDiffFrom(receivedPreviousState, inStream, newNode("node1"));
+
+        assertThat(serializedClusterState.version(), equalTo(clusterState.version()));
+        assertThat(serializedClusterState.metaData().indices().size(), equalTo(2));
+        assertThat(serializedClusterState.metaData().index("test2").numberOfShards(), equalTo(3));
+        assertThat(serializedClusterState.routingTable().prettyPrint(), equalTo(clusterState.routingTable().prettyPrint()));
+        // unchanged parts are reused from the previous state
+        assertThat(serializedClusterState.nodes() == receivedPreviousState.nodes(), equalTo(true));
+        assertThat(serializedClusterState.metaData().index("test1") == receivedPreviousState.metaData().index("test1"), equalTo(true));
+    }
+
 }
@@ -39,6 +39,11 @@ public class CompressedStringTests extends ElasticsearchTestCase {
         simpleTests("lzf");
     }
 
+    @Test
+    public void simpleTestsLZ4() throws IOException {
+        simpleTests("lz4");
+    }
+
     public void simpleTests(String compressor) throws IOException {
         CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", compressor).build());
         String str = "this is a simple string";
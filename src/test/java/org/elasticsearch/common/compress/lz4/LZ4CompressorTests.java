@@ -0,0 +1,138 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import com.google.common.base.Charsets;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+/**
+ *
+ */
+public class LZ4CompressorTests extends ElasticsearchTestCase {
+
+    private final Compressor compressor = CompressorFactory.compressor(LZ4Compressor.TYPE);
+
+    @Test
+    public void testCompressUncompress() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            byte[] data = randomData(randomIntBetween(0, LZ4Compressor.MAX_CHUNK_LEN * 3));
+            int offset = randomIntBetween(0, data.length);
+            int length = randomIntBetween(0, data.length - offset);
+            byte[] compressed = compressor.compress(data, offset, length);
+            assertThat(compressor.isCompressed(compressed, 0, compressed.length), equalTo(true));
+            assertThat(CompressorFactory.compressor(compressed), instanceOf(LZ4Compressor.class));
+            assertThat(new BytesArray(compressor.uncompress(compressed, 0, compressed.length)), equalTo(new BytesArray(data, offset, length)));
+        }
+    }
+
+    @Test
+    public void testStreams() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            byte[] data = randomData(randomIntBetween(0, LZ4Compressor.MAX_CHUNK_LEN * 3));
+            BytesStreamOutput bStream = new BytesStreamOutput();
+            StreamOutput out = compressor.streamOutput(bStream);
+            int position = 0;
+            while (position < data.length) {
+                // mix single byte and bulk writes
+                if (randomBoolean()) {
+                    out.writeByte(data[position++]);
+                } else {
+                    int length = randomIntBetween(1, data.length - position);
+                    out.writeBytes(data, position, length);
+                    position += length;
+                }
+            }
+            out.close();
+
+            byte[] compressed = bStream.bytes().toBytes();
+            // streams and byte arrays share the same format
+            assertThat(new BytesArray(compressor.uncompress(compressed, 0, compressed.length)), equalTo(new BytesArray(data)));
+
+            StreamInput in = compressor.streamInput(new BytesStreamInput(compressed, false));
+            BytesStreamOutput uncompressed = new BytesStreamOutput();
+            Streams.copy(in, uncompressed);
+            in.close();
+            assertThat(uncompressed.bytes().toBytesArray(), equalTo(new BytesArray(data)));
+        }
+    }
+
+    @Test
+    public void testLZFAndLZ4Coexist() throws IOException {
+        byte[] data = randomData(randomIntBetween(1, 1024));
+        byte[] lz4 = compressor.compress(data, 0, data.length);
+        Compressor lzfCompressor = CompressorFactory.compressor("lzf");
+        byte[] lzf = lzfCompressor.compress(data, 0, data.length);
+        assertThat(CompressorFactory.compressor(lz4), equalTo(compressor));
+        assertThat(CompressorFactory.compressor(lzf), equalTo(lzfCompressor));
+        assertThat(CompressorFactory.uncompressIfNeeded(new BytesArray(lz4)).toBytesArray(), equalTo(new BytesArray(data)));
+        assertThat(CompressorFactory.uncompressIfNeeded(new BytesArray(lzf)).toBytesArray(), equalTo(new BytesArray(data)));
+    }
+
+    @Test
+    public void testIndexFilesAreNotDetectedAsLZ4() throws IOException {
+        RAMDirectory dir = new RAMDirectory();
+        IndexOutput out = dir.createOutput("test.fdt", IOContext.DEFAULT);
+        out.writeBytes(new byte[]{'L', 'Z', '4', 0}, 4);
+        out.writeInt(0);
+        out.close();
+        IndexInput in = dir.openInput("test.fdt", IOContext.DEFAULT);
+        assertThat(compressor.isCompressed(in), equalTo(false));
+        assertThat(in.getFilePointer(), equalTo(0l));
+        in.close();
+        dir.close();
+    }
+
+    private byte[] randomData(int length) {
+        byte[] data = new byte[length];
+        if (randomBoolean()) {
+            // incompressible
+            getRandom().nextBytes(data);
+        } else {
+            // compressible, repeated words
+            String[] words = new String[]{"elasticsearch", "lucene", "compress", "_source", "field", "value"};
+            int i = 0;
+            while (i < length) {
+                byte[] word = words[randomIntBetween(0, words.length - 1)].getBytes(Charsets.UTF_8);
+                int len = Math.min(word.length, length - i);
+                System.arraycopy(word, 0, data, i, len);
+                i += len;
+            }
+        }
+        return data;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.docset;
+
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class RoaringDocIdSetTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testEmpty() throws IOException {
+        RoaringDocIdSet set = new RoaringDocIdSet.Builder(randomIntBetween(0, 1 << 20)).build();
+        assertThat(set.cardinality(), equalTo(0));
+        assertThat(set.iterator().nextDoc(), equalTo(DocIdSetIterator.NO_MORE_DOCS));
+    }
+
+    @Test
+    public void testSparse() throws IOException {
+        duel(randomFixedBitSet(randomIntBetween(1, 1 << 20), 0.001f));
+    }
+
+    @Test
+    public void testDense() throws IOException {
+        duel(randomFixedBitSet(randomIntBetween(1, 1 << 20), 0.9f));
+    }
+
+    @Test
+    public void testRuns() throws IOException {
+        final int maxDoc = randomIntBetween(1, 1 << 20);
+        final FixedBitSet bits = new FixedBitSet(maxDoc);
+        for (int i = 0; i < 20; i++) {
+            final int start = randomInt(maxDoc - 1);
+            bits.set(start, Math.min(maxDoc, start + randomIntBetween(1, 200000)));
+        }
+        duel(bits);
+        // a few long runs take much less memory than a bitmap
+        final RoaringDocIdSet set = build(bits);
+        assertThat(set.ramBytesUsed(), lessThan(DocIdSets.sizeInBytes(bits)));
+    }
+
+    @Test
+    public void testRandom() throws IOException {
+        for (int iter = 0; iter < 10; iter++) {
+            final int maxDoc = randomIntBetween(1, 1 << 19);
+            duel(randomFixedBitSet(maxDoc, randomFloat()));
+        }
+    }
+
+    @Test
+    public void testSmallerThanFixedBitSet() throws IOException {
+        final FixedBitSet bits = randomFixedBitSet(1 << 20, 0.01f);
+        final RoaringDocIdSet set = build(bits);
+        assertThat(set.ramBytesUsed(), lessThan(DocIdSets.sizeInBytes(bits)));
+        assertThat(DocIdSets.sizeInBytes(set), equalTo(set.ramBytesUsed()));
+    }
+
+    @Test
+    public void testAndOr() throws IOException {
+        final int maxDoc = randomIntBetween(1, 1 << 19);
+        final int numSets = randomIntBetween(2, 4);
+        final FixedBitSet[] bitSets = new FixedBitSet[numSets];
+        final RoaringDocIdSet[] roaringSets = new RoaringDocIdSet[numSets];
+        final FixedBitSet and = new FixedBitSet(maxDoc);
+        and.set(0, maxDoc);
+        final FixedBitSet or = new FixedBitSet(maxDoc);
+        for (int i = 0; i < numSets; i++) {
+            bitSets[i] = randomFixedBitSet(maxDoc, randomFloat());
+            roaringSets[i] = build(bitSets[i]);
+            and.and(bitSets[i]);
+            or.or(bitSets[i]);
+        }
+        assertSameDocs(and, new AndDocIdSet(roaringSets).iterator());
+        assertSameDocs(or, new OrDocIdSet(roaringSets).iterator());
+        // mixed with regular sets goes through the iterators, and must return the same docs
+        final DocIdSet[] mixed = new DocIdSet[numSets];
+        System.arraycopy(roaringSets, 0, mixed, 0, numSets);
+        mixed[0] = bitSets[0];
+        assertSameDocs(and, new AndDocIdSet(mixed).iterator());
+        assertSameDocs(or, new OrDocIdSet(mixed).iterator());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfOrder() {
+        new RoaringDocIdSet.Builder(100).add(10).add(5);
+    }
+
+    private static FixedBitSet randomFixedBitSet(int maxDoc, float density) {
+        final FixedBitSet bits = new FixedBitSet(maxDoc);
+        for (int i = 0; i < maxDoc; i++) {
+            if (getRandom().nextFloat() < density) {
+                bits.set(i);
+            }
+        }
+        return bits;
+    }
+
+    private static RoaringDocIdSet build(FixedBitSet bits) throws IOException {
+        return new RoaringDocIdSet.Builder(bits.length()).add(bits.iterator()).build();
+    }
+
+    private void duel(FixedBitSet bits) throws IOException {
+        final RoaringDocIdSet set = build(bits);
+        assertThat(set.cardinality(), equalTo(bits.cardinality()));
+        assertThat(set.maxDoc(), equalTo(bits.length()));
+        assertSameDocs(bits, set.iterator());
+
+        // random access
+        final Bits setBits = set.bits();
+        assertThat(setBits.length(), equalTo(bits.length()));
+        for (int i = 0; i < bits.length(); i++) {
+            assertThat(setBits.get(i), equalTo(bits.get(i)));
+        }
+
+        // advance, mixed with nextDoc
+        final DocIdSetIterator expected = bits.iterator();
+        final DocIdSetIterator actual = set.iterator();
+        int doc = -1;
+        while (doc != DocIdSetIterator.NO_MORE_DOCS) {
+            if (randomBoolean()) {
+                doc = expected.nextDoc();
+                assertThat(actual.nextDoc(), equalTo(doc));
+            } else {
+                final int target = doc + 1 + randomInt(randomBoolean() ? 64 : 1 << 17);
+                doc = expected.advance(target);
+                assertThat(actual.advance(target), equalTo(doc));
+            }
+            assertThat(actual.docID(), equalTo(doc));
+        }
+    }
+
+    private static void assertSameDocs(FixedBitSet expected, DocIdSetIterator actual) throws IOException {
+        final DocIdSetIterator it = expected.iterator();
+        for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+            assertThat(actual.nextDoc(), equalTo(doc));
+        }
+        assertThat(actual.nextDoc(), equalTo(DocIdSetIterator.NO_MORE_DOCS));
+    }
+}
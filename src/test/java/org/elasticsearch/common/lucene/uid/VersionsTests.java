@@ -28,6 +28,9 @@ import org.apache.lucene.document.*;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.index.*;
 import org.apache.lucene.index.FieldInfo.IndexOptions;
+import org.apache.lucene.index.sorter.SortingMergePolicy;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.Numbers;
@@ -281,4 +284,61 @@ public class VersionsTests extends ElasticsearchLuceneTestCase {
         ir.close();
         dir.close();
     }
+
+    @Test
+    public void testMergingOldIndicesWithIndexSort() throws Exception {
+        final Sort indexSort = new Sort(new SortField("sort", SortField.Type.LONG));
+        final IndexWriterConfig iwConf = new IndexWriterConfig(Lucene.VERSION, new KeywordAnalyzer());
+        iwConf.setMergePolicy(new ElasticsearchMergePolicy(iwConf.getMergePolicy(), indexSort));
+        final Directory dir = newDirectory();
+        final IndexWriter iw = new IndexWriter(dir, iwConf);
+
+        // 1st segment, old layout
+        Document document = new Document();
+        UidField uidAndVersion = new UidField("1", 1L);
+        NumericDocValuesField sort = new NumericDocValuesField("sort", 4L);
+        document.add(uidAndVersion);
+        document.add(sort);
+        iw.addDocument(document);
+        uidAndVersion.uid = "2";
+        uidAndVersion.setStringValue("2");
+        uidAndVersion.version = 2L;
+        sort.setLongValue(2L);
+        iw.addDocument(document);
+        iw.commit();
+
+        // 2nd segment new layout
+        document = new Document();
+        StringField uid = new StringField(UidFieldMapper.NAME, "3", Store.YES);
+        Field version = new NumericDocValuesField(VersionFieldMapper.NAME, 3L);
+        document.add(uid);
+        document.add(version);
+        document.add(sort);
+        sort.setLongValue(3L);
+        iw.addDocument(document);
+        uid.setStringValue("4");
+        version.setLongValue(4L);
+        sort.setLongValue(1L);
+        iw.addDocument(document);
+        iw.commit();
+
+        // the merge both upgrades and sorts the segments
+        iw.forceMerge(1, true);
+        final DirectoryReader reader = DirectoryReader.open(iw.getDirectory());
+        assertThat(reader.leaves().size(), equalTo(1));
+        final AtomicReader ir = reader.leaves().get(0).reader();
+        assertTrue(SortingMergePolicy.isSorted(ir, indexSort));
+        final NumericDocValues versions = ir.getNumericDocValues(VersionFieldMapper.NAME);
+        assertThat(versions, notNullValue());
+        final String[] expectedUids = new String[] {"4", "2", "3", "1"};
+        for (int i = 0; i < ir.maxDoc(); ++i) {
+            final String uidValue = ir.document(i).get(UidFieldMapper.NAME);
+            assertThat(uidValue, equalTo(expectedUids[i]));
+            assertThat(versions.get(i), equalTo(Long.parseLong(uidValue)));
+        }
+
+        iw.close();
+        reader.close();
+        dir.close();
+    }
 }
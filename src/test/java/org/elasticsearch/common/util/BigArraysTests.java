@@ -37,7 +37,7 @@ public class BigArraysTests extends ElasticsearchTestCase {
 
     public static BigArrays randombigArrays() {
         final PageCacheRecycler recycler = randomBoolean() ? null : new MockPageCacheRecycler(ImmutableSettings.EMPTY, new ThreadPool());
-        return new MockBigArrays(ImmutableSettings.EMPTY, recycler);
+        return new MockBigArrays(ImmutableSettings.builder().put(BigArrays.OFF_HEAP_SETTING, randomBoolean()).build(), recycler);
     }
 
     private BigArrays bigArrays;
@@ -345,6 +345,24 @@ public class BigArraysTests extends ElasticsearchTestCase {
         }
     }
 
+    public void testOffHeapByteAccounting() throws Exception {
+        final PageCacheRecycler recycler = randomBoolean() ? null : new MockPageCacheRecycler(ImmutableSettings.EMPTY, new ThreadPool());
+        final BigArrays bigArrays = new BigArrays(ImmutableSettings.builder().put(BigArrays.OFF_HEAP_SETTING, true).build(), recycler);
+        for (String type : Arrays.asList("Byte", "Int", "Long", "Double")) {
+            Method create = BigArrays.class.getMethod("new" + type + "Array", long.class);
+            final int size = scaledRandomIntBetween(BigArrays.PAGE_SIZE_IN_BYTES + 1, 1 << 18);
+            BigArray array = (BigArray) create.invoke(bigArrays, size);
+            assertTrue(array instanceof AbstractDirectBigArray);
+            assertEquals(array.sizeInBytes(), bigArrays.sizeInBytes());
+            Method resize = BigArrays.class.getMethod("resize", array.getClass().getInterfaces()[0], long.class);
+            array = (BigArray) resize.invoke(bigArrays, array, size * 2);
+            assertTrue(array instanceof AbstractDirectBigArray);
+            assertEquals(array.sizeInBytes(), bigArrays.sizeInBytes());
+            array.close();
+            assertEquals(0, bigArrays.sizeInBytes());
+        }
+    }
+
     public void testMaxSizeExceededOnNew() throws Exception {
         final int size = scaledRandomIntBetween(5, 1 << 22);
         for (String type : Arrays.asList("Byte", "Int", "Long", "Float", "Double", "Object")) {
@@ -360,6 +378,19 @@ public class BigArraysTests extends ElasticsearchTestCase {
         }
     }
 
+    public void testWithoutLimit() {
+        final long maxSize = randomIntBetween(1 << 10, 1 << 16);
+        BigArrays bigArrays = new BigArrays(ImmutableSettings.builder().put(BigArrays.MAX_SIZE_IN_BYTES_SETTING, maxSize).build(), null);
+        BigArrays unlimited = bigArrays.withoutLimit();
+        LongArray array = unlimited.newLongArray(maxSize, false);
+        assertTrue(unlimited.sizeInBytes() > maxSize);
+        array = unlimited.resize(array, maxSize * 2);
+        assertEquals(0, bigArrays.sizeInBytes());
+        array.close();
+        assertEquals(0, unlimited.sizeInBytes());
+        assertSame(unlimited, unlimited.withoutLimit());
+    }
+
     public void testMaxSizeExceededOnResize() throws Exception {
         for (String type : Arrays.asList("Byte", "Int", "Long", "Float", "Double", "Object")) {
             final long maxSize = randomIntBetween(1 << 10, 1 << 22);
@@ -0,0 +1,144 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.discovery.zen.publish;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.discovery.Discovery;
+import org.elasticsearch.discovery.DiscoverySettings;
+import org.elasticsearch.discovery.zen.DiscoveryNodesProvider;
+import org.elasticsearch.node.service.NodeService;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+import org.elasticsearch.transport.local.LocalTransport;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.*;
+
+/**
+ *
+ */
+public class PublishClusterStateActionTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testNodeRejectingDiffReceivesFullClusterState() throws Exception {
+        Settings settings = ImmutableSettings.EMPTY;
+        ThreadPool threadPool = new ThreadPool();
+        DiscoverySettings discoverySettings = new DiscoverySettings(settings, new NodeSettingsService(settings));
+
+        TransportService transportServiceA = new TransportService(new LocalTransport(settings, threadPool, Version.CURRENT), threadPool).start();
+        TransportService transportServiceB = new TransportService(new LocalTransport(settings, threadPool, Version.CURRENT), threadPool).start();
+        DiscoveryNode nodeA = new DiscoveryNode("PCS_A", transportServiceA.boundAddress().publishAddress(), Version.CURRENT);
+        DiscoveryNode nodeB = new DiscoveryNode("PCS_B", transportServiceB.boundAddress().publishAddress(), Version.CURRENT);
+        final DiscoveryNodes nodes = DiscoveryNodes.builder().put(nodeA).put(nodeB).localNodeId("PCS_A").masterNodeId("PCS_A").build();
+        final DiscoveryNodes nodesOnB = DiscoveryNodes.builder(nodes).localNodeId("PCS_B").build();
+
+        final AtomicReference<ClusterState> receivedState = new AtomicReference<>();
+        PublishClusterStateAction publishA = new PublishClusterStateAction(settings, transportServiceA, nodesProvider(nodes), new RecordingListener(receivedState), discoverySettings);
+        PublishClusterStateAction publishB = new PublishClusterStateAction(settings, transportServiceB, nodesProvider(nodesOnB), new RecordingListener(receivedState), discoverySettings);
+
+        try {
+            ClusterState clusterState = ClusterState.builder(ClusterName.DEFAULT).version(1).nodes(nodes).build();
+            publishA.publish(clusterState, new NoopAckListener());
+            assertThat(receivedState.get().version(), equalTo(1l));
+
+            // a node that lost the last published cluster state can't apply the next diff
+            publishB.close();
+            publishB = new PublishClusterStateAction(settings, transportServiceB, nodesProvider(nodesOnB), new RecordingListener(receivedState), discoverySettings);
+
+            MetaData metaData = MetaData.builder().put(IndexMetaData.builder("test").numberOfShards(1).numberOfReplicas(0)).build();
+            clusterState = ClusterState.builder(clusterState).version(2).metaData(metaData).build();
+            publishA.publish(clusterState, new NoopAckListener());
+            assertThat(receivedState.get().version(), equalTo(2l));
+            assertThat(receivedState.get().metaData().hasIndex("test"), equalTo(true));
+
+            assertThat(publishA.stats().getDiffPublishes(), equalTo(1l));
+            assertThat(publishA.stats().getIncompatibleDiffs(), equalTo(1l));
+            assertThat(publishA.stats().getFullPublishes(), equalTo(2l));
+
+            // the full cluster state it received is the base for the next diff
+            metaData = MetaData.builder(metaData).put(IndexMetaData.builder("test2").numberOfShards(1).numberOfReplicas(0)).build();
+            clusterState = ClusterState.builder(clusterState).version(3).metaData(metaData).build();
+            publishA.publish(clusterState, new NoopAckListener());
+            assertThat(receivedState.get().version(), equalTo(3l));
+            assertThat(receivedState.get().metaData().hasIndex("test2"), equalTo(true));
+            assertThat(publishA.stats().getDiffPublishes(), equalTo(2l));
+            assertThat(publishA.stats().getIncompatibleDiffs(), equalTo(1l));
+        } finally {
+            publishA.close();
+            publishB.close();
+            transportServiceA.close();
+            transportServiceB.close();
+            threadPool.shutdown();
+        }
+    }
+
+    private static DiscoveryNodesProvider nodesProvider(final DiscoveryNodes nodes) {
+        return new DiscoveryNodesProvider() {
+            @Override
+            public DiscoveryNodes nodes() {
+                return nodes;
+            }
+
+            @Override
+            public NodeService nodeService() {
+                return null;
+            }
+        };
+    }
+
+    private static class RecordingListener implements PublishClusterStateAction.NewClusterStateListener {
+
+        private final AtomicReference<ClusterState> receivedState;
+
+        RecordingListener(AtomicReference<ClusterState> receivedState) {
+            this.receivedState = receivedState;
+        }
+
+        @Override
+        public void onNewClusterState(ClusterState clusterState, NewStateProcessed newStateProcessed) {
+            receivedState.set(clusterState);
+            newStateProcessed.onNewClusterStateProcessed();
+        }
+    }
+
+    private static class NoopAckListener implements Discovery.AckListener {
+
+        @Override
+        public void onNodeAck(DiscoveryNode node, Throwable t) {
+        }
+
+        @Override
+        public void onTimeout() {
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.filter;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.queries.TermFilter;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.NumericRangeFilter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.cache.filter.support.CacheKeyFilter;
+import org.elasticsearch.index.cache.filter.support.UsageTrackingFilterCachingPolicy;
+import org.elasticsearch.index.search.nested.NestedTypeFilter;
+import org.elasticsearch.index.search.nested.NonNestedDocsFilter;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class UsageTrackingFilterCachingPolicyTests extends ElasticsearchTestCase {
+
+    private Directory dir;
+    private DirectoryReader reader;
+    private AtomicReaderContext context;
+
+    @Before
+    public void setUpReader() throws Exception {
+        dir = new RAMDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+        for (int i = 0; i < 10; i++) {
+            Document document = new Document();
+            document.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+            writer.addDocument(document);
+        }
+        writer.forceMerge(1);
+        writer.close();
+        reader = DirectoryReader.open(dir);
+        context = reader.leaves().get(0);
+    }
+
+    @After
+    public void closeReader() throws Exception {
+        reader.close();
+        dir.close();
+    }
+
+    @Test
+    public void testCachedAfterMinFrequency() {
+        UsageTrackingFilterCachingPolicy policy = new UsageTrackingFilterCachingPolicy(16, 3, 0);
+        Filter filter = NumericRangeFilter.newLongRange("field", 1l, 10l, true, true);
+        policy.onUse(filter, filter);
+        assertFalse(policy.shouldCache(filter, filter, context));
+        policy.onUse(filter, filter);
+        assertFalse(policy.shouldCache(filter, filter, context));
+        policy.onUse(filter, filter);
+        assertTrue(policy.shouldCache(filter, filter, context));
+        assertThat(policy.frequency(filter), equalTo(3));
+    }
+
+    @Test
+    public void testHistoryWindow() {
+        UsageTrackingFilterCachingPolicy policy = new UsageTrackingFilterCachingPolicy(4, 2, 0);
+        Filter filter = NumericRangeFilter.newLongRange("field", 1l, 10l, true, true);
+        policy.onUse(filter, filter);
+        policy.onUse(filter, filter);
+        assertTrue(policy.shouldCache(filter, filter, context));
+        // one-off filters push the old usages out of the window
+        for (int i = 0; i < 3; i++) {
+            Filter other = NumericRangeFilter.newLongRange("field", 100l + i, 1000l, true, true);
+            policy.onUse(other, other);
+            assertFalse(policy.shouldCache(other, other, context));
+        }
+        assertThat(policy.frequency(filter), equalTo(1));
+        assertFalse(policy.shouldCache(filter, filter, context));
+    }
+
+    @Test
+    public void testCacheKey() {
+        UsageTrackingFilterCachingPolicy policy = new UsageTrackingFilterCachingPolicy(16, 2, 0);
+        CacheKeyFilter.Key key = new CacheKeyFilter.Key("my_key");
+        Filter first = new CacheKeyFilter.Wrapper(NumericRangeFilter.newLongRange("field", 1l, 10l, true, true), key);
+        Filter second = new CacheKeyFilter.Wrapper(NumericRangeFilter.newLongRange("field", 1l, 20l, true, true), key);
+        policy.onUse(first, key);
+        policy.onUse(second, key);
+        assertTrue(policy.shouldCache(second, key, context));
+    }
+
+    @Test
+    public void testKeysWithSameHashCode() {
+        UsageTrackingFilterCachingPolicy policy = new UsageTrackingFilterCachingPolicy(16, 2, 0);
+        // "Aa" and "BB" have the same hash code
+        CacheKeyFilter.Key first = new CacheKeyFilter.Key("Aa");
+        CacheKeyFilter.Key second = new CacheKeyFilter.Key("BB");
+        assertThat(first.hashCode(), equalTo(second.hashCode()));
+        Filter filter = NumericRangeFilter.newLongRange("field", 1l, 10l, true, true);
+        policy.onUse(new CacheKeyFilter.Wrapper(filter, first), first);
+        policy.onUse(new CacheKeyFilter.Wrapper(filter, second), second);
+        assertThat(policy.frequency(first), equalTo(1));
+        assertFalse(policy.shouldCache(new CacheKeyFilter.Wrapper(filter, second), second, context));
+    }
+
+    @Test
+    public void testCheapFiltersOnSmallSegments() {
+        UsageTrackingFilterCachingPolicy policy = new UsageTrackingFilterCachingPolicy(16, 1, 100);
+        Filter filter = new TermFilter(new Term("id", "1"));
+        policy.onUse(filter, filter);
+        assertFalse(policy.shouldCache(filter, filter, context));
+
+        policy = new UsageTrackingFilterCachingPolicy(16, 1, context.reader().maxDoc());
+        assertTrue(policy.shouldCache(filter, filter, context));
+    }
+
+    @Test
+    public void testAlwaysCacheNestedParentFilter() {
+        UsageTrackingFilterCachingPolicy policy = new UsageTrackingFilterCachingPolicy(16, 5, 100);
+        assertTrue(policy.shouldCache(NonNestedDocsFilter.INSTANCE, NonNestedDocsFilter.INSTANCE, context));
+    }
+
+    @Test
+    public void testAlwaysCacheNestedTypeFilter() {
+        UsageTrackingFilterCachingPolicy policy = new UsageTrackingFilterCachingPolicy(16, 5, context.reader().maxDoc() + 1);
+        NestedTypeFilter filter = new NestedTypeFilter(new BytesRef("__nested"));
+        assertTrue(policy.shouldCache(filter, filter, context));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMinFrequencyLargerThanHistory() {
+        new UsageTrackingFilterCachingPolicy(4, 5, 0);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine.internal;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArraysTests;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CompactVersionMapTests extends ElasticsearchTestCase {
+
+    private static void assertVersionValue(VersionValue expected, VersionValue actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertNotNull(actual);
+        assertEquals(expected.version(), actual.version());
+        if (expected.translogLocation() == null) {
+            assertNull(actual.translogLocation());
+        } else {
+            assertNotNull(actual.translogLocation());
+            assertEquals(expected.translogLocation().translogId, actual.translogLocation().translogId);
+            assertEquals(expected.translogLocation().translogLocation, actual.translogLocation().translogLocation);
+            assertEquals(expected.translogLocation().size, actual.translogLocation().size);
+        }
+    }
+
+    private VersionValue randomVersionValue() {
+        final Translog.Location location = randomBoolean() ? null : new Translog.Location(randomLong(), randomLong(), randomIntBetween(0, Integer.MAX_VALUE));
+        return new VersionValue(randomLong(), location);
+    }
+
+    @Test
+    public void testDuel() {
+        final CompactVersionMap map = new CompactVersionMap(BigArraysTests.randombigArrays(), 1 << randomInt(5));
+        final Map<BytesRef, VersionValue> reference = new HashMap<>();
+        final BytesRef[] uids = new BytesRef[randomIntBetween(1, 5000)];
+        for (int i = 0; i < uids.length; ++i) {
+            uids[i] = new BytesRef(randomUnicodeOfLengthBetween(1, 20));
+        }
+        final int iters = scaledRandomIntBetween(1000, 100000);
+        for (int i = 0; i < iters; ++i) {
+            final BytesRef uid = randomFrom(uids);
+            switch (randomInt(2)) {
+                case 0:
+                    final VersionValue value = randomVersionValue();
+                    map.put(uid, value);
+                    reference.put(uid, value);
+                    break;
+                case 1:
+                    map.remove(uid);
+                    reference.remove(uid);
+                    break;
+                default:
+                    assertVersionValue(reference.get(uid), map.get(uid));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        for (BytesRef uid : uids) {
+            assertVersionValue(reference.get(uid), map.get(uid));
+        }
+        map.close();
+        for (BytesRef uid : uids) {
+            assertNull(map.get(uid));
+        }
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testConcurrentPuts() throws Exception {
+        final CompactVersionMap map = new CompactVersionMap(BigArraysTests.randombigArrays(), 1 << randomInt(5));
+        final int numThreads = randomIntBetween(2, 8);
+        final int numUidsPerThread = scaledRandomIntBetween(100, 10000);
+        final Thread[] threads = new Thread[numThreads];
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < numThreads; ++t) {
+            final int threadId = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        latch.await();
+                        for (int i = 0; i < numUidsPerThread; ++i) {
+                            final BytesRef uid = new BytesRef(threadId + "_" + i);
+                            map.put(uid, new VersionValue(i, new Translog.Location(threadId, i, i)));
+                            assertVersionValue(new VersionValue(i, new Translog.Location(threadId, i, i)), map.get(uid));
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        latch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new RuntimeException(failure.get());
+        }
+        assertEquals((long) numThreads * numUidsPerThread, map.size());
+        map.close();
+    }
+}
@@ -38,6 +38,7 @@ import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.analysis.AnalysisService;
@@ -207,7 +208,7 @@ public class InternalEngineTests extends ElasticsearchTestCase {
 
     protected Engine createEngine(IndexSettingsService indexSettingsService, Store store, Translog translog, MergeSchedulerProvider mergeSchedulerProvider) {
         return new InternalEngine(shardId, defaultSettings, threadPool, indexSettingsService, new ShardIndexingService(shardId, EMPTY_SETTINGS, new ShardSlowLogIndexingService(shardId, EMPTY_SETTINGS, indexSettingsService)), null, store, createSnapshotDeletionPolicy(), translog, createMergePolicy(), mergeSchedulerProvider,
-                new AnalysisService(shardId.index()), new SimilarityService(shardId.index()), new CodecService(shardId.index()));
+                new AnalysisService(shardId.index()), new SimilarityService(shardId.index()), new CodecService(shardId.index()), BigArrays.NON_RECYCLING_INSTANCE);
     }
 
     protected static final BytesReference B_1 = new BytesArray(new byte[]{1});
@@ -990,6 +991,36 @@ public class InternalEngineTests extends ElasticsearchTestCase {
         }
     }
 
+    @Test
+    public void testRetryOfAutoGeneratedIdCreate() {
+        ParsedDocument doc = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), Lucene.STANDARD_ANALYZER, B_1, false);
+        Engine.Create create = new Engine.Create(null, newUid("1"), doc, Versions.MATCH_ANY, VersionType.INTERNAL, PRIMARY, System.nanoTime(), false, true);
+        engine.create(create);
+        assertThat(create.version(), equalTo(1l));
+        if (randomBoolean()) {
+            engine.refresh(new Engine.Refresh("test").force(false));
+        }
+
+        // the retry is marked as possibly duplicated and must replace the document indexed by the first attempt
+        Engine.Create retry = new Engine.Create(null, newUid("1"), doc, Versions.MATCH_ANY, VersionType.INTERNAL, PRIMARY, System.nanoTime(), true, true);
+        engine.create(retry);
+        assertThat(retry.version(), equalTo(1l));
+
+        engine.refresh(new Engine.Refresh("test").force(false));
+        Engine.Searcher searchResult = engine.acquireSearcher("test");
+        MatcherAssert.assertThat(searchResult, EngineSearcherTotalHitsMatcher.engineSearcherTotalHits(1));
+        searchResult.close();
+
+        // a create with an explicit id still conflicts
+        create = new Engine.Create(null, newUid("1"), doc, Versions.MATCH_ANY, VersionType.INTERNAL, PRIMARY, System.nanoTime(), true, false);
+        try {
+            engine.create(create);
+            fail();
+        } catch (DocumentAlreadyExistsException e) {
+            // all is well
+        }
+    }
+
     @Test
     public void testVersioningCreateExistsExceptionWithFlush() {
         ParsedDocument doc = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), Lucene.STANDARD_ANALYZER, B_1, false);
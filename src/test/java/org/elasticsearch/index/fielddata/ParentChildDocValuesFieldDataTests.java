@@ -0,0 +1,117 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.common.compress.CompressedString;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.fielddata.plain.ParentChildAtomicFieldData;
+import org.elasticsearch.index.fielddata.plain.ParentChildIndexFieldData;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.MapperTestUtils;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.mapper.internal.ParentFieldMapper;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.test.index.service.StubIndexService;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the parent/child field data of child types that join on the doc values of the <tt>_parent</tt> field.
+ */
+public class ParentChildDocValuesFieldDataTests extends AbstractFieldDataTests {
+
+    private final String parentType = "parent";
+    private final String childType = "child";
+
+    @Before
+    public void before() throws Exception {
+        MapperService mapperService = MapperTestUtils.newMapperService(ifdService.index(), ImmutableSettings.Builder.EMPTY_SETTINGS);
+        mapperService.merge(
+                childType, new CompressedString(PutMappingRequest.buildFromSimplifiedDef(childType, "_parent", "type=" + parentType + ",doc_values=true").string()), true
+        );
+        IndexService indexService = new StubIndexService(mapperService);
+        ifdService.setIndexService(indexService);
+
+        writer.addDocument(parent("1"));
+        writer.addDocument(child("2", "1"));
+        writer.commit();
+
+        writer.addDocument(child("3", "1"));
+        writer.addDocument(parent("2"));
+        writer.addDocument(child("4", "2"));
+        writer.commit();
+
+        Document d = new Document();
+        d.add(new StringField(UidFieldMapper.NAME, Uid.createUid("other-type", "1"), Field.Store.NO));
+        writer.addDocument(d);
+    }
+
+    private Document parent(String id) {
+        Document d = new Document();
+        d.add(new StringField(UidFieldMapper.NAME, Uid.createUid(parentType, id), Field.Store.NO));
+        d.add(new SortedSetDocValuesField(ParentFieldMapper.joinField(parentType), new BytesRef(id)));
+        return d;
+    }
+
+    private Document child(String id, String parentId) {
+        Document d = new Document();
+        d.add(new StringField(UidFieldMapper.NAME, Uid.createUid(childType, id), Field.Store.NO));
+        d.add(new StringField(ParentFieldMapper.NAME, Uid.createUid(parentType, parentId), Field.Store.NO));
+        d.add(new SortedSetDocValuesField(ParentFieldMapper.joinField(parentType), new BytesRef(parentId)));
+        return d;
+    }
+
+    @Test
+    public void testDocValuesJoin() throws Exception {
+        ParentChildIndexFieldData indexFieldData = getForField(childType);
+        ParentChildAtomicFieldData fieldData = indexFieldData.load(refreshReader());
+        // the ids are read from disk and don't account for any memory
+        assertThat(fieldData.getMemorySizeInBytes(), equalTo(0l));
+
+        BytesValues.WithOrdinals bytesValues = fieldData.getBytesValues(parentType);
+        assertThat(bytesValues.setDocument(0), equalTo(1));
+        assertThat(bytesValues.nextValue().utf8ToString(), equalTo("1"));
+        assertThat(bytesValues.setDocument(1), equalTo(1));
+        assertThat(bytesValues.nextValue().utf8ToString(), equalTo("1"));
+        assertThat(bytesValues.setDocument(2), equalTo(1));
+        assertThat(bytesValues.nextValue().utf8ToString(), equalTo("1"));
+        assertThat(bytesValues.setDocument(3), equalTo(1));
+        assertThat(bytesValues.nextValue().utf8ToString(), equalTo("2"));
+        assertThat(bytesValues.setDocument(4), equalTo(1));
+        assertThat(bytesValues.nextValue().utf8ToString(), equalTo("2"));
+        assertThat(bytesValues.setDocument(5), equalTo(0));
+        assertThat(bytesValues.getMaxOrd(), equalTo(2l));
+    }
+
+    @Override
+    protected FieldDataType getFieldDataType() {
+        return new FieldDataType("_parent");
+    }
+}
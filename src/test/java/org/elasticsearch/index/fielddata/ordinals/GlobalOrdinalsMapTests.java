@@ -0,0 +1,175 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.fielddata.BytesValues;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class GlobalOrdinalsMapTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testFullBuild() {
+        final List<Segment> segments = randomSegments(randomIntBetween(1, 10));
+        final GlobalOrdinalsMap map = build(segments, null);
+        assertFalse(map.isIncremental());
+        assertMap(segments, map);
+    }
+
+    @Test
+    public void testIncrementalBuild() {
+        List<Segment> segments = randomSegments(randomIntBetween(1, 10));
+        GlobalOrdinalsMap map = build(segments, null);
+        final int iters = randomIntBetween(1, 10);
+        for (int iter = 0; iter < iters; ++iter) {
+            final List<Segment> newSegments = new ArrayList<>();
+            for (Segment segment : segments) {
+                // keep most segments, like a refresh or a merge would
+                if (randomInt(4) != 0) {
+                    newSegments.add(segment);
+                }
+            }
+            newSegments.addAll(randomSegments(randomIntBetween(newSegments.isEmpty() ? 1 : 0, 3)));
+            final GlobalOrdinalsMap newMap = build(newSegments, map);
+            assertMap(newSegments, newMap);
+            final GlobalOrdinalsMap fullMap = build(newSegments, null);
+            assertThat(newMap.getValueCount(), equalTo(fullMap.getValueCount()));
+            for (int i = 0; i < newSegments.size(); ++i) {
+                for (long ord = 0; ord < newSegments.get(i).terms.length; ++ord) {
+                    assertThat(newMap.getGlobalOrd(i, ord), equalTo(fullMap.getGlobalOrd(i, ord)));
+                }
+            }
+            segments = newSegments;
+            map = newMap;
+        }
+    }
+
+    @Test
+    public void testNoSharedSegments() {
+        final GlobalOrdinalsMap previous = build(randomSegments(3), null);
+        final List<Segment> segments = randomSegments(2);
+        final GlobalOrdinalsMap map = build(segments, previous);
+        assertFalse(map.isIncremental());
+        assertMap(segments, map);
+    }
+
+    private static GlobalOrdinalsMap build(List<Segment> segments, GlobalOrdinalsMap previous) {
+        final Object[] keys = new Object[segments.size()];
+        final BytesValues.WithOrdinals[] values = new BytesValues.WithOrdinals[segments.size()];
+        for (int i = 0; i < segments.size(); ++i) {
+            keys[i] = segments.get(i);
+            values[i] = new TermsValues(segments.get(i).terms);
+        }
+        return GlobalOrdinalsMap.build(keys, values, previous);
+    }
+
+    private static void assertMap(List<Segment> segments, GlobalOrdinalsMap map) {
+        final TreeSet<BytesRef> allTerms = new TreeSet<>();
+        for (Segment segment : segments) {
+            for (BytesRef term : segment.terms) {
+                allTerms.add(term);
+            }
+        }
+        final BytesRef[] sortedTerms = allTerms.toArray(new BytesRef[allTerms.size()]);
+        assertThat(map.getValueCount(), equalTo((long) sortedTerms.length));
+        assertThat(map.getNumSegments(), equalTo(segments.size()));
+        for (int i = 0; i < segments.size(); ++i) {
+            final BytesRef[] terms = segments.get(i).terms;
+            assertThat(map.getSegmentValueCount(i), equalTo((long) terms.length));
+            for (int ord = 0; ord < terms.length; ++ord) {
+                assertThat(sortedTerms[(int) map.getGlobalOrd(i, ord)], equalTo(terms[ord]));
+            }
+        }
+        for (long globalOrd = 0; globalOrd < sortedTerms.length; ++globalOrd) {
+            final int segment = map.getFirstSegmentNumber(globalOrd);
+            final long segmentOrd = map.getFirstSegmentOrd(globalOrd);
+            assertThat(segments.get(segment).terms[(int) segmentOrd], equalTo(sortedTerms[(int) globalOrd]));
+        }
+    }
+
+    private static List<Segment> randomSegments(int count) {
+        final List<Segment> segments = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            final TreeSet<BytesRef> terms = new TreeSet<>();
+            final int numTerms = randomIntBetween(0, 200);
+            for (int j = 0; j < numTerms; ++j) {
+                terms.add(new BytesRef(Integer.toString(randomInt(500))));
+            }
+            segments.add(new Segment(terms.toArray(new BytesRef[terms.size()])));
+        }
+        return segments;
+    }
+
+    private static class Segment {
+
+        final BytesRef[] terms;
+
+        Segment(BytesRef[] terms) {
+            this.terms = terms;
+        }
+    }
+
+    private static class TermsValues extends BytesValues.WithOrdinals {
+
+        private final BytesRef[] terms;
+        private final BytesRef scratch = new BytesRef();
+
+        TermsValues(BytesRef[] terms) {
+            super(false);
+            this.terms = terms;
+        }
+
+        @Override
+        public long getMaxOrd() {
+            return terms.length;
+        }
+
+        @Override
+        public long getOrd(int docId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long nextOrd() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BytesRef getValueByOrd(long ord) {
+            // shared instance, like the actual implementations
+            scratch.copyBytes(terms[(int) ord]);
+            return scratch;
+        }
+
+        @Override
+        public int setDocument(int docId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
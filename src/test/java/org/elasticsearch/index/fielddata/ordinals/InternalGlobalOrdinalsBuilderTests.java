@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.AbstractFieldDataTests;
+import org.elasticsearch.index.fielddata.FieldDataType;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.fielddata.breaker.DummyCircuitBreakerService;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class InternalGlobalOrdinalsBuilderTests extends AbstractFieldDataTests {
+
+    @Override
+    protected FieldDataType getFieldDataType() {
+        return new FieldDataType("string", ImmutableSettings.builder().put("format", "paged_bytes"));
+    }
+
+    @Test
+    public void testIncrementalBuildPerField() throws Exception {
+        final ShardId shardId = new ShardId("test", 0);
+        final InternalGlobalOrdinalsBuilder builder = new InternalGlobalOrdinalsBuilder(new Index("test"), ImmutableSettings.Builder.EMPTY_SETTINGS) {
+            @Override
+            ShardId shardId(IndexReader indexReader) {
+                return shardId;
+            }
+        };
+        final IndexFieldData.WithOrdinals<?> fieldA = getForField("field_a");
+        final IndexFieldData.WithOrdinals<?> fieldB = getForField("field_b");
+
+        addSegment(0);
+        addSegment(1);
+        DirectoryReader reader = DirectoryReader.open(writer, true);
+        final InternalGlobalOrdinalsIndexFieldData firstA = build(builder, reader, fieldA);
+        final InternalGlobalOrdinalsIndexFieldData firstB = build(builder, reader, fieldB);
+        assertFalse(firstA.ordinalMap().isIncremental());
+        assertFalse(firstB.ordinalMap().isIncremental());
+
+        addSegment(2);
+        DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer, true);
+        reader.close();
+        reader = newReader;
+        // the global ordinals of one field must not replace the ones of the other field
+        final InternalGlobalOrdinalsIndexFieldData secondA = build(builder, reader, fieldA);
+        final InternalGlobalOrdinalsIndexFieldData secondB = build(builder, reader, fieldB);
+        assertTrue(secondA.ordinalMap().isIncremental());
+        assertTrue(secondB.ordinalMap().isIncremental());
+        assertThat(secondA.ordinalMap().getValueCount(), equalTo(3l));
+        assertThat(secondB.ordinalMap().getValueCount(), equalTo(3l));
+        reader.close();
+    }
+
+    private void addSegment(int value) throws Exception {
+        Document document = new Document();
+        document.add(new StringField("field_a", "a" + value, Field.Store.NO));
+        document.add(new StringField("field_b", "b" + value, Field.Store.NO));
+        writer.addDocument(document);
+        writer.commit();
+    }
+
+    private InternalGlobalOrdinalsIndexFieldData build(InternalGlobalOrdinalsBuilder builder, IndexReader reader, IndexFieldData.WithOrdinals<?> indexFieldData) throws Exception {
+        return (InternalGlobalOrdinalsIndexFieldData) builder.build(reader, indexFieldData, ImmutableSettings.Builder.EMPTY_SETTINGS, new DummyCircuitBreakerService());
+    }
+}
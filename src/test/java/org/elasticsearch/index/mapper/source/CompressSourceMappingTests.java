@@ -21,15 +21,19 @@ package org.elasticsearch.index.mapper.source;
 
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.lz4.LZ4Compressor;
+import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperTestUtils;
 import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.internal.SourceFieldMapper;
 import org.elasticsearch.test.ElasticsearchTestCase;
 import org.junit.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 
 /**
  *
@@ -95,4 +99,26 @@ public class CompressSourceMappingTests extends ElasticsearchTestCase {
         bytes = doc.rootDoc().getBinaryValue("_source");
         assertThat(CompressorFactory.isCompressed(bytes.bytes, bytes.offset, bytes.length), equalTo(true));
     }
+
+    @Test
+    public void testCompressType() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("_source").field("compress", true).endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper documentMapper = MapperTestUtils.newParser(ImmutableSettings.settingsBuilder()
+                .put(SourceFieldMapper.INDEX_SOURCE_COMPRESS_TYPE, LZ4Compressor.TYPE).build()).parse(mapping);
+
+        ParsedDocument doc = documentMapper.parse("type", "1", XContentFactory.jsonBuilder().startObject()
+                .field("field1", "value1")
+                .field("field2", "value2")
+                .endObject().bytes());
+
+        BytesRef bytes = doc.rootDoc().getBinaryValue("_source");
+        assertThat(CompressorFactory.compressor(bytes.bytes, bytes.offset, bytes.length), instanceOf(LZ4Compressor.class));
+        assertThat(documentMapper.sourceMapper().value(bytes), equalTo(XContentFactory.jsonBuilder().startObject()
+                .field("field1", "value1")
+                .field("field2", "value2")
+                .endObject().bytes().toBytes()));
+    }
 }
@@ -158,7 +158,7 @@ public class TestSearchContext extends SearchContext {
     }
 
     @Override
-    public long nowInMillis() {
+    protected long nowInMillisImpl() {
         return 0;
     }
 
@@ -377,6 +377,26 @@ public class TestSearchContext extends SearchContext {
         return false;
     }
 
+    @Override
+    public SearchContext searchAfter(Object[] searchAfter) {
+        return null;
+    }
+
+    @Override
+    public Object[] searchAfter() {
+        return null;
+    }
+
+    @Override
+    public SearchContext sliceFilter(Filter sliceFilter) {
+        return null;
+    }
+
+    @Override
+    public Filter sliceFilter() {
+        return null;
+    }
+
     @Override
     public SearchContext parsedPostFilter(ParsedFilter postFilter) {
         return null;
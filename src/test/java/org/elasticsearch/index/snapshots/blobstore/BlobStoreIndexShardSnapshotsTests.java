@@ -0,0 +1,56 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.snapshots.blobstore;
+
+import com.google.common.collect.ImmutableList;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+
+public class BlobStoreIndexShardSnapshotsTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testFindPhysicalIndexFiles() {
+        FileInfo segments = new FileInfo("__1", "segments_2", 100, null, "abc");
+        FileInfo oldSegments = new FileInfo("__0", "segments_2", 90, null, "def");
+        FileInfo cfs = new FileInfo("__2", "_0.cfs", 1000, new ByteSizeValue(300), "ghi");
+
+        BlobStoreIndexShardSnapshot newest = new BlobStoreIndexShardSnapshot("snap2", 2, ImmutableList.of(segments, cfs), 0, 0, 2, 1100);
+        BlobStoreIndexShardSnapshot oldest = new BlobStoreIndexShardSnapshot("snap1", 1, ImmutableList.of(oldSegments, cfs), 0, 0, 2, 1090);
+        BlobStoreIndexShardSnapshots snapshots = new BlobStoreIndexShardSnapshots(ImmutableList.of(newest, oldest));
+
+        List<FileInfo> files = snapshots.findPhysicalIndexFiles("segments_2");
+        assertThat(files.size(), equalTo(2));
+        assertThat(files.get(0), sameInstance(segments));
+        assertThat(files.get(1), sameInstance(oldSegments));
+        assertThat(snapshots.findPhysicalIndexFile("segments_2"), sameInstance(segments));
+
+        // a blob shared by several snapshots is only reported once
+        assertThat(snapshots.findPhysicalIndexFiles("_0.cfs").size(), equalTo(1));
+
+        assertThat(snapshots.findPhysicalIndexFiles("_1.cfs").isEmpty(), equalTo(true));
+        assertThat(snapshots.findPhysicalIndexFile("_1.cfs"), nullValue());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.index.snapshots.blobstore;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.ImmutableBlobContainer;
+import org.elasticsearch.common.blobstore.fs.FsBlobStore;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class LazyRestoreDirectoryTests extends ElasticsearchTestCase {
+
+    private static final int LENGTH = 4096;
+
+    @Test
+    public void testSwitchToLocal() throws Exception {
+        ThreadPool threadPool = new ThreadPool();
+        try {
+            FsBlobStore blobStore = new FsBlobStore(ImmutableSettings.EMPTY, threadPool, newTempDir());
+            ImmutableBlobContainer blobContainer = blobStore.immutableBlobContainer(BlobPath.cleanPath());
+            blobContainer.writeBlob("__0", new ByteArrayInputStream(content((byte) 1)), LENGTH);
+
+            FileInfo fileInfo = new FileInfo("__0", "_0.cfs", LENGTH, null, null);
+            LazyRestoreDirectory lazyDirectory = new LazyRestoreDirectory(blobContainer, ImmutableList.of(fileInfo), new ByteSizeValue(LENGTH));
+            IndexInput input = lazyDirectory.openInput("_0.cfs", IOContext.DEFAULT);
+            assertThat(input.readByte(), equalTo((byte) 1));
+
+            // the local copy holds different content so we can tell where reads are served from
+            RAMDirectory localDirectory = new RAMDirectory();
+            IndexOutput output = localDirectory.createOutput("_0.cfs", IOContext.DEFAULT);
+            output.writeBytes(content((byte) 2), LENGTH);
+            output.close();
+            lazyDirectory.switchToLocal("_0.cfs", localDirectory);
+
+            // reads no longer need the blob once they are served locally
+            blobContainer.deleteBlob("__0");
+
+            // read outside of the already buffered bytes
+            input.seek(LENGTH - 1);
+            assertThat(input.readByte(), equalTo((byte) 2));
+            IndexInput clone = input.clone();
+            clone.seek(0);
+            assertThat(clone.readByte(), equalTo((byte) 2));
+            assertThat(input.getFilePointer(), equalTo((long) LENGTH));
+
+            IndexInput newInput = lazyDirectory.openInput("_0.cfs", IOContext.DEFAULT);
+            newInput.seek(LENGTH / 2);
+            assertThat(newInput.readByte(), equalTo((byte) 2));
+
+            newInput.close();
+            input.close();
+            lazyDirectory.close();
+            localDirectory.close();
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    private static byte[] content(byte value) {
+        byte[] content = new byte[LENGTH];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = value;
+        }
+        return content;
+    }
+}
@@ -21,6 +21,7 @@ package org.elasticsearch.index.translog;
 
 import org.apache.lucene.index.Term;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.hamcrest.MatcherAssert;
@@ -30,9 +31,12 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 
 /**
  *
@@ -261,6 +265,60 @@ public abstract class AbstractSimpleTranslogTests {
         snapshot.close();
     }
 
+    @Test
+    public void testSnapshotsSinceSyncedFlush() {
+        translog.add(new Translog.Create("test", "1", new byte[]{1}));
+        assertThat(translog.snapshotsSince("sync"), nullValue());
+
+        translog.markSynced("sync");
+        translog.add(new Translog.Index("test", "2", new byte[]{2}));
+        // the operations of the current translog are not part of the retained ones
+        List<Translog.Snapshot> snapshots = translog.snapshotsSince("sync");
+        assertThat(snapshots, notNullValue());
+        assertThat(snapshots.size(), equalTo(0));
+
+        translog.newTransientTranslog(2);
+        translog.add(new Translog.Index("test", "3", new byte[]{3}));
+        translog.makeTransientCurrent();
+        translog.add(new Translog.Index("test", "4", new byte[]{4}));
+
+        snapshots = translog.snapshotsSince("sync");
+        assertThat(snapshots, notNullValue());
+        assertThat(snapshots.size(), equalTo(1));
+        MatcherAssert.assertThat(snapshots.get(0), TranslogSizeMatcher.translogSize(3));
+        Releasables.close(snapshots);
+
+        translog.newTranslog(3);
+        snapshots = translog.snapshotsSince("sync");
+        assertThat(snapshots.size(), equalTo(2));
+        MatcherAssert.assertThat(snapshots.get(1), TranslogSizeMatcher.translogSize(2));
+        Releasables.close(snapshots);
+    }
+
+    @Test
+    public void testSyncedFlushKeepsOlderRetainedTranslogs() {
+        translog.add(new Translog.Create("test", "1", new byte[]{1}));
+        translog.newTranslog(2);
+        // nothing is retained before the first synced flush
+        translog.add(new Translog.Index("test", "2", new byte[]{2}));
+        translog.markSynced("first");
+        translog.newTranslog(3);
+        List<Translog.Snapshot> snapshots = translog.snapshotsSince("first");
+        assertThat(snapshots.size(), equalTo(1));
+        Releasables.close(snapshots);
+
+        translog.add(new Translog.Index("test", "3", new byte[]{3}));
+        translog.markSynced("second");
+        // a copy that missed the second synced flush can still replay from the first one
+        snapshots = translog.snapshotsSince("first");
+        assertThat(snapshots, notNullValue());
+        assertThat(snapshots.size(), equalTo(1));
+        Releasables.close(snapshots);
+        snapshots = translog.snapshotsSince("second");
+        assertThat(snapshots, notNullValue());
+        assertThat(snapshots.size(), equalTo(0));
+    }
+
     private Term newUid(String id) {
         return new Term("_uid", id);
     }
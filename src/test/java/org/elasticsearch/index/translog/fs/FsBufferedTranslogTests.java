@@ -23,9 +23,16 @@ import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.AbstractSimpleTranslogTests;
+import org.elasticsearch.index.translog.TranslogStats;
 import org.junit.AfterClass;
+import org.junit.Test;
 
 import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
 
 /**
  *
@@ -39,6 +46,72 @@ public class FsBufferedTranslogTests extends AbstractSimpleTranslogTests {
                 new File("data/fs-translog"));
     }
 
+    @Test
+    public void testGroupSyncOnRequest() throws Exception {
+        final Translog translog = new FsTranslog(shardId,
+                ImmutableSettings.settingsBuilder()
+                        .put("index.translog.fs.type", FsTranslogFile.Type.BUFFERED.name())
+                        .put(FsTranslog.INDEX_TRANSLOG_DURABILITY, Translog.Durability.REQUEST.name())
+                        .build(),
+                new File("data/fs-translog-request"));
+        translog.newTranslog(1);
+        try {
+            final int numThreads = 8;
+            final int numOps = 50;
+            final CountDownLatch startLatch = new CountDownLatch(1);
+            final CountDownLatch doneLatch = new CountDownLatch(numThreads);
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            for (int i = 0; i < numThreads; i++) {
+                final int threadId = i;
+                new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            startLatch.await();
+                            for (int j = 0; j < numOps; j++) {
+                                translog.add(new Translog.Create("test", threadId + "_" + j, new byte[]{1}));
+                                translog.syncOnRequest();
+                            }
+                        } catch (Throwable t) {
+                            failure.set(t);
+                        } finally {
+                            doneLatch.countDown();
+                        }
+                    }
+                }.start();
+            }
+            startLatch.countDown();
+            doneLatch.await();
+            assertThat(failure.get(), nullValue());
+            assertThat(translog.syncNeeded(), equalTo(false));
+
+            TranslogStats stats = translog.stats();
+            assertThat(stats.getSyncCount(), greaterThan(0l));
+            assertThat(stats.getSyncCount(), lessThanOrEqualTo((long) numThreads * numOps));
+            long histogramCount = 0;
+            for (long count : stats.getSyncBatchSizeHistogram()) {
+                histogramCount += count;
+            }
+            assertThat(histogramCount, equalTo(stats.getSyncCount()));
+            histogramCount = 0;
+            for (long count : stats.getSyncLatencyHistogram()) {
+                histogramCount += count;
+            }
+            assertThat(histogramCount, equalTo(stats.getSyncCount()));
+        } finally {
+            translog.closeWithDelete();
+            FileSystemUtils.deleteRecursively(new File("data/fs-translog-request"), true);
+        }
+    }
+
+    @Test
+    public void testNoSyncOnRequestWhenAsync() throws Exception {
+        translog.add(new Translog.Create("test", "1", new byte[]{1}));
+        translog.syncOnRequest();
+        assertThat(translog.syncNeeded(), equalTo(true));
+        assertThat(translog.stats().getSyncCount(), equalTo(0l));
+    }
+
     @AfterClass
     public static void cleanup() {
         FileSystemUtils.deleteRecursively(new File("data/fs-translog"), true);
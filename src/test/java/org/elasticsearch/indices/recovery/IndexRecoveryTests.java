@@ -26,22 +26,32 @@ import org.elasticsearch.action.admin.indices.recovery.RecoveryResponse;
 import org.elasticsearch.action.admin.indices.recovery.ShardRecoveryResponse;
 import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
 import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.allocation.command.MoveAllocationCommand;
 import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.discovery.Discovery;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.snapshots.SnapshotState;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
+import org.elasticsearch.test.transport.MockTransportService;
+import org.elasticsearch.transport.*;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.elasticsearch.test.ElasticsearchIntegrationTest.*;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
 import static org.hamcrest.Matchers.*;
 
 /**
@@ -250,6 +260,150 @@ public class IndexRecoveryTests extends ElasticsearchIntegrationTest {
         }
     }
 
+    @Test
+    public void outOfOrderFileChunksTest() throws Exception {
+        logger.info("--> start node A");
+        String nodeA = internalCluster().startNode(fileChunkNodeSettings());
+
+        logger.info("--> create index on node: {}", nodeA);
+        createAndPopulateIndex(INDEX_NAME, 1, SHARD_COUNT, REPLICA_COUNT);
+        long numDocs = client().prepareCount(INDEX_NAME).get().getCount();
+
+        logger.info("--> start node B");
+        String nodeB = internalCluster().startNode(fileChunkNodeSettings());
+        ensureGreen();
+
+        logger.info("--> swap file chunks sent from: {} to: {}", nodeA, nodeB);
+        MockTransportService transportService = (MockTransportService) internalCluster().getInstance(TransportService.class, nodeA);
+        SwapFileChunks swapFileChunks = new SwapFileChunks();
+        transportService.addSendBehavior(internalCluster().getInstance(Discovery.class, nodeB).localNode(), swapFileChunks);
+
+        logger.info("--> bump replica count");
+        client().admin().indices().prepareUpdateSettings(INDEX_NAME)
+                .setSettings(settingsBuilder().put("number_of_replicas", 1)).execute().actionGet();
+        ensureGreen();
+
+        assertThat(swapFileChunks.swapped.get(), greaterThan(0));
+        String nodeBId = internalCluster().getInstance(Discovery.class, nodeB).localNode().id();
+        assertHitCount(client().prepareCount(INDEX_NAME).setPreference("_only_node:" + nodeBId).get(), numDocs);
+        assertNoFileChunkWaiters();
+    }
+
+    @Test
+    public void failedFileChunkTest() throws Exception {
+        logger.info("--> start node A");
+        String nodeA = internalCluster().startNode(fileChunkNodeSettings());
+
+        logger.info("--> create index on node: {}", nodeA);
+        createAndPopulateIndex(INDEX_NAME, 1, SHARD_COUNT, REPLICA_COUNT);
+        long numDocs = client().prepareCount(INDEX_NAME).get().getCount();
+
+        logger.info("--> start node B");
+        String nodeB = internalCluster().startNode(fileChunkNodeSettings());
+        ensureGreen();
+
+        logger.info("--> fail the first swapped file chunk sent from: {} to: {}", nodeA, nodeB);
+        final MockTransportService transportService = (MockTransportService) internalCluster().getInstance(TransportService.class, nodeA);
+        final AtomicBoolean failed = new AtomicBoolean();
+        transportService.addSendBehavior(internalCluster().getInstance(Discovery.class, nodeB).localNode(), new SwapFileChunks() {
+            @Override
+            protected void sendHeld(Transport transport, DiscoveryNode node, HeldChunk chunk) throws IOException {
+                if (failed.compareAndSet(false, true)) {
+                    // the chunk that follows it was already sent, the target waits for this one until the recovery fails
+                    transportService.failRequest(chunk.requestId, new TransportException("simulated failure of file chunk"));
+                } else {
+                    super.sendHeld(transport, node, chunk);
+                }
+            }
+        });
+
+        logger.info("--> bump replica count");
+        client().admin().indices().prepareUpdateSettings(INDEX_NAME)
+                .setSettings(settingsBuilder().put("number_of_replicas", 1)).execute().actionGet();
+        // the failed recovery fails the replica, which then recovers again
+        ensureGreen();
+
+        assertTrue(failed.get());
+        String nodeBId = internalCluster().getInstance(Discovery.class, nodeB).localNode().id();
+        assertHitCount(client().prepareCount(INDEX_NAME).setPreference("_only_node:" + nodeBId).get(), numDocs);
+        assertNoFileChunkWaiters();
+    }
+
+    private Settings fileChunkNodeSettings() {
+        return settingsBuilder()
+                .put("gateway.type", "local")
+                .put(TransportModule.TRANSPORT_SERVICE_TYPE_KEY, MockTransportService.class.getName())
+                // small chunks, so that most files are sent in many of them
+                .put(RecoverySettings.INDICES_RECOVERY_FILE_CHUNK_SIZE, "1kb")
+                .put(RecoverySettings.INDICES_RECOVERY_CONCURRENT_FILE_CHUNKS, 4)
+                .build();
+    }
+
+    private void assertNoFileChunkWaiters() throws Exception {
+        assertBusy(new Runnable() {
+            @Override
+            public void run() {
+                for (Map.Entry<Thread, StackTraceElement[]> thread : Thread.getAllStackTraces().entrySet()) {
+                    for (StackTraceElement element : thread.getValue()) {
+                        assertThat("thread [" + thread.getKey().getName() + "] still handles a file chunk", element.getClassName(),
+                                not(equalTo(RecoveryTarget.FileChunkTransportRequestHandler.class.getName())));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Holds back every other file chunk and sends it after the chunk that follows it, so that the target gets
+     * the chunks of a file out of order. The first and the last chunk of a file are never held back.
+     */
+    private static class SwapFileChunks implements MockTransportService.SendRequestBehavior {
+
+        private final Map<String, HeldChunk> held = new HashMap<>();
+        final AtomicInteger swapped = new AtomicInteger();
+
+        @Override
+        public void sendRequest(Transport transport, DiscoveryNode node, long requestId, String action, TransportRequest request, TransportRequestOptions options) throws IOException {
+            if (!action.equals(RecoveryTarget.Actions.FILE_CHUNK)) {
+                transport.sendRequest(node, requestId, action, request, options);
+                return;
+            }
+            RecoveryFileChunkRequest chunk = (RecoveryFileChunkRequest) request;
+            String key = chunk.recoveryId() + "/" + chunk.name();
+            boolean lastChunk = chunk.position() + chunk.content().length() == chunk.length();
+            HeldChunk previous;
+            synchronized (held) {
+                previous = held.remove(key);
+                if (previous == null && chunk.position() > 0 && !lastChunk) {
+                    held.put(key, new HeldChunk(requestId, chunk, options));
+                    return;
+                }
+            }
+            transport.sendRequest(node, requestId, action, request, options);
+            if (previous != null) {
+                swapped.incrementAndGet();
+                sendHeld(transport, node, previous);
+            }
+        }
+
+        protected void sendHeld(Transport transport, DiscoveryNode node, HeldChunk chunk) throws IOException {
+            transport.sendRequest(node, chunk.requestId, RecoveryTarget.Actions.FILE_CHUNK, chunk.request, chunk.options);
+        }
+    }
+
+    private static class HeldChunk {
+
+        final long requestId;
+        final RecoveryFileChunkRequest request;
+        final TransportRequestOptions options;
+
+        HeldChunk(long requestId, RecoveryFileChunkRequest request, TransportRequestOptions options) {
+            this.requestId = requestId;
+            this.request = request;
+            this.options = options;
+        }
+    }
+
     private List<ShardRecoveryResponse> findRecoveriesForTargetNode(String nodeName, List<ShardRecoveryResponse> responses) {
         List<ShardRecoveryResponse> nodeResponses = new ArrayList<>();
         for (ShardRecoveryResponse response : responses) {
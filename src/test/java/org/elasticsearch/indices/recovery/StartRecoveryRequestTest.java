@@ -49,6 +49,7 @@ public class StartRecoveryRequestTest extends ElasticsearchTestCase {
                 new DiscoveryNode("b", new LocalTransportAddress("1"), targetNodeVersion),
                 true,
                 Collections.<String, StoreFileMetaData>emptyMap(),
+                randomBoolean() ? null : randomAsciiOfLength(10),
                 RecoveryState.Type.RELOCATION,
                 1l
 
@@ -75,6 +76,11 @@ public class StartRecoveryRequestTest extends ElasticsearchTestCase {
         } else {
             assertThat(inRequest.recoveryType(), nullValue());
         }
+        if (targetNodeVersion.onOrAfter(Version.V_2_0_0)) {
+            assertThat(outRequest.syncId(), equalTo(inRequest.syncId()));
+        } else {
+            assertThat(inRequest.syncId(), nullValue());
+        }
     }
 
 
@@ -0,0 +1,264 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.ElasticsearchIllegalStateException;
+import org.elasticsearch.action.admin.indices.recovery.RecoveryResponse;
+import org.elasticsearch.action.admin.indices.recovery.ShardRecoveryResponse;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.index.mapper.internal.VersionFieldMapper;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.service.InternalIndexShard;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
+import org.elasticsearch.test.InternalTestCluster;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.hamcrest.Matchers.*;
+
+@ClusterScope(scope = ElasticsearchIntegrationTest.Scope.SUITE, numDataNodes = 2)
+public class SyncedFlushServiceTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testSyncedFlushMarksAllCopies() throws Exception {
+        createSingleShardIndex();
+        final ShardId shardId = new ShardId("test", 0);
+        final ClusterState state = client().admin().cluster().prepareState().get().getState();
+        ShardRouting primary = state.routingTable().index("test").shard(0).primaryShard();
+        String primaryNode = state.nodes().get(primary.currentNodeId()).name();
+
+        internalCluster().getInstance(SyncedFlushService.class, primaryNode).attemptSyncedFlush(shardId);
+        assertBusy(new Runnable() {
+            @Override
+            public void run() {
+                String syncId = null;
+                for (ShardRouting copy : state.routingTable().index("test").shard(0)) {
+                    String nodeSyncId = lastCommittedSyncId(state.nodes().get(copy.currentNodeId()).name());
+                    assertThat(nodeSyncId, notNullValue());
+                    if (syncId == null) {
+                        syncId = nodeSyncId;
+                    } else {
+                        assertThat(nodeSyncId, equalTo(syncId));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testReplicaNotInSyncIsNotMarked() throws Exception {
+        createSingleShardIndex();
+        ShardId shardId = new ShardId("test", 0);
+        ClusterState state = client().admin().cluster().prepareState().get().getState();
+        ShardRouting replica = state.routingTable().index("test").shard(0).replicaShards().get(0);
+        String replicaNode = state.nodes().get(replica.currentNodeId()).name();
+
+        InternalIndexShard shard = shard(replicaNode);
+        // a fingerprint of the same number of docs, but with other uids or versions
+        SyncedFlushService.CommitFingerprint fingerprint = new SyncedFlushService.CommitFingerprint(1, 10, 42);
+        try {
+            internalCluster().getInstance(SyncedFlushService.class, replicaNode).replicaSyncedFlush(
+                    new SyncedFlushRequest(shardId, "sync", fingerprint));
+            fail("the replica is not in sync");
+        } catch (ElasticsearchIllegalStateException e) {
+            assertThat(e.getMessage(), containsString("not in sync with its primary"));
+        }
+        assertThat(shard.store().readLastCommittedUserData().get(Engine.SYNC_ID_KEY), nullValue());
+    }
+
+    @Test
+    public void testReplicaRestartedAcrossTwoSyncedFlushesReplaysOperations() throws Exception {
+        createSingleShardIndex();
+        final ShardId shardId = new ShardId("test", 0);
+        ClusterState state = client().admin().cluster().prepareState().get().getState();
+        final String primaryNode = state.nodes().get(state.routingTable().index("test").shard(0).primaryShard().currentNodeId()).name();
+        final String replicaNode = state.nodes().get(state.routingTable().index("test").shard(0).replicaShards().get(0).currentNodeId()).name();
+
+        logger.info("--> synced flush with the replica in sync");
+        final String firstSyncId = syncedFlush(primaryNode, shardId, null);
+        assertBusy(new Runnable() {
+            @Override
+            public void run() {
+                assertThat(lastCommittedSyncId(replicaNode), equalTo(firstSyncId));
+            }
+        });
+
+        logger.info("--> restart the replica while the primary is indexed into and synced flushed again");
+        internalCluster().restartNode(replicaNode, new InternalTestCluster.RestartCallback() {
+            @Override
+            public Settings onNodeStopped(String nodeName) throws Exception {
+                for (int i = 10; i < 20; i++) {
+                    internalCluster().client(primaryNode).prepareIndex("test", "type", Integer.toString(i)).setSource("field", i).get();
+                }
+                syncedFlush(primaryNode, shardId, firstSyncId);
+                for (int i = 20; i < 30; i++) {
+                    internalCluster().client(primaryNode).prepareIndex("test", "type", Integer.toString(i)).setSource("field", i).get();
+                }
+                return ImmutableSettings.EMPTY;
+            }
+        });
+        ensureGreen();
+
+        logger.info("--> the replica only replayed the operations done since the first synced flush");
+        RecoveryResponse recoveryResponse = client().admin().indices().prepareRecoveries("test").get();
+        for (ShardRecoveryResponse response : recoveryResponse.shardResponses().get("test")) {
+            RecoveryState recoveryState = response.recoveryState();
+            if (!recoveryState.getPrimary()) {
+                assertThat(recoveryState.getType(), equalTo(RecoveryState.Type.REPLICA));
+                assertThat(recoveryState.getIndex().totalFileCount(), equalTo(0));
+            }
+        }
+        state = client().admin().cluster().prepareState().get().getState();
+        for (ShardRouting copy : state.routingTable().index("test").shard(0)) {
+            assertThat(client().prepareCount("test").setPreference("_only_node:" + copy.currentNodeId()).get().getCount(), equalTo(30l));
+        }
+    }
+
+    @Test
+    public void testFingerprintDoesNotDependOnSegments() throws IOException {
+        try (Directory first = new RAMDirectory(); Directory second = new RAMDirectory()) {
+            try (IndexWriter writer = new IndexWriter(first, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER))) {
+                for (int i = 0; i < 10; i++) {
+                    writer.addDocument(doc(Integer.toString(i), 1));
+                }
+            }
+            try (IndexWriter writer = new IndexWriter(second, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER))) {
+                // other order, several segments
+                for (int i = 9; i >= 0; i--) {
+                    writer.addDocument(doc(Integer.toString(i), 1));
+                    if (i % 3 == 0) {
+                        writer.commit();
+                    }
+                }
+            }
+            assertTrue(fingerprint(first).sameDocuments(fingerprint(second)));
+        }
+    }
+
+    @Test
+    public void testFingerprintSeesUpdatesAndRecreatedDocs() throws IOException {
+        try (Directory first = new RAMDirectory(); Directory second = new RAMDirectory()) {
+            IndexWriter firstWriter = new IndexWriter(first, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+            IndexWriter secondWriter = new IndexWriter(second, new IndexWriterConfig(Lucene.VERSION, Lucene.STANDARD_ANALYZER));
+            try {
+                for (int i = 0; i < 3; i++) {
+                    firstWriter.addDocument(doc(Integer.toString(i), 1));
+                    secondWriter.addDocument(doc(Integer.toString(i), 1));
+                }
+                firstWriter.commit();
+                secondWriter.commit();
+                assertTrue(fingerprint(first).sameDocuments(fingerprint(second)));
+
+                // an update keeps the number of docs
+                firstWriter.updateDocument(new Term(UidFieldMapper.NAME, "type#1"), doc("1", 2));
+                firstWriter.commit();
+                assertThat(fingerprint(first).numDocs(), equalTo(fingerprint(second).numDocs()));
+                assertFalse(fingerprint(first).sameDocuments(fingerprint(second)));
+                secondWriter.updateDocument(new Term(UidFieldMapper.NAME, "type#1"), doc("1", 2));
+                secondWriter.commit();
+                assertTrue(fingerprint(first).sameDocuments(fingerprint(second)));
+
+                // deleting a doc and creating another one keeps the number of docs too
+                firstWriter.deleteDocuments(new Term(UidFieldMapper.NAME, "type#2"));
+                firstWriter.addDocument(doc("3", 1));
+                firstWriter.commit();
+                assertThat(fingerprint(first).numDocs(), equalTo(fingerprint(second).numDocs()));
+                assertFalse(fingerprint(first).sameDocuments(fingerprint(second)));
+            } finally {
+                firstWriter.close();
+                secondWriter.close();
+            }
+        }
+    }
+
+    private void createSingleShardIndex() {
+        assertAcked(prepareCreate("test").setSettings(ImmutableSettings.builder()
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 1)));
+        ensureGreen();
+        for (int i = 0; i < 10; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", i).get();
+        }
+    }
+
+    /**
+     * Triggers a synced flush on the primary and waits for its commit to hold a sync id other than the previous one.
+     */
+    private String syncedFlush(final String primaryNode, ShardId shardId, final String previousSyncId) throws Exception {
+        internalCluster().getInstance(SyncedFlushService.class, primaryNode).attemptSyncedFlush(shardId);
+        assertBusy(new Runnable() {
+            @Override
+            public void run() {
+                String syncId = lastCommittedSyncId(primaryNode);
+                assertThat(syncId, notNullValue());
+                assertThat(syncId, not(equalTo(previousSyncId)));
+            }
+        });
+        return lastCommittedSyncId(primaryNode);
+    }
+
+    private InternalIndexShard shard(String node) {
+        return (InternalIndexShard) internalCluster().getInstance(IndicesService.class, node).indexServiceSafe("test").shardSafe(0);
+    }
+
+    private String lastCommittedSyncId(String node) {
+        try {
+            return shard(node).store().readLastCommittedUserData().get(Engine.SYNC_ID_KEY);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Document doc(String id, long version) {
+        Document document = new Document();
+        document.add(new StringField(UidFieldMapper.NAME, "type#" + id, Field.Store.NO));
+        document.add(new NumericDocValuesField(VersionFieldMapper.NAME, version));
+        return document;
+    }
+
+    private static SyncedFlushService.CommitFingerprint fingerprint(Directory directory) throws IOException {
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+            return SyncedFlushService.CommitFingerprint.of(reader);
+        }
+    }
+}
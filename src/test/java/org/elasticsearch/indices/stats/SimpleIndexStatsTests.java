@@ -23,9 +23,13 @@ import org.apache.lucene.util.Version;
 import org.elasticsearch.action.admin.indices.stats.*;
 import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags.Flag;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.indices.cache.query.IndicesQueryCache;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
@@ -38,6 +42,7 @@ import java.util.Random;
 
 import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.hamcrest.Matchers.*;
 
@@ -146,6 +151,45 @@ public class SimpleIndexStatsTests extends ElasticsearchIntegrationTest {
         assertThat(stats.getTotal().getSearch(), nullValue());
     }
 
+    @Test
+    public void testQueryCache() throws Exception {
+        assertAcked(client().admin().indices().prepareCreate("idx").setSettings(IndicesQueryCache.INDEX_CACHE_QUERY_ENABLED, true).get());
+        ensureGreen();
+
+        // index docs until we have at least one doc on each shard, otherwise, we are not guaranteed to have at least one segment
+        // on each shard which is required for the query cache to kick in
+        final int numDocs = scaledRandomIntBetween(100, 500);
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[numDocs];
+        for (int i = 0; i < numDocs; ++i) {
+            builders[i] = client().prepareIndex("idx", "type", Integer.toString(i)).setSource(jsonBuilder().startObject().field("common", "field").field("str_value", "s" + i).endObject());
+        }
+        indexRandom(true, builders);
+        ensureSearchable();
+
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMemorySizeInBytes(), equalTo(0l));
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getHitCount(), equalTo(0l));
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMissCount(), equalTo(0l));
+        for (int i = 0; i < 10; i++) {
+            assertThat(client().prepareSearch("idx").setSearchType(SearchType.COUNT).get().getHits().getTotalHits(), equalTo((long) numDocs));
+            assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMemorySizeInBytes(), greaterThan(0l));
+        }
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getHitCount(), greaterThan(0l));
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMissCount(), greaterThan(0l));
+
+        // a refresh with new documents changes the reader version, so the cached entries can't be hit anymore
+        client().prepareIndex("idx", "type", Integer.toString(numDocs)).setSource("common", "field").get();
+        refresh();
+        assertThat(client().prepareSearch("idx").setSearchType(SearchType.COUNT).get().getHits().getTotalHits(), equalTo((long) numDocs + 1));
+
+        // disable the cache on the index, and make sure an explicit request flag still uses it
+        assertAcked(client().admin().indices().prepareUpdateSettings("idx").setSettings(settingsBuilder().put(IndicesQueryCache.INDEX_CACHE_QUERY_ENABLED, false)));
+        long missCount = client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMissCount();
+        client().prepareSearch("idx").setSearchType(SearchType.COUNT).get();
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMissCount(), equalTo(missCount));
+        client().prepareSearch("idx").setSearchType(SearchType.COUNT).setQueryCache(true).setQuery(QueryBuilders.termQuery("common", "field")).get();
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMissCount(), greaterThan(missCount));
+    }
+
     @Test
     public void testMergeStats() {
         createIndex("test1");
@@ -313,7 +357,7 @@ public class SimpleIndexStatsTests extends ElasticsearchIntegrationTest {
     @Test
     public void testFlagOrdinalOrder() {
         Flag[] flags = new Flag[]{Flag.Store, Flag.Indexing, Flag.Get, Flag.Search, Flag.Merge, Flag.Flush, Flag.Refresh,
-                Flag.FilterCache, Flag.IdCache, Flag.FieldData, Flag.Docs, Flag.Warmer, Flag.Percolate, Flag.Completion, Flag.Segments, Flag.Translog, Flag.Suggest};
+                Flag.FilterCache, Flag.IdCache, Flag.FieldData, Flag.Docs, Flag.Warmer, Flag.Percolate, Flag.Completion, Flag.Segments, Flag.Translog, Flag.Suggest, Flag.QueryCache};
 
         assertThat(flags.length, equalTo(Flag.values().length));
         for (int i = 0; i < flags.length; i++) {
@@ -581,6 +625,9 @@ public class SimpleIndexStatsTests extends ElasticsearchIntegrationTest {
             case Suggest:
                 builder.setSuggest(set);
                 break;
+            case QueryCache:
+                builder.setQueryCache(set);
+                break;
             default:
                 fail("new flag? " + flag);
                 break;
@@ -623,6 +670,8 @@ public class SimpleIndexStatsTests extends ElasticsearchIntegrationTest {
                 return response.getTranslog() != null;
             case Suggest:
                 return response.getSuggest() != null;
+            case QueryCache:
+                return response.getQueryCache() != null;
             default:
                 fail("new flag? " + flag);
                 return false;
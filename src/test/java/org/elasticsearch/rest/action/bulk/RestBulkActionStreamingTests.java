@@ -0,0 +1,379 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest.action.bulk;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.*;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.client.AdminClient;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.ClusterAdminClient;
+import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.client.support.AbstractClient;
+import org.elasticsearch.client.support.AbstractClusterAdminClient;
+import org.elasticsearch.client.support.AbstractIndicesAdminClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.rest.*;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the streaming mode of {@link RestBulkAction} by feeding the body chunk by chunk and completing the batches
+ * by hand.
+ */
+public class RestBulkActionStreamingTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testBatchesAreAggregatedInOrder() throws Exception {
+        Harness harness = new Harness(ImmutableSettings.builder()
+                .put(RestBulkAction.STREAM_BATCH_SIZE, "1kb")
+                .put(RestBulkAction.STREAM_MAX_IN_FLIGHT, "1mb")
+                .build());
+        for (int i = 0; i < 50; i += 5) {
+            harness.consumer.onContent(actions(i, i + 5), false);
+        }
+        harness.consumer.onContent(BytesArray.EMPTY, true);
+        assertThat(harness.client.batches.size(), greaterThan(1));
+        assertThat(harness.responses, empty());
+
+        int numActions = 0;
+        for (BulkRequest batch : harness.client.batches) {
+            numActions += batch.numberOfActions();
+        }
+        assertThat(numActions, equalTo(50));
+
+        // complete the batches in reverse order, the response still lists the items in the order of the body
+        for (int i = harness.client.batches.size() - 1; i >= 0; i--) {
+            assertThat(harness.responses, empty());
+            harness.client.respond(i);
+        }
+        assertThat(harness.responses.size(), equalTo(1));
+        RestResponse response = harness.responses.get(0);
+        assertThat(response.status(), equalTo(RestStatus.OK));
+        List<Map<String, Object>> items = items(response);
+        assertThat(items.size(), equalTo(50));
+        for (int i = 0; i < 50; i++) {
+            assertThat(items.get(i).get("_id"), equalTo((Object) Integer.toString(i)));
+        }
+    }
+
+    @Test
+    public void testPauseAndResume() throws Exception {
+        Harness harness = new Harness(ImmutableSettings.builder()
+                .put(RestBulkAction.STREAM_BATCH_SIZE, "100b")
+                .put(RestBulkAction.STREAM_MAX_IN_FLIGHT, "100b")
+                .build());
+        harness.consumer.onContent(actions(0, 5), false);
+        assertThat(harness.client.batches.size(), equalTo(1));
+        assertThat(harness.pauses.get(), equalTo(1));
+        assertThat(harness.resumes.get(), equalTo(0));
+
+        harness.client.respond(0);
+        assertThat(harness.resumes.get(), equalTo(1));
+
+        harness.consumer.onContent(actions(5, 10), true);
+        assertThat(harness.client.batches.size(), equalTo(2));
+        assertThat(harness.pauses.get(), equalTo(2));
+        harness.client.respond(1);
+        assertThat(harness.resumes.get(), equalTo(2));
+
+        assertThat(harness.responses.size(), equalTo(1));
+        assertThat(items(harness.responses.get(0)).size(), equalTo(10));
+    }
+
+    @Test
+    public void testParseFailureReturnsExecutedItems() throws Exception {
+        Harness harness = new Harness(ImmutableSettings.builder()
+                .put(RestBulkAction.STREAM_BATCH_SIZE, "100b")
+                .put(RestBulkAction.STREAM_MAX_IN_FLIGHT, "1mb")
+                .build());
+        harness.consumer.onContent(actions(0, 5), false);
+        assertThat(harness.client.batches.size(), equalTo(1));
+        harness.consumer.onContent(new BytesArray("this is not json\n"), true);
+        // the failure is only reported once the executed batch is done
+        assertThat(harness.responses, empty());
+
+        harness.client.respond(0);
+        assertThat(harness.client.batches.size(), equalTo(1));
+        assertThat(harness.responses.size(), equalTo(1));
+        RestResponse response = harness.responses.get(0);
+        assertThat(response.status(), not(equalTo(RestStatus.OK)));
+        Map<String, Object> body = XContentHelper.convertToMap(response.content(), false).v2();
+        assertThat(body.get("error"), notNullValue());
+        assertThat(body.get("errors"), equalTo((Object) true));
+        assertThat(items(response).size(), equalTo(5));
+    }
+
+    @Test
+    public void testParseFailureWithoutExecutedBatches() throws Exception {
+        Harness harness = new Harness(ImmutableSettings.EMPTY);
+        harness.consumer.onContent(new BytesArray("this is not json\n"), true);
+        assertThat(harness.client.batches, empty());
+        assertThat(harness.responses.size(), equalTo(1));
+        Map<String, Object> body = XContentHelper.convertToMap(harness.responses.get(0).content(), false).v2();
+        assertThat(body.get("error"), notNullValue());
+        assertThat(body.containsKey("items"), equalTo(false));
+    }
+
+    @Test
+    public void testMaxContentLength() throws Exception {
+        Harness harness = new Harness(ImmutableSettings.builder()
+                .put(RestBulkAction.STREAM_BATCH_SIZE, "100b")
+                .put(RestBulkAction.STREAM_MAX_IN_FLIGHT, "1mb")
+                .put(RestBulkAction.STREAM_MAX_CONTENT_LENGTH, "1kb")
+                .build());
+        for (int i = 0; i < 50; i += 5) {
+            harness.consumer.onContent(actions(i, i + 5), false);
+        }
+        // every chunk of 5 actions fills a batch until the limit is reached, then the rest of the body is drained
+        final int executed = harness.client.batches.size();
+        assertThat(executed, greaterThan(0));
+        assertThat(executed, lessThan(10));
+        harness.consumer.onContent(actions(50, 55), true);
+        assertThat(harness.client.batches.size(), equalTo(executed));
+
+        for (int i = 0; i < executed; i++) {
+            harness.client.respond(i);
+        }
+        assertThat(harness.responses.size(), equalTo(1));
+        RestResponse response = harness.responses.get(0);
+        assertThat(response.status(), equalTo(RestStatus.REQUEST_ENTITY_TOO_LARGE));
+        assertThat(items(response).size(), equalTo(executed * 5));
+    }
+
+    private static BytesReference actions(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            sb.append("{ \"index\" : { \"_index\" : \"test\", \"_type\" : \"type\", \"_id\" : \"").append(i).append("\" } }\n");
+            sb.append("{ \"field\" : \"value").append(i).append("\" }\n");
+        }
+        return new BytesArray(sb.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> items(RestResponse response) {
+        Map<String, Object> body = XContentHelper.convertToMap(response.content(), false).v2();
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (Object item : (List<Object>) body.get("items")) {
+            items.add((Map<String, Object>) ((Map<String, Object>) item).get("index"));
+        }
+        return items;
+    }
+
+    private static class Harness {
+        final RecordingClient client = new RecordingClient();
+        final List<RestResponse> responses = new ArrayList<>();
+        final AtomicInteger pauses = new AtomicInteger();
+        final AtomicInteger resumes = new AtomicInteger();
+        final StreamingRestHandler.ContentConsumer consumer;
+
+        Harness(Settings settings) throws Exception {
+            RestBulkAction action = new RestBulkAction(settings, client, new RestController(settings));
+            FakeRestRequest request = new FakeRestRequest();
+            RestChannel channel = new RestChannel(request) {
+                @Override
+                public void sendResponse(RestResponse response) {
+                    responses.add(response);
+                }
+            };
+            consumer = action.startStream(request, channel, new StreamingRestHandler.FlowControl() {
+                @Override
+                public void pause() {
+                    pauses.incrementAndGet();
+                }
+
+                @Override
+                public void resume() {
+                    resumes.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * Records bulk requests, they are completed by calling {@link #respond(int)}.
+     */
+    private static class RecordingClient extends AbstractClient implements AdminClient {
+
+        final List<BulkRequest> batches = new ArrayList<>();
+        final List<ActionListener<BulkResponse>> listeners = new ArrayList<>();
+
+        void respond(int batch) {
+            BulkRequest request = batches.get(batch);
+            BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+            for (int i = 0; i < items.length; i++) {
+                IndexRequest indexRequest = (IndexRequest) request.requests().get(i);
+                items[i] = new BulkItemResponse(i, "index", new IndexResponse(indexRequest.index(), indexRequest.type(), indexRequest.id(), 1, true));
+            }
+            listeners.get(batch).onResponse(new BulkResponse(items, 1));
+        }
+
+        @Override
+        public AdminClient admin() {
+            return this;
+        }
+
+        @Override
+        public Settings settings() {
+            return ImmutableSettings.EMPTY;
+        }
+
+        @Override
+        public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder, Client>> ActionFuture<Response> execute(Action<Request, Response, RequestBuilder, Client> action, Request request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder, Client>> void execute(Action<Request, Response, RequestBuilder, Client> action, Request request, ActionListener<Response> listener) {
+            batches.add((BulkRequest) request);
+            listeners.add((ActionListener<BulkResponse>) listener);
+        }
+
+        @Override
+        public ThreadPool threadPool() {
+            return null;
+        }
+
+        @Override
+        public void close() throws ElasticsearchException {
+        }
+
+        @Override
+        public ClusterAdminClient cluster() {
+            return new AbstractClusterAdminClient() {
+                @Override
+                public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder, ClusterAdminClient>> ActionFuture<Response> execute(Action<Request, Response, RequestBuilder, ClusterAdminClient> action, Request request) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder, ClusterAdminClient>> void execute(Action<Request, Response, RequestBuilder, ClusterAdminClient> action, Request request, ActionListener<Response> listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public ThreadPool threadPool() {
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public IndicesAdminClient indices() {
+            return new AbstractIndicesAdminClient() {
+                @Override
+                public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder, IndicesAdminClient>> ActionFuture<Response> execute(Action<Request, Response, RequestBuilder, IndicesAdminClient> action, Request request) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder, IndicesAdminClient>> void execute(Action<Request, Response, RequestBuilder, IndicesAdminClient> action, Request request, ActionListener<Response> listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public ThreadPool threadPool() {
+                    return null;
+                }
+            };
+        }
+    }
+
+    private static class FakeRestRequest extends RestRequest {
+
+        private final Map<String, String> params = new HashMap<>();
+
+        @Override
+        public Method method() {
+            return Method.POST;
+        }
+
+        @Override
+        public String uri() {
+            return "/_bulk?stream=true";
+        }
+
+        @Override
+        public String rawPath() {
+            return "/_bulk";
+        }
+
+        @Override
+        public boolean hasContent() {
+            return false;
+        }
+
+        @Override
+        public boolean contentUnsafe() {
+            return false;
+        }
+
+        @Override
+        public BytesReference content() {
+            return null;
+        }
+
+        @Override
+        public String header(String name) {
+            return null;
+        }
+
+        @Override
+        public Iterable<Map.Entry<String, String>> headers() {
+            return Collections.<String, String>emptyMap().entrySet();
+        }
+
+        @Override
+        public boolean hasParam(String key) {
+            return params.containsKey(key);
+        }
+
+        @Override
+        public String param(String key) {
+            return params.get(key);
+        }
+
+        @Override
+        public String param(String key, String defaultValue) {
+            String value = params.get(key);
+            return value == null ? defaultValue : value;
+        }
+
+        @Override
+        public Map<String, String> params() {
+            return params;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search;
+
+import org.apache.lucene.util.English;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
+import org.junit.Test;
+
+import static org.elasticsearch.index.query.FilterBuilders.scriptFilter;
+import static org.elasticsearch.index.query.QueryBuilders.filteredQuery;
+import static org.elasticsearch.index.query.QueryBuilders.functionScoreQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
+import static org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders.scriptFunction;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.test.ElasticsearchIntegrationTest.Scope.SUITE;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+
+@ClusterScope(scope = SUITE)
+public class ConcurrentSegmentSearchTests extends ElasticsearchIntegrationTest {
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return ImmutableSettings.builder()
+                .put(super.nodeSettings(nodeOrdinal))
+                .put(SearchService.MAX_CONCURRENT_SLICES_KEY, randomIntBetween(2, 4))
+                .build();
+    }
+
+    private int indexInSeveralSegments() throws Exception {
+        createIndex("test");
+        ensureYellow();
+        final int numBatches = randomIntBetween(3, 6);
+        int numDocs = 0;
+        for (int batch = 0; batch < numBatches; batch++) {
+            final IndexRequestBuilder[] builders = new IndexRequestBuilder[randomIntBetween(5, 30)];
+            for (int i = 0; i < builders.length; i++, numDocs++) {
+                builders[i] = client().prepareIndex("test", "type", Integer.toString(numDocs))
+                        .setSource("num", numDocs, "text", English.intToEnglish(numDocs % 37));
+            }
+            // refresh after each batch so that the shards end up with several segments
+            indexRandom(true, false, builders);
+        }
+        return numDocs;
+    }
+
+    @Test
+    public void testSortedSearch() throws Exception {
+        final int numDocs = indexInSeveralSegments();
+        final SearchResponse response = client().prepareSearch("test").setQuery(matchAllQuery())
+                .addSort("num", SortOrder.ASC).setSize(numDocs).get();
+        assertSearchResponse(response);
+        assertHitCount(response, numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            assertThat(response.getHits().getAt(i).id(), equalTo(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    public void testScoredSearchMatchesSequentialSearch() throws Exception {
+        final int numDocs = indexInSeveralSegments();
+        final int size = randomIntBetween(1, numDocs);
+        final SearchResponse concurrent = client().prepareSearch("test").setQuery(matchQuery("text", "seven thirty"))
+                .setSize(size).get();
+        // aggregations are not thread-safe, so this request is always executed sequentially
+        final SearchResponse sequential = client().prepareSearch("test").setQuery(matchQuery("text", "seven thirty"))
+                .setSize(size).addAggregation(terms("nums").field("num")).get();
+        assertSearchResponse(concurrent);
+        assertSearchResponse(sequential);
+        assertThat(concurrent.getHits().totalHits(), equalTo(sequential.getHits().totalHits()));
+        assertThat(concurrent.getHits().hits().length, equalTo(sequential.getHits().hits().length));
+        for (int i = 0; i < concurrent.getHits().hits().length; i++) {
+            assertThat(concurrent.getHits().getAt(i).id(), equalTo(sequential.getHits().getAt(i).id()));
+            assertThat(concurrent.getHits().getAt(i).score(), equalTo(sequential.getHits().getAt(i).score()));
+        }
+    }
+
+    @Test
+    public void testScriptFilter() throws Exception {
+        final int numDocs = indexInSeveralSegments();
+        final SearchResponse response = client().prepareSearch("test")
+                .setQuery(filteredQuery(matchAllQuery(), scriptFilter("doc['num'].value % 2 == 0")))
+                .addSort("num", SortOrder.ASC).setSize(numDocs).get();
+        assertSearchResponse(response);
+        assertHitCount(response, (numDocs + 1) / 2);
+        for (int i = 0; i < response.getHits().hits().length; i++) {
+            assertThat(response.getHits().getAt(i).id(), equalTo(Integer.toString(i * 2)));
+        }
+    }
+
+    @Test
+    public void testScriptScore() throws Exception {
+        final int numDocs = indexInSeveralSegments();
+        final SearchResponse response = client().prepareSearch("test")
+                .setQuery(functionScoreQuery(matchAllQuery(), scriptFunction("doc['num'].value")).boostMode("replace"))
+                .setSize(numDocs).get();
+        assertSearchResponse(response);
+        assertHitCount(response, numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            assertThat(response.getHits().getAt(i).id(), equalTo(Integer.toString(numDocs - 1 - i)));
+            assertThat(response.getHits().getAt(i).score(), equalTo((float) (numDocs - 1 - i)));
+        }
+    }
+
+    @Test
+    public void testScriptSort() throws Exception {
+        final int numDocs = indexInSeveralSegments();
+        final SearchResponse response = client().prepareSearch("test").setQuery(matchAllQuery())
+                .addSort(SortBuilders.scriptSort("-doc['num'].value", "number")).setSize(numDocs).get();
+        assertSearchResponse(response);
+        assertHitCount(response, numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            assertThat(response.getHits().getAt(i).id(), equalTo(Integer.toString(numDocs - 1 - i)));
+            assertThat(((Number) response.getHits().getAt(i).sortValues()[0]).doubleValue(), equalTo((double) -(numDocs - 1 - i)));
+        }
+    }
+
+}
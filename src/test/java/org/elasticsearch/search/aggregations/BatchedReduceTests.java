@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.tophits.TopHits;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.*;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Checks that reducing shard results in batches, as they arrive, gives the same response as reducing them all at once.
+ */
+public class BatchedReduceTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testBatchedReduce() throws Exception {
+        assertAcked(prepareCreate("idx").setSettings(settingsBuilder().put(SETTING_NUMBER_OF_SHARDS, between(5, 10))));
+        List<IndexRequestBuilder> builders = new ArrayList<>();
+        final int numDocs = scaledRandomIntBetween(100, 500);
+        for (int i = 0; i < numDocs; i++) {
+            builders.add(client().prepareIndex("idx", "type").setSource(jsonBuilder()
+                    .startObject()
+                    .field("term", "t" + randomInt(50))
+                    .field("value", randomInt(1000))
+                    .endObject()));
+        }
+        indexRandom(true, builders);
+
+        SearchResponse all = search(1000);
+        SearchResponse batched = search(2);
+
+        assertThat(batched.getHits().getTotalHits(), equalTo(all.getHits().getTotalHits()));
+        assertThat(batched.getHits().getHits().length, equalTo(all.getHits().getHits().length));
+        for (int i = 0; i < all.getHits().getHits().length; i++) {
+            assertThat(batched.getHits().getAt(i).id(), equalTo(all.getHits().getAt(i).id()));
+        }
+
+        // min_doc_count and size must only be applied on the final reduce
+        Terms allTerms = all.getAggregations().get("terms");
+        Terms batchedTerms = batched.getAggregations().get("terms");
+        assertThat(batchedTerms.getBuckets().size(), equalTo(allTerms.getBuckets().size()));
+        for (Terms.Bucket bucket : allTerms.getBuckets()) {
+            Terms.Bucket batchedBucket = batchedTerms.getBucketByKey(bucket.getKey());
+            assertThat(batchedBucket.getDocCount(), equalTo(bucket.getDocCount()));
+        }
+
+        Histogram allHisto = all.getAggregations().get("histo");
+        Histogram batchedHisto = batched.getAggregations().get("histo");
+        assertThat(batchedHisto.getBuckets().size(), equalTo(allHisto.getBuckets().size()));
+        for (Histogram.Bucket bucket : allHisto.getBuckets()) {
+            assertThat(batchedHisto.getBucketByKey(bucket.getKeyAsNumber()).getDocCount(), equalTo(bucket.getDocCount()));
+        }
+
+        TopHits allTopHits = all.getAggregations().get("top");
+        TopHits batchedTopHits = batched.getAggregations().get("top");
+        assertThat(batchedTopHits.getHits().getHits().length, equalTo(allTopHits.getHits().getHits().length));
+        for (int i = 0; i < allTopHits.getHits().getHits().length; i++) {
+            assertThat(batchedTopHits.getHits().getAt(i).id(), equalTo(allTopHits.getHits().getAt(i).id()));
+        }
+    }
+
+    private SearchResponse search(int batchedReduceSize) {
+        SearchResponse response = client().prepareSearch("idx")
+                .setBatchedReduceSize(batchedReduceSize)
+                .setSize(5)
+                .addSort("value", SortOrder.DESC)
+                .addSort("_uid", SortOrder.ASC)
+                .addAggregation(terms("terms").field("term").size(5).minDocCount(3))
+                .addAggregation(histogram("histo").field("value").interval(100).minDocCount(0))
+                .addAggregation(topHits("top").addSort("value", SortOrder.ASC).addSort("_uid", SortOrder.ASC).setFrom(2).setSize(3))
+                .get();
+        assertSearchResponse(response);
+        return response;
+    }
+}
@@ -30,6 +30,7 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.query.TermQueryBuilder;
 import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
 import org.elasticsearch.search.aggregations.bucket.significant.SignificantStringTerms;
 import org.elasticsearch.search.aggregations.bucket.significant.SignificantTerms;
 import org.elasticsearch.search.aggregations.bucket.significant.SignificantTerms.Bucket;
@@ -274,6 +275,32 @@ public class SignificantTermsTests extends ElasticsearchIntegrationTest {
     }    
 
 
+    @Test
+    public void breadthFirstSubAggs() throws Exception {
+        SearchResponse response = client().prepareSearch("test")
+                .setSearchType(SearchType.QUERY_AND_FETCH)
+                .setQuery(new TermQueryBuilder("_all", "terje"))
+                .addAggregation(new SignificantTermsBuilder("mySignificantTerms").field("description")
+                        .executionHint(randomExecutionHint())
+                        .collectMode(SubAggCollectionMode.BREADTH_FIRST)
+                        .minDocCount(2)
+                        .subAggregation(new TermsBuilder("myCategories").field("fact_category")))
+                .execute()
+                .actionGet();
+        assertSearchResponse(response);
+        SignificantTerms topTerms = response.getAggregations().get("mySignificantTerms");
+        checkExpectedStringTermsFound(topTerms);
+        for (Bucket topTerm : topTerms) {
+            Terms categories = topTerm.getAggregations().get("myCategories");
+            long docCount = 0;
+            for (org.elasticsearch.search.aggregations.bucket.terms.Terms.Bucket category : categories.getBuckets()) {
+                docCount += category.getDocCount();
+            }
+            // sub aggregations must have been replayed for every surviving term
+            assertEquals(topTerm.getDocCount(), docCount);
+        }
+    }
+
     @Test
     public void partiallyUnmapped() throws Exception {
         SearchResponse response = client().prepareSearch("idx_unmapped","test")
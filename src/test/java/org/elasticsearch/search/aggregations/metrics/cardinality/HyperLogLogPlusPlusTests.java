@@ -21,13 +21,19 @@ package org.elasticsearch.search.aggregations.metrics.cardinality;
 
 import com.carrotsearch.hppc.IntOpenHashSet;
 import com.carrotsearch.hppc.hash.MurmurHash3;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.test.ElasticsearchTestCase;
 import org.junit.Test;
 
+import java.io.IOException;
+
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MAX_PRECISION;
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MIN_PRECISION;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.lessThan;
 
 public class HyperLogLogPlusPlusTests extends ElasticsearchTestCase {
 
@@ -106,6 +112,74 @@ public class HyperLogLogPlusPlusTests extends ElasticsearchTestCase {
         }
     }
 
+    @Test
+    public void serialization() throws IOException {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final long bucket = randomInt(5);
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        // few values stay in linear counting, more values upgrade to hyperloglog
+        final int numValues = randomBoolean() ? randomInt(10) : randomIntBetween(1, 100000);
+        for (int i = 0; i < numValues; ++i) {
+            counts.collect(bucket, MurmurHash3.hash((long) randomInt()));
+        }
+        final Version version = randomVersion();
+        final HyperLogLogPlusPlus copy = copy(counts, bucket, version);
+        assertEquals(p, copy.precision());
+        assertEquals(counts.cardinality(bucket), copy.cardinality(0));
+
+        // merging the copy must be the same as merging the original
+        final HyperLogLogPlusPlus merged1 = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        merged1.merge(0, counts, bucket);
+        final HyperLogLogPlusPlus merged2 = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        merged2.merge(0, copy, 0);
+        assertEquals(merged1.cardinality(0), merged2.cardinality(0));
+    }
+
+    @Test
+    public void compactSerialization() throws IOException {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        for (int i = 0; i < 100000; ++i) {
+            counts.collect(0, MurmurHash3.hash((long) i));
+        }
+        final BytesStreamOutput compact = new BytesStreamOutput();
+        counts.writeTo(0, compact);
+        final BytesStreamOutput legacy = new BytesStreamOutput();
+        legacy.setVersion(Version.V_1_3_0);
+        counts.writeTo(0, legacy);
+        assertThat(compact.size(), lessThan(legacy.size()));
+    }
+
+    private static HyperLogLogPlusPlus copy(HyperLogLogPlusPlus counts, long bucket, Version version) throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(version);
+        counts.writeTo(bucket, out);
+        final BytesStreamInput in = new BytesStreamInput(out.bytes());
+        in.setVersion(version);
+        return HyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
+    @Test
+    public void max() {
+        final int len = randomIntBetween(1, 100);
+        final byte[] a = new byte[len + 3];
+        final byte[] b = new byte[len + 5];
+        for (int i = 0; i < a.length; ++i) {
+            a[i] = (byte) randomInt(50);
+        }
+        for (int i = 0; i < b.length; ++i) {
+            b[i] = (byte) randomInt(50);
+        }
+        final byte[] dest = new byte[len];
+        boolean expectedChanged = false;
+        final boolean changed = HyperLogLogPlusPlus.max(a, 3, b, 5, dest, len);
+        for (int i = 0; i < len; ++i) {
+            assertEquals(Math.max(a[3 + i], b[5 + i]), dest[i]);
+            expectedChanged |= b[5 + i] > a[3 + i];
+        }
+        assertEquals(expectedChanged, changed);
+    }
+
     @Test
     public void fakeHashes() {
         // hashes with lots of leading zeros trigger different paths in the code that we try to go through here
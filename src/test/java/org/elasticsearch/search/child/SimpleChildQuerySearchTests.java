@@ -35,6 +35,7 @@ import org.elasticsearch.common.lucene.search.function.CombineFunction;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.cache.filter.support.UsageTrackingFilterCachingPolicy;
 import org.elasticsearch.index.fielddata.FieldDataType;
 import org.elasticsearch.index.mapper.FieldMapper.Loading;
 import org.elasticsearch.index.mapper.MergeMappingException;
@@ -1866,7 +1867,10 @@ public class SimpleChildQuerySearchTests extends ElasticsearchIntegrationTest {
         assertAcked(prepareCreate("test")
                 .setSettings(builder().put(indexSettings())
                         //we need 0 replicas here to make sure we always hit the very same shards
-                        .put(SETTING_NUMBER_OF_REPLICAS, 0))
+                        .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                        // the cache is checked after a single search, so filters must be cached on first use
+                        .put(UsageTrackingFilterCachingPolicy.MIN_FREQUENCY, 1)
+                        .put(UsageTrackingFilterCachingPolicy.MIN_SEGMENT_SIZE, 0))
                 .addMapping("child", "_parent", "type=parent"));
         ensureGreen();
 
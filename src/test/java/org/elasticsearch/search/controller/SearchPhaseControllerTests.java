@@ -0,0 +1,116 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.controller;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.cache.recycler.CacheRecycler;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class SearchPhaseControllerTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testBatchedReduceOfTopDocs() throws Exception {
+        final SearchPhaseController controller = new SearchPhaseController(ImmutableSettings.EMPTY,
+                new CacheRecycler(ImmutableSettings.EMPTY), BigArrays.NON_RECYCLING_INSTANCE);
+        final int numShards = randomIntBetween(2, 50);
+        final int from = randomInt(5);
+        final int size = randomIntBetween(1, 20);
+        final AtomicArray<QuerySearchResult> expected = new AtomicArray<>(numShards);
+        final AtomicArray<QuerySearchResult> batched = new AtomicArray<>(numShards);
+        final SearchPhaseController.QueryResultConsumer consumer = controller.newQueryResultConsumer(
+                new SearchRequest().batchedReduceSize(randomIntBetween(2, 10)), batched);
+        final int[] shardOrder = new int[numShards];
+        for (int i = 0; i < numShards; ++i) {
+            shardOrder[i] = i;
+        }
+        // results arrive in random order
+        for (int i = numShards - 1; i > 0; --i) {
+            final int j = randomInt(i);
+            final int tmp = shardOrder[i];
+            shardOrder[i] = shardOrder[j];
+            shardOrder[j] = tmp;
+        }
+        for (int shard : shardOrder) {
+            final TopDocs topDocs = randomTopDocs(from + size);
+            expected.set(shard, newResult(shard, from, size, topDocs));
+            batched.set(shard, newResult(shard, from, size, copy(topDocs)));
+            consumer.consume(shard);
+        }
+
+        int numHits = 0;
+        for (int i = 0; i < numShards; ++i) {
+            numHits += batched.get(i).topDocs().scoreDocs.length;
+            assertThat(batched.get(i).topDocs().totalHits, equalTo(expected.get(i).topDocs().totalHits));
+        }
+        if (consumer.getNumPartialReduces() > 0) {
+            // only the competitive hits of the last batch and of the previous partial reduces are kept
+            assertThat(numHits, lessThanOrEqualTo((from + size) * (1 + 10)));
+        }
+
+        final ScoreDoc[] expectedDocs = controller.sortDocs(false, expected);
+        final ScoreDoc[] batchedDocs = controller.sortDocs(false, batched);
+        assertThat(batchedDocs.length, equalTo(expectedDocs.length));
+        for (int i = 0; i < expectedDocs.length; ++i) {
+            assertThat(batchedDocs[i].shardIndex, equalTo(expectedDocs[i].shardIndex));
+            assertThat(batchedDocs[i].doc, equalTo(expectedDocs[i].doc));
+            assertThat(batchedDocs[i].score, equalTo(expectedDocs[i].score));
+        }
+    }
+
+    private static QuerySearchResult newResult(int shard, int from, int size, TopDocs topDocs) {
+        final QuerySearchResult result = new QuerySearchResult(shard, new SearchShardTarget("node", "index", shard));
+        result.from(from);
+        result.size(size);
+        result.topDocs(topDocs);
+        return result;
+    }
+
+    private static TopDocs randomTopDocs(int maxHits) {
+        final ScoreDoc[] scoreDocs = new ScoreDoc[randomInt(maxHits)];
+        float score = randomFloat() * 10;
+        for (int i = 0; i < scoreDocs.length; ++i) {
+            // scores are sorted in descending order, and may be equal
+            if (randomBoolean()) {
+                score = Math.max(0, score - randomFloat());
+            }
+            scoreDocs[i] = new ScoreDoc(i, score);
+        }
+        return new TopDocs(scoreDocs.length + randomInt(100), scoreDocs, scoreDocs.length == 0 ? Float.NaN : scoreDocs[0].score);
+    }
+
+    private static TopDocs copy(TopDocs topDocs) {
+        final ScoreDoc[] scoreDocs = new ScoreDoc[topDocs.scoreDocs.length];
+        for (int i = 0; i < scoreDocs.length; ++i) {
+            scoreDocs[i] = new ScoreDoc(topDocs.scoreDocs[i].doc, topDocs.scoreDocs[i].score);
+        }
+        return new TopDocs(topDocs.totalHits, scoreDocs, topDocs.getMaxScore());
+    }
+}
@@ -22,6 +22,7 @@ package org.elasticsearch.search.fields;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.Base64;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.bytes.BytesArray;
@@ -30,7 +31,10 @@ import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.joda.Joda;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.merge.policy.LogDocMergePolicyProvider;
+import org.elasticsearch.index.merge.policy.MergePolicyModule;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.joda.time.DateTime;
@@ -44,6 +48,7 @@ import java.util.Map;
 import static org.elasticsearch.client.Requests.refreshRequest;
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertFailures;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
 import static org.hamcrest.Matchers.*;
@@ -551,4 +556,55 @@ public class SearchFieldsTests extends ElasticsearchIntegrationTest {
         assertThat(searchResponse.getHits().getAt(0).fields().get("boolean_field").value().toString(), equalTo("T"));
 
     }
+
+    @Test
+    public void testHitsKeepTheirOrderAcrossSegments() throws Exception {
+        // a single shard without replicas, so that the documents of every flush end up in their own segment of the same shard
+        assertAcked(prepareCreate("test")
+                .setSettings(ImmutableSettings.builder().put(indexSettings())
+                        .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                        .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+                        .put(MergePolicyModule.MERGE_POLICY_TYPE_KEY, LogDocMergePolicyProvider.class.getName())
+                        .put(LogDocMergePolicyProvider.MERGE_FACTORY_KEY, 100))
+                .addMapping("type1", "num", "type=long"));
+        ensureGreen();
+
+        final int numSegments = 4;
+        final int docsPerSegment = 5;
+        final int numDocs = numSegments * docsPerSegment;
+        for (int segment = 0; segment < numSegments; segment++) {
+            for (int i = 0; i < docsPerSegment; i++) {
+                int id = segment * docsPerSegment + i;
+                // interleaves the documents of the segments in the sort order
+                int num = (id * 7) % numDocs;
+                client().prepareIndex("test", "type1", Integer.toString(id)).setSource("num", num).get();
+            }
+            flush();
+        }
+        refresh();
+        assertThat(client().admin().indices().prepareSegments("test").get().getIndices().get("test").getShards().get(0)
+                .getShards()[0].getSegments().size(), greaterThan(1));
+
+        SearchResponse searchResponse = client().prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .setSize(numDocs)
+                .addSort("num", SortOrder.DESC)
+                .addField("num")
+                .addFieldDataField("num")
+                .addScriptField("doubled", "doc['num'].value * 2")
+                .setVersion(true)
+                .get();
+        assertNoFailures(searchResponse);
+        assertThat(searchResponse.getHits().hits().length, equalTo(numDocs));
+        for (int i = 0; i < numDocs; i++) {
+            SearchHit hit = searchResponse.getHits().getAt(i);
+            long num = numDocs - 1 - i;
+            assertThat(((Number) hit.sortValues()[0]).longValue(), equalTo(num));
+            // every sub phase must have filled in the values of the hit at this position
+            assertThat((Integer.parseInt(hit.id()) * 7) % numDocs, equalTo((int) num));
+            assertThat(((Number) hit.field("num").value()).longValue(), equalTo(num));
+            assertThat(((Number) hit.field("doubled").value()).longValue(), equalTo(num * 2));
+            assertThat(hit.version(), equalTo(1l));
+        }
+    }
 }
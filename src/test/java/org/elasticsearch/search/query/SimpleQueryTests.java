@@ -32,6 +32,7 @@ import org.elasticsearch.action.search.ShardSearchFailure;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.cache.filter.support.UsageTrackingFilterCachingPolicy;
 import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.query.*;
 import org.elasticsearch.index.query.CommonTermsQueryBuilder.Operator;
@@ -2168,7 +2169,10 @@ public class SimpleQueryTests extends ElasticsearchIntegrationTest {
     public void testRangeFilterNoCacheWithNow() throws Exception {
         assertAcked(prepareCreate("test")
                 //no replicas to make sure we always hit the very same shard and verify the caching behaviour
-                .setSettings(ImmutableSettings.builder().put(indexSettings()).put(SETTING_NUMBER_OF_REPLICAS, 0))
+                .setSettings(ImmutableSettings.builder().put(indexSettings()).put(SETTING_NUMBER_OF_REPLICAS, 0)
+                        // the cache is checked after a single search, so filters must be cached on first use
+                        .put(UsageTrackingFilterCachingPolicy.MIN_FREQUENCY, 1)
+                        .put(UsageTrackingFilterCachingPolicy.MIN_SEGMENT_SIZE, 0))
                 .addMapping("type1", "date", "type=date,format=YYYY-mm-dd"));
         ensureGreen();
 
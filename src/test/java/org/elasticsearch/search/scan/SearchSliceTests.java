@@ -0,0 +1,105 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.scan;
+
+import com.google.common.collect.Sets;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SearchSliceTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testSlicedScanCoversAllDocsOnce() throws Exception {
+        int numShards = between(1, 5);
+        assertAcked(prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", numShards)));
+        ensureGreen();
+
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[scaledRandomIntBetween(50, 200)];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", i);
+        }
+        indexRandom(true, builders);
+
+        // fewer, as many and more slices than shards
+        for (int max : new int[] {2, numShards + 1, numShards * 2, numShards * 3 + 1}) {
+            if (max <= 1) {
+                continue;
+            }
+            Set<String> ids = Sets.newHashSet();
+            long totalHits = 0;
+            for (int id = 0; id < max; id++) {
+                SearchType searchType = randomBoolean() ? SearchType.SCAN : SearchType.QUERY_THEN_FETCH;
+                SearchResponse searchResponse = client().prepareSearch("test")
+                        .setSearchType(searchType)
+                        .setQuery(matchAllQuery())
+                        .setSize(randomIntBetween(1, 20))
+                        .setScroll(TimeValue.timeValueMinutes(2))
+                        .setSlice(id, max)
+                        .get();
+                totalHits += searchResponse.getHits().totalHits();
+                try {
+                    // the first response of a scan doesn't contain hits yet
+                    boolean first = searchType == SearchType.SCAN;
+                    while (true) {
+                        for (SearchHit hit : searchResponse.getHits()) {
+                            assertThat(hit.id() + " returned by more than one slice", ids.add(hit.id()), equalTo(true));
+                        }
+                        if (!first && searchResponse.getHits().hits().length == 0) {
+                            break;
+                        }
+                        first = false;
+                        searchResponse = client().prepareSearchScroll(searchResponse.getScrollId()).setScroll(TimeValue.timeValueMinutes(2)).get();
+                        assertThat(searchResponse.getFailedShards(), equalTo(0));
+                    }
+                } finally {
+                    clearScroll(searchResponse.getScrollId());
+                }
+            }
+            assertThat(totalHits, equalTo((long) builders.length));
+            assertThat(ids.size(), equalTo(builders.length));
+        }
+    }
+
+    @Test
+    public void testSliceRequiresScroll() throws Exception {
+        createIndex("test");
+        ensureGreen();
+        try {
+            client().prepareSearch("test").setQuery(matchAllQuery()).setSlice(0, 2).get();
+            fail("slice without scroll should fail");
+        } catch (SearchPhaseExecutionException e) {
+            // expected
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.cache.filter.support.UsageTrackingFilterCachingPolicy;
 import org.elasticsearch.script.groovy.GroovyScriptEngineService;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
@@ -115,7 +116,10 @@ public class ScriptFilterSearchTests extends ElasticsearchIntegrationTest {
             ImmutableSettings.settingsBuilder()
                 //needs to run without replicas to validate caching behaviour and make sure we always hit the very shame shard
                 .put(indexSettings())
-                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)));
+                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+                // the script counter is checked after a single search, so filters must be cached on first use
+                .put(UsageTrackingFilterCachingPolicy.MIN_FREQUENCY, 1)
+                .put(UsageTrackingFilterCachingPolicy.MIN_SEGMENT_SIZE, 0)));
         client().prepareIndex("test", "type1", "1").setSource(jsonBuilder().startObject().field("test", "1").field("num", 1.0f).endObject()).execute().actionGet();
         flush();
         client().prepareIndex("test", "type1", "2").setSource(jsonBuilder().startObject().field("test", "2").field("num", 2.0f).endObject()).execute().actionGet();
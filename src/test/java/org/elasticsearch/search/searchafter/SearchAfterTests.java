@@ -0,0 +1,135 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.searchafter;
+
+import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class SearchAfterTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testPagingWithSearchAfter() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder().put("index.number_of_shards", between(1, 5))));
+        ensureGreen();
+
+        int numDocs = scaledRandomIntBetween(50, 200);
+        for (int i = 0; i < numDocs; i++) {
+            // few distinct values, the _uid breaks the ties
+            client().prepareIndex("test", "type1", Integer.toString(i)).setSource("field", i % 7).get();
+        }
+        refresh();
+
+        SearchResponse expected = client().prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .setSize(numDocs)
+                .addSort("field", SortOrder.DESC)
+                .addSort("_uid", SortOrder.ASC)
+                .get();
+        assertHitCount(expected, numDocs);
+
+        int pageSize = between(1, 20);
+        int counter = 0;
+        Object[] searchAfter = null;
+        while (true) {
+            SearchResponse searchResponse = client().prepareSearch("test")
+                    .setQuery(matchAllQuery())
+                    .setSize(pageSize)
+                    .addSort("field", SortOrder.DESC)
+                    .addSort("_uid", SortOrder.ASC)
+                    .setSearchAfter(searchAfter)
+                    .get();
+            assertNoFailures(searchResponse);
+            assertThat(searchResponse.getHits().getTotalHits(), equalTo((long) numDocs));
+            SearchHit[] hits = searchResponse.getHits().hits();
+            if (hits.length == 0) {
+                break;
+            }
+            for (SearchHit hit : hits) {
+                assertThat(hit.id(), equalTo(expected.getHits().getAt(counter++).id()));
+            }
+            searchAfter = hits[hits.length - 1].sortValues();
+        }
+        assertThat(counter, equalTo(numDocs));
+    }
+
+    @Test
+    public void testPagingByScoreWithSearchAfter() throws Exception {
+        createIndex("test");
+        ensureGreen();
+        for (int i = 0; i < 20; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = 0; j <= i; j++) {
+                text.append("foo ");
+            }
+            client().prepareIndex("test", "type1", Integer.toString(i)).setSource("field", text.toString()).get();
+        }
+        refresh();
+
+        SearchResponse first = client().prepareSearch("test").setQuery(matchQuery("field", "foo")).setSize(5).get();
+        assertHitCount(first, 20);
+        float lastScore = first.getHits().getAt(4).score();
+
+        SearchResponse second = client().prepareSearch("test").setQuery(matchQuery("field", "foo")).setSize(5)
+                .setSearchAfter(lastScore).get();
+        assertNoFailures(second);
+        for (SearchHit hit : second.getHits()) {
+            assertThat(hit.score() < lastScore, equalTo(true));
+        }
+    }
+
+    @Test
+    public void testSearchAfterRejectsFromAndScroll() throws Exception {
+        createIndex("test");
+        ensureGreen();
+        client().prepareIndex("test", "type1", "1").setSource("field", 1).get();
+        refresh();
+
+        try {
+            client().prepareSearch("test").setQuery(matchAllQuery()).setFrom(1).addSort("field", SortOrder.ASC)
+                    .setSearchAfter(0).get();
+            fail("search_after with from > 0 should fail");
+        } catch (SearchPhaseExecutionException e) {
+            // expected
+        }
+        try {
+            client().prepareSearch("test").setQuery(matchAllQuery()).setScroll(TimeValue.timeValueMinutes(1)).addSort("field", SortOrder.ASC)
+                    .setSearchAfter(0).get();
+            fail("search_after with scroll should fail");
+        } catch (SearchPhaseExecutionException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.elasticsearch.search.sort;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.engine.IndexSort;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ */
+public class IndexSortTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testEarlyTerminationOnSortedSegments() throws Exception {
+        assertAcked(prepareCreate("test")
+                .setSettings(ImmutableSettings.settingsBuilder()
+                        .put("index.number_of_shards", 1)
+                        .put(IndexSort.INDEX_SORT_FIELD, "timestamp")
+                        .put(IndexSort.INDEX_SORT_ORDER, "desc"))
+                .addMapping("type", "timestamp", "type=long"));
+        ensureGreen();
+
+        int numDocs = scaledRandomIntBetween(100, 500);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("timestamp", randomIntBetween(0, 1000000)).get();
+            if (i == numDocs / 2 || rarely()) {
+                refresh();
+            }
+        }
+        // a merge sorts the segments
+        client().admin().indices().prepareOptimize("test").setMaxNumSegments(1).setFlush(true).get();
+        refresh();
+
+        int size = randomIntBetween(1, 20);
+        SearchResponse expected = client().prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .setSize(size)
+                .addSort("timestamp", SortOrder.DESC)
+                .addSort("_uid", SortOrder.ASC)
+                .get();
+        assertHitCount(expected, numDocs);
+        assertThat(expected.isTerminatedEarly(), nullValue());
+
+        SearchResponse searchResponse = client().prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .setSize(size)
+                .addSort("timestamp", SortOrder.DESC)
+                .get();
+        assertNoFailures(searchResponse);
+        assertThat(searchResponse.isTerminatedEarly(), equalTo(true));
+        assertThat(searchResponse.getHits().totalHits(), lessThanOrEqualTo((long) numDocs));
+        assertThat(searchResponse.getHits().hits().length, equalTo(size));
+        for (int i = 0; i < size; i++) {
+            assertThat(searchResponse.getHits().getAt(i).sortValues()[0], equalTo(expected.getHits().getAt(i).sortValues()[0]));
+        }
+
+        // aggregations need all hits
+        searchResponse = client().prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .setSize(size)
+                .addSort("timestamp", SortOrder.DESC)
+                .addAggregation(terms("terms").field("timestamp"))
+                .get();
+        assertHitCount(searchResponse, numDocs);
+        assertThat(searchResponse.isTerminatedEarly(), nullValue());
+    }
+}
@@ -106,6 +106,8 @@ public class SearchStatsTests extends ElasticsearchIntegrationTest {
         assertThat(indicesStats.getTotal().getSearch().getTotal().getFetchCount(), greaterThan(0l));
         assertThat(indicesStats.getTotal().getSearch().getTotal().getFetchTimeInMillis(), greaterThan(0l));
         assertThat(indicesStats.getTotal().getSearch().getGroupStats(), nullValue());
+        assertThat(indicesStats.getTotal().getSearch().getFetchSubPhaseTimeInMillis(), notNullValue());
+        assertThat(indicesStats.getTotal().getSearch().getFetchSubPhaseTimeInMillis().keySet(), hasItems("highlight", "script_fields"));
 
         indicesStats = client().admin().indices().prepareStats().setGroups("group1").execute().actionGet();
         assertThat(indicesStats.getTotal().getSearch().getGroupStats(), notNullValue());
@@ -31,12 +31,17 @@ import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotR
 import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotStatus;
 import org.elasticsearch.action.admin.cluster.snapshots.status.SnapshotsStatusResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.RestoreMetaData;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.store.support.AbstractIndexStore;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.snapshots.mockstore.MockRepository;
 import org.elasticsearch.snapshots.mockstore.MockRepositoryModule;
+import org.elasticsearch.test.InternalTestCluster;
 import org.elasticsearch.test.junit.annotations.TestLogging;
 import org.elasticsearch.test.store.MockDirectoryHelper;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -299,6 +304,142 @@ public class DedicatedClusterSnapshotRestoreTests extends AbstractSnapshotTests
         assertThat(client().prepareCount("test-idx-2").get().getCount(), equalTo(100L));
     }
 
+    @Test
+    public void lazyRestoreResumesAfterRestartTest() throws Exception {
+        logger.info("--> start a master and a data node");
+        internalCluster().startNode(settingsBuilder().put("gateway.type", "local").put("node.data", false));
+        final String dataNode = internalCluster().startNode(settingsBuilder().put("gateway.type", "local"));
+
+        assertAcked(prepareCreate("test-idx", 2, settingsBuilder().put("number_of_shards", 1)
+                .put("number_of_replicas", 0)
+                .put(MockDirectoryHelper.RANDOM_NO_DELETE_OPEN_FILE, false)));
+        ensureGreen();
+
+        logger.info("--> indexing some data");
+        for (int i = 0; i < 100; i++) {
+            index("test-idx", "doc", Integer.toString(i), "foo", "bar" + i);
+        }
+        refresh();
+
+        logger.info("--> creating repository that blocks the copy of lazily restored files");
+        assertAcked(client().admin().cluster().preparePutRepository("test-repo")
+                .setType(MockRepositoryModule.class.getCanonicalName()).setSettings(
+                        ImmutableSettings.settingsBuilder()
+                                .put("location", newTempDir(LifecycleScope.TEST))
+                                .put("random", randomAsciiOfLength(10))
+                                .put("lazy_restore", true)
+                                .put("block_on_copy", true)
+                                .put("wait_after_unblock", 5000)
+                ));
+
+        logger.info("--> snapshot");
+        CreateSnapshotResponse createSnapshotResponse = client().admin().cluster().prepareCreateSnapshot("test-repo", "test-snap").setWaitForCompletion(true).setIndices("test-idx").get();
+        assertThat(createSnapshotResponse.getSnapshotInfo().successfulShards(), equalTo(createSnapshotResponse.getSnapshotInfo().totalShards()));
+
+        logger.info("--> restore index lazily");
+        cluster().wipeIndices("test-idx");
+        client().admin().cluster().prepareRestoreSnapshot("test-repo", "test-snap").setWaitForCompletion(false).get();
+        waitForBlock(dataNode, "test-repo", TimeValue.timeValueSeconds(60));
+        ensureGreen();
+        assertThat(client().prepareCount("test-idx").get().getCount(), equalTo(100L));
+
+        logger.info("--> the restore is still running while files are copied");
+        assertThat(client().admin().cluster().prepareState().get().getState().metaData().custom(RestoreMetaData.TYPE), notNullValue());
+        assertThrows(client().admin().cluster().prepareDeleteSnapshot("test-repo", "test-snap"), ConcurrentSnapshotExecutionException.class);
+
+        logger.info("--> restart the data node before the copy is done");
+        unblockNode(dataNode);
+        internalCluster().restartRandomDataNode(new InternalTestCluster.RestartCallback() {
+            @Override
+            public Settings onNodeStopped(String nodeName) throws Exception {
+                return settingsBuilder().put("gateway.type", "local").build();
+            }
+        });
+        for (RepositoriesService repositoriesService : internalCluster().getInstances(RepositoriesService.class)) {
+            MockRepository repository = (MockRepository) repositoriesService.repository("test-repo");
+            repository.blockOnCopy(false);
+            repository.unblock();
+        }
+        ensureGreen();
+
+        logger.info("--> wait for the resumed copy to complete the restore");
+        assertThat(awaitBusy(new Predicate<Object>() {
+            @Override
+            public boolean apply(Object o) {
+                return client().admin().cluster().prepareState().get().getState().metaData().custom(RestoreMetaData.TYPE) == null;
+            }
+        }), equalTo(true));
+        assertThat(client().prepareCount("test-idx").get().getCount(), equalTo(100L));
+
+        logger.info("--> delete snapshot");
+        assertAcked(client().admin().cluster().prepareDeleteSnapshot("test-repo", "test-snap").get());
+        assertThat(client().prepareCount("test-idx").get().getCount(), equalTo(100L));
+    }
+
+    @Test
+    public void lazyRestoreCompletesWhenPrimaryRelocatesTest() throws Exception {
+        logger.info("--> start a master and two data nodes");
+        internalCluster().startNode(settingsBuilder().put("node.data", false));
+        internalCluster().startNode();
+        internalCluster().startNode();
+
+        assertAcked(prepareCreate("test-idx", 2, settingsBuilder().put("number_of_shards", 1)
+                .put("number_of_replicas", 0)
+                .put(MockDirectoryHelper.RANDOM_NO_DELETE_OPEN_FILE, false)));
+        ensureGreen();
+
+        logger.info("--> indexing some data");
+        for (int i = 0; i < 100; i++) {
+            index("test-idx", "doc", Integer.toString(i), "foo", "bar" + i);
+        }
+        refresh();
+
+        logger.info("--> creating repository that blocks the copy of lazily restored files");
+        assertAcked(client().admin().cluster().preparePutRepository("test-repo")
+                .setType(MockRepositoryModule.class.getCanonicalName()).setSettings(
+                        ImmutableSettings.settingsBuilder()
+                                .put("location", newTempDir(LifecycleScope.TEST))
+                                .put("random", randomAsciiOfLength(10))
+                                .put("lazy_restore", true)
+                                .put("block_on_copy", true)
+                ));
+
+        logger.info("--> snapshot");
+        CreateSnapshotResponse createSnapshotResponse = client().admin().cluster().prepareCreateSnapshot("test-repo", "test-snap").setWaitForCompletion(true).setIndices("test-idx").get();
+        assertThat(createSnapshotResponse.getSnapshotInfo().successfulShards(), equalTo(createSnapshotResponse.getSnapshotInfo().totalShards()));
+
+        logger.info("--> restore index lazily");
+        cluster().wipeIndices("test-idx");
+        client().admin().cluster().prepareRestoreSnapshot("test-repo", "test-snap").setWaitForCompletion(false).get();
+        ensureGreen();
+        ClusterState state = client().admin().cluster().prepareState().get().getState();
+        String restoringNode = state.nodes().get(state.routingTable().index("test-idx").shard(0).primaryShard().currentNodeId()).name();
+        waitForBlock(restoringNode, "test-repo", TimeValue.timeValueSeconds(60));
+        assertThat(client().admin().cluster().prepareState().get().getState().metaData().custom(RestoreMetaData.TYPE), notNullValue());
+
+        logger.info("--> relocate the primary away from [{}] while its files are copied", restoringNode);
+        assertAcked(client().admin().indices().prepareUpdateSettings("test-idx").setSettings(
+                settingsBuilder().put("index.routing.allocation.exclude._name", restoringNode)));
+        assertThat(client().admin().cluster().prepareHealth("test-idx").setWaitForEvents(Priority.LANGUID)
+                .setWaitForGreenStatus().setWaitForRelocatingShards(0).get().isTimedOut(), equalTo(false));
+        state = client().admin().cluster().prepareState().get().getState();
+        assertThat(state.nodes().get(state.routingTable().index("test-idx").shard(0).primaryShard().currentNodeId()).name(), not(equalTo(restoringNode)));
+
+        logger.info("--> the relocated primary completes the restore");
+        assertThat(awaitBusy(new Predicate<Object>() {
+            @Override
+            public boolean apply(Object o) {
+                return client().admin().cluster().prepareState().get().getState().metaData().custom(RestoreMetaData.TYPE) == null;
+            }
+        }), equalTo(true));
+        unblockNode(restoringNode);
+        assertThat(client().prepareCount("test-idx").get().getCount(), equalTo(100L));
+
+        logger.info("--> the relocated primary doesn't depend on the snapshot anymore");
+        assertAcked(client().admin().cluster().prepareDeleteSnapshot("test-repo", "test-snap").get());
+        assertThat(client().prepareCount("test-idx").get().getCount(), equalTo(100L));
+    }
+
     @Test
     @TestLogging("snapshots:TRACE,repositories:TRACE")
     @Ignore
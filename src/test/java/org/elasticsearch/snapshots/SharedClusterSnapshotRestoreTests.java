@@ -38,13 +38,24 @@ import org.elasticsearch.action.count.CountResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.cluster.metadata.RestoreMetaData;
 import org.elasticsearch.cluster.metadata.SnapshotMetaData;
 import org.elasticsearch.cluster.routing.allocation.decider.FilterAllocationDecider;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.service.IndexService;
+import org.elasticsearch.index.shard.service.IndexShard;
+import org.elasticsearch.index.shard.service.InternalIndexShard;
+import org.elasticsearch.index.snapshots.blobstore.LazyRestoreDirectory;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.index.store.support.AbstractIndexStore;
+import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.InvalidIndexNameException;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.snapshots.mockstore.MockRepositoryModule;
@@ -53,9 +64,11 @@ import org.elasticsearch.test.store.MockDirectoryHelper;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.cluster.metadata.IndexMetaData.*;
+import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.*;
 import static org.hamcrest.Matchers.*;
 
@@ -144,6 +157,76 @@ public class SharedClusterSnapshotRestoreTests extends AbstractSnapshotTests {
         assertThat(clusterState.getMetaData().hasIndex("test-idx-2"), equalTo(false));
     }
 
+    @Test
+    public void lazyRestoreTest() throws Exception {
+        Client client = client();
+
+        logger.info("-->  creating repository");
+        assertAcked(client.admin().cluster().preparePutRepository("test-repo")
+                .setType("fs").setSettings(ImmutableSettings.settingsBuilder()
+                        .put("location", newTempDir(LifecycleScope.SUITE))
+                        .put("chunk_size", randomIntBetween(100, 1000))
+                        .put("lazy_restore", true)
+                        .put("lazy_restore_cache_size", randomIntBetween(1000, 100000))));
+
+        createIndex("test-idx");
+        ensureGreen();
+
+        logger.info("--> indexing some data");
+        for (int i = 0; i < 100; i++) {
+            index("test-idx", "doc", Integer.toString(i), "foo", "bar" + i);
+        }
+        refresh();
+
+        logger.info("--> snapshot");
+        CreateSnapshotResponse createSnapshotResponse = client.admin().cluster().prepareCreateSnapshot("test-repo", "test-snap").setWaitForCompletion(true).setIndices("test-idx").get();
+        assertThat(createSnapshotResponse.getSnapshotInfo().successfulShards(), greaterThan(0));
+        assertThat(createSnapshotResponse.getSnapshotInfo().successfulShards(), equalTo(createSnapshotResponse.getSnapshotInfo().totalShards()));
+
+        logger.info("--> delete index");
+        cluster().wipeIndices("test-idx");
+
+        logger.info("--> restore index lazily");
+        RestoreSnapshotResponse restoreSnapshotResponse = client.admin().cluster().prepareRestoreSnapshot("test-repo", "test-snap").setWaitForCompletion(true).execute().actionGet();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().totalShards(), greaterThan(0));
+
+        ensureGreen();
+        assertThat(client.prepareCount("test-idx").get().getCount(), equalTo(100L));
+        assertHitCount(client.prepareSearch("test-idx").setQuery(matchQuery("foo", "bar42")).get(), 1);
+
+        logger.info("--> check that the restore only completed once all files were copied");
+        assertThat(client.admin().cluster().prepareState().get().getState().metaData().custom(RestoreMetaData.TYPE), nullValue());
+        assertLazilyRestoredFilesAreLocal("test-idx");
+
+        logger.info("--> delete snapshot, the restored shards no longer need it");
+        assertThat(client.admin().cluster().prepareDeleteSnapshot("test-repo", "test-snap").get().isAcknowledged(), equalTo(true));
+        assertThat(client.prepareCount("test-idx").get().getCount(), equalTo(100L));
+        assertHitCount(client.prepareSearch("test-idx").setQuery(matchQuery("foo", "bar42")).get(), 1);
+
+        logger.info("--> index more data on top of the lazily restored shards");
+        for (int i = 100; i < 150; i++) {
+            index("test-idx", "doc", Integer.toString(i), "foo", "bar" + i);
+        }
+        refresh();
+        assertThat(client.prepareCount("test-idx").get().getCount(), equalTo(150L));
+    }
+
+    private void assertLazilyRestoredFilesAreLocal(String index) throws IOException {
+        for (IndicesService indicesService : internalCluster().getInstances(IndicesService.class)) {
+            IndexService indexService = indicesService.indexService(index);
+            if (indexService == null) {
+                continue;
+            }
+            for (IndexShard indexShard : indexService) {
+                Store store = ((InternalIndexShard) indexShard).store();
+                assertThat(store.readLazyRestoreSource(), nullValue());
+                for (StoreFileMetaData metaData : store.list().values()) {
+                    assertThat("file [" + metaData.name() + "] is still read from the repository", metaData.directory(), not(instanceOf(LazyRestoreDirectory.class)));
+                }
+            }
+        }
+    }
+
     @Test
     public void restoreWithDifferentMappingsAndSettingsTest() throws Exception {
         Client client = client();
@@ -1099,6 +1182,80 @@ public class SharedClusterSnapshotRestoreTests extends AbstractSnapshotTests {
     }
 
 
+    @Test
+    public void chunkedSnapshotStatusTest() throws Exception {
+        Client client = client();
+        logger.info("-->  creating repositories with small chunks");
+        assertAcked(client.admin().cluster().preparePutRepository("test-repo")
+                .setType(MockRepositoryModule.class.getCanonicalName()).setSettings(
+                        ImmutableSettings.settingsBuilder()
+                                .put("location", newTempDir(LifecycleScope.TEST))
+                                .put("random", randomAsciiOfLength(10))
+                                .put("chunk_size", randomIntBetween(100, 1000))));
+        assertAcked(client.admin().cluster().preparePutRepository("test-repo-failing")
+                .setType(MockRepositoryModule.class.getCanonicalName()).setSettings(
+                        ImmutableSettings.settingsBuilder()
+                                .put("location", newTempDir(LifecycleScope.TEST))
+                                .put("random", randomAsciiOfLength(10))
+                                .put("chunk_size", randomIntBetween(100, 1000))
+                                .put("random_data_file_io_exception_rate", 0.1)));
+
+        assertAcked(prepareCreate("test-idx", 1, ImmutableSettings.builder().put("number_of_shards", 1).put("number_of_replicas", 0)));
+        ensureGreen();
+
+        logger.info("--> indexing some data");
+        for (int i = 0; i < 100; i++) {
+            index("test-idx", "doc", Integer.toString(i), "foo", "bar" + i);
+        }
+        refresh();
+        assertThat(client.prepareCount("test-idx").get().getCount(), equalTo(100L));
+
+        String blockedNode = blockNodeWithIndex("test-idx");
+
+        logger.info("--> snapshot");
+        client.admin().cluster().prepareCreateSnapshot("test-repo", "test-snap").setWaitForCompletion(false).setIndices("test-idx").get();
+        waitForBlock(blockedNode, "test-repo", TimeValue.timeValueSeconds(60));
+
+        logger.info("--> checking the progress of the running snapshot");
+        SnapshotStatus snapshotStatus = client.admin().cluster().prepareSnapshotStatus("test-repo").get().getSnapshots().get(0);
+        SnapshotStats stats = snapshotStatus.getStats();
+        assertThat(stats.getNumberOfFiles(), greaterThan(0));
+        assertThat(stats.getProcessedFiles(), lessThan(stats.getNumberOfFiles()));
+        assertThat(stats.getProcessedSize(), lessThan(stats.getTotalSize()));
+        assertThat(stats.getThroughput(), greaterThanOrEqualTo(0L));
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        stats.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        assertThat(builder.endObject().string(), containsString("\"throughput_in_bytes_per_sec\""));
+
+        unblockNode(blockedNode);
+        // the snapshot can only finish once the latch was counted down exactly once per file, after all its parts
+        SnapshotInfo snapshotInfo = waitForCompletion("test-repo", "test-snap", TimeValue.timeValueSeconds(60));
+        assertThat(snapshotInfo.state(), equalTo(SnapshotState.SUCCESS));
+
+        snapshotStatus = client.admin().cluster().prepareSnapshotStatus("test-repo").addSnapshots("test-snap").get().getSnapshots().get(0);
+        stats = snapshotStatus.getStats();
+        assertThat(stats.getProcessedFiles(), equalTo(stats.getNumberOfFiles()));
+        assertThat(stats.getProcessedSize(), equalTo(stats.getTotalSize()));
+        assertThat(stats.getEstimatedTimeRemaining(), equalTo(0L));
+
+        logger.info("--> restore the chunked snapshot");
+        client.admin().indices().prepareClose("test-idx").get();
+        RestoreSnapshotResponse restoreSnapshotResponse = client.admin().cluster().prepareRestoreSnapshot("test-repo", "test-snap").setWaitForCompletion(true).get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+        ensureGreen();
+        assertThat(client.prepareCount("test-idx").get().getCount(), equalTo(100L));
+
+        logger.info("--> snapshot with failing data file parts");
+        CreateSnapshotResponse createSnapshotResponse = client.admin().cluster().prepareCreateSnapshot("test-repo-failing", "test-snap").setWaitForCompletion(true).setIndices("test-idx").get();
+        if (createSnapshotResponse.getSnapshotInfo().successfulShards() == createSnapshotResponse.getSnapshotInfo().totalShards()) {
+            assertThat(getFailureCount("test-repo-failing"), equalTo(0L));
+        } else {
+            assertThat(getFailureCount("test-repo-failing"), greaterThan(0L));
+            assertThat(createSnapshotResponse.getSnapshotInfo().shardFailures().size(), greaterThan(0));
+        }
+    }
+
+
     @Test
     public void snapshotRelocatingPrimary() throws Exception {
         Client client = client();
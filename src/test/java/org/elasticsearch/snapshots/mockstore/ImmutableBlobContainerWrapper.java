@@ -66,6 +66,11 @@ public class ImmutableBlobContainerWrapper implements ImmutableBlobContainer {
         return delegate.readBlobFully(blobName);
     }
 
+    @Override
+    public byte[] readBlobRange(String blobName, long offset, int length) throws IOException {
+        return delegate.readBlobRange(blobName, offset, length);
+    }
+
     @Override
     public boolean deleteBlob(String blobName) throws IOException {
         return delegate.deleteBlob(blobName);
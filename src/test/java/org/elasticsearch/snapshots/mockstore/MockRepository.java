@@ -69,6 +69,8 @@ public class MockRepository extends FsRepository {
 
     private volatile boolean blockOnDataFiles;
 
+    private volatile boolean blockOnCopy;
+
     private volatile boolean blocked = false;
 
     @Inject
@@ -78,6 +80,7 @@ public class MockRepository extends FsRepository {
         randomDataFileIOExceptionRate = repositorySettings.settings().getAsDouble("random_data_file_io_exception_rate", 0.0);
         blockOnControlFiles = repositorySettings.settings().getAsBoolean("block_on_control", false);
         blockOnDataFiles = repositorySettings.settings().getAsBoolean("block_on_data", false);
+        blockOnCopy = repositorySettings.settings().getAsBoolean("block_on_copy", false);
         randomPrefix = repositorySettings.settings().get("random");
         waitAfterUnblock = repositorySettings.settings().getAsLong("wait_after_unblock", 0L);
         logger.info("starting mock repository with random prefix " + randomPrefix);
@@ -115,6 +118,10 @@ public class MockRepository extends FsRepository {
         blockOnControlFiles = blocked;
     }
 
+    public void blockOnCopy(boolean blocked) {
+        blockOnCopy = blocked;
+    }
+
     public class MockBlobStore extends BlobStoreWrapper {
         ConcurrentMap<String, AtomicLong> accessCounts = new ConcurrentHashMap<>();
 
@@ -144,6 +151,7 @@ public class MockRepository extends FsRepository {
                 // Clean blocking flags, so we wouldn't try to block again
                 blockOnDataFiles = false;
                 blockOnControlFiles = false;
+                blockOnCopy = false;
                 this.notifyAll();
             }
         }
@@ -155,7 +163,7 @@ public class MockRepository extends FsRepository {
         private synchronized boolean blockExecution() {
             boolean wasBlocked = false;
             try {
-                while (blockOnDataFiles || blockOnControlFiles) {
+                while (blockOnDataFiles || blockOnControlFiles || blockOnCopy) {
                     blocked = true;
                     this.wait();
                     wasBlocked = true;
@@ -253,6 +261,48 @@ public class MockRepository extends FsRepository {
             }
 
 
+            private class BlockingReadBlobListener implements ReadBlobListener {
+
+                private final String blobName;
+
+                private final ReadBlobListener delegate;
+
+                private boolean first = true;
+
+                BlockingReadBlobListener(String blobName, ReadBlobListener delegate) {
+                    this.blobName = blobName;
+                    this.delegate = delegate;
+                }
+
+                @Override
+                public void onPartial(byte[] data, int offset, int size) throws IOException {
+                    if (first) {
+                        first = false;
+                        logger.info("blocking copy of file [{}] at path [{}]", blobName, path());
+                        if (blockExecution() && waitAfterUnblock > 0) {
+                            try {
+                                // Delay operation after unblocking
+                                // So, we can start node shutdown while this operation is still ongoing.
+                                Thread.sleep(waitAfterUnblock);
+                            } catch (InterruptedException ex) {
+                                //
+                            }
+                        }
+                    }
+                    delegate.onPartial(data, offset, size);
+                }
+
+                @Override
+                public void onCompleted() {
+                    delegate.onCompleted();
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    delegate.onFailure(t);
+                }
+            }
+
             public MockImmutableBlobContainer(ImmutableBlobContainer delegate) {
                 super(delegate);
             }
@@ -278,6 +328,10 @@ public class MockRepository extends FsRepository {
             @Override
             public void readBlob(String blobName, ReadBlobListener listener) {
                 if (maybeIOExceptionOrBlock(blobName, listener)) {
+                    if (blockOnCopy && blobName.startsWith("__")) {
+                        // block while the data is copied rather than in the caller, so lazily restored shards still start
+                        listener = new BlockingReadBlobListener(blobName, listener);
+                    }
                     super.readBlob(blobName, listener);
                 }
             }
@@ -288,6 +342,12 @@ public class MockRepository extends FsRepository {
                 return super.readBlobFully(blobName);
             }
 
+            @Override
+            public byte[] readBlobRange(String blobName, long offset, int length) throws IOException {
+                maybeIOExceptionOrBlock(blobName);
+                return super.readBlobRange(blobName, offset, length);
+            }
+
             @Override
             public boolean deleteBlob(String blobName) throws IOException {
                 maybeIOExceptionOrBlock(blobName);
@@ -1027,6 +1027,18 @@ public final class InternalTestCluster extends TestCluster {
         restartRandomNode(new DataNodePredicate(), callback);
     }
 
+    /**
+     * Restarts the node with the given name and calls the callback during restart.
+     */
+    public void restartNode(String nodeName, RestartCallback callback) throws Exception {
+        ensureOpen();
+        NodeAndClient nodeAndClient = nodes.get(nodeName);
+        if (nodeAndClient != null) {
+            logger.info("Restarting node [{}] ", nodeAndClient.name);
+            nodeAndClient.restart(callback);
+        }
+    }
+
     /**
      * Restarts a random node in the cluster and calls the callback during restart.
      */
@@ -32,6 +32,7 @@ import org.elasticsearch.test.InternalTestCluster;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Random;
@@ -96,6 +97,8 @@ public class MockPageCacheRecycler extends PageCacheRecycler {
                     Arrays.fill((double[])ref, 0, Array.getLength(ref), random.nextDouble() - 0.5);
                 } else if (ref instanceof float[]) {
                     Arrays.fill((float[])ref, 0, Array.getLength(ref), random.nextFloat() - 0.5f);
+                } else if (ref instanceof ByteBuffer) {
+                    randomize((ByteBuffer) ref);
                 } else {
                     for (int i = 0; i < Array.getLength(ref); ++i) {
                             Array.set(ref, i, (byte) random.nextInt(256));
@@ -158,4 +161,20 @@ public class MockPageCacheRecycler extends PageCacheRecycler {
         return wrap(super.objectPage());
     }
 
+    @Override
+    public V<ByteBuffer> directPage(boolean clear) {
+        final V<ByteBuffer> page = super.directPage(clear);
+        if (!clear) {
+            randomize(page.v());
+        }
+        return wrap(page);
+    }
+
+    private void randomize(ByteBuffer page) {
+        final byte value = (byte) random.nextInt(256);
+        for (int i = 0; i < page.capacity(); ++i) {
+            page.put(i, value);
+        }
+    }
+
 }
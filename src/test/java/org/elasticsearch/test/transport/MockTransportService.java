@@ -108,6 +108,38 @@ public class MockTransportService extends TransportService {
         });
     }
 
+    /**
+     * Adds a rule that hands every request sent to the provided node to the given behavior, which decides
+     * if, when and in which order the requests are sent on the original transport.
+     */
+    public void addSendBehavior(DiscoveryNode node, final SendRequestBehavior behavior) {
+        ((LookupTestTransport) transport).transports.put(node, new DelegateTransport(original) {
+            @Override
+            public void sendRequest(DiscoveryNode node, long requestId, String action, TransportRequest request, TransportRequestOptions options) throws IOException, TransportException {
+                behavior.sendRequest(original, node, requestId, action, request, options);
+            }
+        });
+    }
+
+    /**
+     * Fails a request that was held back by a {@link SendRequestBehavior}, as if the node had responded with the
+     * provided exception.
+     */
+    public void failRequest(long requestId, TransportException e) {
+        TransportResponseHandler handler = ((LookupTestTransport) transport).adapter.remove(requestId);
+        if (handler != null) {
+            handler.handleException(e);
+        }
+    }
+
+    /**
+     * Sends (or holds back) the requests to a node, see {@link #addSendBehavior(DiscoveryNode, SendRequestBehavior)}.
+     */
+    public static interface SendRequestBehavior {
+
+        void sendRequest(Transport transport, DiscoveryNode node, long requestId, String action, TransportRequest request, TransportRequestOptions options) throws IOException;
+    }
+
     /**
      * A lookup transport that has a list of potential Transport implementations to delegate to for node operations,
      * if none is registered, then the default one is used.
@@ -116,10 +148,18 @@ public class MockTransportService extends TransportService {
 
         final ConcurrentMap<DiscoveryNode, Transport> transports = ConcurrentCollections.newConcurrentMap();
 
+        volatile TransportServiceAdapter adapter;
+
         LookupTestTransport(Transport transport) {
             super(transport);
         }
 
+        @Override
+        public void transportServiceAdapter(TransportServiceAdapter service) {
+            this.adapter = service;
+            super.transportServiceAdapter(service);
+        }
+
         private Transport getTransport(DiscoveryNode node) {
             Transport transport = transports.get(node);
             if (transport != null) {